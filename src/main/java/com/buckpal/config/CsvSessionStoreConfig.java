@@ -0,0 +1,47 @@
+package com.buckpal.config;
+
+import com.buckpal.repository.CsvImportSessionRepository;
+import com.buckpal.service.csv.CsvSessionStore;
+import com.buckpal.service.csv.DatabaseCsvSessionStore;
+import com.buckpal.service.csv.InMemoryCsvSessionStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@Configuration
+public class CsvSessionStoreConfig {
+    
+    // memory: single node, bounded heap with spill to disk; database: shared across nodes
+    @Value("${app.csv-import.session.store:memory}")
+    private String storeType;
+    
+    @Value("${app.csv-import.session.ttl-minutes:30}")
+    private long ttlMinutes;
+    
+    @Value("${app.csv-import.session.max-bytes:268435456}")
+    private long maxBytes;
+    
+    @Value("${app.csv-import.session.spill-threshold-bytes:1048576}")
+    private long spillThresholdBytes;
+    
+    @Value("${app.csv-import.session.max-spill-bytes:1073741824}")
+    private long maxSpillBytes;
+    
+    @Value("${app.csv-import.session.spill-directory:${java.io.tmpdir}}")
+    private String spillDirectory;
+    
+    @Bean
+    public CsvSessionStore csvSessionStore(CsvImportSessionRepository csvImportSessionRepository,
+                                           ObjectMapper objectMapper) {
+        Duration ttl = Duration.ofMinutes(ttlMinutes);
+        if ("database".equalsIgnoreCase(storeType)) {
+            return new DatabaseCsvSessionStore(csvImportSessionRepository, objectMapper, ttl);
+        }
+        return new InMemoryCsvSessionStore(ttl, maxBytes, spillThresholdBytes, maxSpillBytes,
+                Paths.get(spillDirectory));
+    }
+}
@@ -1,6 +1,9 @@
 package com.buckpal.config;
 
 import com.buckpal.service.CategoryService;
+import com.buckpal.service.IntelligentAssignmentMigrationService;
+import com.buckpal.service.rollup.DailyAccountTotalsService;
+import com.buckpal.service.rollup.MonthlyCategorySpendService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -11,8 +14,32 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private CategoryService categoryService;
     
+    @Autowired
+    private IntelligentAssignmentMigrationService intelligentAssignmentMigrationService;
+    
+    @Autowired
+    private DailyAccountTotalsService dailyAccountTotalsService;
+    
+    @Autowired
+    private MonthlyCategorySpendService monthlyCategorySpendService;
+    
     @Override
     public void run(String... args) throws Exception {
         //categoryService.initializeDefaultCategories();
+        try {
+            intelligentAssignmentMigrationService.ensurePatternsMigrated();
+        } catch (Exception e) {
+            System.err.println("Merchant pattern migration failed at startup: " + e.getMessage());
+        }
+        try {
+            dailyAccountTotalsService.ensureBackfilled();
+        } catch (Exception e) {
+            System.err.println("Daily totals backfill failed at startup: " + e.getMessage());
+        }
+        try {
+            monthlyCategorySpendService.ensureBackfilled();
+        } catch (Exception e) {
+            System.err.println("Monthly category spend backfill failed at startup: " + e.getMessage());
+        }
     }
 }
\ No newline at end of file
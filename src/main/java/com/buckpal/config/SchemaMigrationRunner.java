@@ -0,0 +1,45 @@
+package com.buckpal.config;
+
+import com.buckpal.service.SchemaMigrationService;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the versioned schema migrations before the web server starts accepting requests, then
+ * stops the application if a required index is missing.
+ *
+ * Runs once the singletons are created (an ApplicationRunner would only run once the server is up),
+ * after the entity manager factory so that Hibernate has created the tables the scripts alter.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@Lazy(false) // must be created eagerly for the migrations to run at startup
+public class SchemaMigrationRunner implements SmartInitializingSingleton {
+
+    private final SchemaMigrationService schemaMigrationService;
+    private final boolean migrationsEnabled;
+    private final boolean verifyIndexes;
+
+    @Autowired
+    public SchemaMigrationRunner(SchemaMigrationService schemaMigrationService,
+                                 @Value("${app.schema-migrations.enabled:true}") boolean migrationsEnabled,
+                                 @Value("${app.schema-migrations.verify-indexes:true}") boolean verifyIndexes) {
+        this.schemaMigrationService = schemaMigrationService;
+        this.migrationsEnabled = migrationsEnabled;
+        this.verifyIndexes = verifyIndexes;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (migrationsEnabled) {
+            schemaMigrationService.migrate();
+        }
+        if (verifyIndexes) {
+            schemaMigrationService.verifyRequiredIndexes();
+        }
+    }
+}
@@ -123,6 +123,21 @@ public class BudgetController {
         }
     }
     
+    /**
+     * Rebuild spent amounts from transactions (repair path, reads use the maintained monthly rollup)
+     */
+    @PostMapping("/{budgetId}/recalculate")
+    public ResponseEntity<BudgetDto> recalculateBudget(
+            @PathVariable Long budgetId,
+            Authentication authentication) {
+        try {
+            User user = (User) authentication.getPrincipal();
+            return ResponseEntity.ok(budgetService.recalculateBudget(user, budgetId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     @PostMapping("/from-previous")
     public ResponseEntity<BudgetDto> createBudgetFromPrevious(
             @RequestParam Integer month,
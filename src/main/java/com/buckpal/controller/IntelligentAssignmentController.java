@@ -1,19 +1,19 @@
 package com.buckpal.controller;
 
+import com.buckpal.entity.BulkAssignmentJob;
 import com.buckpal.entity.Transaction;
 import com.buckpal.entity.User;
+import com.buckpal.service.BulkAssignmentService;
 import com.buckpal.service.IntelligentAssignmentMigrationService;
 import com.buckpal.service.SmartTransactionAssignmentService;
 import com.buckpal.service.SmartTransactionAssignmentService.SmartAssignmentResult;
 import com.buckpal.repository.TransactionRepository;
-import com.buckpal.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,13 +27,13 @@ public class IntelligentAssignmentController {
     private SmartTransactionAssignmentService smartAssignmentService;
     
     @Autowired
-    private IntelligentAssignmentMigrationService migrationService;
+    private BulkAssignmentService bulkAssignmentService;
     
     @Autowired
-    private TransactionRepository transactionRepository;
+    private IntelligentAssignmentMigrationService migrationService;
     
     @Autowired
-    private UserRepository userRepository;
+    private TransactionRepository transactionRepository;
 
     /**
      * Get intelligent category suggestion for a specific transaction
@@ -44,11 +44,7 @@ public class IntelligentAssignmentController {
             Authentication authentication) {
         
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
-            if (user == null) {
-                return ResponseEntity.badRequest().build();
-            }
+            User user = (User) authentication.getPrincipal();
             
             Transaction transaction = transactionRepository.findById(transactionId).orElse(null);
             if (transaction == null) {
@@ -64,59 +60,22 @@ public class IntelligentAssignmentController {
     }
 
     /**
-     * Perform bulk intelligent assignment for unassigned transactions
+     * Start bulk intelligent assignment of unassigned transactions as a background job
      */
     @PostMapping("/bulk-assign")
     public ResponseEntity<Map<String, Object>> performBulkIntelligentAssignment(
             Authentication authentication) {
         
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
-            if (user == null) {
-                return ResponseEntity.badRequest().build();
-            }
-            
-            // Get unassigned transactions for this user
-            List<Transaction> unassignedTransactions = transactionRepository.findByUserAndDetailedCategoryIsNull(user);
-            
-            int totalTransactions = unassignedTransactions.size();
-            int assigned = 0;
-            int needsReview = 0;
+            User user = (User) authentication.getPrincipal();
             
-            Map<String, Integer> strategyCounts = new HashMap<>();
-            
-            for (Transaction transaction : unassignedTransactions) {
-                SmartAssignmentResult result = smartAssignmentService.assignCategoryToTransaction(transaction, user);
-                
-                if (result.categoryId != null && result.confidence.doubleValue() >= 0.7) {
-                    // High confidence - auto assign
-                    transaction.setDetailedCategoryId(result.categoryId);
-                    transaction.setAssignmentConfidence(result.confidence);
-                    transactionRepository.save(transaction);
-                    assigned++;
-                } else if (result.categoryId != null) {
-                    // Low confidence - mark for review
-                    transaction.setDetailedCategoryId(result.categoryId);
-                    transaction.setAssignmentConfidence(result.confidence);
-                    transaction.setNeedsReview(true);
-                    transactionRepository.save(transaction);
-                    needsReview++;
-                }
-                
-                // Count strategies
-                strategyCounts.put(result.strategy, strategyCounts.getOrDefault(result.strategy, 0) + 1);
-            }
+            BulkAssignmentJob job = bulkAssignmentService.startJob(user);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("totalTransactions", totalTransactions);
-            response.put("assigned", assigned);
-            response.put("needsReview", needsReview);
-            response.put("unassigned", totalTransactions - assigned - needsReview);
-            response.put("strategyBreakdown", strategyCounts);
+            Map<String, Object> response = bulkAssignmentService.describe(job);
+            response.put("statusUrl", "/api/intelligent-assignment/bulk-assign/" + job.getJobId());
             response.put("success", true);
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.accepted().body(response);
             
         } catch (Exception e) {
             Map<String, Object> error = new HashMap<>();
@@ -126,6 +85,21 @@ public class IntelligentAssignmentController {
         }
     }
 
+    /**
+     * Progress of a bulk assignment job
+     */
+    @GetMapping("/bulk-assign/{jobId}")
+    public ResponseEntity<Map<String, Object>> getBulkAssignmentStatus(
+            @PathVariable String jobId,
+            Authentication authentication) {
+        
+        User user = (User) authentication.getPrincipal();
+        
+        return bulkAssignmentService.findJob(jobId, user)
+            .map(job -> ResponseEntity.ok(bulkAssignmentService.describe(job)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Migrate legacy patterns to new category system
      */
@@ -158,11 +132,7 @@ public class IntelligentAssignmentController {
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getIntelligentAssignmentStats(Authentication authentication) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
-            if (user == null) {
-                return ResponseEntity.badRequest().build();
-            }
+            User user = (User) authentication.getPrincipal();
             
             // Get transaction statistics
             long totalTransactions = transactionRepository.countByUser(user);
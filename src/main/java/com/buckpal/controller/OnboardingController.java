@@ -1,7 +1,6 @@
 package com.buckpal.controller;
 
 import com.buckpal.entity.User;
-import com.buckpal.repository.UserRepository;
 import com.buckpal.service.OnboardingService;
 import com.buckpal.service.OnboardingService.OnboardingStatus;
 import com.buckpal.service.OnboardingService.OnboardingProgress;
@@ -19,9 +18,6 @@ public class OnboardingController {
 
     @Autowired
     private OnboardingService onboardingService;
-    
-    @Autowired
-    private UserRepository userRepository;
 
     /**
      * Get current onboarding status for the authenticated user
@@ -29,12 +25,7 @@ public class OnboardingController {
     @GetMapping("/status")
     public ResponseEntity<OnboardingStatus> getOnboardingStatus(Authentication authentication) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
-            
-            if (user == null) {
-                return ResponseEntity.badRequest().build();
-            }
+            User user = (User) authentication.getPrincipal();
 
             OnboardingStatus status = onboardingService.getOnboardingStatus(user);
             return ResponseEntity.ok(status);
@@ -50,12 +41,7 @@ public class OnboardingController {
     @GetMapping("/progress")
     public ResponseEntity<OnboardingProgress> getOnboardingProgress(Authentication authentication) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
-            
-            if (user == null) {
-                return ResponseEntity.badRequest().build();
-            }
+            User user = (User) authentication.getPrincipal();
 
             OnboardingProgress progress = onboardingService.getOnboardingProgress(user);
             return ResponseEntity.ok(progress);
@@ -71,12 +57,7 @@ public class OnboardingController {
     @GetMapping("/ai-availability")
     public ResponseEntity<Map<String, Object>> checkAiAvailability(Authentication authentication) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
-            
-            if (user == null) {
-                return ResponseEntity.badRequest().build();
-            }
+            User user = (User) authentication.getPrincipal();
 
             boolean aiAvailable = onboardingService.isIntelligentAssignmentAvailable(user);
             OnboardingStatus status = onboardingService.getOnboardingStatus(user);
@@ -129,12 +110,7 @@ public class OnboardingController {
             @RequestParam(required = false, defaultValue = "false") boolean accepted,
             Authentication authentication) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
-            
-            if (user == null) {
-                return ResponseEntity.badRequest().build();
-            }
+            User user = (User) authentication.getPrincipal();
 
             // Here you could store user preferences about AI feature
             // For now, just return success with the user's choice
@@ -160,12 +136,7 @@ public class OnboardingController {
     @GetMapping("/tips")
     public ResponseEntity<Map<String, Object>> getOnboardingTips(Authentication authentication) {
         try {
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
-            
-            if (user == null) {
-                return ResponseEntity.badRequest().build();
-            }
+            User user = (User) authentication.getPrincipal();
 
             OnboardingStatus status = onboardingService.getOnboardingStatus(user);
             
@@ -239,6 +239,23 @@ public class RecurringPaymentController {
         }
     }
     
+    /**
+     * Get yearly projection over 1 to 30 years
+     */
+    @GetMapping("/long-term-projection")
+    public ResponseEntity<Map<String, Object>> getLongTermProjection(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(defaultValue = "10") int years,
+            Authentication authentication) {
+        try {
+            User user = (User) authentication.getPrincipal();
+            Map<String, Object> projection = recurringPaymentService.getLongTermProjection(user, startDate, years);
+            return ResponseEntity.ok(projection);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     /**
      * Get monthly amounts by payment type
      */
@@ -3,15 +3,22 @@ package com.buckpal.controller;
 import com.buckpal.dto.CalendarDayDto;
 import com.buckpal.dto.DeleteAllTransactionsResponse;
 import com.buckpal.dto.TransactionCountResponse;
+import com.buckpal.dto.TransactionCursor;
+import com.buckpal.dto.TransactionCursorPage;
 import com.buckpal.dto.TransactionDto;
+import com.buckpal.dto.TransactionSearchCriteria;
+import com.buckpal.dto.csv.CsvImportResult;
 import com.buckpal.entity.Account;
 import com.buckpal.entity.Transaction;
 import com.buckpal.entity.User;
 import com.buckpal.repository.AccountRepository;
+import com.buckpal.repository.DailyAccountTotalRepository;
 import com.buckpal.repository.TransactionRepository;
 import com.buckpal.service.CategoryService;
 import com.buckpal.service.CsvImportService;
+import com.buckpal.service.TransactionSearchService;
 import com.buckpal.service.TransactionService;
+import com.buckpal.service.rollup.DailyAccountTotalsService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,9 +33,14 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @RestController
@@ -38,6 +50,8 @@ public class TransactionController {
     
     private static final Logger logger = LoggerFactory.getLogger(TransactionController.class);
     
+    private static final int MAX_CURSOR_PAGE_SIZE = 200;
+    
     @Autowired
     private TransactionRepository transactionRepository;
     
@@ -53,6 +67,15 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
     
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+    
+    @Autowired
+    private DailyAccountTotalRepository dailyAccountTotalRepository;
+    
+    @Autowired
+    private DailyAccountTotalsService dailyAccountTotalsService;
+    
     @GetMapping
     public ResponseEntity<Page<TransactionDto>> getTransactions(
             Authentication authentication,
@@ -71,6 +94,60 @@ public class TransactionController {
         return ResponseEntity.ok(transactionDtos);
     }
     
+    /**
+     * Cursor-based listing: seeks past the (date, id) of the last row received instead of counting
+     * and skipping rows, so every page costs the same. An empty {@code after} starts from the newest.
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<TransactionCursorPage> getTransactionsAfter(
+            Authentication authentication,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        User user = (User) authentication.getPrincipal();
+        List<Account> userAccounts = accountRepository.findByUser(user);
+        if (userAccounts.isEmpty()) {
+            return ResponseEntity.ok(new TransactionCursorPage(List.of(), null));
+        }
+        
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        // One extra row tells whether there is a next page
+        Pageable fetch = PageRequest.of(0, limit + 1);
+        List<Transaction> transactions;
+        if (after.isBlank()) {
+            transactions = transactionRepository.findByAccountsOrderByTransactionDateDescIdDesc(userAccounts, fetch);
+        } else {
+            TransactionCursor cursor = TransactionCursor.decode(after);
+            transactions = transactionRepository.findByAccountsAfterCursor(
+                userAccounts, cursor.getTransactionDate(), cursor.getId(), fetch);
+        }
+        
+        String nextCursor = null;
+        if (transactions.size() > limit) {
+            transactions = transactions.subList(0, limit);
+            Transaction last = transactions.get(limit - 1);
+            nextCursor = new TransactionCursor(last.getTransactionDate(), last.getId()).encode();
+        }
+        
+        List<TransactionDto> transactionDtos = transactions.stream()
+            .map(this::convertToDto)
+            .collect(Collectors.toList());
+        
+        return ResponseEntity.ok(new TransactionCursorPage(transactionDtos, nextCursor));
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<Page<TransactionDto>> searchTransactions(
+            Authentication authentication,
+            @ModelAttribute TransactionSearchCriteria criteria) {
+        
+        User user = (User) authentication.getPrincipal();
+        Page<TransactionDto> transactionDtos = transactionSearchService.search(user, criteria)
+            .map(this::convertToDto);
+        
+        return ResponseEntity.ok(transactionDtos);
+    }
+    
     @GetMapping("/account/{accountId}")
     public ResponseEntity<List<TransactionDto>> getTransactionsByAccount(
             Authentication authentication,
@@ -117,15 +194,10 @@ public class TransactionController {
             throw new RuntimeException("Access denied");
         }
         
-        List<Transaction> importedTransactions = csvImportService.importTransactionsFromCsv(file, accountId);
+        // Parse, categorize and persist in chunks; balance and budgets are refreshed once
+        CsvImportResult result = csvImportService.importTransactionsStreaming(file, accountId);
         
-        // Auto-categorize imported transactions and save with balance updates
-        for (Transaction transaction : importedTransactions) {
-            transaction.setCategory(categoryService.categorizeTransaction(transaction));
-            transactionService.createTransaction(transaction);
-        }
-        
-        return ResponseEntity.ok().body("Imported " + importedTransactions.size() + " transactions");
+        return ResponseEntity.ok(result);
     }
     
     @GetMapping("/csv-template")
@@ -254,10 +326,69 @@ public class TransactionController {
         LocalDate start = LocalDate.parse(startDate);
         LocalDate end = LocalDate.parse(endDate);
         
-        List<Object[]> rawData = transactionRepository
-            .findCalendarDataRawByAccountsAndDateRange(userAccounts, start, end);
+        return ResponseEntity.ok(loadCalendarDays(userAccounts, start, end));
+    }
+    
+    @GetMapping("/calendar/weekly")
+    public ResponseEntity<List<CalendarDayDto>> getWeeklyCalendarData(
+            Authentication authentication,
+            @RequestParam String startDate,
+            @RequestParam String endDate) {
+        
+        User user = (User) authentication.getPrincipal();
+        List<Account> userAccounts = accountRepository.findByUser(user);
+        
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+        
+        // One entry per ISO week, dated on its Monday
+        Map<LocalDate, CalendarDayDto> weeks = new TreeMap<>();
+        for (CalendarDayDto day : loadCalendarDays(userAccounts, start, end)) {
+            LocalDate monday = day.getDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            CalendarDayDto week = weeks.computeIfAbsent(monday, date ->
+                new CalendarDayDto(date, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0L));
+            week.setTotalIncome(week.getTotalIncome().add(day.getTotalIncome()));
+            week.setTotalExpense(week.getTotalExpense().add(day.getTotalExpense()));
+            week.setNetAmount(week.getNetAmount().add(day.getNetAmount()));
+            week.setTransactionCount(week.getTransactionCount() + day.getTransactionCount());
+        }
+        
+        return ResponseEntity.ok(new ArrayList<>(weeks.values()));
+    }
+    
+    @GetMapping("/calendar/year/{year}")
+    public ResponseEntity<List<CalendarDayDto>> getYearHeatmapData(
+            Authentication authentication,
+            @PathVariable int year) {
+        
+        User user = (User) authentication.getPrincipal();
+        List<Account> userAccounts = accountRepository.findByUser(user);
+        
+        return ResponseEntity.ok(loadCalendarDays(userAccounts, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31)));
+    }
+    
+    @PostMapping("/calendar/rebuild")
+    public ResponseEntity<DailyAccountTotalsService.ConsistencyReport> rebuildCalendarData(Authentication authentication) {
+        User user = (User) authentication.getPrincipal();
+        List<Long> accountIds = accountRepository.findByUser(user).stream()
+            .map(Account::getId)
+            .collect(Collectors.toList());
+        
+        return ResponseEntity.ok(dailyAccountTotalsService.rebuild(accountIds));
+    }
+    
+    /**
+     * Days with transactions, read from the daily_account_totals rollup
+     */
+    private List<CalendarDayDto> loadCalendarDays(List<Account> userAccounts, LocalDate start, LocalDate end) {
+        if (userAccounts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> accountIds = userAccounts.stream().map(Account::getId).collect(Collectors.toList());
+        List<Object[]> rawData = dailyAccountTotalRepository
+            .findCalendarTotalsByAccountsAndDateRange(accountIds, start, end);
         
-        List<CalendarDayDto> calendarData = rawData.stream().map(row -> {
+        return rawData.stream().map(row -> {
             LocalDate date = (LocalDate) row[0];
             BigDecimal totalIncome = (BigDecimal) row[1];
             BigDecimal totalExpense = (BigDecimal) row[2];
@@ -272,8 +403,6 @@ public class TransactionController {
                 transactionCount != null ? transactionCount : 0L
             );
         }).collect(Collectors.toList());
-        
-        return ResponseEntity.ok(calendarData);
     }
     
     @DeleteMapping("/account/{accountId}/all")
@@ -0,0 +1,49 @@
+package com.buckpal.dto;
+
+import com.buckpal.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the transaction list, ordered by (transactionDate DESC, id DESC).
+ *
+ * Sent to clients as an opaque URL-safe token; the plain {@code yyyy-MM-dd,id} form is accepted too.
+ */
+public class TransactionCursor {
+    
+    private final LocalDate transactionDate;
+    private final Long id;
+    
+    public TransactionCursor(LocalDate transactionDate, Long id) {
+        this.transactionDate = transactionDate;
+        this.id = id;
+    }
+    
+    public String encode() {
+        String raw = transactionDate + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    public static TransactionCursor decode(String token) {
+        try {
+            String raw = token.indexOf(',') >= 0
+                ? token
+                : new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int comma = raw.indexOf(',');
+            if (comma < 0) {
+                throw new IllegalArgumentException("missing id");
+            }
+            return new TransactionCursor(
+                LocalDate.parse(raw.substring(0, comma).trim()),
+                Long.valueOf(raw.substring(comma + 1).trim()));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException("INVALID_CURSOR", "Invalid transaction cursor: " + token);
+        }
+    }
+    
+    public LocalDate getTransactionDate() { return transactionDate; }
+    public Long getId() { return id; }
+}
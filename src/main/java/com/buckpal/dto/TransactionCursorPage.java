@@ -0,0 +1,27 @@
+package com.buckpal.dto;
+
+import java.util.List;
+
+public class TransactionCursorPage {
+    
+    private List<TransactionDto> content;
+    private String nextCursor;
+    private boolean hasNext;
+    
+    public TransactionCursorPage() {}
+    
+    public TransactionCursorPage(List<TransactionDto> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+    
+    public List<TransactionDto> getContent() { return content; }
+    public void setContent(List<TransactionDto> content) { this.content = content; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+}
@@ -0,0 +1,78 @@
+package com.buckpal.dto;
+
+import com.buckpal.entity.Transaction.AssignmentStatus;
+import com.buckpal.entity.Transaction.TransactionType;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Query parameters of GET /api/transactions/search; every filter is optional.
+ */
+public class TransactionSearchCriteria {
+    
+    // Matched against description and merchant name, case-insensitive
+    private String query;
+    
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+    
+    private TransactionType type;
+    private Long categoryId;
+    private AssignmentStatus assignmentStatus;
+    private Long accountId;
+    
+    // date, amount, description, merchant, type, category, assignmentStatus or account
+    private String sort = "date";
+    private String direction = "desc";
+    private int page = 0;
+    private int size = 20;
+    
+    public TransactionSearchCriteria() {}
+    
+    public String getQuery() { return query; }
+    public void setQuery(String query) { this.query = query; }
+    
+    public BigDecimal getMinAmount() { return minAmount; }
+    public void setMinAmount(BigDecimal minAmount) { this.minAmount = minAmount; }
+    
+    public BigDecimal getMaxAmount() { return maxAmount; }
+    public void setMaxAmount(BigDecimal maxAmount) { this.maxAmount = maxAmount; }
+    
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+    
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+    
+    public TransactionType getType() { return type; }
+    public void setType(TransactionType type) { this.type = type; }
+    
+    public Long getCategoryId() { return categoryId; }
+    public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
+    
+    public AssignmentStatus getAssignmentStatus() { return assignmentStatus; }
+    public void setAssignmentStatus(AssignmentStatus assignmentStatus) { this.assignmentStatus = assignmentStatus; }
+    
+    public Long getAccountId() { return accountId; }
+    public void setAccountId(Long accountId) { this.accountId = accountId; }
+    
+    public String getSort() { return sort; }
+    public void setSort(String sort) { this.sort = sort; }
+    
+    public String getDirection() { return direction; }
+    public void setDirection(String direction) { this.direction = direction; }
+    
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+    
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+}
@@ -1,6 +1,7 @@
 package com.buckpal.dto.csv;
 
 import java.util.List;
+import java.util.Map;
 
 public class CsvImportResult {
     private String sessionId;
@@ -8,8 +9,14 @@ public class CsvImportResult {
     private int successfulImports;
     private int skippedRows;
     private int failedImports;
+    private int duplicateRows; // Imported rows flagged as possible duplicates, see warnings
     private List<String> errors;
+    private List<String> warnings;
     private List<Long> importedTransactionIds;
+    private boolean partial; // Stopped part-way: only the rows up to the first error were kept
+    private long durationMs;
+    private double rowsPerSecond;
+    private Map<String, Long> phaseTimingsMs; // Phase name -> duration, in execution order
     
     public CsvImportResult() {}
     
@@ -32,9 +39,27 @@ public class CsvImportResult {
     public int getFailedImports() { return failedImports; }
     public void setFailedImports(int failedImports) { this.failedImports = failedImports; }
     
+    public int getDuplicateRows() { return duplicateRows; }
+    public void setDuplicateRows(int duplicateRows) { this.duplicateRows = duplicateRows; }
+    
     public List<String> getErrors() { return errors; }
     public void setErrors(List<String> errors) { this.errors = errors; }
     
+    public List<String> getWarnings() { return warnings; }
+    public void setWarnings(List<String> warnings) { this.warnings = warnings; }
+    
     public List<Long> getImportedTransactionIds() { return importedTransactionIds; }
     public void setImportedTransactionIds(List<Long> importedTransactionIds) { this.importedTransactionIds = importedTransactionIds; }
+    
+    public boolean isPartial() { return partial; }
+    public void setPartial(boolean partial) { this.partial = partial; }
+    
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+    
+    public double getRowsPerSecond() { return rowsPerSecond; }
+    public void setRowsPerSecond(double rowsPerSecond) { this.rowsPerSecond = rowsPerSecond; }
+    
+    public Map<String, Long> getPhaseTimingsMs() { return phaseTimingsMs; }
+    public void setPhaseTimingsMs(Map<String, Long> phaseTimingsMs) { this.phaseTimingsMs = phaseTimingsMs; }
 }
\ No newline at end of file
@@ -113,6 +113,7 @@ public class CsvPreviewResponse {
         private BigDecimal amount;
         private String description;
         private Long existingTransactionId;
+        private Integer duplicateOfRow; // Earlier row of the same file, when duplicated within the file
         
         public DuplicateDetection() {}
         
@@ -139,5 +140,8 @@ public class CsvPreviewResponse {
         
         public Long getExistingTransactionId() { return existingTransactionId; }
         public void setExistingTransactionId(Long existingTransactionId) { this.existingTransactionId = existingTransactionId; }
+        
+        public Integer getDuplicateOfRow() { return duplicateOfRow; }
+        public void setDuplicateOfRow(Integer duplicateOfRow) { this.duplicateOfRow = duplicateOfRow; }
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -13,6 +14,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "accounts")
+@DynamicUpdate // an unrelated update must not write back a stale balance
 public class Account {
     
     @Id
@@ -39,6 +41,10 @@ public class Account {
     @Column(precision = 15, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
     
+    // Bumped by every balance update query, checked by reconciliation before correcting the balance
+    @Column(name = "balance_version", insertable = false, updatable = false)
+    private Long balanceVersion;
+    
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
     
@@ -104,6 +110,8 @@ public class Account {
     public BigDecimal getBalance() { return balance; }
     public void setBalance(BigDecimal balance) { this.balance = balance; }
     
+    public Long getBalanceVersion() { return balanceVersion; }
+    
     public Boolean getIsActive() { return isActive; }
     public void setIsActive(Boolean isActive) { this.isActive = isActive; }
     
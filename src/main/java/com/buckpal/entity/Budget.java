@@ -12,7 +12,8 @@ import java.util.Set;
 
 @Entity
 @Table(name = "budgets", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "budget_month", "budget_year"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "budget_month", "budget_year"}),
+       indexes = @Index(name = "idx_budgets_user_year_month", columnList = "user_id, budget_year, budget_month"))
 public class Budget {
     
     @Id
@@ -0,0 +1,105 @@
+package com.buckpal.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * State of a bulk assignment job, written by the node running it after each page so that the
+ * status endpoint can be served by any node.
+ */
+@Entity
+@Table(name = "bulk_assignment_jobs", indexes = {
+    @Index(name = "idx_bulk_assignment_jobs_user_status", columnList = "user_id, status")
+})
+public class BulkAssignmentJob {
+    
+    public enum JobStatus {
+        RUNNING, COMPLETED, FAILED
+    }
+    
+    @Id
+    @Column(name = "job_id", length = 36)
+    private String jobId;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private JobStatus status;
+    
+    @Column(name = "total_transactions", nullable = false)
+    private long totalTransactions;
+    
+    @Column(name = "processed", nullable = false)
+    private int processed;
+    
+    @Column(name = "assigned", nullable = false)
+    private int assigned;
+    
+    @Column(name = "needs_review", nullable = false)
+    private int needsReview;
+    
+    @Column(name = "strategy_counts_json", columnDefinition = "TEXT")
+    private String strategyCountsJson;
+    
+    @Column(name = "error", length = 1000)
+    private String error;
+    
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+    
+    // Written with every page: a running job that stops updating was abandoned by its node
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+    
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+    
+    public BulkAssignmentJob() {}
+    
+    public BulkAssignmentJob(String jobId, Long userId) {
+        this.jobId = jobId;
+        this.userId = userId;
+        this.status = JobStatus.RUNNING;
+        this.startedAt = Instant.now();
+        this.updatedAt = startedAt;
+    }
+    
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public JobStatus getStatus() { return status; }
+    public void setStatus(JobStatus status) { this.status = status; }
+    
+    public long getTotalTransactions() { return totalTransactions; }
+    public void setTotalTransactions(long totalTransactions) { this.totalTransactions = totalTransactions; }
+    
+    public int getProcessed() { return processed; }
+    public void setProcessed(int processed) { this.processed = processed; }
+    
+    public int getAssigned() { return assigned; }
+    public void setAssigned(int assigned) { this.assigned = assigned; }
+    
+    public int getNeedsReview() { return needsReview; }
+    public void setNeedsReview(int needsReview) { this.needsReview = needsReview; }
+    
+    public String getStrategyCountsJson() { return strategyCountsJson; }
+    public void setStrategyCountsJson(String strategyCountsJson) { this.strategyCountsJson = strategyCountsJson; }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+    
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -0,0 +1,64 @@
+package com.buckpal.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "csv_import_sessions", indexes = {
+    @Index(name = "idx_csv_import_sessions_expires_at", columnList = "expires_at")
+})
+public class CsvImportSession {
+    
+    @Id
+    @Column(name = "session_id", length = 36)
+    private String sessionId;
+    
+    @Column(name = "original_filename")
+    private String originalFilename;
+    
+    @Column(name = "headers_json", columnDefinition = "TEXT")
+    private String headersJson;
+    
+    @Column(name = "mapping_json", columnDefinition = "TEXT")
+    private String mappingJson;
+    
+    @Column(name = "row_count", nullable = false)
+    private int rowCount;
+    
+    // Rows in the EncodedCsvRows format (bytea on PostgreSQL)
+    @Column(name = "row_data", length = 16 * 1024 * 1024)
+    private byte[] rowData;
+    
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+    
+    public CsvImportSession() {}
+    
+    public String getSessionId() { return sessionId; }
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+    
+    public String getOriginalFilename() { return originalFilename; }
+    public void setOriginalFilename(String originalFilename) { this.originalFilename = originalFilename; }
+    
+    public String getHeadersJson() { return headersJson; }
+    public void setHeadersJson(String headersJson) { this.headersJson = headersJson; }
+    
+    public String getMappingJson() { return mappingJson; }
+    public void setMappingJson(String mappingJson) { this.mappingJson = mappingJson; }
+    
+    public int getRowCount() { return rowCount; }
+    public void setRowCount(int rowCount) { this.rowCount = rowCount; }
+    
+    public byte[] getRowData() { return rowData; }
+    public void setRowData(byte[] rowData) { this.rowData = rowData; }
+    
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
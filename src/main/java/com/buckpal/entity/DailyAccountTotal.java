@@ -0,0 +1,89 @@
+package com.buckpal.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Daily rollup of an account's transactions, maintained incrementally on every write
+ * (see TransactionRollupListener). Same figures as the calendar GROUP BY over transactions.
+ *
+ * No foreign key to accounts: rows are adjusted by the transaction deletes that precede an
+ * account deletion, and the consistency check removes any leftover.
+ */
+@Entity
+@Table(name = "daily_account_totals")
+@IdClass(DailyAccountTotal.Key.class)
+public class DailyAccountTotal {
+    
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+    
+    @Id
+    @Column(name = "transaction_date")
+    private LocalDate transactionDate;
+    
+    @Column(name = "total_income", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalIncome = BigDecimal.ZERO;
+    
+    @Column(name = "total_expense", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalExpense = BigDecimal.ZERO;
+    
+    @Column(name = "net_amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal netAmount = BigDecimal.ZERO;
+    
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount = 0L;
+    
+    public DailyAccountTotal() {}
+    
+    public Long getAccountId() { return accountId; }
+    public void setAccountId(Long accountId) { this.accountId = accountId; }
+    
+    public LocalDate getTransactionDate() { return transactionDate; }
+    public void setTransactionDate(LocalDate transactionDate) { this.transactionDate = transactionDate; }
+    
+    public BigDecimal getTotalIncome() { return totalIncome; }
+    public void setTotalIncome(BigDecimal totalIncome) { this.totalIncome = totalIncome; }
+    
+    public BigDecimal getTotalExpense() { return totalExpense; }
+    public void setTotalExpense(BigDecimal totalExpense) { this.totalExpense = totalExpense; }
+    
+    public BigDecimal getNetAmount() { return netAmount; }
+    public void setNetAmount(BigDecimal netAmount) { this.netAmount = netAmount; }
+    
+    public Long getTransactionCount() { return transactionCount; }
+    public void setTransactionCount(Long transactionCount) { this.transactionCount = transactionCount; }
+    
+    public static class Key implements Serializable {
+        private Long accountId;
+        private LocalDate transactionDate;
+        
+        public Key() {}
+        
+        public Key(Long accountId, LocalDate transactionDate) {
+            this.accountId = accountId;
+            this.transactionDate = transactionDate;
+        }
+        
+        public Long getAccountId() { return accountId; }
+        public LocalDate getTransactionDate() { return transactionDate; }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(accountId, key.accountId) && Objects.equals(transactionDate, key.transactionDate);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(accountId, transactionDate);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.buckpal.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version of a one-shot data migration already applied to this database.
+ */
+@Entity
+@Table(name = "data_migration_markers")
+public class DataMigrationMarker {
+    
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+    
+    @Column(name = "version", nullable = false)
+    private Integer version;
+    
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+    
+    public DataMigrationMarker() {}
+    
+    public DataMigrationMarker(String name, Integer version) {
+        this.name = name;
+        this.version = version;
+        this.appliedAt = LocalDateTime.now();
+    }
+    
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public Integer getVersion() { return version; }
+    public void setVersion(Integer version) { this.version = version; }
+    
+    public LocalDateTime getAppliedAt() { return appliedAt; }
+    public void setAppliedAt(LocalDateTime appliedAt) { this.appliedAt = appliedAt; }
+}
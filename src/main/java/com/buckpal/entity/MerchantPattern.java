@@ -8,7 +8,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "merchant_patterns")
+@Table(name = "merchant_patterns", indexes = {
+    @Index(name = "idx_merchant_patterns_pattern_category", columnList = "pattern, category_id"),
+    @Index(name = "idx_merchant_patterns_category_id", columnList = "category_id")
+})
 public class MerchantPattern {
     
     @Id
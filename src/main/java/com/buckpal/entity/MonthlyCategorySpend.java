@@ -0,0 +1,98 @@
+package com.buckpal.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Monthly expenses of a user per budget category key, maintained incrementally on every write
+ * (see TransactionRollupListener). Same figures as
+ * TransactionRepository.calculateSpentAmountsByBudgetCategory over the month.
+ *
+ * No foreign key to users, like daily_account_totals: the consistency check removes leftovers.
+ */
+@Entity
+@Table(name = "monthly_category_spend")
+@IdClass(MonthlyCategorySpend.Key.class)
+public class MonthlyCategorySpend {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Id
+    @Column(name = "budget_year")
+    private Integer budgetYear;
+    
+    @Id
+    @Column(name = "budget_month")
+    private Integer budgetMonth;
+    
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "budget_category_key", length = 50)
+    private BudgetCategoryKey budgetCategoryKey;
+    
+    @Column(name = "spent_amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal spentAmount = BigDecimal.ZERO;
+    
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount = 0L;
+    
+    public MonthlyCategorySpend() {}
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public Integer getBudgetYear() { return budgetYear; }
+    public void setBudgetYear(Integer budgetYear) { this.budgetYear = budgetYear; }
+    
+    public Integer getBudgetMonth() { return budgetMonth; }
+    public void setBudgetMonth(Integer budgetMonth) { this.budgetMonth = budgetMonth; }
+    
+    public BudgetCategoryKey getBudgetCategoryKey() { return budgetCategoryKey; }
+    public void setBudgetCategoryKey(BudgetCategoryKey budgetCategoryKey) { this.budgetCategoryKey = budgetCategoryKey; }
+    
+    public BigDecimal getSpentAmount() { return spentAmount; }
+    public void setSpentAmount(BigDecimal spentAmount) { this.spentAmount = spentAmount; }
+    
+    public Long getTransactionCount() { return transactionCount; }
+    public void setTransactionCount(Long transactionCount) { this.transactionCount = transactionCount; }
+    
+    public static class Key implements Serializable {
+        private Long userId;
+        private Integer budgetYear;
+        private Integer budgetMonth;
+        private BudgetCategoryKey budgetCategoryKey;
+        
+        public Key() {}
+        
+        public Key(Long userId, Integer budgetYear, Integer budgetMonth, BudgetCategoryKey budgetCategoryKey) {
+            this.userId = userId;
+            this.budgetYear = budgetYear;
+            this.budgetMonth = budgetMonth;
+            this.budgetCategoryKey = budgetCategoryKey;
+        }
+        
+        public Long getUserId() { return userId; }
+        public Integer getBudgetYear() { return budgetYear; }
+        public Integer getBudgetMonth() { return budgetMonth; }
+        public BudgetCategoryKey getBudgetCategoryKey() { return budgetCategoryKey; }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(userId, key.userId) && Objects.equals(budgetYear, key.budgetYear)
+                && Objects.equals(budgetMonth, key.budgetMonth) && budgetCategoryKey == key.budgetCategoryKey;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, budgetYear, budgetMonth, budgetCategoryKey);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.buckpal.entity;
 
+import com.buckpal.util.RecurrenceSchedule;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
@@ -72,6 +73,10 @@ public class RecurringPayment {
     @Column
     private LocalDateTime updatedAt;
     
+    // Calendrier des échéances, reconstruit lorsque ses paramètres changent
+    @Transient
+    private RecurrenceSchedule schedule;
+    
     // Enum pour le type de paiement
     public enum PaymentType {
         INCOME("Revenu", "Revenus récurrents comme salaires, pensions", "#22c55e", "trending-up"),
@@ -147,70 +152,24 @@ public class RecurringPayment {
     public LocalDate getNextPaymentDate(LocalDate fromDate) {
         if (!isActiveAt(fromDate)) return null;
         
-        LocalDate nextDate = startDate;
-        
-        if (frequency.isWeekly()) {
-            // Calculate weekly payments
-            while (nextDate.isBefore(fromDate) || nextDate.equals(fromDate)) {
-                nextDate = nextDate.plusWeeks(1);
-            }
-        } else {
-            // Calculate monthly-based payments
-            while (nextDate.isBefore(fromDate) || nextDate.equals(fromDate)) {
-                nextDate = nextDate.plusMonths(frequency.getMonthsInterval());
-            }
-        }
+        RecurrenceSchedule schedule = getSchedule();
+        LocalDate nextDate = schedule.occurrence(schedule.firstIndexOnOrAfter(fromDate.plusDays(1)));
         
         if (endDate != null && nextDate.isAfter(endDate)) return null;
         return nextDate;
     }
     
     public List<LocalDate> getPaymentDatesInPeriod(LocalDate startPeriod, LocalDate endPeriod) {
-        List<LocalDate> dates = new ArrayList<>();
-        LocalDate currentDate = startDate;
-        
-        // Avancer jusqu'au début de la période
-        while (currentDate.isBefore(startPeriod)) {
-            if (frequency.isWeekly()) {
-                currentDate = currentDate.plusWeeks(1);
-            } else {
-                currentDate = currentDate.plusMonths(frequency.getMonthsInterval());
-            }
-        }
-        
-        // Collecter les dates dans la période
-        while (!currentDate.isAfter(endPeriod)) {
-            if (endDate == null || !currentDate.isAfter(endDate)) {
-                if (isActiveAt(currentDate)) {
-                    dates.add(currentDate);
-                }
-            }
-            
-            if (frequency.isWeekly()) {
-                currentDate = currentDate.plusWeeks(1);
-            } else {
-                currentDate = currentDate.plusMonths(frequency.getMonthsInterval());
-            }
-        }
+        if (!Boolean.TRUE.equals(isActive)) return new ArrayList<>();
         
-        return dates;
+        // Saut direct à la première échéance de la période, sans parcourir l'historique
+        return getSchedule().listBetween(startPeriod, endPeriod);
     }
     
     public BigDecimal getAmountForDate(LocalDate date) {
         if (!isActiveAt(date)) return BigDecimal.ZERO;
         
-        // Apply escalation if applicable
-        if (escalationRate.compareTo(BigDecimal.ZERO) > 0) {
-            long yearsDiff = startDate.until(date).getYears();
-            if (yearsDiff > 0) {
-                BigDecimal escalationMultiplier = BigDecimal.ONE.add(
-                    escalationRate.divide(new BigDecimal("100"))
-                ).pow((int) yearsDiff);
-                return amount.multiply(escalationMultiplier);
-            }
-        }
-        
-        return amount;
+        return getSchedule().amountAt(date);
     }
     
     public int getTotalRemainingPayments(LocalDate fromDate) {
@@ -219,17 +178,25 @@ public class RecurringPayment {
         }
         
         if (endDate == null) return Integer.MAX_VALUE; // Illimité
+        if (!Boolean.TRUE.equals(isActive)) return 0;
         
-        return getPaymentDatesInPeriod(fromDate, endDate).size();
+        return (int) Math.min(Integer.MAX_VALUE, getSchedule().countBetween(fromDate, endDate));
     }
     
     public BigDecimal getTotalRemainingAmount(LocalDate fromDate) {
-        List<LocalDate> futureDates = getPaymentDatesInPeriod(fromDate, 
-            endDate != null ? endDate : fromDate.plusYears(10));
+        if (!Boolean.TRUE.equals(isActive)) return BigDecimal.ZERO;
         
-        return futureDates.stream()
-            .map(this::getAmountForDate)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Au plus remainingPayments échéances lorsqu'il est renseigné
+        return getSchedule().totalBetween(fromDate, endDate != null ? endDate : fromDate.plusYears(10),
+            remainingPayments != null ? Math.max(0, remainingPayments) : Long.MAX_VALUE);
+    }
+    
+    @JsonIgnore
+    public RecurrenceSchedule getSchedule() {
+        if (schedule == null) {
+            schedule = new RecurrenceSchedule(startDate, frequency, endDate, amount, escalationRate);
+        }
+        return schedule;
     }
     
     // Getters and Setters
@@ -243,19 +210,19 @@ public class RecurringPayment {
     public void setDescription(String description) { this.description = description; }
     
     public BigDecimal getAmount() { return amount; }
-    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; this.schedule = null; }
     
     public PaymentType getPaymentType() { return paymentType; }
     public void setPaymentType(PaymentType paymentType) { this.paymentType = paymentType; }
     
     public PaymentFrequency getFrequency() { return frequency; }
-    public void setFrequency(PaymentFrequency frequency) { this.frequency = frequency; }
+    public void setFrequency(PaymentFrequency frequency) { this.frequency = frequency; this.schedule = null; }
     
     public LocalDate getStartDate() { return startDate; }
-    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; this.schedule = null; }
     
     public LocalDate getEndDate() { return endDate; }
-    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; this.schedule = null; }
     
     public Integer getRemainingPayments() { return remainingPayments; }
     public void setRemainingPayments(Integer remainingPayments) { this.remainingPayments = remainingPayments; }
@@ -270,7 +237,7 @@ public class RecurringPayment {
     public void setIcon(String icon) { this.icon = icon; }
     
     public BigDecimal getEscalationRate() { return escalationRate; }
-    public void setEscalationRate(BigDecimal escalationRate) { this.escalationRate = escalationRate; }
+    public void setEscalationRate(BigDecimal escalationRate) { this.escalationRate = escalationRate; this.schedule = null; }
     
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
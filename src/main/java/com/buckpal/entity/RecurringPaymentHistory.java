@@ -7,11 +7,16 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "recurring_payment_history")
+@Table(name = "recurring_payment_history", indexes = {
+    @Index(name = "idx_recurring_payment_history_payment_due", columnList = "recurring_payment_id, due_date"),
+    @Index(name = "idx_recurring_payment_history_status_due", columnList = "status, due_date"),
+    @Index(name = "idx_recurring_payment_history_transaction", columnList = "transaction_id")
+})
 public class RecurringPaymentHistory {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recurring_payment_history_seq")
+    @SequenceGenerator(name = "recurring_payment_history_seq", sequenceName = "recurring_payment_history_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -19,7 +24,7 @@ public class RecurringPaymentHistory {
     @JsonIgnore
     private RecurringPayment recurringPayment;
     
-    @Column(nullable = false)
+    @Column(name = "due_date", nullable = false)
     private LocalDate dueDate;
     
     @Column(nullable = false, precision = 19, scale = 2)
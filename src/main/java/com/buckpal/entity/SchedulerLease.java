@@ -0,0 +1,41 @@
+package com.buckpal.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Lease on a scheduled job: the node named by {@code owner} may run it until {@code leaseUntil}.
+ * Times are instants (UTC), so nodes in different time zones agree on expiry.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+public class SchedulerLease {
+    
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+    
+    @Column(name = "owner", nullable = false, length = 200)
+    private String owner;
+    
+    @Column(name = "locked_at", nullable = false)
+    private Instant lockedAt;
+    
+    @Column(name = "lease_until", nullable = false)
+    private Instant leaseUntil;
+    
+    public SchedulerLease() {}
+    
+    public String getJobName() { return jobName; }
+    public void setJobName(String jobName) { this.jobName = jobName; }
+    
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+    
+    public Instant getLockedAt() { return lockedAt; }
+    public void setLockedAt(Instant lockedAt) { this.lockedAt = lockedAt; }
+    
+    public Instant getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(Instant leaseUntil) { this.leaseUntil = leaseUntil; }
+}
@@ -12,11 +12,22 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_account_date_id", columnList = "account_id, transaction_date, id"),
+    @Index(name = "idx_transactions_account_amount", columnList = "account_id, amount"),
+    @Index(name = "idx_transactions_account_type_date", columnList = "account_id, transaction_type, transaction_date"),
+    @Index(name = "idx_transactions_account_status_date", columnList = "account_id, assignment_status, transaction_date"),
+    @Index(name = "idx_transactions_category_date", columnList = "category_id, transaction_date"),
+    @Index(name = "idx_transactions_income_category_date", columnList = "income_category_id, transaction_date"),
+    @Index(name = "idx_transactions_account_detailed_category", columnList = "account_id, detailed_category_id, id"),
+    @Index(name = "idx_transactions_account_needs_review", columnList = "account_id, needs_review")
+})
 public class Transaction {
     
+    // Pooled sequence instead of IDENTITY so that Hibernate can JDBC-batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "plaid_transaction_id", unique = true)
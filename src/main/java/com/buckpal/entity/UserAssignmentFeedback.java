@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 public class UserAssignmentFeedback {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_assignment_feedback_seq")
+    @SequenceGenerator(name = "user_assignment_feedback_seq", sequenceName = "user_assignment_feedback_seq", allocationSize = 50)
     private Long id;
     
     @NotNull
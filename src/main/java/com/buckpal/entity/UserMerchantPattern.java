@@ -13,11 +13,16 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "user_merchant_patterns", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "pattern", "category_id"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "pattern", "category_id"}),
+       indexes = {
+           @Index(name = "idx_user_merchant_patterns_user_category", columnList = "user_id, category_id, confidence_score"),
+           @Index(name = "idx_user_merchant_patterns_user_last_used", columnList = "user_id, last_used_at")
+       })
 public class UserMerchantPattern {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_merchant_patterns_seq")
+    @SequenceGenerator(name = "user_merchant_patterns_seq", sequenceName = "user_merchant_patterns_seq", allocationSize = 50)
     private Long id;
     
     @NotNull
@@ -2,9 +2,16 @@ package com.buckpal.repository;
 
 import com.buckpal.entity.Account;
 import com.buckpal.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +25,42 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByPlaidAccountId(String plaidAccountId);
     
     List<Account> findByPlaidItemId(String plaidItemId);
-}
\ No newline at end of file
+    
+    @Query("SELECT a.id FROM Account a ORDER BY a.id")
+    List<Long> findAllIds();
+    
+    // Row locks in id order: serializes rollup rebuilds with each other and with the rollup writes of
+    // TransactionRollupListener, which lock the same rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> lockByIds(@Param("ids") Collection<Long> ids);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.user.id IN :userIds ORDER BY a.id")
+    List<Account> lockByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    // Rows of (id, balance, balanceVersion)
+    @Query("SELECT a.id, a.balance, a.balanceVersion FROM Account a WHERE a.id IN :ids")
+    List<Object[]> findBalanceStates(@Param("ids") Collection<Long> ids);
+    
+    // Atomic in the database, so concurrent writers cannot lose each other's delta
+    // Bypasses the persistence context: pending changes are flushed first, and callers refresh loaded accounts
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE Account a SET a.balance = COALESCE(a.balance, 0) + :delta,
+            a.balanceVersion = COALESCE(a.balanceVersion, 0) + 1
+        WHERE a.id = :accountId
+        """)
+    int applyBalanceDelta(@Param("accountId") Long accountId, @Param("delta") BigDecimal delta);
+    
+    // Optimistic: only applies if no balance update happened since the version was read
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE Account a SET a.balance = :balance,
+            a.balanceVersion = COALESCE(a.balanceVersion, 0) + 1
+        WHERE a.id = :accountId AND COALESCE(a.balanceVersion, 0) = :expectedVersion
+        """)
+    int replaceBalance(@Param("accountId") Long accountId,
+                       @Param("balance") BigDecimal balance,
+                       @Param("expectedVersion") Long expectedVersion);
+}
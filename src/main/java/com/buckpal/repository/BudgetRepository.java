@@ -41,6 +41,14 @@ public interface BudgetRepository extends JpaRepository<Budget, Long> {
                                                   @Param("endYear") Integer endYear,
                                                   @Param("endMonth") Integer endMonth);
     
+    // Months numbered year * 12 + month, bounds inclusive
+    @Query("SELECT b FROM Budget b WHERE b.user = :user " +
+           "AND b.budgetYear * 12 + b.budgetMonth BETWEEN :fromMonth AND :toMonth " +
+           "ORDER BY b.budgetYear, b.budgetMonth")
+    List<Budget> findByUserAndMonthNumberRange(@Param("user") User user,
+                                              @Param("fromMonth") Integer fromMonth,
+                                              @Param("toMonth") Integer toMonth);
+    
     // Helper method to find current month budget
     default Optional<Budget> findCurrentMonthBudget(User user) {
         LocalDate now = LocalDate.now();
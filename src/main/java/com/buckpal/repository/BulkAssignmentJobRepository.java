@@ -0,0 +1,35 @@
+package com.buckpal.repository;
+
+import com.buckpal.entity.BulkAssignmentJob;
+import com.buckpal.entity.BulkAssignmentJob.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BulkAssignmentJobRepository extends JpaRepository<BulkAssignmentJob, String> {
+    
+    Optional<BulkAssignmentJob> findByJobIdAndUserId(String jobId, Long userId);
+    
+    List<BulkAssignmentJob> findByUserIdAndStatus(Long userId, JobStatus status);
+    
+    // Running jobs whose node stopped writing progress (crash, restart)
+    @Modifying
+    @Query("UPDATE BulkAssignmentJob j SET j.status = :failed, j.error = :error, j.finishedAt = :now " +
+           "WHERE j.status = :running AND j.updatedAt < :staleBefore")
+    int failAbandoned(@Param("running") JobStatus running,
+                      @Param("failed") JobStatus failed,
+                      @Param("staleBefore") Instant staleBefore,
+                      @Param("error") String error,
+                      @Param("now") Instant now);
+    
+    @Modifying
+    @Query("DELETE FROM BulkAssignmentJob j WHERE j.finishedAt < :finishedBefore")
+    int deleteFinishedBefore(@Param("finishedBefore") Instant finishedBefore);
+}
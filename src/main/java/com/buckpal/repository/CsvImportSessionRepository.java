@@ -0,0 +1,32 @@
+package com.buckpal.repository;
+
+import com.buckpal.entity.CsvImportSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface CsvImportSessionRepository extends JpaRepository<CsvImportSession, String> {
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE CsvImportSession s SET s.expiresAt = :expiresAt WHERE s.sessionId = :sessionId AND s.expiresAt < :expiresAt")
+    int touch(@Param("sessionId") String sessionId, @Param("expiresAt") Instant expiresAt);
+    
+    // Leaves the row alone (and its row_data untouched) when the mapping is unchanged
+    @Modifying
+    @Transactional
+    @Query("UPDATE CsvImportSession s SET s.mappingJson = :mappingJson WHERE s.sessionId = :sessionId " +
+           "AND (s.mappingJson IS NULL OR s.mappingJson <> :mappingJson)")
+    int updateMapping(@Param("sessionId") String sessionId, @Param("mappingJson") String mappingJson);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CsvImportSession s WHERE s.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,51 @@
+package com.buckpal.repository;
+
+import com.buckpal.entity.DailyAccountTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailyAccountTotalRepository extends JpaRepository<DailyAccountTotal, DailyAccountTotal.Key> {
+    
+    // Same row shape as TransactionRepository.findCalendarDataRawByAccountsAndDateRange:
+    // date, totalIncome, totalExpense, netAmount, transactionCount
+    @Query("""
+        SELECT d.transactionDate, SUM(d.totalIncome), SUM(d.totalExpense), SUM(d.netAmount), SUM(d.transactionCount)
+        FROM DailyAccountTotal d
+        WHERE d.accountId IN :accountIds
+        AND d.transactionDate BETWEEN :startDate AND :endDate
+        AND d.transactionCount > 0
+        GROUP BY d.transactionDate
+        ORDER BY d.transactionDate
+        """)
+    List<Object[]> findCalendarTotalsByAccountsAndDateRange(
+        @Param("accountIds") Collection<Long> accountIds,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate);
+    
+    // Rows of (accountId, date, totalIncome, totalExpense, netAmount, transactionCount)
+    @Query("""
+        SELECT d.accountId, d.transactionDate, d.totalIncome, d.totalExpense, d.netAmount, d.transactionCount
+        FROM DailyAccountTotal d
+        WHERE d.accountId IN :accountIds AND d.transactionCount <> 0
+        """)
+    List<Object[]> findTotalsByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+    
+    @Query("SELECT DISTINCT d.accountId FROM DailyAccountTotal d WHERE d.accountId NOT IN (SELECT a.id FROM Account a)")
+    List<Long> findOrphanAccountIds();
+    
+    @Modifying
+    @Query("DELETE FROM DailyAccountTotal d WHERE d.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+    
+    @Modifying
+    @Query("DELETE FROM DailyAccountTotal d WHERE d.accountId IN :accountIds")
+    int deleteByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+}
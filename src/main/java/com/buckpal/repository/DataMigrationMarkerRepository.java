@@ -0,0 +1,9 @@
+package com.buckpal.repository;
+
+import com.buckpal.entity.DataMigrationMarker;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataMigrationMarkerRepository extends JpaRepository<DataMigrationMarker, String> {
+}
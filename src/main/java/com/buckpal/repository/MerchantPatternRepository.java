@@ -3,10 +3,8 @@ package com.buckpal.repository;
 import com.buckpal.entity.MerchantPattern;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,14 +13,12 @@ public interface MerchantPatternRepository extends JpaRepository<MerchantPattern
     
     Optional<MerchantPattern> findByPatternAndCategoryName(String pattern, String categoryName);
     
-    @Query("SELECT mp FROM MerchantPattern mp WHERE LOWER(:merchantText) LIKE LOWER(CONCAT('%', mp.pattern, '%')) " +
-           "AND mp.confidenceScore >= :minConfidence " +
-           "ORDER BY mp.specificityScore DESC, mp.confidenceScore DESC")
-    List<MerchantPattern> findMatchingPatternsWithMinConfidence(
-        @Param("merchantText") String merchantText,
-        @Param("minConfidence") BigDecimal minConfidence);
-    
     List<MerchantPattern> findByCategoryIdIsNull();
     
     Optional<MerchantPattern> findByPatternAndCategoryId(String pattern, Long categoryId);
+    
+    // Version of the global patterns, to notice writes from other nodes
+    // Row: (pattern count, latest creation, latest update)
+    @Query("SELECT COUNT(mp), MAX(mp.createdAt), MAX(mp.updatedAt) FROM MerchantPattern mp")
+    List<Object[]> findPatternVersion();
 }
\ No newline at end of file
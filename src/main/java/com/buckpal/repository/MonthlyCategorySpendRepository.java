@@ -0,0 +1,46 @@
+package com.buckpal.repository;
+
+import com.buckpal.entity.MonthlyCategorySpend;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MonthlyCategorySpendRepository extends JpaRepository<MonthlyCategorySpend, MonthlyCategorySpend.Key> {
+    
+    // Same row shape as TransactionRepository.calculateSpentAmountsByBudgetCategory: budgetCategoryKey, spentAmount
+    @Query("""
+        SELECT m.budgetCategoryKey, m.spentAmount
+        FROM MonthlyCategorySpend m
+        WHERE m.userId = :userId AND m.budgetYear = :year AND m.budgetMonth = :month
+        AND m.transactionCount > 0
+        """)
+    List<Object[]> findSpentAmountsByUserAndMonth(
+        @Param("userId") Long userId,
+        @Param("year") Integer year,
+        @Param("month") Integer month);
+    
+    // Rows of (userId, year, month, budgetCategoryKey, spentAmount, transactionCount)
+    @Query("""
+        SELECT m.userId, m.budgetYear, m.budgetMonth, m.budgetCategoryKey, m.spentAmount, m.transactionCount
+        FROM MonthlyCategorySpend m
+        WHERE m.userId IN :userIds AND (m.transactionCount <> 0 OR m.spentAmount <> 0)
+        """)
+    List<Object[]> findSpendByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    @Query("SELECT DISTINCT m.userId FROM MonthlyCategorySpend m WHERE m.userId NOT IN (SELECT u.id FROM User u)")
+    List<Long> findOrphanUserIds();
+    
+    @Modifying
+    @Query("DELETE FROM MonthlyCategorySpend m WHERE m.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query("DELETE FROM MonthlyCategorySpend m WHERE m.userId IN :userIds")
+    int deleteByUserIds(@Param("userIds") Collection<Long> userIds);
+}
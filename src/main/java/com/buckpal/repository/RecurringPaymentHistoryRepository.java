@@ -6,11 +6,14 @@ import com.buckpal.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -101,6 +104,23 @@ public interface RecurringPaymentHistoryRepository extends JpaRepository<Recurri
            "ORDER BY rph.dueDate DESC")
     Page<RecurringPaymentHistory> findByUserOrderByDueDateDesc(@Param("user") User user, Pageable pageable);
     
+    // Overdue sweep: every planned payment due before today, in one statement
+    @Modifying
+    @Query("UPDATE RecurringPaymentHistory rph SET rph.status = :overdue, rph.updatedAt = :now " +
+           "WHERE rph.status = :planned AND rph.dueDate < :today")
+    int markPlannedAsOverdue(@Param("planned") RecurringPaymentHistory.PaymentStatus planned,
+                             @Param("overdue") RecurringPaymentHistory.PaymentStatus overdue,
+                             @Param("today") LocalDate today,
+                             @Param("now") LocalDateTime now);
+    
+    // Existing due dates of several payments, as (recurring payment id, due date)
+    @Query("SELECT rph.recurringPayment.id, rph.dueDate FROM RecurringPaymentHistory rph " +
+           "WHERE rph.recurringPayment.id IN :paymentIds " +
+           "AND rph.dueDate BETWEEN :startDate AND :endDate")
+    List<Object[]> findDueDatesByPaymentIds(@Param("paymentIds") Collection<Long> paymentIds,
+                                            @Param("startDate") LocalDate startDate,
+                                            @Param("endDate") LocalDate endDate);
+    
     // Check if history exists for a specific payment and date
     boolean existsByRecurringPaymentAndDueDate(RecurringPayment recurringPayment, LocalDate dueDate);
     
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,6 +39,16 @@ public interface RecurringPaymentRepository extends JpaRepository<RecurringPayme
             @Param("startDate") LocalDate startDate, 
             @Param("endDate") LocalDate endDate);
     
+    // Active payments of several users for a specific period
+    @Query("SELECT rp FROM RecurringPayment rp WHERE rp.user.id IN :userIds " +
+           "AND rp.isActive = true " +
+           "AND rp.startDate <= :endDate " +
+           "AND (rp.endDate IS NULL OR rp.endDate >= :startDate)")
+    List<RecurringPayment> findActivePaymentsForUsersInPeriod(
+            @Param("userIds") Collection<Long> userIds,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+    
     // Payments ending soon (within next 3 months)
     @Query("SELECT rp FROM RecurringPayment rp WHERE rp.user = :user " +
            "AND rp.isActive = true " +
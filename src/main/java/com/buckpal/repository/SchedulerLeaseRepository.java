@@ -0,0 +1,38 @@
+package com.buckpal.repository;
+
+import com.buckpal.entity.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+    
+    // Takes an expired lease; 0 rows while it is held or when no row exists yet
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.lockedAt = :now, l.leaseUntil = :leaseUntil " +
+           "WHERE l.jobName = :jobName AND l.leaseUntil <= :now")
+    int takeOver(@Param("jobName") String jobName,
+                 @Param("owner") String owner,
+                 @Param("now") Instant now,
+                 @Param("leaseUntil") Instant leaseUntil);
+    
+    // Plain insert, so that a concurrent first acquisition fails on the primary key instead of merging
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_leases (job_name, owner, locked_at, lease_until) " +
+                   "VALUES (:jobName, :owner, :now, :leaseUntil)", nativeQuery = true)
+    int insert(@Param("jobName") String jobName,
+               @Param("owner") String owner,
+               @Param("now") Instant now,
+               @Param("leaseUntil") Instant leaseUntil);
+    
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.leaseUntil = :leaseUntil WHERE l.jobName = :jobName AND l.owner = :owner")
+    int release(@Param("jobName") String jobName,
+                @Param("owner") String owner,
+                @Param("leaseUntil") Instant leaseUntil);
+}
@@ -10,6 +10,7 @@ import com.buckpal.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -18,12 +19,14 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
     
     List<Transaction> findByAccountAndTransactionDateBetween(
         Account account, LocalDate startDate, LocalDate endDate);
@@ -48,16 +51,54 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
         """)
     BigDecimal calculateBalanceByAccount(@Param("account") Account account);
     
+    // Same signed sum as calculateBalanceByAccount, for several accounts at once: rows of (accountId, balance)
+    @Query("""
+        SELECT t.account.id, COALESCE(SUM(
+            CASE 
+                WHEN t.transactionType = 'INCOME' THEN t.amount 
+                WHEN t.transactionType = 'EXPENSE' THEN -ABS(t.amount)
+                WHEN t.transactionType = 'TRANSFER' THEN t.amount
+                ELSE 0 
+            END
+        ), 0) 
+        FROM Transaction t 
+        WHERE t.account.id IN :accountIds
+        GROUP BY t.account.id
+        """)
+    List<Object[]> calculateBalancesByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+    
     
     @Query("SELECT t FROM Transaction t WHERE t.account.user = :user AND t.transactionType = :transactionType ORDER BY t.transactionDate DESC")
     List<Transaction> findByUserAndTransactionType(@Param("user") User user, @Param("transactionType") TransactionType transactionType);
     
     Optional<Transaction> findByPlaidTransactionId(String plaidTransactionId);
     
+    @Query("SELECT t.plaidTransactionId FROM Transaction t WHERE t.plaidTransactionId IN :plaidTransactionIds")
+    Set<String> findExistingPlaidTransactionIds(@Param("plaidTransactionIds") Collection<String> plaidTransactionIds);
+    
     @Query("SELECT t FROM Transaction t JOIN FETCH t.account LEFT JOIN FETCH t.category WHERE t.account IN :accounts ORDER BY t.transactionDate DESC")
     Page<Transaction> findByAccountsOrderByTransactionDateDesc(
         @Param("accounts") List<Account> accounts, Pageable pageable);
     
+    // Keyset pagination on (transactionDate DESC, id DESC): a List return type means no count query,
+    // the pageable only carries the limit (page 0). The redundant "<= :date" bounds the index range scan.
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.account LEFT JOIN FETCH t.category WHERE t.account IN :accounts ORDER BY t.transactionDate DESC, t.id DESC")
+    List<Transaction> findByAccountsOrderByTransactionDateDescIdDesc(
+        @Param("accounts") List<Account> accounts, Pageable limit);
+    
+    @Query("""
+        SELECT t FROM Transaction t JOIN FETCH t.account LEFT JOIN FETCH t.category
+        WHERE t.account IN :accounts
+          AND t.transactionDate <= :date
+          AND (t.transactionDate < :date OR t.id < :id)
+        ORDER BY t.transactionDate DESC, t.id DESC
+        """)
+    List<Transaction> findByAccountsAfterCursor(
+        @Param("accounts") List<Account> accounts,
+        @Param("date") LocalDate date,
+        @Param("id") Long id,
+        Pageable limit);
+    
     
     @Query("SELECT t FROM Transaction t JOIN FETCH t.account LEFT JOIN FETCH t.category WHERE t.account IN :accounts AND t.transactionDate = :date ORDER BY t.transactionDate DESC, t.id DESC")
     List<Transaction> findByAccountInAndTransactionDateOrderByTransactionDateDesc(
@@ -72,6 +113,14 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
         @Param("amount") BigDecimal amount,
         @Param("description") String description);
     
+    // Duplicate detection fingerprints: id, date, amount, type, description
+    @Query("SELECT t.id, t.transactionDate, t.amount, t.transactionType, t.description FROM Transaction t " +
+           "WHERE t.account.id = :accountId AND t.transactionDate BETWEEN :startDate AND :endDate")
+    List<Object[]> findFingerprintsByAccountIdAndDateRange(
+        @Param("accountId") Long accountId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate);
+    
     @Query("""
         SELECT t.transactionDate as date,
                SUM(CASE WHEN t.transactionType = 'INCOME' THEN t.amount ELSE 0 END) as totalIncome,
@@ -89,6 +138,37 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
         @Param("startDate") LocalDate startDate,
         @Param("endDate") LocalDate endDate);
     
+    // Source of truth for daily_account_totals: rows of
+    // (accountId, date, totalIncome, totalExpense, netAmount, transactionCount)
+    @Query("""
+        SELECT t.account.id, t.transactionDate,
+               SUM(CASE WHEN t.transactionType = 'INCOME' THEN t.amount ELSE 0 END),
+               SUM(CASE WHEN t.transactionType = 'EXPENSE' THEN ABS(t.amount) ELSE 0 END),
+               SUM(CASE WHEN t.transactionType = 'INCOME' THEN t.amount WHEN t.transactionType = 'EXPENSE' THEN -ABS(t.amount) ELSE 0 END),
+               COUNT(t)
+        FROM Transaction t
+        WHERE t.account.id IN :accountIds
+        GROUP BY t.account.id, t.transactionDate
+        """)
+    List<Object[]> calculateDailyTotalsByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+    
+    // Source of truth for monthly_category_spend: rows of
+    // (userId, year, month, budgetCategoryKey, spentAmount, transactionCount)
+    @Query("""
+        SELECT t.account.user.id, YEAR(t.transactionDate), MONTH(t.transactionDate), c.budgetCategoryKey,
+               SUM(ABS(t.amount)), COUNT(t)
+        FROM Transaction t
+        JOIN t.category c
+        WHERE t.account.user.id IN :userIds
+        AND t.transactionType = 'EXPENSE'
+        AND c.budgetCategoryKey IS NOT NULL
+        GROUP BY t.account.user.id, YEAR(t.transactionDate), MONTH(t.transactionDate), c.budgetCategoryKey
+        """)
+    List<Object[]> calculateMonthlySpendByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    @Query("SELECT DISTINCT t.account.user.id FROM Transaction t WHERE t.category.id IN :categoryIds")
+    List<Long> findUserIdsByCategoryIds(@Param("categoryIds") Collection<Long> categoryIds);
+    
     
     // Transaction Assignment queries
     @Query("SELECT t FROM Transaction t WHERE t.account.user = :user")
@@ -171,6 +251,40 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
         @Param("endDate") LocalDate endDate
     );
     
+    // Income rows (id, date, amount, description) of a whole analysis window, without loading entities
+    @Query("""
+        SELECT t.id, t.transactionDate, t.amount, t.description
+        FROM Transaction t 
+        WHERE t.account.user = :user 
+        AND t.transactionType = 'INCOME'
+        AND t.transactionDate BETWEEN :startDate AND :endDate
+        ORDER BY t.transactionDate DESC
+        """)
+    List<Object[]> findIncomeRowsByUserAndDateRange(
+        @Param("user") User user,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+    
+    // Income transactions of one calendar month of each year of the window, returned to the API as is:
+    // categories are fetched in the same query so that serializing them does not load them one by one
+    @Query("""
+        SELECT t FROM Transaction t 
+        LEFT JOIN FETCH t.category 
+        LEFT JOIN FETCH t.incomeCategory 
+        WHERE t.account.user = :user 
+        AND t.transactionType = 'INCOME'
+        AND t.transactionDate BETWEEN :startDate AND :endDate
+        AND MONTH(t.transactionDate) = :month
+        ORDER BY t.transactionDate DESC
+        """)
+    List<Transaction> findIncomeTransactionsByUserAndMonthInDateRange(
+        @Param("user") User user,
+        @Param("month") int month,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+    
     // Find income transactions by category
     @Query("""
         SELECT t FROM Transaction t 
@@ -203,6 +317,42 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     @Query("SELECT t FROM Transaction t WHERE t.account.user = :user AND t.detailedCategoryId IS NULL")
     List<Transaction> findByUserAndDetailedCategoryIsNull(@Param("user") User user);
     
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.account.user = :user AND t.detailedCategoryId IS NULL")
+    long countByUserAndDetailedCategoryIdIsNull(@Param("user") User user);
+    
+    // Keyset page of (id, merchantName, description) for bulk assignment, ordered by id
+    @Query("""
+        SELECT t.id, t.merchantName, t.description FROM Transaction t
+        WHERE t.account.user = :user AND t.detailedCategoryId IS NULL AND t.id > :afterId
+        ORDER BY t.id
+        """)
+    List<Object[]> findUnassignedMerchantTextAfter(
+        @Param("user") User user,
+        @Param("afterId") Long afterId,
+        Pageable pageable);
+    
+    // Rows assigned meanwhile (manually or by another job) are left untouched
+    @Modifying
+    @Query("""
+        UPDATE Transaction t SET t.detailedCategoryId = :categoryId, t.assignmentConfidence = :confidence
+        WHERE t.id IN :ids AND t.detailedCategoryId IS NULL
+        """)
+    int assignDetailedCategory(
+        @Param("ids") Collection<Long> ids,
+        @Param("categoryId") Long categoryId,
+        @Param("confidence") BigDecimal confidence);
+    
+    @Modifying
+    @Query("""
+        UPDATE Transaction t SET t.detailedCategoryId = :categoryId, t.assignmentConfidence = :confidence,
+            t.needsReview = true
+        WHERE t.id IN :ids AND t.detailedCategoryId IS NULL
+        """)
+    int assignDetailedCategoryForReview(
+        @Param("ids") Collection<Long> ids,
+        @Param("categoryId") Long categoryId,
+        @Param("confidence") BigDecimal confidence);
+    
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.account.user = :user")
     long countByUser(@Param("user") User user);
     
@@ -0,0 +1,95 @@
+package com.buckpal.repository;
+
+import com.buckpal.entity.Account;
+import com.buckpal.entity.Transaction;
+import com.buckpal.entity.Transaction.AssignmentStatus;
+import com.buckpal.entity.Transaction.TransactionType;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Building blocks of the transaction search. A null argument yields a null specification, which
+ * {@link Specification#and} ignores, so only the filters actually given reach the SQL and each
+ * query keeps a plan that can use its index (no "param IS NULL OR ..." predicates).
+ *
+ * Text matching is written as lower(column) LIKE '%text%' to hit the pg_trgm expression indexes
+ * of db/migration/V2__transaction_search_indexes.sql.
+ */
+public final class TransactionSpecifications {
+    
+    private static final char LIKE_ESCAPE = '\\';
+    
+    private TransactionSpecifications() {}
+    
+    public static Specification<Transaction> inAccounts(Collection<Account> accounts) {
+        return (root, query, cb) -> root.get("account").in(accounts);
+    }
+    
+    /**
+     * Fetches account and category with the rows (used by the DTO); skipped for the count query.
+     */
+    public static Specification<Transaction> fetchAccountAndCategory() {
+        return (root, query, cb) -> {
+            if (!Long.class.equals(query.getResultType()) && !long.class.equals(query.getResultType())) {
+                root.fetch("account");
+                root.fetch("category", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+    
+    public static Specification<Transaction> textContains(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String pattern = "%" + escapeLike(text.trim().toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.or(
+            cb.like(cb.lower(root.get("description")), pattern, LIKE_ESCAPE),
+            cb.like(cb.lower(root.get("merchantName")), pattern, LIKE_ESCAPE));
+    }
+    
+    public static Specification<Transaction> amountAtLeast(BigDecimal min) {
+        return min == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("amount"), min);
+    }
+    
+    public static Specification<Transaction> amountAtMost(BigDecimal max) {
+        return max == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("amount"), max);
+    }
+    
+    public static Specification<Transaction> dateFrom(LocalDate start) {
+        return start == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("transactionDate"), start);
+    }
+    
+    public static Specification<Transaction> dateTo(LocalDate end) {
+        return end == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("transactionDate"), end);
+    }
+    
+    public static Specification<Transaction> hasType(TransactionType type) {
+        return type == null ? null : (root, query, cb) -> cb.equal(root.get("transactionType"), type);
+    }
+    
+    public static Specification<Transaction> hasCategory(Long categoryId) {
+        return categoryId == null ? null : (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+    
+    public static Specification<Transaction> hasAssignmentStatus(AssignmentStatus status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("assignmentStatus"), status);
+    }
+    
+    static String escapeLike(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
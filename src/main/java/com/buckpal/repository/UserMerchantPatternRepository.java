@@ -14,16 +14,6 @@ import java.util.Optional;
 @Repository
 public interface UserMerchantPatternRepository extends JpaRepository<UserMerchantPattern, Long> {
     
-    /**
-     * Trouve le meilleur pattern personnel pour un utilisateur et un texte marchand
-     * Ordonnés par confiance décroissante puis par usage décroissant
-     */
-    @Query("SELECT ump FROM UserMerchantPattern ump WHERE ump.user = :user " +
-           "AND UPPER(:merchantText) LIKE CONCAT('%', ump.pattern, '%') " +
-           "ORDER BY ump.confidenceScore DESC, ump.usageCount DESC, ump.lastUsedAt DESC")
-    List<UserMerchantPattern> findMatchingPatterns(@Param("user") User user, 
-                                                  @Param("merchantText") String merchantText);
-    
     /**
      * Trouve le pattern exact pour un utilisateur, pattern et catégorie
      */
@@ -92,4 +82,12 @@ public interface UserMerchantPatternRepository extends JpaRepository<UserMerchan
     @Query("SELECT COUNT(ump), AVG(ump.confidenceScore), SUM(ump.usageCount) " +
            "FROM UserMerchantPattern ump WHERE ump.user = :user")
     Object[] getUserPatternStats(@Param("user") User user);
-}
\ No newline at end of file
+    
+    /**
+     * Version du jeu de patterns d'un utilisateur, pour détecter les écritures d'autres instances
+     * Ligne : (nombre de patterns, dernière création, dernière mise à jour)
+     */
+    @Query("SELECT COUNT(ump), MAX(ump.createdAt), MAX(ump.updatedAt) " +
+           "FROM UserMerchantPattern ump WHERE ump.user = :user")
+    List<Object[]> findPatternVersion(@Param("user") User user);
+}
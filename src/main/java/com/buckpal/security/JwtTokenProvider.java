@@ -52,9 +52,15 @@ public class JwtTokenProvider {
     }
     
     public boolean validateJwtToken(String authToken) {
+        return getClaimsFromValidJwtToken(authToken) != null;
+    }
+    
+    /**
+     * Validates the token and returns its claims in a single parse, or null when it is invalid
+     */
+    public Claims getClaimsFromValidJwtToken(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
-            return true;
+            return Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken).getBody();
         } catch (MalformedJwtException e) {
             System.err.println("Invalid JWT token: " + e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -64,6 +70,6 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException e) {
             System.err.println("JWT claims string is empty: " + e.getMessage());
         }
-        return false;
+        return null;
     }
 }
\ No newline at end of file
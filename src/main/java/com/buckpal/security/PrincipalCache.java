@@ -0,0 +1,147 @@
+package com.buckpal.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Principals resolved from JWTs, keyed by subject and token issue time so that a new login loads
+ * the user afresh. Entries live at most {@code ttl}; the cache is an LRU of at most
+ * {@code maxSize} entries. User changes must be reported through {@link #invalidate(String)}
+ * (see {@link PrincipalCacheInvalidator}). A load that was running when its subject was
+ * invalidated returns its result but does not cache it, since it may predate the change.
+ *
+ * Meters: {@code buckpal.cache.gets{cache,result=hit|miss}}, {@code buckpal.cache.evictions{cache}},
+ * {@code buckpal.cache.size{cache}} and {@code buckpal.cache.hit.ratio{cache}}, with
+ * cache = security.principals.
+ */
+@Component
+public class PrincipalCache {
+
+    static final String CACHE_NAME = "security.principals";
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<Key, Entry> entries;
+    // Sequence number of the last invalidation per subject; invalidateAll clears it and raises the floor
+    private final Map<String, Long> invalidations = new HashMap<>();
+    private long invalidationSequence;
+    private long allInvalidatedAt;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public PrincipalCache(MeterRegistry meterRegistry,
+                          @Value("${app.security.principal-cache.max-size:10000}") int maxSize,
+                          @Value("${app.security.principal-cache.ttl:PT5M}") Duration ttl) {
+        this(meterRegistry, maxSize, ttl, Clock.systemUTC());
+    }
+
+    PrincipalCache(MeterRegistry meterRegistry, int maxSize, Duration ttl, Clock clock) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = Math.max(0, ttl.toMillis());
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > PrincipalCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = Counter.builder("buckpal.cache.gets").tag("cache", CACHE_NAME).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("buckpal.cache.gets").tag("cache", CACHE_NAME).tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("buckpal.cache.evictions").tag("cache", CACHE_NAME).register(meterRegistry);
+        Gauge.builder("buckpal.cache.size", this, PrincipalCache::size).tag("cache", CACHE_NAME).register(meterRegistry);
+        Gauge.builder("buckpal.cache.hit.ratio", this, PrincipalCache::hitRatio).tag("cache", CACHE_NAME).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached principal, or loads it outside the lock. Loader exceptions are propagated
+     * and nothing is cached.
+     */
+    public UserDetails get(String subject, Date issuedAt, Function<String, UserDetails> loader) {
+        Key key = new Key(subject, issuedAt != null ? issuedAt.getTime() : 0L);
+        long now = clock.millis();
+        long generation;
+        synchronized (this) {
+            generation = generationOf(subject);
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.increment();
+                    return entry.principal;
+                }
+                entries.remove(key);
+            }
+        }
+
+        misses.increment();
+        UserDetails principal = loader.apply(subject);
+        if (principal != null && ttlMillis > 0) {
+            synchronized (this) {
+                if (generationOf(subject) == generation) {
+                    entries.put(key, new Entry(principal, now + ttlMillis));
+                }
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * Drops every cached token of the subject.
+     */
+    public synchronized void invalidate(String subject) {
+        invalidations.put(subject, ++invalidationSequence);
+        entries.keySet().removeIf(key -> Objects.equals(key.subject, subject));
+    }
+
+    public synchronized void invalidateAll() {
+        allInvalidatedAt = ++invalidationSequence;
+        invalidations.clear();
+        entries.clear();
+    }
+
+    private long generationOf(String subject) {
+        return Math.max(allInvalidatedAt, invalidations.getOrDefault(subject, 0L));
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total > 0 ? hits.count() / total : 0.0;
+    }
+
+    private record Key(String subject, long issuedAt) {
+    }
+
+    private static final class Entry {
+        final UserDetails principal;
+        final long expiresAt;
+
+        Entry(UserDetails principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.buckpal.security;
+
+import com.buckpal.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evicts cached principals when a user's credentials or status change (password, email, enabled,
+ * locked, expired flags) or when the user is deleted. Eviction happens at flush and again after
+ * the transaction completes, so that a request racing the commit cannot keep the old state cached.
+ */
+@Component
+@Lazy(false) // must be registered before the first write
+public class PrincipalCacheInvalidator implements PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final Set<String> SECURITY_PROPERTIES = Set.of("password", "email", "enabled",
+        "accountNonExpired", "accountNonLocked", "credentialsNonExpired");
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final PrincipalCache principalCache;
+
+    @Autowired
+    public PrincipalCacheInvalidator(EntityManagerFactory entityManagerFactory, PrincipalCache principalCache) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.principalCache = principalCache;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof User user) || !securityPropertyChanged(event)) {
+            return;
+        }
+        String oldEmail = null;
+        if (event.getOldState() != null) {
+            int index = Arrays.asList(event.getPersister().getPropertyNames()).indexOf("email");
+            oldEmail = index >= 0 ? (String) event.getOldState()[index] : null;
+        }
+        evict(event.getSession(), oldEmail != null ? List.of(oldEmail, user.getEmail()) : List.of(user.getEmail()));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof User user) {
+            evict(event.getSession(), List.of(user.getEmail()));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private static boolean securityPropertyChanged(PostUpdateEvent event) {
+        int[] dirty = event.getDirtyProperties();
+        if (dirty == null) {
+            return true;
+        }
+        String[] properties = event.getPersister().getPropertyNames();
+        return Arrays.stream(dirty).anyMatch(index -> SECURITY_PROPERTIES.contains(properties[index]));
+    }
+
+    private void evict(EventSource session, List<String> subjects) {
+        subjects.stream().filter(subject -> subject != null).forEach(principalCache::invalidate);
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completedSession) ->
+            subjects.stream().filter(subject -> subject != null).forEach(principalCache::invalidate));
+    }
+}
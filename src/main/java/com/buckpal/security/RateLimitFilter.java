@@ -0,0 +1,104 @@
+package com.buckpal.security;
+
+import com.buckpal.entity.User;
+import com.buckpal.security.RateLimiter.Decision;
+import com.buckpal.security.RateLimiter.EndpointClass;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Applies {@link RateLimiter} to API calls. Runs in the security chain after
+ * {@link JwtAuthenticationFilter}, so authenticated callers are limited per user and anonymous
+ * ones per remote address. Rejected calls get a 429 with {@code Retry-After}; every limited
+ * response carries {@code X-RateLimit-Limit} and {@code X-RateLimit-Remaining}.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final List<String> EXPENSIVE_PATHS = List.of(
+        "/api/intelligent-assignment/bulk-assign",
+        "/api/intelligent-assignment/migrate-patterns",
+        "/api/csv-import/upload",
+        "/api/csv-import/validate",
+        "/api/transactions/import-csv/*",
+        "/api/transactions/calendar/rebuild",
+        "/api/transaction-assignments/auto-detect-revision",
+        "/api/transaction-assignments/smart-suggest-batch",
+        "/api/budgets/*/recalculate",
+        "/api/accounts/recalculate-all-balances",
+        "/api/accounts/*/recalculate-balance"
+    );
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Value("${app.security.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !path(request).startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Decision decision = rateLimiter.tryAcquire(clientKey(request), classify(request));
+
+        response.setHeader("X-RateLimit-Limit", String.valueOf(decision.getLimit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.getRemaining()));
+        if (!decision.isAdmitted()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.getRetryAfterSeconds()));
+            response.setStatus(429);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\": \"Too Many Requests\", \"message\": \"Rate limit exceeded, retry in "
+                + decision.getRetryAfterSeconds() + " s\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    EndpointClass classify(HttpServletRequest request) {
+        String path = path(request);
+        if (pathMatcher.match("/api/auth/**", path)) {
+            return EndpointClass.AUTH;
+        }
+        if ("POST".equals(request.getMethod())) {
+            for (String pattern : EXPENSIVE_PATHS) {
+                if (pathMatcher.match(pattern, path)) {
+                    return EndpointClass.EXPENSIVE;
+                }
+            }
+        }
+        return EndpointClass.STANDARD;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user && user.getId() != null) {
+            return "user:" + user.getId();
+        }
+        // Behind a proxy, server.forward-headers-strategy makes this the client address
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,239 @@
+package com.buckpal.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per client and endpoint class, refilled continuously at the class's requests per
+ * minute and holding at most one minute of requests.
+ *
+ * A bucket is a single {@link AtomicLong}: the time at which it will be full again (the theoretical
+ * arrival time of the generic cell rate algorithm, equivalent to a token bucket). Acquiring is one
+ * CAS loop, without locks. A bucket that has been full for {@code idleEviction} carries no state
+ * and is evicted. When {@code maxBuckets} are in use, the stalest buckets (the ones that will be
+ * full again soonest) are evicted to make room, so a flood of new clients cannot lock out the
+ * others through a shared bucket, and the busiest clients keep their state the longest.
+ *
+ * Meters: {@code buckpal.ratelimit.requests{endpoint_class,result=admitted|rejected}},
+ * {@code buckpal.ratelimit.buckets} and {@code buckpal.ratelimit.evictions}.
+ */
+@Component
+public class RateLimiter {
+
+    private static final long MICROS_PER_MINUTE = 60_000_000L;
+    private static final long MIN_SWEEP_INTERVAL_MILLIS = 1000L;
+
+    public enum EndpointClass {
+        /** Authentication endpoints, keyed by IP since the caller is anonymous. */
+        AUTH,
+        /** Imports, bulk assignment and rebuilds: each call scans or writes many rows. */
+        EXPENSIVE,
+        STANDARD
+    }
+
+    private final Map<EndpointClass, Integer> requestsPerMinute;
+    private final int maxBuckets;
+    private final int evictionBatch;
+    private final long idleEvictionMillis;
+    private final Clock clock;
+    private final ConcurrentHashMap<Key, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong();
+    private final Map<EndpointClass, Counter> admitted = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejected = new EnumMap<>(EndpointClass.class);
+    private final Counter evictions;
+
+    @Autowired
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${app.security.rate-limit.requests-per-minute:60}") int requestsPerMinute,
+                       @Value("${app.security.rate-limit.expensive-requests-per-minute:6}") int expensiveRequestsPerMinute,
+                       @Value("${app.security.rate-limit.auth-requests-per-minute:10}") int authRequestsPerMinute,
+                       @Value("${app.security.rate-limit.max-buckets:100000}") int maxBuckets,
+                       @Value("${app.security.rate-limit.idle-eviction:PT10M}") Duration idleEviction) {
+        this(meterRegistry, Map.of(
+                EndpointClass.STANDARD, requestsPerMinute,
+                EndpointClass.EXPENSIVE, expensiveRequestsPerMinute,
+                EndpointClass.AUTH, authRequestsPerMinute),
+            maxBuckets, idleEviction, Clock.systemUTC());
+    }
+
+    RateLimiter(MeterRegistry meterRegistry, Map<EndpointClass, Integer> requestsPerMinute, int maxBuckets,
+                Duration idleEviction, Clock clock) {
+        this.requestsPerMinute = new EnumMap<>(EndpointClass.class);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            this.requestsPerMinute.put(endpointClass, Math.max(1, requestsPerMinute.getOrDefault(endpointClass, 60)));
+            this.admitted.put(endpointClass, Counter.builder("buckpal.ratelimit.requests")
+                .tag("endpoint_class", endpointClass.name().toLowerCase()).tag("result", "admitted")
+                .register(meterRegistry));
+            this.rejected.put(endpointClass, Counter.builder("buckpal.ratelimit.requests")
+                .tag("endpoint_class", endpointClass.name().toLowerCase()).tag("result", "rejected")
+                .register(meterRegistry));
+        }
+        this.maxBuckets = Math.max(1, maxBuckets);
+        this.evictionBatch = Math.max(1, this.maxBuckets / 100);
+        this.idleEvictionMillis = Math.max(0, idleEviction.toMillis());
+        this.clock = clock;
+        this.lastSweep.set(clock.millis());
+        this.evictions = Counter.builder("buckpal.ratelimit.evictions").register(meterRegistry);
+        Gauge.builder("buckpal.ratelimit.buckets", buckets, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the client's bucket for the endpoint class.
+     *
+     * @param client stable client identifier, e.g. "user:42" or "ip:203.0.113.7"
+     */
+    public Decision tryAcquire(String client, EndpointClass endpointClass) {
+        long nowMillis = clock.millis();
+        sweepIfDue(nowMillis);
+
+        int limit = requestsPerMinute.get(endpointClass);
+        Decision decision = bucketFor(client, endpointClass, nowMillis)
+            .tryAcquire(nowMillis * 1000, MICROS_PER_MINUTE / limit, limit);
+
+        (decision.isAdmitted() ? admitted : rejected).get(endpointClass).increment();
+        return decision;
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    private TokenBucket bucketFor(String client, EndpointClass endpointClass, long nowMillis) {
+        Key key = new Key(client, endpointClass);
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+
+        if (buckets.size() >= maxBuckets) {
+            evictStalest();
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket());
+    }
+
+    private void sweepIfDue(long nowMillis) {
+        long last = lastSweep.get();
+        if (nowMillis - last >= Math.max(idleEvictionMillis, MIN_SWEEP_INTERVAL_MILLIS)
+            && lastSweep.compareAndSet(last, nowMillis)) {
+            sweep(nowMillis);
+        }
+    }
+
+    /**
+     * Removes buckets that have been full for the idle period. A request racing with the removal
+     * may consume from the removed bucket: the client then gets at most one extra burst.
+     */
+    private void sweep(long nowMillis) {
+        long idleSince = (nowMillis - idleEvictionMillis) * 1000;
+        for (Map.Entry<Key, TokenBucket> entry : buckets.entrySet()) {
+            if (entry.getValue().isFullSince(idleSince) && buckets.remove(entry.getKey(), entry.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes the {@code evictionBatch} buckets that will be full again soonest, idle ones first. An
+     * evicted client starts again with a full bucket, so the ones that lose the least are chosen;
+     * evicting a batch keeps the scan of the map to one per batch of new clients.
+     */
+    private void evictStalest() {
+        // Ordered on a snapshot of fullAt, which concurrent requests keep moving
+        PriorityQueue<EvictionCandidate> stalest = new PriorityQueue<>(evictionBatch + 1,
+            Comparator.comparingLong(EvictionCandidate::fullAt).reversed());
+        for (Map.Entry<Key, TokenBucket> entry : buckets.entrySet()) {
+            stalest.add(new EvictionCandidate(entry.getKey(), entry.getValue(), entry.getValue().fullAt()));
+            if (stalest.size() > evictionBatch) {
+                stalest.poll();
+            }
+        }
+        for (EvictionCandidate candidate : stalest) {
+            if (buckets.remove(candidate.key(), candidate.bucket())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private record Key(String client, EndpointClass endpointClass) {
+    }
+
+    private record EvictionCandidate(Key key, TokenBucket bucket, long fullAt) {
+    }
+
+    static final class TokenBucket {
+
+        // Time (micros) at which the bucket is full again; at or before now means full
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE / 2);
+
+        Decision tryAcquire(long now, long interval, int capacity) {
+            long burst = interval * capacity;
+            while (true) {
+                long current = fullAt.get();
+                long start = Math.max(current, now);
+                long next = start + interval;
+                if (next - now > burst) {
+                    long waitMicros = next - now - burst;
+                    return Decision.rejected(capacity, (waitMicros + 999) / 1000);
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return Decision.admitted(capacity, (int) ((burst - (next - now)) / interval));
+                }
+            }
+        }
+
+        boolean isFullSince(long time) {
+            return fullAt.get() <= time;
+        }
+
+        long fullAt() {
+            return fullAt.get();
+        }
+    }
+
+    public static final class Decision {
+        private final boolean admitted;
+        private final int limit;
+        private final int remaining;
+        private final long retryAfterMillis;
+
+        private Decision(boolean admitted, int limit, int remaining, long retryAfterMillis) {
+            this.admitted = admitted;
+            this.limit = limit;
+            this.remaining = remaining;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        static Decision admitted(int limit, int remaining) {
+            return new Decision(true, limit, remaining, 0);
+        }
+
+        static Decision rejected(int limit, long retryAfterMillis) {
+            return new Decision(false, limit, 0, retryAfterMillis);
+        }
+
+        public boolean isAdmitted() { return admitted; }
+        public int getLimit() { return limit; }
+        public int getRemaining() { return remaining; }
+        public long getRetryAfterMillis() { return retryAfterMillis; }
+
+        /**
+         * Whole seconds for the {@code Retry-After} header, rounded up and at least one.
+         */
+        public long getRetryAfterSeconds() {
+            return Math.max(1, (retryAfterMillis + 999) / 1000);
+        }
+    }
+}
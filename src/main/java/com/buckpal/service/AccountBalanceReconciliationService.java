@@ -0,0 +1,217 @@
+package com.buckpal.service;
+
+import com.buckpal.repository.AccountRepository;
+import com.buckpal.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Vérifie les soldes maintenus de façon incrémentale contre la somme complète des transactions.
+ *
+ * Les comptes sont traités par lots (une requête de soldes et une requête de sommes par lot),
+ * plusieurs lots en parallèle, chacun dans sa propre transaction. Une correction n'est appliquée
+ * que si aucune mise à jour du solde n'a eu lieu depuis la lecture (balance_version) ; sinon le
+ * compte est signalé comme modifié en cours de route et sera revu au passage suivant.
+ */
+@Service
+@Lazy(false) // must be created eagerly for the scheduled run to be registered
+public class AccountBalanceReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountBalanceReconciliationService.class);
+
+    private static final int MAX_REPORTED_DRIFTS = 100;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int parallelism;
+
+    @Autowired
+    public AccountBalanceReconciliationService(AccountRepository accountRepository,
+                                               TransactionRepository transactionRepository,
+                                               PlatformTransactionManager transactionManager,
+                                               @Value("${app.accounts.balance-reconciliation.chunk-size:200}") int chunkSize,
+                                               @Value("${app.accounts.balance-reconciliation.parallelism:4}") int parallelism) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    @Scheduled(cron = "${app.accounts.balance-reconciliation.cron:0 30 3 * * *}")
+    public void scheduledReconciliation() {
+        ReconciliationReport report = reconcileAll(true);
+        if (report.getAccountsWithDrift() > 0) {
+            logger.warn("Balance reconciliation: {}", report);
+        } else {
+            logger.info("Balance reconciliation: {}", report);
+        }
+    }
+
+    /**
+     * Compare tous les soldes à la somme complète ; corrige les écarts si {@code fix}.
+     */
+    public ReconciliationReport reconcileAll(boolean fix) {
+        long start = System.currentTimeMillis();
+        List<Long> accountIds = accountRepository.findAllIds();
+        ReconciliationReport report = new ReconciliationReport();
+
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < accountIds.size(); from += chunkSize) {
+            chunks.add(accountIds.subList(from, Math.min(from + chunkSize, accountIds.size())));
+        }
+
+        if (chunks.size() <= 1) {
+            chunks.forEach(chunk -> report.merge(reconcileChunk(chunk, fix)));
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()));
+            try {
+                List<Future<ReconciliationReport>> results = new ArrayList<>();
+                for (List<Long> chunk : chunks) {
+                    results.add(executor.submit(() -> reconcileChunk(chunk, fix)));
+                }
+                for (Future<ReconciliationReport> result : results) {
+                    report.merge(result.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Balance reconciliation interrupted", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Balance reconciliation failed: " + e.getCause().getMessage(), e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        report.durationMs = System.currentTimeMillis() - start;
+        return report;
+    }
+
+    /**
+     * Recalcule et corrige le solde d'un seul compte.
+     */
+    public ReconciliationReport reconcileAccount(Long accountId) {
+        return reconcileChunk(List.of(accountId), true);
+    }
+
+    private ReconciliationReport reconcileChunk(List<Long> accountIds, boolean fix) {
+        return transactionTemplate.execute(status -> {
+            ReconciliationReport report = new ReconciliationReport();
+
+            // Versions lues avant les sommes : une écriture concurrente fera échouer la correction
+            List<Object[]> states = accountRepository.findBalanceStates(accountIds);
+            Map<Long, BigDecimal> computed = new HashMap<>();
+            for (Object[] row : transactionRepository.calculateBalancesByAccountIds(accountIds)) {
+                computed.put((Long) row[0], (BigDecimal) row[1]);
+            }
+
+            for (Object[] state : states) {
+                Long accountId = (Long) state[0];
+                BigDecimal stored = state[1] != null ? (BigDecimal) state[1] : BigDecimal.ZERO;
+                Long version = state[2] != null ? (Long) state[2] : 0L;
+                BigDecimal expected = computed.getOrDefault(accountId, BigDecimal.ZERO);
+                report.accountsChecked++;
+
+                if (stored.compareTo(expected) == 0) {
+                    continue;
+                }
+                report.recordDrift(accountId, stored, expected);
+
+                if (fix) {
+                    if (accountRepository.replaceBalance(accountId, expected, version) == 1) {
+                        report.accountsCorrected++;
+                    } else {
+                        report.concurrentlyModified++;
+                    }
+                }
+            }
+            return report;
+        });
+    }
+
+    /**
+     * Résultat d'une réconciliation
+     */
+    public static class ReconciliationReport {
+        private int accountsChecked;
+        private int accountsWithDrift;
+        private int accountsCorrected;
+        private int concurrentlyModified;
+        private BigDecimal totalAbsoluteDrift = BigDecimal.ZERO;
+        private final List<AccountDrift> drifts = new ArrayList<>();
+        private long durationMs;
+
+        private void recordDrift(Long accountId, BigDecimal stored, BigDecimal expected) {
+            accountsWithDrift++;
+            totalAbsoluteDrift = totalAbsoluteDrift.add(stored.subtract(expected).abs());
+            if (drifts.size() < MAX_REPORTED_DRIFTS) {
+                drifts.add(new AccountDrift(accountId, stored, expected));
+            }
+        }
+
+        private void merge(ReconciliationReport other) {
+            accountsChecked += other.accountsChecked;
+            accountsWithDrift += other.accountsWithDrift;
+            accountsCorrected += other.accountsCorrected;
+            concurrentlyModified += other.concurrentlyModified;
+            totalAbsoluteDrift = totalAbsoluteDrift.add(other.totalAbsoluteDrift);
+            for (AccountDrift drift : other.drifts) {
+                if (drifts.size() < MAX_REPORTED_DRIFTS) {
+                    drifts.add(drift);
+                }
+            }
+        }
+
+        public int getAccountsChecked() { return accountsChecked; }
+        public int getAccountsWithDrift() { return accountsWithDrift; }
+        public int getAccountsCorrected() { return accountsCorrected; }
+        public int getConcurrentlyModified() { return concurrentlyModified; }
+        public BigDecimal getTotalAbsoluteDrift() { return totalAbsoluteDrift; }
+        public List<AccountDrift> getDrifts() { return Collections.unmodifiableList(drifts); }
+        public long getDurationMs() { return durationMs; }
+
+        @Override
+        public String toString() {
+            return String.format("%d comptes vérifiés, %d écarts (total %s), %d corrigés, %d modifiés pendant la vérification, %d ms",
+                accountsChecked, accountsWithDrift, totalAbsoluteDrift.toPlainString(), accountsCorrected,
+                concurrentlyModified, durationMs);
+        }
+    }
+
+    public static class AccountDrift {
+        private final Long accountId;
+        private final BigDecimal storedBalance;
+        private final BigDecimal computedBalance;
+
+        public AccountDrift(Long accountId, BigDecimal storedBalance, BigDecimal computedBalance) {
+            this.accountId = accountId;
+            this.storedBalance = storedBalance;
+            this.computedBalance = computedBalance;
+        }
+
+        public Long getAccountId() { return accountId; }
+        public BigDecimal getStoredBalance() { return storedBalance; }
+        public BigDecimal getComputedBalance() { return computedBalance; }
+        public BigDecimal getDrift() { return storedBalance.subtract(computedBalance); }
+    }
+}
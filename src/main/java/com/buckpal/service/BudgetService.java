@@ -7,6 +7,9 @@ import com.buckpal.repository.BudgetRepository;
 import com.buckpal.repository.BudgetCategoryRepository;
 import com.buckpal.repository.TransactionRepository;
 import com.buckpal.service.CategoryInitializationService.BudgetCategoryTemplate;
+import com.buckpal.service.projection.PeriodPayments;
+import com.buckpal.service.projection.RecurringProjection;
+import com.buckpal.service.rollup.MonthlyCategorySpendService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,7 +17,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -31,6 +36,7 @@ public class BudgetService {
     private final IncomeManagementService incomeService;
     private final IntelligentBudgetService intelligentBudgetService;
     private final RecurringPaymentService recurringPaymentService;
+    private final MonthlyCategorySpendService monthlyCategorySpendService;
     
     @Autowired
     public BudgetService(BudgetRepository budgetRepository, 
@@ -39,7 +45,8 @@ public class BudgetService {
                         CategoryInitializationService categoryInitializationService,
                         IncomeManagementService incomeService,
                         IntelligentBudgetService intelligentBudgetService,
-                        RecurringPaymentService recurringPaymentService) {
+                        RecurringPaymentService recurringPaymentService,
+                        MonthlyCategorySpendService monthlyCategorySpendService) {
         this.budgetRepository = budgetRepository;
         this.budgetCategoryRepository = budgetCategoryRepository;
         this.transactionRepository = transactionRepository;
@@ -47,6 +54,7 @@ public class BudgetService {
         this.incomeService = incomeService;
         this.intelligentBudgetService = intelligentBudgetService;
         this.recurringPaymentService = recurringPaymentService;
+        this.monthlyCategorySpendService = monthlyCategorySpendService;
     }
     
     public BudgetDto createBudget(User user, BudgetDto budgetDto) {
@@ -78,7 +86,7 @@ public class BudgetService {
         return budgetRepository.findCurrentMonthBudget(user)
                              .map(budget -> {
                                  System.out.println("Found current budget: " + budget.getBudgetMonth() + "/" + budget.getBudgetYear());
-                                 recalculateBudgetSpentAmountsFromCategoryMapping(budget);
+                                 refreshBudgetSpentAmounts(budget);
                                  return mapEntityToDto(budget);
                              });
     }
@@ -119,8 +127,8 @@ public class BudgetService {
     public Optional<BudgetDto> getBudget(User user, Integer month, Integer year) {
         return budgetRepository.findByUserAndBudgetMonthAndBudgetYear(user, month, year)
                               .map(budget -> {
-                                  // Recalculate spent amounts before returning
-                                  recalculateBudgetSpentAmountsFromCategoryMapping(budget);
+                                  // Refresh spent amounts before returning
+                                  refreshBudgetSpentAmounts(budget);
                                   return mapEntityToDto(budget);
                               });
     }
@@ -133,10 +141,8 @@ public class BudgetService {
                                   return budget.getUser().getId().equals(user.getId());
                               })
                               .map(budget -> {
-                                  System.out.println("About to recalculate budget spent amounts...");
-                                  // Recalculate spent amounts before returning
-                                  recalculateBudgetSpentAmountsFromCategoryMapping(budget);
-                                  System.out.println("Recalculation completed, converting to DTO");
+                                  // Refresh spent amounts before returning
+                                  refreshBudgetSpentAmounts(budget);
                                   return mapEntityToDto(budget);
                               });
     }
@@ -168,6 +174,8 @@ public class BudgetService {
         // First, unassign all transactions that are assigned to this budget's categories
         // Use bulk update for better performance
         transactionRepository.unassignTransactionsFromBudget(budgetId, user);
+        // The bulk update bypasses the rollup listener
+        monthlyCategorySpendService.rebuild(List.of(user.getId()));
         
         // Now safe to delete the budget (cascades will handle budget categories)
         budgetRepository.deleteById(budgetId);
@@ -593,52 +601,61 @@ public class BudgetService {
     }
     
     /**
-     * Update all budget category spent amounts using SQL join with category mapping
-     * This method calculates expenses by joining transactions -> categories -> budget category mapping
+     * Refresh spent amounts of the user's budgets for the given months (months without a budget are ignored)
      */
-    public void recalculateBudgetSpentAmountsFromCategoryMapping(Budget budget) {
-        
-        // Calculate date range for the budget month
-        LocalDate startDate = LocalDate.of(budget.getBudgetYear(), budget.getBudgetMonth(), 1);
-        LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
-        
-        // Get spent amounts grouped by budget category key via SQL join
-        List<Object[]> spentByCategory = transactionRepository.calculateSpentAmountsByBudgetCategory(
-            budget.getUser(), startDate, endDate);
-        
-        // Convert results to map for easy lookup
-        Map<BudgetCategoryKey, BigDecimal> spentAmounts;
-        try {
-            spentAmounts = spentByCategory.stream()
-                .collect(Collectors.toMap(
-                    row -> (BudgetCategoryKey) row[0],
-                    row -> (BigDecimal) row[1],
-                    BigDecimal::add  // In case of duplicates, sum them
-                ));
-        } catch (Exception e) {
-            System.err.println("ERROR creating spent amounts map: " + e.getMessage());
-            e.printStackTrace();
-            return; // Exit early if there's an error
+    public void recalculateBudgetsForMonths(User user, Collection<YearMonth> months) {
+        for (YearMonth month : months) {
+            budgetRepository.findByUserAndBudgetMonthAndBudgetYear(user, month.getMonthValue(), month.getYear())
+                .ifPresent(this::refreshBudgetSpentAmounts);
         }
+    }
+    
+    /**
+     * Update budget category spent amounts from the monthly category spend rollup,
+     * which is maintained on every transaction write. Only changed rows are saved.
+     */
+    public void refreshBudgetSpentAmounts(Budget budget) {
+        Map<BudgetCategoryKey, BigDecimal> spentAmounts = monthlyCategorySpendService.getSpentAmounts(
+            budget.getUser().getId(), YearMonth.of(budget.getBudgetYear(), budget.getBudgetMonth()));
         
-        // Update each budget category with the calculated spent amount
+        BigDecimal totalSpent = BigDecimal.ZERO;
         for (BudgetCategory budgetCategory : budget.getBudgetCategories()) {
             if (budgetCategory.getCategoryKey() != null) {
                 BigDecimal spentAmount = spentAmounts.getOrDefault(budgetCategory.getCategoryKey(), BigDecimal.ZERO);
-                BigDecimal oldAmount = budgetCategory.getSpentAmount();
-                budgetCategory.setSpentAmount(spentAmount);
-                budgetCategoryRepository.save(budgetCategory);
-            } else {
+                if (budgetCategory.getSpentAmount() == null || budgetCategory.getSpentAmount().compareTo(spentAmount) != 0) {
+                    budgetCategory.setSpentAmount(spentAmount);
+                    budgetCategoryRepository.save(budgetCategory);
+                }
+            }
+            if (budgetCategory.getSpentAmount() != null) {
+                totalSpent = totalSpent.add(budgetCategory.getSpentAmount());
             }
         }
         
-        // Recalculate budget total (integrated here instead of separate method)
-        BigDecimal totalSpent = budget.getBudgetCategories().stream()
-            .map(BudgetCategory::getSpentAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        budget.setTotalSpentAmount(totalSpent);
-        budgetRepository.save(budget);
+        if (budget.getTotalSpentAmount() == null || budget.getTotalSpentAmount().compareTo(totalSpent) != 0) {
+            budget.setTotalSpentAmount(totalSpent);
+            budgetRepository.save(budget);
+        }
+    }
+    
+    /**
+     * Repair tool: rebuild the user's monthly category spend from transactions, then refresh the budget
+     */
+    public BudgetDto recalculateBudget(User user, Long budgetId) {
+        Budget budget = budgetRepository.findById(budgetId)
+            .filter(b -> b.getUser().getId().equals(user.getId()))
+            .orElseThrow(() -> new RuntimeException("Budget not found or access denied"));
+        recalculateBudgetSpentAmountsFromCategoryMapping(budget);
+        return mapEntityToDto(budget);
+    }
+    
+    /**
+     * Rebuild the monthly category spend of the budget's user from transactions (SQL join with
+     * category mapping), then update the budget from it. Repair path: reads use refreshBudgetSpentAmounts.
+     */
+    public void recalculateBudgetSpentAmountsFromCategoryMapping(Budget budget) {
+        monthlyCategorySpendService.rebuild(List.of(budget.getUser().getId()));
+        refreshBudgetSpentAmounts(budget);
     }
     
     /**
@@ -694,21 +711,10 @@ public class BudgetService {
             LocalDate budgetMonthStart = LocalDate.of(budget.getBudgetYear(), budget.getBudgetMonth(), 1);
             LocalDate budgetMonthEnd = budgetMonthStart.withDayOfMonth(budgetMonthStart.lengthOfMonth());
             
-            // Get active recurring income payments for the budget period
-            List<RecurringPayment> incomePayments = recurringPaymentService.getActivePaymentsForPeriod(
+            // Recurring income of the budget month (memoized for the rest of the budget creation)
+            BigDecimal recurringIncome = recurringPaymentService.getPaymentsForPeriod(
                 user, budgetMonthStart, budgetMonthEnd)
-                .stream()
-                .filter(payment -> payment.getPaymentType() == RecurringPayment.PaymentType.INCOME)
-                .collect(Collectors.toList());
-            
-            // Calculate total projected income from recurring payments
-            BigDecimal recurringIncome = BigDecimal.ZERO;
-            for (RecurringPayment payment : incomePayments) {
-                List<LocalDate> paymentDates = payment.getPaymentDatesInPeriod(budgetMonthStart, budgetMonthEnd);
-                for (LocalDate date : paymentDates) {
-                    recurringIncome = recurringIncome.add(payment.getAmountForDate(date));
-                }
-            }
+                .getTotal(RecurringPayment.PaymentType.INCOME);
             
             // Add recurring income to existing projected income
             if (recurringIncome.compareTo(BigDecimal.ZERO) > 0) {
@@ -731,14 +737,10 @@ public class BudgetService {
             LocalDate budgetMonthStart = LocalDate.of(budget.getBudgetYear(), budget.getBudgetMonth(), 1);
             LocalDate budgetMonthEnd = budgetMonthStart.withDayOfMonth(budgetMonthStart.lengthOfMonth());
             
-            // Get active recurring expense and credit payments for the budget period
-            List<RecurringPayment> expensePayments = recurringPaymentService.getActivePaymentsForPeriod(
+            // Recurring expense, credit and subscription payments of the budget month
+            List<PeriodPayments.Occurrences> expensePayments = recurringPaymentService.getPaymentsForPeriod(
                 user, budgetMonthStart, budgetMonthEnd)
-                .stream()
-                .filter(payment -> payment.getPaymentType() == RecurringPayment.PaymentType.EXPENSE ||
-                                 payment.getPaymentType() == RecurringPayment.PaymentType.CREDIT ||
-                                 payment.getPaymentType() == RecurringPayment.PaymentType.SUBSCRIPTION)
-                .collect(Collectors.toList());
+                .getOutgoing();
             
             if (expensePayments.isEmpty()) {
                 return;
@@ -747,13 +749,9 @@ public class BudgetService {
             // Group recurring payments by category type
             Map<String, BigDecimal> recurringExpensesByCategory = new java.util.HashMap<>();
             
-            for (RecurringPayment payment : expensePayments) {
-                List<LocalDate> paymentDates = payment.getPaymentDatesInPeriod(budgetMonthStart, budgetMonthEnd);
-                BigDecimal monthlyAmount = BigDecimal.ZERO;
-                
-                for (LocalDate date : paymentDates) {
-                    monthlyAmount = monthlyAmount.add(payment.getAmountForDate(date));
-                }
+            for (PeriodPayments.Occurrences occurrences : expensePayments) {
+                RecurringPayment payment = occurrences.getPayment();
+                BigDecimal monthlyAmount = occurrences.getTotal();
                 
                 if (monthlyAmount.compareTo(BigDecimal.ZERO) > 0) {
                     // Map recurring payment type to budget category
@@ -845,14 +843,11 @@ public class BudgetService {
             Map<String, Object> recurringProjection = recurringPaymentService.getBudgetProjection(
                 user, startDate, monthsAhead);
             
-            // Get existing budgets for the projection period
-            List<Budget> existingBudgets = new ArrayList<>();
-            for (int month = 0; month < monthsAhead; month++) {
-                LocalDate projectionMonth = startDate.plusMonths(month);
-                Optional<Budget> budget = budgetRepository.findByUserAndBudgetMonthAndBudgetYear(
-                    user, projectionMonth.getMonthValue(), projectionMonth.getYear());
-                budget.ifPresent(existingBudgets::add);
-            }
+            // Existing budgets of the projection period, in one query
+            int months = Math.max(1, Math.min(monthsAhead, RecurringProjection.MAX_MONTHS));
+            int fromMonth = startDate.getYear() * 12 + startDate.getMonthValue();
+            List<Budget> existingBudgets = budgetRepository.findByUserAndMonthNumberRange(
+                user, fromMonth, fromMonth + months - 1);
             
             // Combine existing budget data with recurring payments projection
             Map<String, Object> combinedProjection = new java.util.HashMap<>(recurringProjection);
@@ -880,8 +875,9 @@ public class BudgetService {
             LocalDate budgetMonthEnd = budgetMonthStart.withDayOfMonth(budgetMonthStart.lengthOfMonth());
             
             // Get all active recurring payments for the budget period
-            List<RecurringPayment> activePayments = recurringPaymentService.getActivePaymentsForPeriod(
-                user, budgetMonthStart, budgetMonthEnd);
+            List<PeriodPayments.Occurrences> activePayments = recurringPaymentService.getPaymentsForPeriod(
+                user, budgetMonthStart, budgetMonthEnd)
+                .getAll();
             
             // Calculate totals by payment type
             BigDecimal totalIncome = BigDecimal.ZERO;
@@ -890,13 +886,10 @@ public class BudgetService {
             
             List<Map<String, Object>> paymentDetails = new ArrayList<>();
             
-            for (RecurringPayment payment : activePayments) {
-                List<LocalDate> paymentDates = payment.getPaymentDatesInPeriod(budgetMonthStart, budgetMonthEnd);
-                BigDecimal monthlyAmount = BigDecimal.ZERO;
-                
-                for (LocalDate date : paymentDates) {
-                    monthlyAmount = monthlyAmount.add(payment.getAmountForDate(date));
-                }
+            for (PeriodPayments.Occurrences occurrences : activePayments) {
+                RecurringPayment payment = occurrences.getPayment();
+                List<LocalDate> paymentDates = occurrences.getDates();
+                BigDecimal monthlyAmount = occurrences.getTotal();
                 
                 if (monthlyAmount.compareTo(BigDecimal.ZERO) > 0) {
                     Map<String, Object> paymentDetail = new java.util.HashMap<>();
@@ -0,0 +1,294 @@
+package com.buckpal.service;
+
+import com.buckpal.entity.BulkAssignmentJob;
+import com.buckpal.entity.BulkAssignmentJob.JobStatus;
+import com.buckpal.entity.User;
+import com.buckpal.repository.BulkAssignmentJobRepository;
+import com.buckpal.repository.TransactionRepository;
+import com.buckpal.service.HybridPatternResolver.ResolvedPattern;
+import com.buckpal.service.pattern.MerchantPatternIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * Assignation intelligente en masse, exécutée comme un job asynchrone.
+ *
+ * Les transactions non assignées sont lues par pages (keyset sur l'id, seulement id, marchand et
+ * description), résolues en parallèle contre un snapshot des patterns de l'utilisateur, puis
+ * écrites par des UPDATE groupés par catégorie, une transaction par page.
+ *
+ * L'état du job est persisté dans bulk_assignment_jobs avec chaque page, si bien que le suivi
+ * peut être servi par n'importe quel nœud. Un job en cours qui n'avance plus depuis
+ * {@link #ABANDONED_JOB_TIMEOUT} (nœud arrêté) est marqué en échec au démarrage suivant.
+ * Deux nœuds peuvent exceptionnellement lancer chacun un job pour le même utilisateur ;
+ * les UPDATE ignorant les transactions déjà assignées, le résultat reste le même.
+ */
+@Service
+public class BulkAssignmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkAssignmentService.class);
+
+    private static final BigDecimal AUTO_ASSIGN_CONFIDENCE = new BigDecimal("0.7");
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+    static final Duration ABANDONED_JOB_TIMEOUT = Duration.ofMinutes(15);
+    private static final TypeReference<Map<String, Integer>> STRATEGY_COUNTS = new TypeReference<>() {};
+
+    private final TransactionRepository transactionRepository;
+    private final HybridPatternResolver hybridPatternResolver;
+    private final MerchantPatternIndex patternIndex;
+    private final IntelligentAssignmentMigrationService migrationService;
+    private final BulkAssignmentJobRepository jobRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int pageSize;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "bulk-assignment");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public BulkAssignmentService(TransactionRepository transactionRepository,
+                                 HybridPatternResolver hybridPatternResolver,
+                                 MerchantPatternIndex patternIndex,
+                                 IntelligentAssignmentMigrationService migrationService,
+                                 BulkAssignmentJobRepository jobRepository,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.intelligent-assignment.bulk-page-size:1000}") int pageSize) {
+        this.transactionRepository = transactionRepository;
+        this.hybridPatternResolver = hybridPatternResolver;
+        this.patternIndex = patternIndex;
+        this.migrationService = migrationService;
+        this.jobRepository = jobRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    /**
+     * Démarre un job pour l'utilisateur, ou renvoie celui déjà en cours.
+     */
+    public synchronized BulkAssignmentJob startJob(User user) {
+        Optional<BulkAssignmentJob> running = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            jobRepository.failAbandoned(JobStatus.RUNNING, JobStatus.FAILED, now.minus(ABANDONED_JOB_TIMEOUT),
+                "Job abandoned: its node stopped reporting progress", now);
+            jobRepository.deleteFinishedBefore(now.minus(FINISHED_JOB_RETENTION));
+            return jobRepository.findByUserIdAndStatus(user.getId(), JobStatus.RUNNING).stream().findFirst();
+        });
+        if (running.isPresent()) {
+            return running.get();
+        }
+
+        BulkAssignmentJob job = new BulkAssignmentJob(UUID.randomUUID().toString(), user.getId());
+        jobRepository.save(job);
+        executor.submit(() -> run(job, user));
+        return job;
+    }
+
+    public Optional<BulkAssignmentJob> findJob(String jobId, User user) {
+        return jobRepository.findByJobIdAndUserId(jobId, user.getId());
+    }
+
+    void run(BulkAssignmentJob job, User user) {
+        Map<String, Integer> strategyCounts = new HashMap<>();
+        try {
+            migrationService.ensurePatternsMigrated();
+            job.setTotalTransactions(transactionRepository.countByUserAndDetailedCategoryIdIsNull(user));
+            saveProgress(job);
+            MerchantPatternIndex.Snapshot snapshot = patternIndex.snapshot(user);
+
+            Long afterId = 0L;
+            while (true) {
+                List<Object[]> page = transactionRepository.findUnassignedMerchantTextAfter(
+                    user, afterId, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                Resolution[] resolutions = new Resolution[page.size()];
+                IntStream.range(0, page.size()).parallel().forEach(i -> {
+                    Object[] row = page.get(i);
+                    String merchantText = SmartTransactionAssignmentService.buildMerchantText((String) row[1], (String) row[2]);
+                    resolutions[i] = new Resolution((Long) row[0],
+                        hybridPatternResolver.resolveBestPattern(merchantText, snapshot).orElse(null));
+                });
+
+                writePage(job, resolutions, strategyCounts);
+                afterId = (Long) page.get(page.size() - 1)[0];
+            }
+
+            job.setStatus(JobStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            logger.error("Bulk assignment job {} failed", job.getJobId(), e);
+            job.setError(e.getMessage());
+            job.setStatus(JobStatus.FAILED);
+        } finally {
+            job.setFinishedAt(Instant.now());
+            try {
+                saveProgress(job);
+            } catch (RuntimeException e) {
+                // Le job restera RUNNING en base jusqu'à être considéré comme abandonné
+                logger.error("Could not record the end of bulk assignment job {}", job.getJobId(), e);
+            }
+        }
+    }
+
+    /**
+     * Statut d'un job tel que renvoyé par l'API.
+     */
+    public Map<String, Object> describe(BulkAssignmentJob job) {
+        int processed = job.getProcessed();
+        long total = job.getTotalTransactions();
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("jobId", job.getJobId());
+        map.put("status", job.getStatus().name());
+        map.put("totalTransactions", total);
+        map.put("processed", processed);
+        map.put("assigned", job.getAssigned());
+        map.put("needsReview", job.getNeedsReview());
+        map.put("unassigned", processed - job.getAssigned() - job.getNeedsReview());
+        map.put("progress", total > 0 ? Math.min(1.0, (double) processed / total) :
+            (job.getStatus() == JobStatus.RUNNING ? 0.0 : 1.0));
+        map.put("strategyBreakdown", readStrategyCounts(job));
+        map.put("startedAt", job.getStartedAt().toString());
+        map.put("finishedAt", job.getFinishedAt() != null ? job.getFinishedAt().toString() : null);
+        if (job.getError() != null) {
+            map.put("error", job.getError());
+        }
+        return map;
+    }
+
+    private void writePage(BulkAssignmentJob job, Resolution[] resolutions, Map<String, Integer> strategyCounts) {
+        // Un UPDATE par (catégorie, confiance, revue) plutôt qu'un save par transaction
+        Map<AssignmentGroup, List<Long>> groups = new LinkedHashMap<>();
+        Map<String, Integer> strategies = new HashMap<>();
+        for (Resolution resolution : resolutions) {
+            ResolvedPattern match = resolution.match;
+            strategies.merge(match != null ? match.getStrategy() : "NO_PATTERN_MATCH", 1, Integer::sum);
+            if (match != null && match.pattern.categoryId != null) {
+                BigDecimal confidence = match.pattern.confidenceScore;
+                boolean review = confidence.compareTo(AUTO_ASSIGN_CONFIDENCE) < 0;
+                groups.computeIfAbsent(new AssignmentGroup(match.pattern.categoryId, confidence, review),
+                    key -> new ArrayList<>()).add(resolution.transactionId);
+            }
+        }
+
+        // La progression est écrite dans la transaction de la page : elle reflète exactement ce qui est validé
+        transactionTemplate.executeWithoutResult(status -> {
+            int assigned = 0;
+            int needsReview = 0;
+            for (Map.Entry<AssignmentGroup, List<Long>> entry : groups.entrySet()) {
+                AssignmentGroup group = entry.getKey();
+                if (group.review) {
+                    needsReview += transactionRepository.assignDetailedCategoryForReview(
+                        entry.getValue(), group.categoryId, group.confidence);
+                } else {
+                    assigned += transactionRepository.assignDetailedCategory(
+                        entry.getValue(), group.categoryId, group.confidence);
+                }
+            }
+
+            job.setAssigned(job.getAssigned() + assigned);
+            job.setNeedsReview(job.getNeedsReview() + needsReview);
+            job.setProcessed(job.getProcessed() + resolutions.length);
+            strategies.forEach((strategy, count) -> strategyCounts.merge(strategy, count, Integer::sum));
+            job.setStrategyCountsJson(toJson(strategyCounts));
+            job.setUpdatedAt(Instant.now());
+            jobRepository.save(job);
+        });
+    }
+
+    private void saveProgress(BulkAssignmentJob job) {
+        job.setUpdatedAt(Instant.now());
+        jobRepository.save(job);
+    }
+
+    private String toJson(Map<String, Integer> strategyCounts) {
+        try {
+            return objectMapper.writeValueAsString(strategyCounts);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize bulk assignment strategies", e);
+        }
+    }
+
+    private Map<String, Integer> readStrategyCounts(BulkAssignmentJob job) {
+        if (job.getStrategyCountsJson() == null) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(job.getStrategyCountsJson(), STRATEGY_COUNTS);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read bulk assignment strategies", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static class Resolution {
+        final Long transactionId;
+        final ResolvedPattern match;
+
+        Resolution(Long transactionId, ResolvedPattern match) {
+            this.transactionId = transactionId;
+            this.match = match;
+        }
+    }
+
+    private static class AssignmentGroup {
+        final Long categoryId;
+        final BigDecimal confidence;
+        final boolean review;
+
+        AssignmentGroup(Long categoryId, BigDecimal confidence, boolean review) {
+            this.categoryId = categoryId;
+            this.confidence = confidence;
+            this.review = review;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof AssignmentGroup)) return false;
+            AssignmentGroup that = (AssignmentGroup) o;
+            return review == that.review && categoryId.equals(that.categoryId)
+                && confidence.compareTo(that.confidence) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(categoryId, confidence.stripTrailingZeros(), review);
+        }
+    }
+}
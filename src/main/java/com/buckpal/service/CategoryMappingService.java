@@ -5,6 +5,9 @@ import com.buckpal.entity.Category;
 import com.buckpal.entity.User;
 import com.buckpal.repository.BudgetRepository;
 import com.buckpal.repository.CategoryRepository;
+import com.buckpal.service.pattern.AssignmentCache;
+import com.buckpal.service.pattern.MerchantPatternIndex;
+import com.buckpal.service.rollup.MonthlyCategorySpendService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,6 +35,15 @@ public class CategoryMappingService {
     
     @Autowired
     private BudgetService budgetService;
+    
+    @Autowired
+    private AssignmentCache assignmentCache;
+    
+    @Autowired
+    private MerchantPatternIndex patternIndex;
+    
+    @Autowired
+    private MonthlyCategorySpendService monthlyCategorySpendService;
 
     /**
      * Get the budget category key for a detailed category.
@@ -80,8 +92,10 @@ public class CategoryMappingService {
         category.setIsAutoMapped(false); // Mark as user-defined mapping
         
         categoryRepository.save(category);
+        invalidateCategoryCaches(false);
         
-        // Recalculate affected budgets since mapping changed
+        // Transactions of this category now count under another key
+        monthlyCategorySpendService.rebuildForCategories(List.of(detailedCategoryId));
         recalculateAffectedBudgets();
     }
 
@@ -101,6 +115,7 @@ public class CategoryMappingService {
         category.setIsAutoMapped(false); // User-created category
         
         Category savedCategory = categoryRepository.save(category);
+        invalidateCategoryCaches(false);
         
         // Recalculate affected budgets since new mapping was created
         recalculateAffectedBudgets();
@@ -122,6 +137,7 @@ public class CategoryMappingService {
         }
         
         categoryRepository.delete(category);
+        invalidateCategoryCaches(true);
     }
 
     /**
@@ -146,8 +162,10 @@ public class CategoryMappingService {
         category.setColorCode(colorCode);
         
         Category savedCategory = categoryRepository.save(category);
+        invalidateCategoryCaches(true);
         
         // Recalculate affected budgets since mapping was updated
+        monthlyCategorySpendService.rebuildForCategories(List.of(categoryId));
         recalculateAffectedBudgets();
         
         return savedCategory;
@@ -166,6 +184,7 @@ public class CategoryMappingService {
         
         // Get all unmapped categories to avoid duplicate processing
         List<Category> unmappedCategories = getUnmappedCategories();
+        List<Long> mappedCategoryIds = new ArrayList<>();
         
         for (Category category : unmappedCategories) {
             String categoryName = category.getName();
@@ -176,12 +195,27 @@ public class CategoryMappingService {
                 category.setBudgetCategoryKey(budgetKey);
                 category.setIsAutoMapped(true);
                 categoryRepository.save(category);
+                mappedCategoryIds.add(category.getId());
             }
         }
         
+        invalidateCategoryCaches(true);
+        
         // Recalculate affected budgets since mappings were initialized
+        monthlyCategorySpendService.rebuildForCategories(mappedCategoryIds);
         recalculateAffectedBudgets();
     }
+    
+    /**
+     * Drop cached categories and assignment results. Pattern automata embed category names,
+     * so they are rebuilt as well when categories were renamed or deleted.
+     */
+    private void invalidateCategoryCaches(boolean namesChanged) {
+        if (namesChanged) {
+            patternIndex.invalidateAll();
+        }
+        assignmentCache.invalidateAll();
+    }
 
     /**
      * Clean up duplicate categories by keeping the most recent one for each name.
@@ -317,12 +351,13 @@ public class CategoryMappingService {
     }
     
     /**
-     * Recalculate budget progress for all existing budgets after category mapping changes
+     * Refresh budget progress for all existing budgets after category mapping changes
+     * (the monthly spend rollup must have been rebuilt for the remapped categories)
      */
     private void recalculateAffectedBudgets() {
-        // Get all budgets and recalculate their spent amounts
+        // Get all budgets and refresh their spent amounts
         budgetRepository.findAll().forEach(budget -> {
-            budgetService.recalculateBudgetSpentAmountsFromCategoryMapping(budget);
+            budgetService.refreshBudgetSpentAmounts(budget);
         });
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.buckpal.entity.Category;
 import com.buckpal.entity.Transaction;
 import com.buckpal.entity.User;
 import com.buckpal.repository.CategoryRepository;
+import com.buckpal.service.pattern.AssignmentCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -12,15 +13,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
 @Service
 public class CategoryService {
     
-    @Autowired
-    private CategoryRepository categoryRepository;
-    
-    @Autowired
-    private CategoryInitializationService categoryInitializationService;
+    private final CategoryRepository categoryRepository;
+    private final CategoryInitializationService categoryInitializationService;
+    private final AssignmentCache assignmentCache;
     
     private final Map<String, String[]> categoryKeywords = new HashMap<String, String[]>() {{
         put("categories.groceries", new String[]{"lidl", "carrefour", "leclerc", "auchan", "monoprix", "restaurant", "cafe", "food", "dining", "pizza", "mcdonald", "burger", "grocery", "supermarket", "walmart", "target"});
@@ -37,6 +37,15 @@ public class CategoryService {
         put("Transfer", new String[]{"transfer", "atm", "withdrawal", "deposit", "virement"});
     }};
     
+    @Autowired
+    public CategoryService(CategoryRepository categoryRepository,
+                           CategoryInitializationService categoryInitializationService,
+                           AssignmentCache assignmentCache) {
+        this.categoryRepository = categoryRepository;
+        this.categoryInitializationService = categoryInitializationService;
+        this.assignmentCache = assignmentCache;
+    }
+    
     /**
      * Initialize default categories for a new user
      */
@@ -190,6 +199,29 @@ public class CategoryService {
     }
     
     public Category categorizeTransaction(Transaction transaction) {
+        Long userId = userIdOf(transaction);
+        return categorize(transaction, name -> assignmentCache.getCategoryByName(userId, name, categoryRepository::findByName));
+    }
+    
+    /**
+     * Categorize a chunk of imported transactions at once: each category name is resolved a single
+     * time for the whole chunk instead of once per row
+     */
+    public void categorizeTransactions(List<Transaction> transactions) {
+        Map<String, Optional<Category>> resolved = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            Long userId = userIdOf(transaction);
+            Category category = categorize(transaction, name -> resolved.computeIfAbsent(userId + "/" + name,
+                key -> assignmentCache.getCategoryByName(userId, name, categoryRepository::findByName)));
+            // The default category may just have been created: reuse it for the rest of the chunk
+            if (category != null) {
+                resolved.put(userId + "/" + category.getName(), Optional.of(category));
+            }
+            transaction.setCategory(category);
+        }
+    }
+    
+    private Category categorize(Transaction transaction, Function<String, Optional<Category>> categoryByName) {
         String description = transaction.getDescription().toLowerCase();
         String merchantName = transaction.getMerchantName() != null ? 
             transaction.getMerchantName().toLowerCase() : "";
@@ -200,7 +232,7 @@ public class CategoryService {
             
             for (String keyword : keywords) {
                 if (description.contains(keyword) || merchantName.contains(keyword)) {
-                    Optional<Category> category = categoryRepository.findByName(categoryName);
+                    Optional<Category> category = categoryByName.apply(categoryName);
                     if (category.isPresent()) {
                         return category.get();
                     }
@@ -209,16 +241,25 @@ public class CategoryService {
         }
         
         // Default category for uncategorized transactions
-        return categoryRepository.findByName("Other")
+        return categoryByName.apply("Other")
             .orElseGet(() -> {
                 Category defaultCategory = new Category();
                 defaultCategory.setName("Other");
                 defaultCategory.setDescription("Uncategorized transactions");
                 defaultCategory.setIsDefault(true);
-                return categoryRepository.save(defaultCategory);
+                Category saved = categoryRepository.save(defaultCategory);
+                if (saved != null) {
+                    assignmentCache.putCategory(userIdOf(transaction), saved);
+                }
+                return saved;
             });
     }
     
+    private Long userIdOf(Transaction transaction) {
+        return transaction.getAccount() != null && transaction.getAccount().getUser() != null ?
+            transaction.getAccount().getUser().getId() : null;
+    }
+    
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
@@ -240,10 +281,13 @@ public class CategoryService {
     }
     
     public Category saveCategory(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        assignmentCache.invalidateAll();
+        return saved;
     }
     
     public void deleteCategory(Long id) {
         categoryRepository.deleteById(id);
+        assignmentCache.invalidateAll();
     }
 }
\ No newline at end of file
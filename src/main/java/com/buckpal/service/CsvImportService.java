@@ -1,15 +1,25 @@
 package com.buckpal.service;
 
+import com.buckpal.dto.csv.CsvImportResult;
 import com.buckpal.entity.Account;
-import com.buckpal.entity.Budget;
 import com.buckpal.entity.Transaction;
 import com.buckpal.entity.Transaction.TransactionType;
 import com.buckpal.entity.User;
 import com.buckpal.repository.AccountRepository;
 import com.buckpal.repository.BudgetRepository;
 import com.buckpal.repository.TransactionRepository;
+import com.buckpal.service.csv.CsvTokenizer;
+import com.buckpal.service.csv.CsvValueFormat;
+import com.buckpal.service.csv.SampledCsvRecords;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
@@ -17,14 +27,20 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class CsvImportService {
     
+    private static final Logger logger = LoggerFactory.getLogger(CsvImportService.class);
+    
+    private static final int MAX_REPORTED_ERRORS = 100;
+    
     @Autowired
     private TransactionRepository transactionRepository;
     
@@ -37,13 +53,20 @@ public class CsvImportService {
     @Autowired
     private BudgetService budgetService;
     
-    private static final DateTimeFormatter[] DATE_FORMATTERS = {
-        DateTimeFormatter.ofPattern("yyyy-MM-dd"),
-        DateTimeFormatter.ofPattern("dd/MM/yyyy"),  // French format first
-        DateTimeFormatter.ofPattern("MM/dd/yyyy"),  // US format second
-        DateTimeFormatter.ofPattern("d/M/yyyy"),    // Single digit French first
-        DateTimeFormatter.ofPattern("M/d/yyyy")     // Single digit US second
-    };
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private TransactionService transactionService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${app.csv-import.chunk-size:500}")
+    private int importChunkSize = 500;
     
     public List<Transaction> importTransactionsFromCsv(MultipartFile file, Long accountId) throws IOException {
         Account account = accountRepository.findById(accountId)
@@ -52,16 +75,11 @@ public class CsvImportService {
         List<Transaction> transactions = new ArrayList<>();
         
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            String line;
-            boolean isHeader = true;
+            SampledCsvRecords records = openRecords(reader);
+            CsvValueFormat format = detectValueFormat(records);
             
-            while ((line = reader.readLine()) != null) {
-                if (isHeader) {
-                    isHeader = false;
-                    continue;
-                }
-                
-                Transaction transaction = parseCsvLine(line, account);
+            while (records.next()) {
+                Transaction transaction = parseCsvRecord(records.current(), records.getSeparator(), format, account);
                 if (transaction != null) {
                     transactions.add(transaction);
                 }
@@ -71,55 +89,193 @@ public class CsvImportService {
         List<Transaction> savedTransactions = transactionRepository.saveAll(transactions);
         
         // Recalculate budget progress for all affected budgets
-        recalculateBudgetProgressAfterImport(account.getUser(), savedTransactions);
+        recalculateBudgetProgressAfterImport(account.getUser(), savedTransactions.stream()
+            .map(transaction -> YearMonth.from(transaction.getTransactionDate()))
+            .collect(Collectors.toSet()));
         
         return savedTransactions;
     }
     
-    private Transaction parseCsvLine(String line, Account account) {
-        try {
-            // Detect CSV format: comma or semicolon separated
-            String[] fields;
-            boolean isFrenchFormat = line.contains(";") && line.contains(",") && 
-                                   line.split(";").length > line.split(",").length;
+    /**
+     * Streaming import: parses, categorizes and persists the file in fixed-size chunks
+     * so that memory stays bounded whatever the file size. Each chunk is categorized at once
+     * and written in its own transaction, then detached from the persistence context; the account
+     * balance and the affected budgets are recalculated once at the end of the import instead of
+     * once per row.
+     *
+     * Chunks are committed as they go: if a chunk cannot be written or the upload breaks off, the
+     * import stops there, the chunks already committed are kept and the result is flagged as
+     * partial, with the ids of the imported transactions so that they can be reviewed or deleted.
+     */
+    public CsvImportResult importTransactionsStreaming(MultipartFile file, Long accountId) throws IOException {
+        Account account = accountRepository.findById(accountId)
+            .orElseThrow(() -> new RuntimeException("Account not found"));
+        User user = account.getUser();
+        
+        long startTime = System.nanoTime();
+        int chunkSize = Math.max(1, importChunkSize);
+        
+        List<Transaction> chunk = new ArrayList<>(chunkSize);
+        List<Long> importedIds = new ArrayList<>();
+        Set<YearMonth> affectedMonths = new HashSet<>();
+        List<String> errors = new ArrayList<>();
+        int totalProcessed = 0;
+        int successCount = 0;
+        int failedCount = 0;
+        boolean partial = false;
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
+            SampledCsvRecords records = openRecords(reader);
+            CsvValueFormat format = detectValueFormat(records);
             
-            if (isFrenchFormat) {
-                // French bank CSV format with semicolons
-                fields = line.split(";");
+            try {
+                while (records.next()) {
+                    totalProcessed++;
+                    Transaction transaction = parseCsvRecord(records.current(), records.getSeparator(), format, account);
+                    if (transaction == null) {
+                        failedCount++;
+                        if (errors.size() < MAX_REPORTED_ERRORS) {
+                            errors.add("Line " + records.currentLineNumber() + ": unable to parse row");
+                        }
+                        continue;
+                    }
+                    
+                    affectedMonths.add(YearMonth.from(transaction.getTransactionDate()));
+                    chunk.add(transaction);
+                    
+                    if (chunk.size() >= chunkSize) {
+                        successCount += writeChunk(chunk, importedIds);
+                    }
+                }
+                successCount += writeChunk(chunk, importedIds);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Streaming CSV import for account {} stopped at line {}", accountId,
+                    records.currentLineNumber(), e);
+                partial = true;
+                failedCount += chunk.size();
+                errors.add("Line " + records.currentLineNumber() + ": import stopped (" + e.getMessage() + "), "
+                    + successCount + " rows imported before this point were kept");
+                chunk.clear();
+            }
+        }
+        
+        // Balance and budgets are derived data: refresh them once for the whole import
+        if (successCount > 0) {
+            transactionService.recalculateAccountBalance(account);
+            recalculateBudgetProgressAfterImport(user, affectedMonths);
+        }
+        
+        long durationMs = (System.nanoTime() - startTime) / 1_000_000;
+        double rowsPerSecond = durationMs > 0 ? totalProcessed * 1000.0 / durationMs : totalProcessed;
+        
+        logger.info("Streaming CSV import for account {}: {} rows, {} imported, {} failed in {} ms ({} rows/s)",
+            accountId, totalProcessed, successCount, failedCount, durationMs, Math.round(rowsPerSecond));
+        
+        CsvImportResult result = new CsvImportResult();
+        result.setTotalProcessed(totalProcessed);
+        result.setSuccessfulImports(successCount);
+        result.setSkippedRows(0);
+        result.setFailedImports(failedCount);
+        result.setErrors(errors);
+        result.setImportedTransactionIds(importedIds);
+        result.setPartial(partial);
+        result.setDurationMs(durationMs);
+        result.setRowsPerSecond(rowsPerSecond);
+        return result;
+    }
+    
+    /**
+     * Categorize the pending chunk, persist it in one batch and its own transaction, then release it
+     */
+    private int writeChunk(List<Transaction> chunk, List<Long> importedIds) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        int size = chunk.size();
+        categoryService.categorizeTransactions(chunk);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            transactionRepository.saveAll(chunk);
+            transactionRepository.flush();
+        });
+        // The request keeps its persistence context open: detach the committed rows so it does not grow with
+        // the file, leaving the account, user and categories loaded earlier in the request managed
+        for (Transaction transaction : chunk) {
+            importedIds.add(transaction.getId());
+            entityManager.detach(transaction);
+        }
+        chunk.clear();
+        return size;
+    }
+    
+    /**
+     * Consumes the header line, detects the separator from it and reads a sample of the data rows ahead
+     */
+    private SampledCsvRecords openRecords(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        char separator = header != null ? CsvTokenizer.detectSeparator(header) : ',';
+        return new SampledCsvRecords(new CsvTokenizer(reader, separator, 2), CsvValueFormat.DEFAULT_SAMPLE_SIZE);
+    }
+    
+    /**
+     * Detect date and amount formats once per file from the sampled rows
+     */
+    private CsvValueFormat detectValueFormat(SampledCsvRecords records) {
+        List<String> dates = new ArrayList<>();
+        List<String> amounts = new ArrayList<>();
+        for (List<String> fields : records.getSample()) {
+            if (fields.size() < 3) {
+                continue;
+            }
+            dates.add(fields.get(0));
+            if (isFrenchLayout(fields, records.getSeparator())) {
+                amounts.add(fields.get(8));
+                amounts.add(fields.get(9));
             } else {
-                // Standard CSV format with commas
-                fields = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+                amounts.add(fields.get(2));
             }
-            
-            if (fields.length < 3) {
+        }
+        CsvValueFormat format = CsvValueFormat.detect(dates, amounts);
+        logger.debug("CSV import formats: {}", format);
+        return format;
+    }
+    
+    private boolean isFrenchLayout(List<String> fields, char separator) {
+        // French bank exports are semicolon separated with Debit/Credit in columns 8 and 9
+        return separator == ';' && fields.size() >= 10;
+    }
+    
+    private Transaction parseCsvRecord(List<String> fields, char separator, CsvValueFormat format, Account account) {
+        try {
+            if (fields.size() < 3) {
                 return null;
             }
             
-            // Clean fields from quotes
-            for (int i = 0; i < fields.length; i++) {
-                fields[i] = fields[i].trim().replaceAll("^\"|\"$", "");
+            LocalDate date = format.parseDate(fields.get(0));
+            if (date == null) {
+                return null;
             }
             
             Transaction transaction = new Transaction();
             transaction.setAccount(account);
             
-            if (isFrenchFormat && fields.length >= 10) {
+            if (isFrenchLayout(fields, separator)) {
                 // French bank format: Date de comptabilisation;Libelle simplifie;...;Debit;Credit;...
-                // Parse date (first column)
-                LocalDate date = parseDate(fields[0]);
                 transaction.setTransactionDate(date);
                 
                 // Parse description (second column - "Libelle simplifie")
-                transaction.setDescription(fields[1]);
+                transaction.setDescription(fields.get(1));
                 
                 // Parse merchant name from detailed description (third column - "Libelle operation")
-                if (!fields[2].isEmpty()) {
-                    transaction.setMerchantName(fields[2]);
+                if (!fields.get(2).isEmpty()) {
+                    transaction.setMerchantName(fields.get(2));
                 }
                 
                 // Parse amounts from Debit (index 8) and Credit (index 9) columns
-                BigDecimal debitAmount = parseFrenchAmount(fields[8]);
-                BigDecimal creditAmount = parseFrenchAmount(fields[9]);
+                BigDecimal debitAmount = parseOptionalAmount(fields.get(8), format);
+                BigDecimal creditAmount = parseOptionalAmount(fields.get(9), format);
+                if (debitAmount == null || creditAmount == null) {
+                    return null;
+                }
                 
                 BigDecimal finalAmount;
                 TransactionType transactionType;
@@ -142,15 +298,16 @@ public class CsvImportService {
                 
             } else {
                 // Standard format: Date,Description,Amount,Merchant
-                // Parse date (assuming first column)
-                LocalDate date = parseDate(fields[0]);
                 transaction.setTransactionDate(date);
                 
                 // Parse description (assuming second column)
-                transaction.setDescription(fields[1]);
+                transaction.setDescription(fields.get(1));
                 
                 // Parse amount (assuming third column)
-                BigDecimal amount = parseAmount(fields[2]);
+                BigDecimal amount = format.parseAmount(fields.get(2));
+                if (amount == null) {
+                    return null;
+                }
                 transaction.setAmount(amount.abs());
                 
                 // Determine transaction type based on amount sign
@@ -158,8 +315,8 @@ public class CsvImportService {
                     TransactionType.INCOME : TransactionType.EXPENSE);
                 
                 // Parse merchant name if available (fourth column)
-                if (fields.length > 3 && !fields[3].isEmpty()) {
-                    transaction.setMerchantName(fields[3]);
+                if (fields.size() > 3 && !fields.get(3).isEmpty()) {
+                    transaction.setMerchantName(fields.get(3));
                 }
             }
             
@@ -168,79 +325,21 @@ public class CsvImportService {
             return transaction;
             
         } catch (Exception e) {
-            System.err.println("Error parsing CSV line: " + line + " - " + e.getMessage());
+            System.err.println("Error parsing CSV line: " + String.join(String.valueOf(separator), fields) + " - " + e.getMessage());
             return null;
         }
     }
     
-    private LocalDate parseDate(String dateStr) {
-        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
-            try {
-                return LocalDate.parse(dateStr, formatter);
-            } catch (DateTimeParseException e) {
-                // Try next formatter
-            }
-        }
-        
-        // Default to today if parsing fails
-        return LocalDate.now();
-    }
-    
-    private BigDecimal parseAmount(String amountStr) {
-        try {
-            // Remove currency symbols and spaces
-            String cleanAmount = amountStr.replaceAll("[\\$€£¥,\\s]", "");
-            
-            // Handle parentheses for negative amounts
-            if (cleanAmount.startsWith("(") && cleanAmount.endsWith(")")) {
-                cleanAmount = "-" + cleanAmount.substring(1, cleanAmount.length() - 1);
-            }
-            
-            return new BigDecimal(cleanAmount);
-        } catch (NumberFormatException e) {
-            return BigDecimal.ZERO;
-        }
-    }
-    
-    private BigDecimal parseFrenchAmount(String amountStr) {
-        try {
-            if (amountStr == null || amountStr.trim().isEmpty()) {
-                return BigDecimal.ZERO;
-            }
-            
-            // Remove currency symbols and spaces
-            String cleanAmount = amountStr.replaceAll("[\\$€£¥\\s]", "").trim();
-            
-            // Handle empty amounts
-            if (cleanAmount.isEmpty()) {
-                return BigDecimal.ZERO;
-            }
-            
-            // Handle French decimal format: replace comma with dot
-            cleanAmount = cleanAmount.replace(",", ".");
-            
-            // Handle negative amounts (remove leading minus for debit amounts)
-            boolean isNegative = cleanAmount.startsWith("-");
-            if (isNegative) {
-                cleanAmount = cleanAmount.substring(1);
-            }
-            
-            // Handle parentheses for negative amounts
-            if (cleanAmount.startsWith("(") && cleanAmount.endsWith(")")) {
-                cleanAmount = cleanAmount.substring(1, cleanAmount.length() - 1);
-                isNegative = true;
-            }
-            
-            if (cleanAmount.isEmpty()) {
-                return BigDecimal.ZERO;
-            }
-            
-            BigDecimal amount = new BigDecimal(cleanAmount);
-            return isNegative ? amount.negate() : amount;
-            
-        } catch (NumberFormatException e) {
-            return BigDecimal.ZERO;
+    /**
+     * Debit/Credit cells are often empty or shifted by an extra column: anything that is not an amount counts as zero.
+     * An amount written with the other decimal separator than the rest of the file is null, so the row is rejected.
+     */
+    private BigDecimal parseOptionalAmount(String amountStr, CsvValueFormat format) {
+        if (format.contradictsDecimalSeparator(amountStr)) {
+            return null;
         }
+        BigDecimal amount = format.parseAmount(amountStr);
+        return amount != null ? amount : BigDecimal.ZERO;
     }
     
     public String generateCsvTemplate() {
@@ -252,20 +351,16 @@ public class CsvImportService {
     /**
      * Recalculate budget progress for all months affected by the imported transactions
      */
-    private void recalculateBudgetProgressAfterImport(User user, List<Transaction> importedTransactions) {
-        // Group transactions by month/year to find affected budgets
-        importedTransactions.stream()
-            .map(Transaction::getTransactionDate)
-            .distinct()
-            .forEach(transactionDate -> {
-                budgetRepository.findByUserAndBudgetMonthAndBudgetYear(
-                    user, 
-                    transactionDate.getMonthValue(), 
-                    transactionDate.getYear()
-                ).ifPresent(budget -> {
-                    // Recalculate spent amounts for this budget
-                    budgetService.recalculateBudgetSpentAmountsFromCategoryMapping(budget);
-                });
+    private void recalculateBudgetProgressAfterImport(User user, Set<YearMonth> affectedMonths) {
+        for (YearMonth month : affectedMonths) {
+            budgetRepository.findByUserAndBudgetMonthAndBudgetYear(
+                user, 
+                month.getMonthValue(), 
+                month.getYear()
+            ).ifPresent(budget -> {
+                // Refresh spent amounts for this budget
+                budgetService.refreshBudgetSpentAmounts(budget);
             });
+        }
     }
 }
\ No newline at end of file
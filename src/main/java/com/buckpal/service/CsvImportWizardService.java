@@ -10,7 +10,17 @@ import com.buckpal.repository.AccountRepository;
 import com.buckpal.repository.CategoryRepository;
 import com.buckpal.repository.CsvMappingTemplateRepository;
 import com.buckpal.repository.TransactionRepository;
+import com.buckpal.service.csv.CsvImportBatchWriter;
+import com.buckpal.service.csv.CsvSession;
+import com.buckpal.service.csv.CsvSessionStore;
+import com.buckpal.service.csv.CsvTokenizer;
+import com.buckpal.service.csv.CsvValueFormat;
+import com.buckpal.service.csv.EncodedCsvRows;
+import com.buckpal.service.csv.ParallelCsvParser;
+import com.buckpal.service.csv.ParallelCsvParser.ParsedCsv;
+import com.buckpal.service.csv.TransactionFingerprintIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -18,17 +28,26 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,90 +55,133 @@ import org.slf4j.LoggerFactory;
 @Service
 public class CsvImportWizardService {
 
-    @Autowired
-    private TransactionRepository transactionRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final CategoryRepository categoryRepository;
+    private final CsvMappingTemplateRepository csvMappingTemplateRepository;
+    private final CsvImportBatchWriter csvImportBatchWriter;
+    private final TransactionService transactionService;
+    private final BudgetService budgetService;
+    private final CsvSessionStore csvSessionStore;
+    private final ParallelCsvParser parallelCsvParser;
 
-    @Autowired
-    private AccountRepository accountRepository;
+    @Value("${app.csv-import.chunk-size:500}")
+    private int importChunkSize = 500;
 
-    @Autowired
-    private CategoryRepository categoryRepository;
-
-    @Autowired
-    private CsvMappingTemplateRepository csvMappingTemplateRepository;
+    // Below spring.servlet.multipart.max-file-size, otherwise no upload could reach the parallel parser
+    @Value("${app.csv-import.parallel-parse.threshold-bytes:2097152}")
+    private long parallelParseThresholdBytes = 2L * 1024 * 1024;
 
-    //TODO In-memory storage for CSV sessions (in production, use Redis or database)
-    private final Map<String, CsvSession> csvSessions = new ConcurrentHashMap<>();
+    private static final int PREVIEW_ROWS = 10;
 
-    private static final DateTimeFormatter[] DATE_FORMATTERS = {
-            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
-            DateTimeFormatter.ofPattern("MM/dd/yyyy"),
-            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
-            DateTimeFormatter.ofPattern("d/M/yyyy"),
-            DateTimeFormatter.ofPattern("M/d/yyyy"),
-            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
-            DateTimeFormatter.ofPattern("MM-dd-yyyy"),
-    };
+    // Both parse paths decode uploads the same way, whatever the platform default
+    static final Charset UPLOAD_CHARSET = StandardCharsets.UTF_8;
 
     private final Logger logger = LoggerFactory.getLogger(CsvImportWizardService.class);
 
+    @Autowired
+    public CsvImportWizardService(TransactionRepository transactionRepository,
+                                  AccountRepository accountRepository,
+                                  CategoryRepository categoryRepository,
+                                  CsvMappingTemplateRepository csvMappingTemplateRepository,
+                                  CsvImportBatchWriter csvImportBatchWriter,
+                                  TransactionService transactionService,
+                                  BudgetService budgetService,
+                                  CsvSessionStore csvSessionStore,
+                                  ParallelCsvParser parallelCsvParser) {
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.categoryRepository = categoryRepository;
+        this.csvMappingTemplateRepository = csvMappingTemplateRepository;
+        this.csvImportBatchWriter = csvImportBatchWriter;
+        this.transactionService = transactionService;
+        this.budgetService = budgetService;
+        this.csvSessionStore = csvSessionStore;
+        this.parallelCsvParser = parallelCsvParser;
+    }
+
     /**
      * Step 1: Upload CSV and return preview
      */
     public CsvUploadResponse uploadCsv(MultipartFile file) throws IOException {
         String sessionId = UUID.randomUUID().toString();
 
-        List<List<String>> allRows = new ArrayList<>();
-        List<String> headers = new ArrayList<>();
-        String detectedSeparator = null;
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            String line;
-            boolean isFirstLine = true;
-
-            while ((line = reader.readLine()) != null) {
-                if (isFirstLine) {
-                    // Detect separator from header line
-                    detectedSeparator = detectSeparator(line);
-                }
-
-                List<String> row = parseCsvLine(line, detectedSeparator);
-
-                if (isFirstLine) {
-                    headers = row;
-                    isFirstLine = false;
-                } else {
-                    allRows.add(row);
-                }
-            }
-        }
+        ParsedCsv parsed = shouldParseInParallel(file) ? parseInParallel(file) : parseSequentially(file);
+        List<String> headers = parsed.getHeaders();
+        List<List<String>> previewData = parsed.getPreview();
+        EncodedCsvRows.Builder rows = parsed.getRows();
 
         // Store session data
         CsvSession session = new CsvSession();
         session.setSessionId(sessionId);
         session.setHeaders(headers);
-        session.setAllRows(allRows);
+        session.setRows(rows.build());
         session.setOriginalFilename(file.getOriginalFilename());
-        csvSessions.put(sessionId, session);
+        csvSessionStore.save(session);
 
         // Return first 10 rows for preview
-        List<List<String>> previewData = allRows.stream()
-                .limit(10)
-                .collect(Collectors.toList());
+        return new CsvUploadResponse(sessionId, headers, previewData, session.getRowCount());
+    }
+
+    private boolean shouldParseInParallel(MultipartFile file) {
+        return file.getSize() >= parallelParseThresholdBytes
+                && file.getSize() <= Integer.MAX_VALUE
+                && ParallelCsvParser.supports(UPLOAD_CHARSET);
+    }
+
+    /**
+     * Large exports: spool to a temp file, memory-map it and parse record-aligned segments on several cores
+     */
+    private ParsedCsv parseInParallel(MultipartFile file) throws IOException {
+        Path spooled = Files.createTempFile("csv-upload-", ".csv");
+        try {
+            file.transferTo(spooled);
+            return parallelCsvParser.parse(spooled, UPLOAD_CHARSET, PREVIEW_ROWS);
+        } finally {
+            try {
+                Files.deleteIfExists(spooled);
+            } catch (IOException e) {
+                spooled.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    private ParsedCsv parseSequentially(MultipartFile file) throws IOException {
+        EncodedCsvRows.Builder rows = EncodedCsvRows.builder();
+        List<List<String>> previewData = new ArrayList<>();
+        List<String> headers = new ArrayList<>();
 
-        return new CsvUploadResponse(sessionId, headers, previewData, allRows.size());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), UPLOAD_CHARSET))) {
+            String headerLine = reader.readLine();
+            if (headerLine != null) {
+                // Detect separator from header line
+                char separator = detectSeparator(headerLine).charAt(0);
+                headers = CsvTokenizer.parseLine(headerLine, separator);
+
+                // Data rows are tokenized in one pass; quoted fields may span several lines
+                CsvTokenizer tokenizer = new CsvTokenizer(reader, separator, 2);
+                while (tokenizer.nextRecord()) {
+                    if (previewData.size() < PREVIEW_ROWS) {
+                        List<String> row = tokenizer.fields();
+                        rows.add(row);
+                        previewData.add(row);
+                    } else {
+                        rows.add(tokenizer.currentRecord());
+                    }
+                }
+            }
+        }
+        return new ParsedCsv(headers, rows, previewData);
     }
 
     /**
      * Step 2: Process mapping and return preview with validation
      */
     public CsvPreviewResponse processMappingAndPreview(CsvColumnMappingRequest request) {
-        CsvSession session = csvSessions.get(request.getSessionId());
-        if (session == null) {
-            throw new RuntimeException("CSV session not found");
-        }
+        CsvSession session = csvSessionStore.find(request.getSessionId())
+                .orElseThrow(() -> new RuntimeException("CSV session not found"));
 
-        session.setMapping(request);
+        csvSessionStore.updateMapping(session, request);
 
         List<CsvPreviewResponse.TransactionPreview> validTransactions = new ArrayList<>();
         List<CsvPreviewResponse.ValidationError> validationErrors = new ArrayList<>();
@@ -128,41 +190,19 @@ public class CsvImportWizardService {
         Account account = accountRepository.findById(request.getAccountId())
                 .orElseThrow(() -> new RuntimeException("Account not found"));
 
-        for (int i = 0; i < session.getAllRows().size(); i++) {
-            List<String> row = session.getAllRows().get(i);
+        List<List<String>> allRows = session.getAllRows();
+        CsvValueFormat format = detectValueFormat(allRows, request);
+        Map<Integer, TransactionData> parsedRows = new LinkedHashMap<>();
+        for (int i = 0; i < allRows.size(); i++) {
+            List<String> row = allRows.get(i);
 
             try {
-                TransactionData transactionData = parseTransactionFromRow(row, request, i + 2); // +2 because header is row 1
+                TransactionData transactionData = parseTransactionFromRow(row, request, i + 2, format); // +2 because header is row 1
 
                 if (transactionData.hasErrors()) {
                     validationErrors.addAll(transactionData.getValidationErrors());
                 } else {
-                    // Check for duplicates
-                    Optional<Transaction> duplicate = findDuplicateTransaction(
-                            account.getId(),
-                            transactionData.getDate(),
-                            transactionData.getAmount(),
-                            transactionData.getDescription()
-                    );
-
-                    if (duplicate.isPresent()) {
-                        duplicateWarnings.add(new CsvPreviewResponse.DuplicateDetection(
-                                i + 2,
-                                transactionData.getDate(),
-                                transactionData.getAmount(),
-                                transactionData.getDescription(),
-                                duplicate.get().getId()
-                        ));
-                    }
-
-                    validTransactions.add(new CsvPreviewResponse.TransactionPreview(
-                            i + 2,
-                            transactionData.getDate(),
-                            transactionData.getAmount(),
-                            transactionData.getDescription(),
-                            transactionData.getCategory(),
-                            determineTransactionType(transactionData.getAmount())
-                    ));
+                    parsedRows.put(i + 2, transactionData);
                 }
 
             } catch (Exception e) {
@@ -175,6 +215,40 @@ public class CsvImportWizardService {
             }
         }
 
+        // Check for duplicates against the account and within the file
+        TransactionFingerprintIndex duplicateIndex = loadDuplicateIndex(account.getId(), parsedRows.values());
+
+        for (Map.Entry<Integer, TransactionData> entry : parsedRows.entrySet()) {
+            int rowIndex = entry.getKey();
+            TransactionData transactionData = entry.getValue();
+
+            Long existingTransactionId = duplicateIndex.findExisting(
+                    transactionData.getDate(), transactionData.getAmount(), transactionData.getDescription());
+            Integer duplicateOfRow = duplicateIndex.registerFileRow(
+                    transactionData.getDate(), transactionData.getAmount(), transactionData.getDescription(), rowIndex);
+
+            if (existingTransactionId != null || duplicateOfRow != null) {
+                CsvPreviewResponse.DuplicateDetection duplicate = new CsvPreviewResponse.DuplicateDetection(
+                        rowIndex,
+                        transactionData.getDate(),
+                        transactionData.getAmount(),
+                        transactionData.getDescription(),
+                        existingTransactionId
+                );
+                duplicate.setDuplicateOfRow(duplicateOfRow);
+                duplicateWarnings.add(duplicate);
+            }
+
+            validTransactions.add(new CsvPreviewResponse.TransactionPreview(
+                    rowIndex,
+                    transactionData.getDate(),
+                    transactionData.getAmount(),
+                    transactionData.getDescription(),
+                    transactionData.getCategory(),
+                    determineTransactionType(transactionData.getAmount())
+            ));
+        }
+
         // Create balanced preview (4 transactions: 2 income + 2 expense)
         List<CsvPreviewResponse.TransactionPreview> balancedPreview = createBalancedPreview(validTransactions);
 
@@ -183,7 +257,7 @@ public class CsvImportWizardService {
         response.setValidTransactions(balancedPreview); // Show balanced preview instead of all
         response.setValidationErrors(validationErrors);
         response.setDuplicateWarnings(duplicateWarnings);
-        response.setTotalProcessed(session.getAllRows().size());
+        response.setTotalProcessed(session.getRowCount());
         response.setValidCount(validTransactions.size()); // Keep full count for stats
         response.setErrorCount(validationErrors.size());
         response.setDuplicateCount(duplicateWarnings.size());
@@ -261,16 +335,18 @@ public class CsvImportWizardService {
     }
 
     /**
-     * Step 3: Final import with user validation choices
+     * Step 3: Final import with user validation choices.
+     * Rows are validated in parallel, checked for duplicates with a single query, written in chunks
+     * inside one transaction, then the account balance and affected budgets are recalculated once.
      */
     public CsvImportResult finalizeImport(CsvValidationRequest request) {
-        CsvSession session = csvSessions.get(request.getSessionId());
-        if (session == null) {
-            throw new RuntimeException("CSV session not found");
-        }
+        long startTime = System.nanoTime();
+        CsvSession session = csvSessionStore.find(request.getSessionId())
+                .orElseThrow(() -> new RuntimeException("CSV session not found"));
 
         CsvImportResult result = new CsvImportResult(request.getSessionId());
         List<String> errors = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
         List<Long> importedTransactionIds = new ArrayList<>();
 
         Account account = accountRepository.findById(session.getMapping().getAccountId())
@@ -279,77 +355,153 @@ public class CsvImportWizardService {
         int successCount = 0;
         int skippedCount = 0;
         int failedCount = 0;
-
-        for (int i = 0; i < session.getAllRows().size(); i++) {
-            int rowIndex = i + 2; // +2 for header
-
-            // Skip rejected rows
-            if (request.getRejectedRows() != null && request.getRejectedRows().contains(rowIndex)) {
+        int duplicateCount = 0;
+
+        // Phase 1: validation. Parsing is side-effect free, so rows are processed in parallel
+        List<List<String>> allRows = session.getAllRows();
+        CsvValueFormat format = detectValueFormat(allRows, session.getMapping());
+        RowValidation[] validations = new RowValidation[allRows.size()];
+        IntStream.range(0, allRows.size()).parallel()
+                .forEach(i -> validations[i] = validateRowForImport(allRows.get(i), i + 2, session.getMapping(), request, format));
+
+        Map<Integer, TransactionData> parsedRows = new LinkedHashMap<>();
+        for (RowValidation validation : validations) {
+            if (validation.skipped) {
                 skippedCount++;
-                continue;
+            } else if (validation.error != null) {
+                failedCount++;
+                errors.add("Ligne " + validation.rowIndex + ": " + validation.error);
+            } else {
+                parsedRows.put(validation.rowIndex, validation.data);
             }
-
-            // Skip if not in approved rows (when approved list is provided and not empty)
-            // If approvedRows is empty, import all valid transactions (preview workflow)
-            if (request.getApprovedRows() != null &&
-                    !request.getApprovedRows().isEmpty() &&
-                    !request.getApprovedRows().contains(rowIndex)) {
-                skippedCount++;
-                continue;
+        }
+        long validatedAt = System.nanoTime();
+
+        // Phase 2: duplicate detection
+        TransactionFingerprintIndex duplicateIndex = loadDuplicateIndex(account.getId(), parsedRows.values());
+
+        List<Transaction> toImport = new ArrayList<>(parsedRows.size());
+        Set<YearMonth> affectedMonths = new HashSet<>();
+        for (Map.Entry<Integer, TransactionData> entry : parsedRows.entrySet()) {
+            int rowIndex = entry.getKey();
+            TransactionData transactionData = entry.getValue();
+
+            // Possible duplicates are reported as in the preview but still imported: the user drops
+            // the ones they do not want through rejectedRows, which never reach this point
+            Long existingTransactionId = duplicateIndex.findExisting(
+                    transactionData.getDate(), transactionData.getAmount(), transactionData.getDescription());
+            Integer duplicateOfRow = duplicateIndex.registerFileRow(
+                    transactionData.getDate(), transactionData.getAmount(), transactionData.getDescription(), rowIndex);
+
+            if (existingTransactionId != null || duplicateOfRow != null) {
+                duplicateCount++;
+                warnings.add("Ligne " + rowIndex + ": doublon possible " + (existingTransactionId != null
+                        ? "de la transaction " + existingTransactionId
+                        : "de la ligne " + duplicateOfRow) + ", importée");
             }
 
-            try {
-                List<String> row = session.getAllRows().get(i);
-                TransactionData transactionData;
-
-                // Apply manual corrections if provided
-                if (request.getManualCorrections() != null &&
-                        request.getManualCorrections().containsKey(rowIndex)) {
-                    transactionData = applyManualCorrection(row, session.getMapping(), rowIndex,
-                            request.getManualCorrections().get(rowIndex));
-                } else {
-                    transactionData = parseTransactionFromRow(row, session.getMapping(), rowIndex);
-                }
-
-                if (transactionData.hasErrors()) {
-                    failedCount++;
-                    errors.add("Ligne " + rowIndex + ": " +
-                            transactionData.getValidationErrors().stream()
-                                    .map(CsvPreviewResponse.ValidationError::getError)
-                                    .collect(Collectors.joining(", ")));
-                    continue;
-                }
+            toImport.add(createTransactionFromData(transactionData, account));
+            affectedMonths.add(YearMonth.from(transactionData.getDate()));
+        }
+        long deduplicatedAt = System.nanoTime();
 
-                // Create and save transaction
-                Transaction transaction = createTransactionFromData(transactionData, account);
-                transaction = transactionRepository.save(transaction);
+        // Phase 3: chunked write in a single transaction
+        boolean rolledBack = false;
+        try {
+            for (Transaction transaction : csvImportBatchWriter.saveInChunks(toImport, importChunkSize)) {
                 importedTransactionIds.add(transaction.getId());
-                successCount++;
-
-            } catch (Exception e) {
-                failedCount++;
-                errors.add("Ligne " + rowIndex + ": " + e.getMessage());
             }
+            successCount = importedTransactionIds.size();
+        } catch (RuntimeException e) {
+            logger.error("CSV import {} rolled back: {}", request.getSessionId(), e.getMessage());
+            rolledBack = true;
+            failedCount += toImport.size();
+            errors.add("Import annulé, aucune transaction enregistrée: " + e.getMessage());
+        }
+        long writtenAt = System.nanoTime();
+
+        // Phase 4: derived data, refreshed once for the whole import
+        if (successCount > 0) {
+            transactionService.recalculateAccountBalance(account);
+            budgetService.recalculateBudgetsForMonths(account.getUser(), affectedMonths);
         }
 
-        // Save mapping template if requested
-        if (session.getMapping().isSaveMapping() && session.getMapping().getBankName() != null) {
-            saveMappingTemplate(session.getMapping(), account.getUser());
+        if (!rolledBack) {
+            // Save mapping template if requested
+            if (session.getMapping().isSaveMapping() && session.getMapping().getBankName() != null) {
+                saveMappingTemplate(session.getMapping(), account.getUser());
+            }
+
+            // Clean up session; after a rollback it is kept so the import can be finalized again
+            csvSessionStore.remove(request.getSessionId());
         }
+        long finishedAt = System.nanoTime();
 
-        // Clean up session
-        csvSessions.remove(request.getSessionId());
+        Map<String, Long> phaseTimings = new LinkedHashMap<>();
+        phaseTimings.put("validation", (validatedAt - startTime) / 1_000_000);
+        phaseTimings.put("duplicateDetection", (deduplicatedAt - validatedAt) / 1_000_000);
+        phaseTimings.put("write", (writtenAt - deduplicatedAt) / 1_000_000);
+        phaseTimings.put("recalculation", (finishedAt - writtenAt) / 1_000_000);
+        long durationMs = (finishedAt - startTime) / 1_000_000;
 
-        result.setTotalProcessed(session.getAllRows().size());
+        logger.info("CSV wizard import {}: {} rows, {} imported, {} skipped, {} failed in {} ms {}",
+                request.getSessionId(), session.getRowCount(), successCount, skippedCount, failedCount,
+                durationMs, phaseTimings);
+
+        result.setTotalProcessed(session.getRowCount());
         result.setSuccessfulImports(successCount);
         result.setSkippedRows(skippedCount);
         result.setFailedImports(failedCount);
+        result.setDuplicateRows(duplicateCount);
         result.setErrors(errors);
+        result.setWarnings(warnings);
         result.setImportedTransactionIds(importedTransactionIds);
+        result.setDurationMs(durationMs);
+        result.setRowsPerSecond(durationMs > 0 ? session.getRowCount() * 1000.0 / durationMs : session.getRowCount());
+        result.setPhaseTimingsMs(phaseTimings);
 
         return result;
     }
 
+    private RowValidation validateRowForImport(List<String> row, int rowIndex, CsvColumnMappingRequest mapping,
+                                               CsvValidationRequest request, CsvValueFormat format) {
+        // Skip rejected rows
+        if (request.getRejectedRows() != null && request.getRejectedRows().contains(rowIndex)) {
+            return RowValidation.skipped(rowIndex);
+        }
+
+        // Skip if not in approved rows (when approved list is provided and not empty)
+        // If approvedRows is empty, import all valid transactions (preview workflow)
+        if (request.getApprovedRows() != null &&
+                !request.getApprovedRows().isEmpty() &&
+                !request.getApprovedRows().contains(rowIndex)) {
+            return RowValidation.skipped(rowIndex);
+        }
+
+        try {
+            TransactionData transactionData;
+
+            // Apply manual corrections if provided
+            if (request.getManualCorrections() != null &&
+                    request.getManualCorrections().containsKey(rowIndex)) {
+                transactionData = applyManualCorrection(row, mapping, rowIndex,
+                        request.getManualCorrections().get(rowIndex), format);
+            } else {
+                transactionData = parseTransactionFromRow(row, mapping, rowIndex, format);
+            }
+
+            if (transactionData.hasErrors()) {
+                return RowValidation.failed(rowIndex, transactionData.getValidationErrors().stream()
+                        .map(CsvPreviewResponse.ValidationError::getError)
+                        .collect(Collectors.joining(", ")));
+            }
+            return RowValidation.valid(rowIndex, transactionData);
+
+        } catch (Exception e) {
+            return RowValidation.failed(rowIndex, e.getMessage());
+        }
+    }
+
     /**
      * Get saved mapping templates for a user
      */
@@ -388,69 +540,66 @@ public class CsvImportWizardService {
      * Detect CSV separator from the first line (headers)
      */
     private String detectSeparator(String headerLine) {
-        // Count occurrences of potential separators
-        int semicolonCount = (int) headerLine.chars().filter(ch -> ch == ';').count();
-        int commaCount = (int) headerLine.chars().filter(ch -> ch == ',').count();
-        int tabCount = (int) headerLine.chars().filter(ch -> ch == '\t').count();
-
-        // Log for debugging
-        logger.debug("CSV Separator detection - Line: " + headerLine);
-        logger.debug("Semicolon count: " + semicolonCount + ", Comma count: " + commaCount + ", Tab count: " + tabCount);
-
-        // Prioritize semicolon (French format), then comma, then tab
-        if (semicolonCount > 0) {
-            logger.debug("Detected separator: semicolon (;)");
-            return ";";
-        } else if (commaCount > 0) {
-            logger.debug("Detected separator: comma (,)");
-            return ",";
-        } else if (tabCount > 0) {
-            logger.debug("Detected separator: tab");
-            return "\t";
-        } else {
-            logger.debug("No separator detected, defaulting to comma");
-            return ",";
-        }
+        String separator = String.valueOf(CsvTokenizer.detectSeparator(headerLine));
+        logger.debug("CSV separator detected: '{}'", "\t".equals(separator) ? "tab" : separator);
+        return separator;
     }
 
     private List<String> parseCsvLine(String line, String separator) {
-        if (separator == null) separator = ",";
-
-        List<String> result = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-        boolean inQuotes = false;
-        char sep = separator.charAt(0);
-
-        for (char c : line.toCharArray()) {
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == sep && !inQuotes) {
-                result.add(current.toString().trim());
-                current = new StringBuilder();
-            } else {
-                current.append(c);
+        return CsvTokenizer.parseLine(line, separator != null ? separator.charAt(0) : ',');
+    }
+
+    /**
+     * Parse a single line, detecting its separator from the line itself
+     */
+    private List<String> parseCsvLine(String line) {
+        return CsvTokenizer.parseLine(line, CsvTokenizer.detectSeparator(line));
+    }
+
+    /**
+     * Detect date and amount formats once per file from the first mapped rows
+     */
+    private CsvValueFormat detectValueFormat(List<List<String>> rows, CsvColumnMappingRequest mapping) {
+        List<String> dates = new ArrayList<>();
+        List<String> amounts = new ArrayList<>();
+        for (List<String> row : rows.subList(0, Math.min(rows.size(), CsvValueFormat.DEFAULT_SAMPLE_SIZE))) {
+            String date = cell(row, mapping.getDateColumnIndex());
+            if (date != null) {
+                dates.add(stripTime(date));
             }
+            addIfPresent(amounts, cell(row, mapping.getAmountColumnIndex()));
+            addIfPresent(amounts, cell(row, mapping.getDebitColumnIndex()));
+            addIfPresent(amounts, cell(row, mapping.getCreditColumnIndex()));
         }
-        result.add(current.toString().trim());
+        CsvValueFormat format = CsvValueFormat.detect(dates, amounts);
+        logger.debug("CSV wizard formats: {}", format);
+        return format;
+    }
 
-        // Clean quotes
-        return result.stream()
-                .map(s -> s.replaceAll("^\"|\"$", ""))
-                .collect(Collectors.toList());
+    private static String cell(List<String> row, Integer columnIndex) {
+        return columnIndex != null && columnIndex < row.size() ? row.get(columnIndex) : null;
+    }
+
+    private static void addIfPresent(List<String> values, String value) {
+        if (value != null && !value.isBlank()) {
+            values.add(value);
+        }
+    }
+
+    private static String stripTime(String dateStr) {
+        int space = dateStr.indexOf(' ');
+        return space > 0 ? dateStr.substring(0, space) : dateStr;
     }
 
-    private TransactionData parseTransactionFromRow(List<String> row, CsvColumnMappingRequest mapping, int rowIndex) {
+    private TransactionData parseTransactionFromRow(List<String> row, CsvColumnMappingRequest mapping, int rowIndex,
+                                                    CsvValueFormat format) {
         TransactionData data = new TransactionData();
         List<CsvPreviewResponse.ValidationError> errors = new ArrayList<>();
 
         // Parse date
         if (mapping.getDateColumnIndex() != null && mapping.getDateColumnIndex() < row.size()) {
             String dateStr = row.get(mapping.getDateColumnIndex());
-            LocalDate date;
-            if (dateStr.contains(" ")) { // Avoid time in transaction
-                date = parseDate(dateStr.substring(0, dateStr.indexOf(' ')));
-            } else
-                date = parseDate(dateStr);
+            LocalDate date = format.parseDate(stripTime(dateStr)); // Avoid time in transaction
 
             if (date == null) {
                 throw new DateTimeParseException("Format de date invalide", dateStr, mapping.getDateColumnIndex());
@@ -460,7 +609,7 @@ public class CsvImportWizardService {
         }
 
         // Parse amount
-        BigDecimal amount = parseAmountFromMapping(row, mapping, rowIndex, errors);
+        BigDecimal amount = parseAmountFromMapping(row, mapping, rowIndex, errors, format);
         data.setAmount(amount);
 
         // Parse description
@@ -478,16 +627,29 @@ public class CsvImportWizardService {
     }
 
     private BigDecimal parseAmountFromMapping(List<String> row, CsvColumnMappingRequest mapping,
-                                              int rowIndex, List<CsvPreviewResponse.ValidationError> errors) {
+                                              int rowIndex, List<CsvPreviewResponse.ValidationError> errors,
+                                              CsvValueFormat format) {
         BigDecimal amount = BigDecimal.ZERO;
         boolean hasAmount = false;
         boolean hasDebit = false;
         boolean hasCredit = false;
 
+        // A value written with the other decimal separator than the rest of the file would be misread (12.5 as 125)
+        for (Integer columnIndex : Arrays.asList(mapping.getAmountColumnIndex(), mapping.getDebitColumnIndex(),
+                mapping.getCreditColumnIndex())) {
+            if (columnIndex != null && columnIndex < row.size()
+                    && format.contradictsDecimalSeparator(row.get(columnIndex))) {
+                errors.add(new CsvPreviewResponse.ValidationError(rowIndex,
+                        "Séparateur décimal différent du reste du fichier - validation manuelle requise",
+                        row.get(columnIndex), "amount"));
+                return BigDecimal.ZERO;
+            }
+        }
+
         // Check single amount column
         if (mapping.getAmountColumnIndex() != null && mapping.getAmountColumnIndex() < row.size()) {
             String amountStr = row.get(mapping.getAmountColumnIndex());
-            amount = parseAmount(amountStr);
+            amount = format.parseAmount(amountStr);
             if (amount != null) {
                 hasAmount = true;
             }
@@ -500,7 +662,7 @@ public class CsvImportWizardService {
         if (mapping.getDebitColumnIndex() != null && mapping.getDebitColumnIndex() < row.size()) {
             String debitStr = row.get(mapping.getDebitColumnIndex());
             if (!debitStr.trim().isEmpty()) {
-                debitAmount = parseAmount(debitStr);
+                debitAmount = format.parseAmount(debitStr);
                 if (debitAmount != null && debitAmount.compareTo(BigDecimal.ZERO) != 0) {
                     hasDebit = true;
                     // Don't negate - French bank CSV already has negative values for debits
@@ -512,7 +674,7 @@ public class CsvImportWizardService {
         if (mapping.getCreditColumnIndex() != null && mapping.getCreditColumnIndex() < row.size()) {
             String creditStr = row.get(mapping.getCreditColumnIndex());
             if (!creditStr.trim().isEmpty()) {
-                creditAmount = parseAmount(creditStr);
+                creditAmount = format.parseAmount(creditStr);
                 if (creditAmount != null && creditAmount.compareTo(BigDecimal.ZERO) != 0) {
                     hasCredit = true;
                 }
@@ -545,70 +707,40 @@ public class CsvImportWizardService {
         }
     }
 
+    /**
+     * Parse a single date typed by the user (manual correction)
+     */
     private LocalDate parseDate(String dateStr) {
-        if (dateStr == null || dateStr.trim().isEmpty()) {
-            return null;
-        }
-
-        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
-            try {
-                return LocalDate.parse(dateStr.trim(), formatter);
-            } catch (DateTimeParseException e) {
-                // Try next formatter
-            }
-        }
-        return null;
+        return CsvValueFormat.lenient().parseDate(dateStr);
     }
 
+    /**
+     * Parse a single amount typed by the user (manual correction); the decimal separator is inferred from the value
+     */
     private BigDecimal parseAmount(String amountStr) {
-        if (amountStr == null || amountStr.trim().isEmpty()) {
-            return null;
-        }
-
-        try {
-            String cleanAmount = amountStr.trim();
+        return CsvValueFormat.lenient().parseAmount(amountStr);
+    }
 
-            // Handle parentheses for negative amounts
-            if (cleanAmount.startsWith("(") && cleanAmount.endsWith(")")) {
-                cleanAmount = "-" + cleanAmount.substring(1, cleanAmount.length() - 1);
+    /**
+     * Loads fingerprints of the account's transactions over the date window of the given rows in a
+     * single query.
+     */
+    private TransactionFingerprintIndex loadDuplicateIndex(Long accountId, Collection<TransactionData> rows) {
+        LocalDate startDate = null;
+        LocalDate endDate = null;
+        for (TransactionData row : rows) {
+            if (startDate == null || row.getDate().isBefore(startDate)) {
+                startDate = row.getDate();
             }
-
-            // Remove currency symbols and spaces
-            cleanAmount = cleanAmount.replaceAll("[\\$€£¥\\s]", "");
-
-            // Handle French decimal format (comma as decimal separator)
-            // First check if it's French format: has comma as decimal separator
-            if (cleanAmount.matches(".*\\d+,\\d{1,2}$")) {
-                // French format: replace comma with dot for decimal
-                cleanAmount = cleanAmount.replaceAll(",", ".");
-                // Remove any thousand separators that might be dots or spaces
-                if (cleanAmount.indexOf('.') != cleanAmount.lastIndexOf('.')) {
-                    // Multiple dots - keep only the last one as decimal separator
-                    int lastDot = cleanAmount.lastIndexOf('.');
-                    cleanAmount = cleanAmount.substring(0, lastDot).replaceAll("\\.", "") +
-                            cleanAmount.substring(lastDot);
-                }
-            } else {
-                // English format: remove thousand separators (commas)
-                cleanAmount = cleanAmount.replaceAll(",", "");
+            if (endDate == null || row.getDate().isAfter(endDate)) {
+                endDate = row.getDate();
             }
-
-            // Handle negative sign anywhere in the string
-            boolean isNegative = cleanAmount.contains("-");
-            cleanAmount = cleanAmount.replaceAll("-", "");
-
-            BigDecimal result = new BigDecimal(cleanAmount);
-            return isNegative ? result.negate() : result;
-
-        } catch (NumberFormatException e) {
-            return null;
         }
-    }
-
-    private Optional<Transaction> findDuplicateTransaction(Long accountId, LocalDate date,
-                                                           BigDecimal amount, String description) {
-        return transactionRepository.findByAccountIdAndTransactionDateAndAmountAndDescription(
-                accountId, date, amount, description);
+        if (startDate == null) {
+            return TransactionFingerprintIndex.fromExistingTransactions(List.of());
+        }
+        return TransactionFingerprintIndex.fromExistingTransactions(
+                transactionRepository.findFingerprintsByAccountIdAndDateRange(accountId, startDate, endDate));
     }
 
     private String determineTransactionType(BigDecimal amount) {
@@ -616,10 +748,20 @@ public class CsvImportWizardService {
     }
 
     private TransactionData applyManualCorrection(List<String> row, CsvColumnMappingRequest mapping,
-                                                  int rowIndex, CsvValidationRequest.ManualCorrection correction) {
+                                                  int rowIndex, CsvValidationRequest.ManualCorrection correction,
+                                                  CsvValueFormat format) {
         TransactionData data = new TransactionData();
         List<CsvPreviewResponse.ValidationError> errors = new ArrayList<>();
 
+        // Fields that are not corrected keep the values of the row, when they parse
+        String dateStr = cell(row, mapping.getDateColumnIndex());
+        data.setDate(dateStr != null ? format.parseDate(stripTime(dateStr)) : null);
+        List<CsvPreviewResponse.ValidationError> amountErrors = new ArrayList<>();
+        BigDecimal rowAmount = parseAmountFromMapping(row, mapping, rowIndex, amountErrors, format);
+        data.setAmount(amountErrors.isEmpty() ? rowAmount : null);
+        data.setDescription(cell(row, mapping.getDescriptionColumnIndex()));
+        data.setCategory(cell(row, mapping.getCategoryColumnIndex()));
+
         // Apply corrected date
         if (correction.getCorrectedDate() != null) {
             LocalDate date = parseDate(correction.getCorrectedDate());
@@ -628,6 +770,9 @@ public class CsvImportWizardService {
                         "Date corrigée invalide", correction.getCorrectedDate(), "date"));
             }
             data.setDate(date);
+        } else if (data.getDate() == null) {
+            errors.add(new CsvPreviewResponse.ValidationError(rowIndex,
+                    "Date invalide et non corrigée", dateStr, "date"));
         }
 
         // Apply corrected amount
@@ -638,6 +783,9 @@ public class CsvImportWizardService {
                         "Montant corrigé invalide", correction.getCorrectedAmount(), "amount"));
             }
             data.setAmount(amount);
+        } else if (data.getAmount() == null) {
+            errors.add(new CsvPreviewResponse.ValidationError(rowIndex,
+                    "Montant invalide et non corrigé", String.join(",", row), "amount"));
         }
 
         // Apply corrected description
@@ -685,52 +833,29 @@ public class CsvImportWizardService {
     }
 
     // Inner classes for data handling
-    private static class CsvSession {
-        private String sessionId;
-        private String originalFilename;
-        private List<String> headers;
-        private List<List<String>> allRows;
-        private CsvColumnMappingRequest mapping;
-
-        // Getters and setters
-        public String getSessionId() {
-            return sessionId;
-        }
-
-        public void setSessionId(String sessionId) {
-            this.sessionId = sessionId;
-        }
-
-        public String getOriginalFilename() {
-            return originalFilename;
-        }
-
-        public void setOriginalFilename(String originalFilename) {
-            this.originalFilename = originalFilename;
-        }
-
-        public List<String> getHeaders() {
-            return headers;
-        }
-
-        public void setHeaders(List<String> headers) {
-            this.headers = headers;
-        }
+    private static class RowValidation {
+        private final int rowIndex;
+        private final boolean skipped;
+        private final TransactionData data;
+        private final String error;
 
-        public List<List<String>> getAllRows() {
-            return allRows;
+        private RowValidation(int rowIndex, boolean skipped, TransactionData data, String error) {
+            this.rowIndex = rowIndex;
+            this.skipped = skipped;
+            this.data = data;
+            this.error = error;
         }
 
-        public void setAllRows(List<List<String>> allRows) {
-            this.allRows = allRows;
+        static RowValidation skipped(int rowIndex) {
+            return new RowValidation(rowIndex, true, null, null);
         }
 
-        public CsvColumnMappingRequest getMapping() {
-            return mapping;
+        static RowValidation failed(int rowIndex, String error) {
+            return new RowValidation(rowIndex, false, null, error);
         }
 
-        public void setMapping(CsvColumnMappingRequest mapping) {
-            this.mapping = mapping;
+        static RowValidation valid(int rowIndex, TransactionData data) {
+            return new RowValidation(rowIndex, false, data, null);
         }
     }
 
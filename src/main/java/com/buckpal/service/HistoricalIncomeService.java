@@ -13,6 +13,7 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -111,24 +112,27 @@ public class HistoricalIncomeService {
      * Get income comparison with previous months
      */
     public IncomeComparison getIncomeComparison(User user, Integer targetMonth, Integer targetYear, int monthsBack) {
-        List<MonthlyIncomeData> monthlyData = new ArrayList<>();
-        
-        // Current target month
         LocalDate targetStart = LocalDate.of(targetYear, targetMonth, 1);
         LocalDate targetEnd = targetStart.withDayOfMonth(targetStart.lengthOfMonth());
-        BigDecimal targetIncome = getTotalIncomeForMonth(user, targetStart, targetEnd);
-        monthlyData.add(new MonthlyIncomeData(targetMonth, targetYear, targetIncome));
-        
-        // Previous months
-        LocalDate currentDate = LocalDate.of(targetYear, targetMonth, 1);
-        for (int i = 1; i <= monthsBack; i++) {
-            LocalDate previousMonth = currentDate.minusMonths(i);
-            LocalDate previousStart = previousMonth.withDayOfMonth(1);
-            LocalDate previousEnd = previousMonth.withDayOfMonth(previousMonth.lengthOfMonth());
-            
-            BigDecimal income = getTotalIncomeForMonth(user, previousStart, previousEnd);
-            monthlyData.add(new MonthlyIncomeData(previousMonth.getMonthValue(), previousMonth.getYear(), income));
+        int months = Math.max(monthsBack, 0);
+        
+        // Whole window in one query, summed per month in one pass (index 0 is the target month)
+        BigDecimal[] incomeByMonthsAgo = new BigDecimal[months + 1];
+        Arrays.fill(incomeByMonthsAgo, BigDecimal.ZERO);
+        long targetMonthNumber = monthNumber(targetStart);
+        for (Object[] row : transactionRepository.findIncomeRowsByUserAndDateRange(
+                user, targetStart.minusMonths(months), targetEnd)) {
+            int monthsAgo = (int) (targetMonthNumber - monthNumber((LocalDate) row[1]));
+            incomeByMonthsAgo[monthsAgo] = incomeByMonthsAgo[monthsAgo].add((BigDecimal) row[2]);
+        }
+        
+        // Target month first, then previous months
+        List<MonthlyIncomeData> monthlyData = new ArrayList<>(months + 1);
+        for (int i = 0; i <= months; i++) {
+            LocalDate month = targetStart.minusMonths(i);
+            monthlyData.add(new MonthlyIncomeData(month.getMonthValue(), month.getYear(), incomeByMonthsAgo[i]));
         }
+        BigDecimal targetIncome = incomeByMonthsAgo[0];
         
         // Calculate statistics
         BigDecimal averageIncome = monthlyData.stream()
@@ -149,52 +153,57 @@ public class HistoricalIncomeService {
      * Find income patterns from similar periods
      */
     public List<IncomePattern> findRecurringIncomePatterns(User user, Integer targetMonth, Integer targetYear) {
-        // Look for same month in previous years
-        List<Transaction> sameMonthPreviousYears = new ArrayList<>();
-        for (int year = targetYear - 3; year < targetYear; year++) {
-            LocalDate startDate = LocalDate.of(year, targetMonth, 1);
-            LocalDate endDate = startDate.withDayOfMonth(startDate.lengthOfMonth());
-            sameMonthPreviousYears.addAll(
-                    transactionRepository.findIncomeTransactionsByUserAndDateRange(user, startDate, endDate));
-        }
+        // Same month of the three previous years, in one query
+        LocalDate windowStart = LocalDate.of(targetYear - 3, targetMonth, 1);
+        LocalDate windowEnd = YearMonth.of(targetYear - 1, targetMonth).atEndOfMonth();
+        List<Transaction> sameMonthPreviousYears = transactionRepository
+                .findIncomeTransactionsByUserAndMonthInDateRange(user, targetMonth, windowStart, windowEnd);
         
         return analyzeIncomePatterns(sameMonthPreviousYears);
     }
     
     // ====== PRIVATE HELPER METHODS ======
     
-    private BigDecimal getTotalIncomeForMonth(User user, LocalDate startDate, LocalDate endDate) {
-        List<Transaction> transactions = transactionRepository.findIncomeTransactionsByUserAndDateRange(user, startDate, endDate);
-        return transactions.stream()
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private static long monthNumber(LocalDate date) {
+        return date.getYear() * 12L + date.getMonthValue() - 1;
     }
     
     private List<IncomePattern> analyzeIncomePatterns(List<Transaction> transactions) {
-        Map<String, List<Transaction>> groupedBySource = transactions.stream()
-                .collect(Collectors.groupingBy(t -> normalizeIncomeSource(t.getDescription())));
+        // Group by normalized source and sum in one pass, normalizing each distinct description once
+        Map<String, String> sourceByDescription = new HashMap<>();
+        Map<String, PatternAccumulator> groupedBySource = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            String source = sourceByDescription.computeIfAbsent(transaction.getDescription(), this::normalizeIncomeSource);
+            groupedBySource.computeIfAbsent(source, key -> new PatternAccumulator()).add(transaction);
+        }
         
         return groupedBySource.entrySet().stream()
                 .map(entry -> {
                     String pattern = entry.getKey();
-                    List<Transaction> transactionGroup = entry.getValue();
-                    
-                    BigDecimal totalAmount = transactionGroup.stream()
-                            .map(Transaction::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
+                    PatternAccumulator group = entry.getValue();
                     
-                    BigDecimal averageAmount = totalAmount.divide(
-                            BigDecimal.valueOf(transactionGroup.size()), 2, RoundingMode.HALF_UP);
+                    BigDecimal averageAmount = group.totalAmount.divide(
+                            BigDecimal.valueOf(group.transactions.size()), 2, RoundingMode.HALF_UP);
                     
                     IncomeCategory.IncomeType suggestedType = inferIncomeType(pattern, averageAmount);
                     
-                    return new IncomePattern(pattern, transactionGroup.size(), totalAmount, 
-                                           averageAmount, suggestedType, transactionGroup);
+                    return new IncomePattern(pattern, group.transactions.size(), group.totalAmount, 
+                                           averageAmount, suggestedType, group.transactions);
                 })
                 .sorted((a, b) -> b.getTotalAmount().compareTo(a.getTotalAmount()))
                 .collect(Collectors.toList());
     }
     
+    private static final class PatternAccumulator {
+        private final List<Transaction> transactions = new ArrayList<>();
+        private BigDecimal totalAmount = BigDecimal.ZERO;
+        
+        void add(Transaction transaction) {
+            transactions.add(transaction);
+            totalAmount = totalAmount.add(transaction.getAmount());
+        }
+    }
+    
     private List<IncomeCategorySuggestion> suggestIncomeCategoriesFromPatterns(List<IncomePattern> patterns) {
         return patterns.stream()
                 .map(pattern -> {
@@ -1,15 +1,14 @@
 package com.buckpal.service;
 
-import com.buckpal.entity.MerchantPattern;
 import com.buckpal.entity.User;
-import com.buckpal.entity.UserMerchantPattern;
-import com.buckpal.entity.Category;
-import com.buckpal.repository.MerchantPatternRepository;
 import com.buckpal.repository.UserMerchantPatternRepository;
-import com.buckpal.repository.CategoryRepository;
+import com.buckpal.service.pattern.AssignmentCache;
+import com.buckpal.service.pattern.MerchantPatternIndex;
+import com.buckpal.service.pattern.MerchantPatternIndex.PatternEntry;
 import static com.buckpal.service.SmartTransactionAssignmentService.SmartAssignmentResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -26,119 +25,102 @@ import java.util.Optional;
 public class HybridPatternResolver {
     
     private final UserMerchantPatternRepository userPatternRepository;
-    private final MerchantPatternRepository globalPatternRepository;
-    private final CategoryRepository categoryRepository;
+    private final MerchantPatternIndex patternIndex;
+    private final AssignmentCache assignmentCache;
     
     @Autowired
     public HybridPatternResolver(UserMerchantPatternRepository userPatternRepository,
-                                MerchantPatternRepository globalPatternRepository,
-                                CategoryRepository categoryRepository) {
+                                MerchantPatternIndex patternIndex,
+                                AssignmentCache assignmentCache) {
         this.userPatternRepository = userPatternRepository;
-        this.globalPatternRepository = globalPatternRepository;
-        this.categoryRepository = categoryRepository;
+        this.patternIndex = patternIndex;
+        this.assignmentCache = assignmentCache;
     }
     
     /**
-     * Résout un pattern pour un marchand donné avec logique hybride
+     * Résout un pattern pour un marchand donné avec logique hybride.
+     * Ne démarre pas de transaction : la résolution se fait dans l'index en mémoire, qui ne lit la
+     * base que pour se recharger.
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public SmartTransactionAssignmentService.SmartAssignmentResult resolvePattern(String merchantText, User user) {
         if (merchantText == null || merchantText.trim().isEmpty()) {
             return new SmartTransactionAssignmentService.SmartAssignmentResult("", new BigDecimal("0"), "NO_PATTERN_MATCH", List.of());
         }
         
+        // Résultat mis en cache par utilisateur, tant que ses patterns et les patterns globaux n'ont pas changé
+        MerchantPatternIndex.Snapshot snapshot = patternIndex.snapshot(user);
+        return assignmentCache.getResolvedPattern(user.getId(), snapshot, merchantText.toUpperCase().trim(), text -> {
+            Optional<ResolvedPattern> match = resolveBestPattern(text, snapshot);
+            if (match.isPresent()) {
+                ResolvedPattern resolved = match.get();
+                return resolved.personal ? createPersonalResult(resolved.pattern) : createGlobalResult(resolved.pattern);
+            }
+            
+            // Aucun pattern trouvé
+            return new SmartTransactionAssignmentService.SmartAssignmentResult("", new BigDecimal("0"), "NO_PATTERN_MATCH", List.of());
+        });
+    }
+    
+    /**
+     * Meilleur pattern pour un marchand dans un snapshot de l'index, sans accès base.
+     * Utilisable en parallèle sur un même snapshot (assignation en masse).
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<ResolvedPattern> resolveBestPattern(String merchantText, MerchantPatternIndex.Snapshot snapshot) {
+        if (merchantText == null || merchantText.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        
         String cleanMerchantText = merchantText.toUpperCase().trim();
         
         // ÉTAPE 1: Chercher dans les patterns personnels (PRIORITÉ ABSOLUE)
-        Optional<PersonalPatternMatch> personalMatch = findBestPersonalPattern(cleanMerchantText, user);
+        Optional<PatternEntry> personalMatch = findBestPersonalPattern(cleanMerchantText, snapshot);
         if (personalMatch.isPresent()) {
-            return createPersonalResult(personalMatch.get());
+            return Optional.of(new ResolvedPattern(personalMatch.get(), true));
         }
         
         // ÉTAPE 2: Fallback sur les patterns globaux
-        Optional<GlobalPatternMatch> globalMatch = findBestGlobalPattern(cleanMerchantText);
-        if (globalMatch.isPresent()) {
-            return createGlobalResult(globalMatch.get());
-        }
-        
-        // ÉTAPE 3: Aucun pattern trouvé
-        return new SmartTransactionAssignmentService.SmartAssignmentResult("", new BigDecimal("0"), "NO_PATTERN_MATCH", List.of());
+        return findBestGlobalPattern(cleanMerchantText, snapshot).map(pattern -> new ResolvedPattern(pattern, false));
     }
     
     /**
-     * Recherche le meilleur pattern personnel pour l'utilisateur
+     * Recherche le meilleur pattern personnel pour l'utilisateur (index en mémoire, sans requête)
      */
-    private Optional<PersonalPatternMatch> findBestPersonalPattern(String merchantText, User user) {
-        List<UserMerchantPattern> matchingPatterns = 
-            userPatternRepository.findMatchingPatterns(user, merchantText);
+    private Optional<PatternEntry> findBestPersonalPattern(String merchantText, MerchantPatternIndex.Snapshot snapshot) {
+        List<PatternEntry> matchingPatterns = snapshot.findPersonalMatches(merchantText);
         
         if (matchingPatterns.isEmpty()) {
             return Optional.empty();
         }
         
-        // Prendre le pattern avec la meilleure confiance et usage
-        UserMerchantPattern bestPattern = matchingPatterns.get(0);
-        
-        // Charger la catégorie associée
-        Optional<Category> category = categoryRepository.findById(bestPattern.getCategoryId());
-        if (category.isEmpty()) {
-            return Optional.empty();
-        }
-        
-        return Optional.of(new PersonalPatternMatch(bestPattern, category.get()));
+        // Prendre le pattern avec la meilleure confiance et usage, si sa catégorie existe toujours
+        PatternEntry bestPattern = matchingPatterns.get(0);
+        return bestPattern.categoryName != null ? Optional.of(bestPattern) : Optional.empty();
     }
     
     /**
      * Recherche le meilleur pattern global (fallback)
      */
-    private Optional<GlobalPatternMatch> findBestGlobalPattern(String merchantText) {
-        // Utiliser la méthode existante pour trouver les patterns globaux
-        List<MerchantPattern> matchingPatterns = globalPatternRepository.findMatchingPatternsWithMinConfidence(
-            merchantText, new BigDecimal("0.5"));
+    private Optional<PatternEntry> findBestGlobalPattern(String merchantText, MerchantPatternIndex.Snapshot snapshot) {
+        // Minimum 50% de confiance, trié par confiance puis spécificité
+        List<PatternEntry> matchingPatterns = snapshot.findGlobalMatches(merchantText, new BigDecimal("0.5"));
         
         if (matchingPatterns.isEmpty()) {
             return Optional.empty();
         }
         
-        // Trier par confiance et spécificité
-        MerchantPattern bestPattern = matchingPatterns.stream()
-            .filter(p -> p.getConfidenceScore().compareTo(new BigDecimal("0.5")) >= 0) // Minimum 50% de confiance
-            .max((p1, p2) -> {
-                // Priorité à la confiance, puis spécificité
-                int confidenceCompare = p1.getConfidenceScore().compareTo(p2.getConfidenceScore());
-                if (confidenceCompare != 0) return confidenceCompare;
-                return p1.getSpecificityScore().compareTo(p2.getSpecificityScore());
-            })
-            .orElse(null);
-        
-        if (bestPattern == null) {
-            return Optional.empty();
-        }
-        
-        // Charger la catégorie associée
-        Optional<Category> category = Optional.empty();
-        if (bestPattern.getCategoryId() != null) {
-            category = categoryRepository.findById(bestPattern.getCategoryId());
-        } else if (bestPattern.getCategoryName() != null) {
-            category = categoryRepository.findByName(bestPattern.getCategoryName());
-        }
-        
-        if (category.isEmpty()) {
-            return Optional.empty();
-        }
-        
-        return Optional.of(new GlobalPatternMatch(bestPattern, category.get()));
+        PatternEntry bestPattern = matchingPatterns.get(0);
+        return bestPattern.categoryName != null ? Optional.of(bestPattern) : Optional.empty();
     }
     
     /**
      * Crée un résultat basé sur un pattern personnel
      */
-    private SmartTransactionAssignmentService.SmartAssignmentResult createPersonalResult(PersonalPatternMatch match) {
-        UserMerchantPattern pattern = match.pattern;
-        Category category = match.category;
-        
+    private SmartTransactionAssignmentService.SmartAssignmentResult createPersonalResult(PatternEntry pattern) {
         return new SmartTransactionAssignmentService.SmartAssignmentResult(
-            category.getName(),
-            pattern.getConfidenceScore(), // Confiance en BigDecimal (0.0-1.0)
+            pattern.categoryName,
+            pattern.confidenceScore, // Confiance en BigDecimal (0.0-1.0)
             "PERSONAL_PATTERN",
             List.of() // Pas d'alternatives pour patterns personnels
         );
@@ -147,13 +129,10 @@ public class HybridPatternResolver {
     /**
      * Crée un résultat basé sur un pattern global
      */
-    private SmartTransactionAssignmentService.SmartAssignmentResult createGlobalResult(GlobalPatternMatch match) {
-        MerchantPattern pattern = match.pattern;
-        Category category = match.category;
-        
+    private SmartTransactionAssignmentService.SmartAssignmentResult createGlobalResult(PatternEntry pattern) {
         return new SmartTransactionAssignmentService.SmartAssignmentResult(
-            category.getName(),
-            pattern.getConfidenceScore(), // Confiance en BigDecimal (0.0-1.0)
+            pattern.categoryName,
+            pattern.confidenceScore, // Confiance en BigDecimal (0.0-1.0)
             "GLOBAL_PATTERN",
             List.of() // TODO: Implémenter alternatives
         );
@@ -171,35 +150,32 @@ public class HybridPatternResolver {
     }
     
     private void recordPersonalPatternUsage(User user, String merchantText, Long categoryId, boolean wasSuccessful) {
-        List<UserMerchantPattern> patterns = userPatternRepository.findMatchingPatterns(user, merchantText);
-        
-        for (UserMerchantPattern pattern : patterns) {
-            if (pattern.getCategoryId().equals(categoryId)) {
-                pattern.recordUsage(wasSuccessful);
-                userPatternRepository.save(pattern);
+        for (PatternEntry entry : patternIndex.findPersonalMatches(user, merchantText)) {
+            if (entry.categoryId.equals(categoryId)) {
+                userPatternRepository.findById(entry.id).ifPresent(pattern -> {
+                    pattern.recordUsage(wasSuccessful);
+                    // Same text and category: only the scores of the indexed entry change
+                    patternIndex.updateUserPatternUsage(userPatternRepository.save(pattern));
+                });
                 break;
             }
         }
     }
     
-    // Classes internes pour les résultats de matching
-    private static class PersonalPatternMatch {
-        final UserMerchantPattern pattern;
-        final Category category;
+    /**
+     * Pattern retenu et sa provenance (personnel ou global)
+     */
+    public static class ResolvedPattern {
+        public final PatternEntry pattern;
+        public final boolean personal;
         
-        PersonalPatternMatch(UserMerchantPattern pattern, Category category) {
+        public ResolvedPattern(PatternEntry pattern, boolean personal) {
             this.pattern = pattern;
-            this.category = category;
+            this.personal = personal;
         }
-    }
-    
-    private static class GlobalPatternMatch {
-        final MerchantPattern pattern;
-        final Category category;
         
-        GlobalPatternMatch(MerchantPattern pattern, Category category) {
-            this.pattern = pattern;
-            this.category = category;
+        public String getStrategy() {
+            return personal ? "PERSONAL_PATTERN" : "GLOBAL_PATTERN";
         }
     }
-}
\ No newline at end of file
+}
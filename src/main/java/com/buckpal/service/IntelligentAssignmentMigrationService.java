@@ -1,11 +1,17 @@
 package com.buckpal.service;
 
 import com.buckpal.entity.Category;
+import com.buckpal.entity.DataMigrationMarker;
 import com.buckpal.entity.MerchantPattern;
 import com.buckpal.repository.CategoryRepository;
+import com.buckpal.repository.DataMigrationMarkerRepository;
 import com.buckpal.repository.MerchantPatternRepository;
+import com.buckpal.service.pattern.MerchantPatternIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -22,8 +28,19 @@ import java.util.Optional;
 @Transactional
 public class IntelligentAssignmentMigrationService {
     
+    static final String PATTERN_MIGRATION = "merchant-patterns";
+    
+    // À incrémenter quand initializeDefaultPatternsIfEmpty ou migrateAllPatterns évoluent
+    static final int PATTERN_MIGRATION_VERSION = 1;
+    
     private final MerchantPatternRepository merchantPatternRepository;
     private final CategoryRepository categoryRepository;
+    private final MerchantPatternIndex patternIndex;
+    private final DataMigrationMarkerRepository markerRepository;
+    private final Counter migrationExecuted;
+    private final Counter migrationCached;
+    
+    private volatile boolean patternsUpToDate;
     
     // Mapping de compatibilité pour les anciens noms de catégories
     private static final Map<String, String> LEGACY_CATEGORY_MAPPING = new HashMap<>();
@@ -76,9 +93,57 @@ public class IntelligentAssignmentMigrationService {
     
     @Autowired
     public IntelligentAssignmentMigrationService(MerchantPatternRepository merchantPatternRepository,
-                                               CategoryRepository categoryRepository) {
+                                               CategoryRepository categoryRepository,
+                                               MerchantPatternIndex patternIndex,
+                                               DataMigrationMarkerRepository markerRepository,
+                                               MeterRegistry meterRegistry) {
         this.merchantPatternRepository = merchantPatternRepository;
         this.categoryRepository = categoryRepository;
+        this.patternIndex = patternIndex;
+        this.markerRepository = markerRepository;
+        this.migrationExecuted = Counter.builder("buckpal.patterns.migration")
+            .description("Vérifications de la migration des patterns marchands")
+            .tag("outcome", "executed")
+            .register(meterRegistry);
+        this.migrationCached = Counter.builder("buckpal.patterns.migration")
+            .description("Vérifications de la migration des patterns marchands")
+            .tag("outcome", "cached")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Applique une seule fois l'initialisation des patterns par défaut et la migration legacy.
+     * La version appliquée est persistée dans data_migration_markers ; une fois le marqueur lu
+     * ou écrit, les appels suivants ne lisent qu'un indicateur en mémoire.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void ensurePatternsMigrated() {
+        if (patternsUpToDate) {
+            migrationCached.increment();
+            return;
+        }
+        synchronized (this) {
+            if (patternsUpToDate) {
+                migrationCached.increment();
+                return;
+            }
+            Optional<DataMigrationMarker> marker = markerRepository.findById(PATTERN_MIGRATION);
+            if (marker.isPresent() && marker.get().getVersion() >= PATTERN_MIGRATION_VERSION) {
+                patternsUpToDate = true;
+                return;
+            }
+            initializeDefaultPatternsIfEmpty();
+            MigrationResult result = migrateAllPatterns();
+            migrationExecuted.increment();
+            System.out.println("Merchant pattern migration v" + PATTERN_MIGRATION_VERSION + ": " + result);
+            
+            // Sans catégories, ou si des patterns n'ont pas pu être migrés, aucun marqueur n'est écrit :
+            // l'indicateur reste à faux et la migration est retentée au prochain appel
+            if (merchantPatternRepository.count() > 0 && result.getFailed() == 0) {
+                markerRepository.save(new DataMigrationMarker(PATTERN_MIGRATION, PATTERN_MIGRATION_VERSION));
+                patternsUpToDate = true;
+            }
+        }
     }
     
     /**
@@ -100,6 +165,10 @@ public class IntelligentAssignmentMigrationService {
             }
         }
         
+        if (migrated > 0) {
+            patternIndex.invalidateGlobalPatterns();
+        }
+        
         return new MigrationResult(migrated, failed, patternsToMigrate.size());
     }
     
@@ -213,6 +282,9 @@ public class IntelligentAssignmentMigrationService {
             }
         }
         
+        if (created > 0) {
+            patternIndex.invalidateGlobalPatterns();
+        }
         System.out.println("Created " + created + " default merchant patterns");
     }
     
@@ -2,6 +2,7 @@ package com.buckpal.service;
 
 import com.buckpal.entity.MerchantPattern;
 import com.buckpal.repository.MerchantPatternRepository;
+import com.buckpal.service.pattern.MerchantPatternIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,10 +16,13 @@ import java.util.Map;
 public class MerchantPatternMigrationService {
     
     private final MerchantPatternRepository merchantPatternRepository;
+    private final MerchantPatternIndex patternIndex;
     
     @Autowired
-    public MerchantPatternMigrationService(MerchantPatternRepository merchantPatternRepository) {
+    public MerchantPatternMigrationService(MerchantPatternRepository merchantPatternRepository,
+                                           MerchantPatternIndex patternIndex) {
         this.merchantPatternRepository = merchantPatternRepository;
+        this.patternIndex = patternIndex;
     }
     
     public void migrateFrenchPatterns() {
@@ -36,6 +40,7 @@ public class MerchantPatternMigrationService {
                 merchantPatternRepository.save(merchantPattern);
             }
         }
+        patternIndex.invalidateGlobalPatterns();
     }
     
     private Map<String, Integer> createFrenchCategoryPatterns() {
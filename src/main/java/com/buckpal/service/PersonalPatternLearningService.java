@@ -7,6 +7,8 @@ import com.buckpal.entity.UserAssignmentFeedback;
 import com.buckpal.repository.UserMerchantPatternRepository;
 import com.buckpal.repository.UserAssignmentFeedbackRepository;
 import com.buckpal.repository.TransactionRepository;
+import com.buckpal.service.pattern.AssignmentCache;
+import com.buckpal.service.pattern.MerchantPatternIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,14 +28,20 @@ public class PersonalPatternLearningService {
     private final UserMerchantPatternRepository userPatternRepository;
     private final UserAssignmentFeedbackRepository feedbackRepository;
     private final TransactionRepository transactionRepository;
+    private final MerchantPatternIndex patternIndex;
+    private final AssignmentCache assignmentCache;
     
     @Autowired
     public PersonalPatternLearningService(UserMerchantPatternRepository userPatternRepository,
                                         UserAssignmentFeedbackRepository feedbackRepository,
-                                        TransactionRepository transactionRepository) {
+                                        TransactionRepository transactionRepository,
+                                        MerchantPatternIndex patternIndex,
+                                        AssignmentCache assignmentCache) {
         this.userPatternRepository = userPatternRepository;
         this.feedbackRepository = feedbackRepository;
         this.transactionRepository = transactionRepository;
+        this.patternIndex = patternIndex;
+        this.assignmentCache = assignmentCache;
     }
     
     /**
@@ -59,6 +67,7 @@ public class PersonalPatternLearningService {
             // Utilisateur a rejeté ou choisi une catégorie différente -> Créer pattern personnel
             createPersonalPattern(user, merchantText, chosenCategoryName, UserMerchantPattern.PatternSource.CONFIRMED);
         }
+        assignmentCache.invalidateUser(user.getId());
     }
     
     /**
@@ -112,11 +121,12 @@ public class PersonalPatternLearningService {
                         newPattern.setSuccessCount(transactions.size());
                         newPattern.setConfidenceScore(calculateConfidenceFromFrequency(transactions.size()));
                         
-                        userPatternRepository.save(newPattern);
+                        patternIndex.upsertUserPattern(userPatternRepository.save(newPattern));
                     }
                 }
             }
         }
+        assignmentCache.invalidateUser(user.getId());
     }
     
     /**
@@ -212,15 +222,19 @@ public class PersonalPatternLearningService {
             if (accuracy.compareTo(new BigDecimal("0.3")) < 0 && pattern.getUsageCount() > 5) {
                 // Pattern avec très faible précision et beaucoup d'usage -> supprimer
                 userPatternRepository.delete(pattern);
+                patternIndex.removeUserPattern(pattern);
                 removed++;
             } else if (accuracy.compareTo(new BigDecimal("0.6")) < 0) {
                 // Pattern avec précision moyenne -> réduire la confiance
                 pattern.setConfidenceScore(pattern.getConfidenceScore().multiply(new BigDecimal("0.8")));
-                userPatternRepository.save(pattern);
+                patternIndex.upsertUserPattern(userPatternRepository.save(pattern));
                 improved++;
             }
         }
         
+        if (improved > 0 || removed > 0) {
+            assignmentCache.invalidateUser(user.getId());
+        }
         return new PatternImprovementReport(improved, removed);
     }
     
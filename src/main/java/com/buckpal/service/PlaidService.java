@@ -16,8 +16,13 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class PlaidService {
@@ -120,18 +125,30 @@ public class PlaidService {
             TransactionsGetResponse response = getPlaidApi().transactionsGet(request).execute().body();
             List<Transaction> transactions = new ArrayList<>();
             
+            // Resolve already-synced ids in one query instead of one lookup per transaction
+            Set<String> plaidIds = response.getTransactions().stream()
+                .map(com.plaid.client.model.Transaction::getTransactionId)
+                .collect(Collectors.toSet());
+            Set<String> existingIds = plaidIds.isEmpty() ? new HashSet<>()
+                : new HashSet<>(transactionRepository.findExistingPlaidTransactionIds(plaidIds));
+            Map<String, Optional<Account>> accountsByPlaidId = new HashMap<>();
+            
             for (com.plaid.client.model.Transaction plaidTransaction : response.getTransactions()) {
-                Optional<Transaction> existingTransaction = transactionRepository
-                    .findByPlaidTransactionId(plaidTransaction.getTransactionId());
+                if (!existingIds.add(plaidTransaction.getTransactionId())) {
+                    continue;
+                }
                 
-                if (existingTransaction.isEmpty()) {
-                    Transaction transaction = createTransactionFromPlaid(plaidTransaction);
+                Optional<Account> account = accountsByPlaidId.computeIfAbsent(
+                    plaidTransaction.getAccountId(), accountRepository::findByPlaidAccountId);
+                if (account.isPresent()) {
+                    Transaction transaction = createTransactionFromPlaid(plaidTransaction, account.get());
                     if (transaction != null) {
                         transactions.add(transaction);
                     }
                 }
             }
             
+            // Sequence-generated ids let Hibernate write these as JDBC batches
             return transactionRepository.saveAll(transactions);
         } catch (Exception e) {
             throw new RuntimeException("Failed to sync transactions: " + e.getMessage(), e);
@@ -159,18 +176,12 @@ public class PlaidService {
         return account;
     }
     
-    private Transaction createTransactionFromPlaid(com.plaid.client.model.Transaction plaidTransaction) {
-        Optional<Account> accountOpt = accountRepository.findByPlaidAccountId(plaidTransaction.getAccountId());
-        
-        if (accountOpt.isEmpty()) {
-            return null;
-        }
-        
+    private Transaction createTransactionFromPlaid(com.plaid.client.model.Transaction plaidTransaction, Account account) {
         Transaction transaction = new Transaction();
         
         try {
             transaction.setPlaidTransactionId(plaidTransaction.getTransactionId());
-            transaction.setAccount(accountOpt.get());
+            transaction.setAccount(account);
             transaction.setAmount(BigDecimal.valueOf(Math.abs(plaidTransaction.getAmount())));
             transaction.setDescription(plaidTransaction.getName() != null ? plaidTransaction.getName() : "Unknown");
             transaction.setTransactionDate(plaidTransaction.getDate());
@@ -5,6 +5,8 @@ import com.buckpal.entity.RecurringPaymentHistory;
 import com.buckpal.entity.User;
 import com.buckpal.repository.RecurringPaymentRepository;
 import com.buckpal.repository.RecurringPaymentHistoryRepository;
+import com.buckpal.service.projection.PeriodPayments;
+import com.buckpal.service.projection.RecurringProjection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,9 +14,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -27,6 +33,8 @@ public class RecurringPaymentService {
     
     private static final Logger logger = LoggerFactory.getLogger(RecurringPaymentService.class);
     
+    private static final Object PERIOD_PAYMENTS_MEMO = new Object();
+    
     @Autowired
     private RecurringPaymentRepository recurringPaymentRepository;
     
@@ -46,6 +54,7 @@ public class RecurringPaymentService {
         }
         
         RecurringPayment savedPayment = recurringPaymentRepository.save(payment);
+        forgetPeriodPayments();
         
         // Generate initial history entries for the next 12 months
         generateFuturePaymentHistory(savedPayment, LocalDate.now(), LocalDate.now().plusMonths(12));
@@ -73,6 +82,7 @@ public class RecurringPaymentService {
         existingPayment.setCategory(updatedPayment.getCategory());
         
         RecurringPayment savedPayment = recurringPaymentRepository.save(existingPayment);
+        forgetPeriodPayments();
         
         // Regenerate future payment history
         regenerateFuturePaymentHistory(savedPayment);
@@ -86,6 +96,7 @@ public class RecurringPaymentService {
             .orElseThrow(() -> new RuntimeException("Recurring payment not found"));
         
         recurringPaymentRepository.delete(payment);
+        forgetPeriodPayments();
         logger.info("Deleted recurring payment: {} for user: {}", payment.getName(), user.getEmail());
     }
     
@@ -95,6 +106,7 @@ public class RecurringPaymentService {
         
         payment.setIsActive(false);
         recurringPaymentRepository.save(payment);
+        forgetPeriodPayments();
         
         logger.info("Deactivated recurring payment: {} for user: {}", payment.getName(), user.getEmail());
     }
@@ -122,24 +134,69 @@ public class RecurringPaymentService {
     
     // Business Logic
     public List<RecurringPayment> getActivePaymentsForPeriod(User user, LocalDate startDate, LocalDate endDate) {
-        logger.debug("=== DEBUG getActivePaymentsForPeriod ===");
-        logger.debug("User: {} (ID: {})", user.getUsername(), user.getId());
-        logger.debug("Period: {} to {}", startDate, endDate);
-        
-        // D'abord, vérifions tous les paiements de l'utilisateur
-        List<RecurringPayment> allUserPayments = recurringPaymentRepository.findByUserOrderByCreatedAtDesc(user);
-        logger.debug("All user payments: {}", allUserPayments.size());
-        for (RecurringPayment payment : allUserPayments) {
-            logger.debug("  - {} (active: {}, start: {}, end: {})", 
-                payment.getName(), payment.getIsActive(), payment.getStartDate(), payment.getEndDate());
+        return recurringPaymentRepository.findActivePaymentsInPeriod(user, startDate, endDate);
+    }
+    
+    /**
+     * Paiements actifs de la période, groupés par type avec leurs échéances et montants, en une
+     * seule requête.
+     *
+     * Le résultat est mémorisé jusqu'à la fin de la transaction en cours (la création d'un budget
+     * lit plusieurs fois le même mois) et oublié dès qu'un paiement est modifié par ce service.
+     */
+    public PeriodPayments getPaymentsForPeriod(User user, LocalDate startDate, LocalDate endDate) {
+        Map<PeriodKey, PeriodPayments> memo = periodPaymentsMemo();
+        PeriodKey key = new PeriodKey(user.getId(), startDate, endDate);
+        PeriodPayments periodPayments = memo != null ? memo.get(key) : null;
+        if (periodPayments == null) {
+            periodPayments = PeriodPayments.of(
+                recurringPaymentRepository.findActivePaymentsInPeriod(user, startDate, endDate), startDate, endDate);
+            if (memo != null) {
+                memo.put(key, periodPayments);
+            }
         }
-        
-        // Ensuite la requête filtrée
-        List<RecurringPayment> activePayments = recurringPaymentRepository.findActivePaymentsInPeriod(user, startDate, endDate);
-        logger.debug("Filtered active payments: {}", activePayments.size());
-        logger.debug("=====================================");
-        
-        return activePayments;
+        return periodPayments;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<PeriodKey, PeriodPayments> periodPaymentsMemo() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Map<PeriodKey, PeriodPayments> memo =
+            (Map<PeriodKey, PeriodPayments>) TransactionSynchronizationManager.getResource(PERIOD_PAYMENTS_MEMO);
+        if (memo == null) {
+            Map<PeriodKey, PeriodPayments> boundMemo = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(PERIOD_PAYMENTS_MEMO, boundMemo);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(PERIOD_PAYMENTS_MEMO);
+                }
+                
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(PERIOD_PAYMENTS_MEMO, boundMemo);
+                }
+                
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PERIOD_PAYMENTS_MEMO);
+                }
+            });
+            memo = boundMemo;
+        }
+        return memo;
+    }
+    
+    private static void forgetPeriodPayments() {
+        Object memo = TransactionSynchronizationManager.getResource(PERIOD_PAYMENTS_MEMO);
+        if (memo != null) {
+            ((Map<?, ?>) memo).clear();
+        }
+    }
+    
+    private record PeriodKey(Long userId, LocalDate startDate, LocalDate endDate) {
     }
     
     public List<RecurringPayment> getPaymentsEndingSoon(User user) {
@@ -184,114 +241,149 @@ public class RecurringPaymentService {
     }
     
     // Budget Integration
+    
+    /**
+     * Projection mois par mois des paiements récurrents actifs (au plus 30 ans), calculée en une
+     * passe par {@link RecurringProjection} à partir d'une seule requête.
+     */
     public Map<String, Object> getBudgetProjection(User user, LocalDate startDate, int monthsAhead) {
-        LocalDate endDate = startDate.plusMonths(monthsAhead);
-        List<RecurringPayment> activePayments = getActivePaymentsForPeriod(user, startDate, endDate);
-        
-        logger.debug("=== DEBUG PROJECTION ===");
-        logger.debug("User: {}", user.getUsername());
-        logger.debug("Start date: {}", startDate);
-        logger.debug("End date: {}", endDate);
-        logger.debug("Active payments found: {}", activePayments.size());
-        for (RecurringPayment payment : activePayments) {
-            logger.debug("  - {} ({}) {}", payment.getName(), payment.getPaymentType(), payment.getAmount());
-        }
-        logger.debug("========================");
-        
-        Map<String, Object> projection = new HashMap<>();
-        List<Map<String, Object>> monthlyProjections = new ArrayList<>();
-        
-        for (int month = 0; month < monthsAhead; month++) {
-            LocalDate monthStart = startDate.plusMonths(month).withDayOfMonth(1);
-            LocalDate monthEnd = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
+        RecurringProjection matrix = computeProjection(user, YearMonth.from(startDate), monthsAhead);
+        
+        List<Map<String, Object>> monthlyProjections = new ArrayList<>(matrix.getMonths());
+        long totalIncome = 0;
+        long totalExpenses = 0;
+        for (int month = 0; month < matrix.getMonths(); month++) {
+            LocalDate monthStart = matrix.getMonth(month).atDay(1);
+            long income = matrix.getIncomeCents(month);
+            long expenses = matrix.getOutgoingCents(month);
+            totalIncome += income;
+            totalExpenses += expenses;
             
-            Map<String, Object> monthlyData = calculateMonthlyProjection(activePayments, monthStart, monthEnd);
+            Map<String, Object> monthlyData = new HashMap<>();
             monthlyData.put("month", monthStart);
             monthlyData.put("monthName", monthStart.getMonth().name());
             monthlyData.put("year", monthStart.getYear());
-            
+            monthlyData.put("totalIncome", RecurringProjection.toAmount(income));
+            monthlyData.put("totalExpenses", RecurringProjection.toAmount(expenses));
+            monthlyData.put("netAmount", RecurringProjection.toAmount(income - expenses));
+            monthlyData.put("paymentDetails", paymentDetails(matrix, month));
             monthlyProjections.add(monthlyData);
         }
         
+        Map<String, Object> projection = new HashMap<>();
         projection.put("monthlyProjections", monthlyProjections);
-        projection.put("totalProjectedIncome", monthlyProjections.stream()
-            .map(m -> (BigDecimal) m.get("totalIncome"))
-            .reduce(BigDecimal.ZERO, BigDecimal::add));
-        projection.put("totalProjectedExpenses", monthlyProjections.stream()
-            .map(m -> (BigDecimal) m.get("totalExpenses"))
-            .reduce(BigDecimal.ZERO, BigDecimal::add));
-        
+        projection.put("totalProjectedIncome", RecurringProjection.toAmount(totalIncome));
+        projection.put("totalProjectedExpenses", RecurringProjection.toAmount(totalExpenses));
         return projection;
     }
     
-    private Map<String, Object> calculateMonthlyProjection(List<RecurringPayment> payments, 
-                                                         LocalDate monthStart, LocalDate monthEnd) {
-        logger.debug("--- Calculating month: {} to {} ---", monthStart, monthEnd);
-        
-        Map<String, Object> monthlyData = new HashMap<>();
-        BigDecimal totalIncome = BigDecimal.ZERO;
-        BigDecimal totalExpenses = BigDecimal.ZERO;
-        
-        List<Map<String, Object>> paymentDetails = new ArrayList<>();
-        
-        for (RecurringPayment payment : payments) {
-            List<LocalDate> paymentDates = payment.getPaymentDatesInPeriod(monthStart, monthEnd);
-            logger.debug("Payment {} has {} dates in period", payment.getName(), paymentDates.size());
-            
-            if (!paymentDates.isEmpty()) {
-                BigDecimal monthlyAmount = BigDecimal.ZERO;
-                
-                for (LocalDate date : paymentDates) {
-                    BigDecimal amount = payment.getAmountForDate(date);
-                    monthlyAmount = monthlyAmount.add(amount);
-                    logger.debug("  Date {}: {}", date, amount);
+    /**
+     * Projection annuelle sur 1 à 30 ans : totaux par type de paiement et solde cumulé.
+     */
+    public Map<String, Object> getLongTermProjection(User user, LocalDate startDate, int years) {
+        int months = Math.max(1, Math.min(years, RecurringProjection.MAX_MONTHS / 12)) * 12;
+        RecurringProjection matrix = computeProjection(user, YearMonth.from(startDate), months);
+        RecurringPayment.PaymentType[] types = RecurringPayment.PaymentType.values();
+        
+        List<Map<String, Object>> yearlyProjections = new ArrayList<>(months / 12);
+        long cumulativeNet = 0;
+        for (int year = 0; year < months / 12; year++) {
+            long[] centsByType = new long[types.length];
+            for (int month = year * 12; month < (year + 1) * 12; month++) {
+                for (RecurringPayment.PaymentType type : types) {
+                    centsByType[type.ordinal()] += matrix.getCents(month, type);
                 }
-                
-                logger.debug("  Total for {}: {}", payment.getName(), monthlyAmount);
-                
-                if (payment.getPaymentType() == RecurringPayment.PaymentType.INCOME) {
-                    totalIncome = totalIncome.add(monthlyAmount);
-                } else {
-                    totalExpenses = totalExpenses.add(monthlyAmount);
+            }
+            long income = centsByType[RecurringPayment.PaymentType.INCOME.ordinal()];
+            long outgoing = 0;
+            Map<RecurringPayment.PaymentType, BigDecimal> byType = new EnumMap<>(RecurringPayment.PaymentType.class);
+            for (RecurringPayment.PaymentType type : types) {
+                byType.put(type, RecurringProjection.toAmount(centsByType[type.ordinal()]));
+                if (type != RecurringPayment.PaymentType.INCOME) {
+                    outgoing += centsByType[type.ordinal()];
                 }
-                
-                Map<String, Object> paymentDetail = new HashMap<>();
-                paymentDetail.put("paymentId", payment.getId());
-                paymentDetail.put("name", payment.getName());
-                paymentDetail.put("type", payment.getPaymentType());
-                paymentDetail.put("amount", monthlyAmount);
-                paymentDetail.put("dates", paymentDates);
-                paymentDetail.put("frequency", payment.getFrequency());
-                
-                paymentDetails.add(paymentDetail);
             }
+            cumulativeNet += income - outgoing;
+            
+            Map<String, Object> yearlyData = new HashMap<>();
+            yearlyData.put("from", matrix.getMonth(year * 12).atDay(1));
+            yearlyData.put("to", matrix.getMonth(year * 12 + 11).atEndOfMonth());
+            yearlyData.put("totalsByType", byType);
+            yearlyData.put("totalIncome", RecurringProjection.toAmount(income));
+            yearlyData.put("totalExpenses", RecurringProjection.toAmount(outgoing));
+            yearlyData.put("netAmount", RecurringProjection.toAmount(income - outgoing));
+            yearlyData.put("cumulativeNetAmount", RecurringProjection.toAmount(cumulativeNet));
+            yearlyProjections.add(yearlyData);
         }
         
-        logger.debug("Month totals - Income: {}, Expenses: {}", totalIncome, totalExpenses);
-        
-        monthlyData.put("totalIncome", totalIncome);
-        monthlyData.put("totalExpenses", totalExpenses);
-        monthlyData.put("netAmount", totalIncome.subtract(totalExpenses));
-        monthlyData.put("paymentDetails", paymentDetails);
-        
-        return monthlyData;
+        Map<String, Object> projection = new HashMap<>();
+        projection.put("yearlyProjections", yearlyProjections);
+        projection.put("cumulativeNetAmount", RecurringProjection.toAmount(cumulativeNet));
+        return projection;
+    }
+    
+    RecurringProjection computeProjection(User user, YearMonth firstMonth, int months) {
+        int clampedMonths = Math.max(1, Math.min(months, RecurringProjection.MAX_MONTHS));
+        List<RecurringPayment> activePayments = recurringPaymentRepository.findActivePaymentsInPeriod(
+            user, firstMonth.atDay(1), firstMonth.plusMonths(clampedMonths - 1L).atEndOfMonth());
+        logger.debug("Projecting {} active payments over {} months from {}", activePayments.size(), clampedMonths, firstMonth);
+        return RecurringProjection.compute(activePayments, firstMonth, clampedMonths);
+    }
+    
+    private List<Map<String, Object>> paymentDetails(RecurringProjection matrix, int month) {
+        List<Map<String, Object>> paymentDetails = new ArrayList<>();
+        YearMonth yearMonth = matrix.getMonth(month);
+        for (int p = 0; p < matrix.getPayments().size(); p++) {
+            if (matrix.getOccurrences(p, month) == 0) {
+                continue;
+            }
+            RecurringPayment payment = matrix.getPayments().get(p);
+            Map<String, Object> paymentDetail = new HashMap<>();
+            paymentDetail.put("paymentId", payment.getId());
+            paymentDetail.put("name", payment.getName());
+            paymentDetail.put("type", payment.getPaymentType());
+            paymentDetail.put("amount", RecurringProjection.toAmount(matrix.getPaymentCents(p, month)));
+            paymentDetail.put("dates", payment.getPaymentDatesInPeriod(yearMonth.atDay(1), yearMonth.atEndOfMonth()));
+            paymentDetail.put("frequency", payment.getFrequency());
+            paymentDetails.add(paymentDetail);
+        }
+        return paymentDetails;
     }
     
     // History Management
     public void generateFuturePaymentHistory(RecurringPayment payment, LocalDate fromDate, LocalDate toDate) {
-        List<LocalDate> paymentDates = payment.getPaymentDatesInPeriod(fromDate, toDate);
+        int created = generatePaymentHistory(List.of(payment), fromDate, toDate);
+        logger.debug("Generated {} payment history entries for payment: {}", created, payment.getName());
+    }
+    
+    /**
+     * Crée les échéances planifiées manquantes de plusieurs paiements : une requête pour les
+     * échéances existantes, puis une insertion par lots.
+     */
+    public int generatePaymentHistory(List<RecurringPayment> payments, LocalDate fromDate, LocalDate toDate) {
+        if (payments.isEmpty()) {
+            return 0;
+        }
         
-        for (LocalDate date : paymentDates) {
-            // Check if history already exists
-            if (!historyRepository.existsByRecurringPaymentAndDueDate(payment, date)) {
-                BigDecimal amount = payment.getAmountForDate(date);
-                RecurringPaymentHistory history = new RecurringPaymentHistory(payment, date, amount);
-                historyRepository.save(history);
-            }
+        Map<Long, RecurringPayment> paymentsById = new HashMap<>();
+        for (RecurringPayment payment : payments) {
+            paymentsById.put(payment.getId(), payment);
+        }
+        Set<String> existing = new HashSet<>();
+        for (Object[] row : historyRepository.findDueDatesByPaymentIds(paymentsById.keySet(), fromDate, toDate)) {
+            existing.add(row[0] + ":" + row[1]);
         }
         
-        logger.debug("Generated {} payment history entries for payment: {}", 
-                    paymentDates.size(), payment.getName());
+        List<RecurringPaymentHistory> history = new ArrayList<>();
+        for (RecurringPayment payment : payments) {
+            for (LocalDate date : payment.getPaymentDatesInPeriod(fromDate, toDate)) {
+                if (existing.add(payment.getId() + ":" + date)) {
+                    history.add(new RecurringPaymentHistory(payment, date, payment.getAmountForDate(date)));
+                }
+            }
+        }
+        historyRepository.saveAll(history);
+        return history.size();
     }
     
     public void regenerateFuturePaymentHistory(RecurringPayment payment) {
@@ -358,42 +450,16 @@ public class RecurringPaymentService {
         return stats;
     }
     
-    // Maintenance Operations
-    @Transactional
-    public void updateOverduePayments() {
-        LocalDate today = LocalDate.now();
-        
-        // Find all planned payments that are overdue
-        List<RecurringPaymentHistory> overduePayments = historyRepository
-            .findAll()
-            .stream()
-            .filter(h -> h.getStatus() == RecurringPaymentHistory.PaymentStatus.PLANNED)
-            .filter(h -> h.getDueDate().isBefore(today))
-            .collect(Collectors.toList());
-        
-        for (RecurringPaymentHistory payment : overduePayments) {
-            payment.markAsOverdue();
-            historyRepository.save(payment);
-        }
-        
-        logger.info("Updated {} overdue payments", overduePayments.size());
-    }
+    // Maintenance Operations (planifiées par RecurringPaymentMaintenanceService)
     
+    /**
+     * Passe en retard toutes les échéances planifiées antérieures à {@code today}, en une requête.
+     */
     @Transactional
-    public void generateMonthlyPaymentHistory() {
-        LocalDate today = LocalDate.now();
-        LocalDate futureDate = today.plusMonths(2);
-        
-        List<RecurringPayment> allActivePayments = recurringPaymentRepository
-            .findAll()
-            .stream()
-            .filter(RecurringPayment::getIsActive)
-            .collect(Collectors.toList());
-        
-        for (RecurringPayment payment : allActivePayments) {
-            generateFuturePaymentHistory(payment, today, futureDate);
-        }
-        
-        logger.info("Generated payment history for {} active payments", allActivePayments.size());
+    public int updateOverduePayments(LocalDate today) {
+        int updated = historyRepository.markPlannedAsOverdue(RecurringPaymentHistory.PaymentStatus.PLANNED,
+            RecurringPaymentHistory.PaymentStatus.OVERDUE, today, LocalDateTime.now());
+        logger.info("Updated {} overdue payments", updated);
+        return updated;
     }
 }
\ No newline at end of file
@@ -0,0 +1,266 @@
+package com.buckpal.service;
+
+import com.buckpal.entity.DataMigrationMarker;
+import com.buckpal.repository.DataMigrationMarkerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Migrations de schéma versionnées : scripts db/migration/V{n}__{description}.sql appliqués
+ * une seule fois, dans l'ordre des versions, au démarrage.
+ *
+ * Le schéma des tables reste géré par Hibernate (ddl-auto) : les scripts passent après lui et ne
+ * portent que ce qu'il ne sait pas faire (séquences, index pg_trgm, données). Chaque script tourne
+ * dans sa propre transaction, sous verrou consultatif pour les démarrages simultanés, et sa version
+ * est enregistrée dans data_migration_markers. Les scripts ciblent PostgreSQL et sont ignorés sur
+ * les autres bases (H2 en test).
+ *
+ * {@link #verifyRequiredIndexes()} contrôle ensuite que les index dont dépendent les requêtes des
+ * tables les plus sollicitées existent.
+ */
+@Service
+public class SchemaMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrationService.class);
+
+    static final String MIGRATION_LOCATION = "classpath*:db/migration/V*__*.sql";
+    static final String MARKER_PREFIX = "schema:";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final long ADVISORY_LOCK_KEY = 0x6275636b70616cL; // "buckpal"
+
+    // Index requis -> table ; déclarés sur les entités et dans les scripts V2/V3
+    static final Map<String, String> REQUIRED_INDEXES = new LinkedHashMap<>();
+    // Index d'expression pg_trgm, sans équivalent sur les autres bases
+    static final Map<String, String> POSTGRESQL_ONLY_INDEXES = new LinkedHashMap<>();
+
+    static {
+        REQUIRED_INDEXES.put("idx_transactions_account_date_id", "transactions");
+        REQUIRED_INDEXES.put("idx_transactions_account_amount", "transactions");
+        REQUIRED_INDEXES.put("idx_transactions_account_type_date", "transactions");
+        REQUIRED_INDEXES.put("idx_transactions_account_status_date", "transactions");
+        REQUIRED_INDEXES.put("idx_transactions_category_date", "transactions");
+        REQUIRED_INDEXES.put("idx_transactions_income_category_date", "transactions");
+        REQUIRED_INDEXES.put("idx_transactions_account_detailed_category", "transactions");
+        REQUIRED_INDEXES.put("idx_transactions_account_needs_review", "transactions");
+        REQUIRED_INDEXES.put("idx_merchant_patterns_pattern_category", "merchant_patterns");
+        REQUIRED_INDEXES.put("idx_merchant_patterns_category_id", "merchant_patterns");
+        REQUIRED_INDEXES.put("idx_user_merchant_patterns_user_category", "user_merchant_patterns");
+        REQUIRED_INDEXES.put("idx_user_merchant_patterns_user_last_used", "user_merchant_patterns");
+        REQUIRED_INDEXES.put("idx_recurring_payment_history_payment_due", "recurring_payment_history");
+        REQUIRED_INDEXES.put("idx_recurring_payment_history_status_due", "recurring_payment_history");
+        REQUIRED_INDEXES.put("idx_recurring_payment_history_transaction", "recurring_payment_history");
+        REQUIRED_INDEXES.put("idx_budgets_user_year_month", "budgets");
+
+        POSTGRESQL_ONLY_INDEXES.put("idx_transactions_description_trgm", "transactions");
+        POSTGRESQL_ONLY_INDEXES.put("idx_transactions_merchant_name_trgm", "transactions");
+    }
+
+    private final DataSource dataSource;
+    private final DataMigrationMarkerRepository markerRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public SchemaMigrationService(DataSource dataSource,
+                                  DataMigrationMarkerRepository markerRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.dataSource = dataSource;
+        this.markerRepository = markerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Applique les scripts pas encore enregistrés.
+     *
+     * @return noms des scripts appliqués par cet appel
+     */
+    public List<String> migrate() {
+        // Le premier accès JPA déclenche la mise à jour du schéma par Hibernate, avant les scripts
+        Set<String> applied = new HashSet<>();
+        for (DataMigrationMarker marker : markerRepository.findAll()) {
+            applied.add(marker.getName());
+        }
+
+        if (!isPostgreSql()) {
+            logger.info("Schema migrations skipped: scripts target PostgreSQL");
+            return List.of();
+        }
+
+        List<String> executed = new ArrayList<>();
+        for (MigrationScript script : findScripts()) {
+            if (applied.contains(script.markerName())) {
+                continue;
+            }
+            if (apply(script)) {
+                executed.add(script.getName());
+            }
+        }
+        if (!executed.isEmpty()) {
+            logger.info("Schema migrations applied: {}", executed);
+        }
+        return executed;
+    }
+
+    /**
+     * Refuse de continuer si un index requis manque.
+     */
+    public void verifyRequiredIndexes() {
+        List<String> missing = findMissingIndexes();
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Missing required database indexes " + missing
+                + ": apply the scripts in db/migration or check the entity @Index declarations");
+        }
+        logger.info("Required database indexes present");
+    }
+
+    List<String> findMissingIndexes() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Map<String, String> required = new LinkedHashMap<>(REQUIRED_INDEXES);
+            if (isPostgreSql(metaData)) {
+                required.putAll(POSTGRESQL_ONLY_INDEXES);
+            }
+
+            Map<String, Set<String>> indexesByTable = new LinkedHashMap<>();
+            List<String> missing = new ArrayList<>();
+            for (Map.Entry<String, String> index : required.entrySet()) {
+                Set<String> existing = indexesByTable.computeIfAbsent(index.getValue(),
+                    table -> listIndexes(connection, metaData, table));
+                if (!existing.contains(index.getKey().toLowerCase(Locale.ROOT))) {
+                    missing.add(index.getValue() + "." + index.getKey());
+                }
+            }
+            return missing;
+        } catch (SQLException e) {
+            throw new RuntimeException("Unable to read database indexes: " + e.getMessage(), e);
+        }
+    }
+
+    List<MigrationScript> findScripts() {
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources(MIGRATION_LOCATION);
+            List<MigrationScript> scripts = new ArrayList<>();
+            for (Resource resource : resources) {
+                Matcher matcher = SCRIPT_NAME.matcher(resource.getFilename() == null ? "" : resource.getFilename());
+                if (!matcher.matches()) {
+                    logger.warn("Ignoring migration script with an unexpected name: {}", resource.getFilename());
+                    continue;
+                }
+                scripts.add(new MigrationScript(Integer.parseInt(matcher.group(1)),
+                    "V" + matcher.group(1) + "__" + matcher.group(2), resource));
+            }
+            scripts.sort(Comparator.comparingInt(MigrationScript::getVersion));
+            for (int i = 1; i < scripts.size(); i++) {
+                if (scripts.get(i).getVersion() == scripts.get(i - 1).getVersion()) {
+                    throw new RuntimeException("Duplicate migration version: " + scripts.get(i - 1).getName()
+                        + " and " + scripts.get(i).getName());
+                }
+            }
+            return scripts;
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to list migration scripts: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean apply(MigrationScript script) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT pg_advisory_xact_lock(" + ADVISORY_LOCK_KEY + ")");
+                }
+                // Une autre instance a pu appliquer le script pendant l'attente du verrou
+                if (markerRepository.existsById(script.markerName())) {
+                    return false;
+                }
+                long start = System.currentTimeMillis();
+                ScriptUtils.executeSqlScript(connection, new EncodedResource(script.getResource(), StandardCharsets.UTF_8));
+                markerRepository.save(new DataMigrationMarker(script.markerName(), script.getVersion()));
+                logger.info("Applied {} in {} ms", script.getName(), System.currentTimeMillis() - start);
+                return true;
+            } catch (SQLException e) {
+                throw new RuntimeException("Migration " + script.getName() + " failed: " + e.getMessage(), e);
+            } finally {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        }));
+    }
+
+    private boolean isPostgreSql() {
+        try (Connection connection = dataSource.getConnection()) {
+            return isPostgreSql(connection.getMetaData());
+        } catch (SQLException e) {
+            throw new RuntimeException("Unable to read database metadata: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isPostgreSql(DatabaseMetaData metaData) throws SQLException {
+        return "PostgreSQL".equalsIgnoreCase(metaData.getDatabaseProductName());
+    }
+
+    private static Set<String> listIndexes(Connection connection, DatabaseMetaData metaData, String table) {
+        Set<String> names = new HashSet<>();
+        try {
+            String storedTable = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+            try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(),
+                    storedTable, false, true)) {
+                while (indexes.next()) {
+                    String name = indexes.getString("INDEX_NAME");
+                    if (name != null) {
+                        names.add(name.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Unable to read indexes of " + table + ": " + e.getMessage(), e);
+        }
+        return names;
+    }
+
+    static final class MigrationScript {
+        private final int version;
+        private final String name;
+        private final Resource resource;
+
+        MigrationScript(int version, String name, Resource resource) {
+            this.version = version;
+            this.name = name;
+            this.resource = resource;
+        }
+
+        int getVersion() { return version; }
+        String getName() { return name; }
+        Resource getResource() { return resource; }
+
+        String markerName() {
+            return MARKER_PREFIX + name;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.buckpal.entity.UserAssignmentFeedback;
 import com.buckpal.repository.CategoryRepository;
 import com.buckpal.repository.MerchantPatternRepository;
 import com.buckpal.repository.UserAssignmentFeedbackRepository;
+import com.buckpal.service.pattern.MerchantPatternIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,28 +28,28 @@ public class SmartTransactionAssignmentService {
     private final IntelligentAssignmentMigrationService migrationService;
     private final CategoryRepository categoryRepository;
     private final HybridPatternResolver hybridPatternResolver;
+    private final MerchantPatternIndex patternIndex;
     
     @Autowired
     public SmartTransactionAssignmentService(MerchantPatternRepository merchantPatternRepository,
                                            UserAssignmentFeedbackRepository feedbackRepository,
                                            IntelligentAssignmentMigrationService migrationService,
                                            CategoryRepository categoryRepository,
-                                           HybridPatternResolver hybridPatternResolver) {
+                                           HybridPatternResolver hybridPatternResolver,
+                                           MerchantPatternIndex patternIndex) {
         this.merchantPatternRepository = merchantPatternRepository;
         this.feedbackRepository = feedbackRepository;
         this.migrationService = migrationService;
         this.categoryRepository = categoryRepository;
         this.hybridPatternResolver = hybridPatternResolver;
+        this.patternIndex = patternIndex;
     }
     
     public SmartAssignmentResult assignCategoryToTransaction(Transaction transaction, User user) {
         String merchantText = buildMerchantText(transaction);
         
-        // Initialize default patterns if none exist
-        migrationService.initializeDefaultPatternsIfEmpty();
-        
-        // Migrate any legacy patterns first
-        migrationService.migrateAllPatterns();
+        // One-shot migration, only an in-memory flag check once applied
+        migrationService.ensurePatternsMigrated();
         
         // Use the new hybrid resolver (personal patterns > global patterns)
         return hybridPatternResolver.resolvePattern(merchantText, user);
@@ -70,14 +71,18 @@ public class SmartTransactionAssignmentService {
     }
     
     private String buildMerchantText(Transaction transaction) {
+        return buildMerchantText(transaction.getMerchantName(), transaction.getDescription());
+    }
+    
+    static String buildMerchantText(String merchantName, String rawDescription) {
         StringBuilder merchantText = new StringBuilder();
         
-        if (transaction.getMerchantName() != null && !transaction.getMerchantName().trim().isEmpty()) {
-            merchantText.append(transaction.getMerchantName().trim().toUpperCase());
+        if (merchantName != null && !merchantName.trim().isEmpty()) {
+            merchantText.append(merchantName.trim().toUpperCase());
         }
         
-        if (transaction.getDescription() != null && !transaction.getDescription().trim().isEmpty()) {
-            String description = transaction.getDescription().trim().toUpperCase();
+        if (rawDescription != null && !rawDescription.trim().isEmpty()) {
+            String description = rawDescription.trim().toUpperCase();
             if (merchantText.length() > 0 && !description.equals(merchantText.toString())) {
                 merchantText.append(" ").append(description);
             } else if (merchantText.length() == 0) {
@@ -88,12 +93,6 @@ public class SmartTransactionAssignmentService {
         return merchantText.toString();
     }
     
-    private List<MerchantPattern> findMatchingPatterns(String merchantText) {
-        return merchantPatternRepository.findMatchingPatternsWithMinConfidence(
-            merchantText, new BigDecimal("0.3")
-        );
-    }
-    
     private PatternMatchResult resolvePatternConflicts(List<MerchantPattern> patterns, Transaction transaction, User user) {
         if (patterns.size() == 1) {
             MerchantPattern pattern = patterns.get(0);
@@ -298,7 +297,7 @@ public class SmartTransactionAssignmentService {
             if (patternOpt.isPresent()) {
                 MerchantPattern pattern = patternOpt.get();
                 pattern.recordMatch(wasAccepted);
-                merchantPatternRepository.save(pattern);
+                patternIndex.upsertGlobalPattern(merchantPatternRepository.save(pattern));
             }
         }
         
@@ -322,7 +321,7 @@ public class SmartTransactionAssignmentService {
                 
                 MerchantPattern newPattern = new MerchantPattern(potentialPattern, categoryName, specificity);
                 newPattern.setConfidenceScore(new BigDecimal("0.5")); // Start with medium confidence
-                merchantPatternRepository.save(newPattern);
+                patternIndex.upsertGlobalPattern(merchantPatternRepository.save(newPattern));
                 break; // Only create one new pattern per feedback
             }
         }
@@ -386,7 +385,7 @@ public class SmartTransactionAssignmentService {
         
         // Record the match result
         pattern.recordMatch(wasCorrect);
-        merchantPatternRepository.save(pattern);
+        patternIndex.upsertGlobalPattern(merchantPatternRepository.save(pattern));
     }
     
     /**
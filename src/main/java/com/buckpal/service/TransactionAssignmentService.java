@@ -64,7 +64,7 @@ public class TransactionAssignmentService {
         transactionRepository.save(transaction);
         
         // Update budget progress using modern category mapping approach
-        budgetService.recalculateBudgetSpentAmountsFromCategoryMapping(budgetCategory.getBudget());
+        budgetService.refreshBudgetSpentAmounts(budgetCategory.getBudget());
     }
     
     /**
@@ -94,9 +94,9 @@ public class TransactionAssignmentService {
      */
     private void updateBudgetProgressAfterCategoryAssignment(User user, java.time.LocalDate transactionDate) {
         // Find the budget for the transaction's month
-        // Recalculate all budget category spent amounts using the new mapping approach
+        // Refresh all budget category spent amounts from the monthly spend rollup
         budgetRepository.findByUserAndBudgetMonthAndBudgetYear(user, transactionDate.getMonthValue(), transactionDate.getYear())
-            .ifPresent(budgetService::recalculateBudgetSpentAmountsFromCategoryMapping);
+            .ifPresent(budgetService::refreshBudgetSpentAmounts);
     }
     
     /**
@@ -186,9 +186,9 @@ public class TransactionAssignmentService {
         // Update budget progress using modern category mapping approach
         // Recalculate both old and new budgets if they're different
         if (oldBudget != null && !oldBudget.equals(newBudgetCategory.getBudget())) {
-            budgetService.recalculateBudgetSpentAmountsFromCategoryMapping(oldBudget);
+            budgetService.refreshBudgetSpentAmounts(oldBudget);
         }
-        budgetService.recalculateBudgetSpentAmountsFromCategoryMapping(newBudgetCategory.getBudget());
+        budgetService.refreshBudgetSpentAmounts(newBudgetCategory.getBudget());
     }
     
     /**
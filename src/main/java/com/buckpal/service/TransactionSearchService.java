@@ -0,0 +1,98 @@
+package com.buckpal.service;
+
+import com.buckpal.dto.TransactionSearchCriteria;
+import com.buckpal.entity.Account;
+import com.buckpal.entity.Transaction;
+import com.buckpal.entity.User;
+import com.buckpal.exception.BusinessException;
+import com.buckpal.repository.AccountRepository;
+import com.buckpal.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.buckpal.repository.TransactionSpecifications.*;
+
+@Service
+public class TransactionSearchService {
+    
+    public static final int MAX_PAGE_SIZE = 200;
+    
+    // Public sort keys mapped to entity paths
+    private static final Map<String, String> SORT_PROPERTIES = Map.of(
+        "date", "transactionDate",
+        "amount", "amount",
+        "description", "description",
+        "merchant", "merchantName",
+        "type", "transactionType",
+        "category", "category.name",
+        "assignmentStatus", "assignmentStatus",
+        "account", "account.name"
+    );
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private AccountRepository accountRepository;
+    
+    @Transactional(readOnly = true)
+    public Page<Transaction> search(User user, TransactionSearchCriteria criteria) {
+        Pageable pageable = toPageable(criteria);
+        
+        List<Account> accounts = accountRepository.findByUser(user);
+        if (criteria.getAccountId() != null) {
+            accounts = accounts.stream()
+                .filter(account -> account.getId().equals(criteria.getAccountId()))
+                .toList();
+            if (accounts.isEmpty()) {
+                throw new RuntimeException("Access denied");
+            }
+        }
+        if (accounts.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        
+        Specification<Transaction> specification = Specification.where(inAccounts(accounts))
+            .and(fetchAccountAndCategory())
+            .and(textContains(criteria.getQuery()))
+            .and(amountAtLeast(criteria.getMinAmount()))
+            .and(amountAtMost(criteria.getMaxAmount()))
+            .and(dateFrom(criteria.getStartDate()))
+            .and(dateTo(criteria.getEndDate()))
+            .and(hasType(criteria.getType()))
+            .and(hasCategory(criteria.getCategoryId()))
+            .and(hasAssignmentStatus(criteria.getAssignmentStatus()));
+        
+        return transactionRepository.findAll(specification, pageable);
+    }
+    
+    Pageable toPageable(TransactionSearchCriteria criteria) {
+        String property = SORT_PROPERTIES.get(criteria.getSort() == null ? "date" : criteria.getSort());
+        if (property == null) {
+            throw new BusinessException("INVALID_SORT", "Unsupported sort: " + criteria.getSort()
+                + ", expected one of " + SORT_PROPERTIES.keySet());
+        }
+        Sort.Direction direction = "asc".equalsIgnoreCase(criteria.getDirection())
+            ? Sort.Direction.ASC
+            : Sort.Direction.DESC;
+        
+        // Newest first, then id, so that pages are stable when sort values tie
+        Sort sort = Sort.by(direction, property);
+        if (!property.equals("transactionDate")) {
+            sort = sort.and(Sort.by(Sort.Direction.DESC, "transactionDate"));
+        }
+        sort = sort.and(Sort.by(direction, "id"));
+        
+        int size = Math.max(1, Math.min(criteria.getSize(), MAX_PAGE_SIZE));
+        return PageRequest.of(Math.max(0, criteria.getPage()), size, sort);
+    }
+}
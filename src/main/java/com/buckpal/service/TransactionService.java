@@ -4,6 +4,9 @@ import com.buckpal.entity.Account;
 import com.buckpal.entity.Transaction;
 import com.buckpal.repository.AccountRepository;
 import com.buckpal.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,10 +24,16 @@ public class TransactionService {
     @Autowired
     private AccountRepository accountRepository;
     
+    @Autowired
+    private AccountBalanceReconciliationService balanceReconciliationService;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     @Transactional
     public Transaction createTransaction(Transaction transaction) {
         Transaction savedTransaction = transactionRepository.save(transaction);
-        updateAccountBalance(transaction.getAccount());
+        applyBalanceDelta(transaction.getAccount(), signedBalanceAmount(savedTransaction));
         return savedTransaction;
     }
     
@@ -38,6 +47,7 @@ public class TransactionService {
         Transaction existing = existingOpt.get();
         Account oldAccount = existing.getAccount();
         Account newAccount = updatedTransaction.getAccount();
+        BigDecimal oldSignedAmount = signedBalanceAmount(existing);
         
         // Update transaction fields
         existing.setAmount(updatedTransaction.getAmount());
@@ -55,9 +65,12 @@ public class TransactionService {
         Transaction savedTransaction = transactionRepository.save(existing);
         
         // Update balances for affected accounts
-        updateAccountBalance(oldAccount);
+        BigDecimal newSignedAmount = signedBalanceAmount(savedTransaction);
         if (newAccount != null && !oldAccount.getId().equals(newAccount.getId())) {
-            updateAccountBalance(newAccount);
+            applyBalanceDelta(oldAccount, oldSignedAmount.negate());
+            applyBalanceDelta(newAccount, newSignedAmount);
+        } else {
+            applyBalanceDelta(oldAccount, newSignedAmount.subtract(oldSignedAmount));
         }
         
         return savedTransaction;
@@ -72,35 +85,75 @@ public class TransactionService {
         
         Transaction transaction = transactionOpt.get();
         Account account = transaction.getAccount();
+        BigDecimal signedAmount = signedBalanceAmount(transaction);
         
         transactionRepository.deleteById(transactionId);
-        updateAccountBalance(account);
+        applyBalanceDelta(account, signedAmount.negate());
     }
     
     @Transactional
     public void deleteAllTransactionsByAccount(Account account) {
         List<Transaction> transactions = transactionRepository.findByAccount(account);
+        BigDecimal removed = transactions.stream()
+            .map(this::signedBalanceAmount)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
         transactionRepository.deleteAll(transactions);
-        updateAccountBalance(account);
+        applyBalanceDelta(account, removed.negate());
     }
     
+    /**
+     * Full recalculation of one account from the sum of its transactions, used after bulk imports
+     */
     @Transactional
     public void recalculateAccountBalance(Account account) {
-        updateAccountBalance(account);
+        transactionRepository.flush();
+        balanceReconciliationService.reconcileAccount(account.getId());
+        refreshIfLoaded(account.getId());
     }
     
-    @Transactional
-    public void recalculateAllAccountBalances() {
-        List<Account> accounts = accountRepository.findAll();
-        for (Account account : accounts) {
-            updateAccountBalance(account);
+    /**
+     * Parallel, chunked reconciliation of every account against the full sum
+     */
+    public AccountBalanceReconciliationService.ReconciliationReport recalculateAllAccountBalances() {
+        return balanceReconciliationService.reconcileAll(true);
+    }
+    
+    /**
+     * Effect of a transaction on its account balance, consistent with calculateBalanceByAccount
+     */
+    BigDecimal signedBalanceAmount(Transaction transaction) {
+        BigDecimal amount = transaction.getAmount();
+        if (amount == null || transaction.getTransactionType() == null) {
+            return BigDecimal.ZERO;
+        }
+        switch (transaction.getTransactionType()) {
+            case INCOME:
+            case TRANSFER:
+                return amount;
+            case EXPENSE:
+                return amount.abs().negate();
+            default:
+                return BigDecimal.ZERO;
         }
     }
     
-    private void updateAccountBalance(Account account) {
-        BigDecimal calculatedBalance = transactionRepository.calculateBalanceByAccount(account);
-        account.setBalance(calculatedBalance);
-        accountRepository.save(account);
+    private void applyBalanceDelta(Account account, BigDecimal delta) {
+        if (account == null || account.getId() == null || delta.signum() == 0) {
+            return;
+        }
+        accountRepository.applyBalanceDelta(account.getId(), delta);
+        refreshIfLoaded(account.getId());
+    }
+    
+    /**
+     * Balance updates bypass the persistence context: reload the account if it is already loaded there,
+     * so that a later flush cannot write its stale balance back. A proxy not loaded yet reads the new one.
+     */
+    private void refreshIfLoaded(Long accountId) {
+        Account managed = entityManager.getReference(Account.class, accountId);
+        if (Hibernate.isInitialized(managed)) {
+            entityManager.refresh(managed);
+        }
     }
     
     // Read-only methods
@@ -0,0 +1,34 @@
+package com.buckpal.service.csv;
+
+import com.buckpal.entity.Transaction;
+import com.buckpal.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the validated rows of a wizard import. All chunks share one transaction, so a failing
+ * chunk rolls the whole import back and the session can simply be finalized again.
+ */
+@Service
+public class CsvImportBatchWriter {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Transactional
+    public List<Transaction> saveInChunks(List<Transaction> transactions, int chunkSize) {
+        int size = Math.max(1, chunkSize);
+        List<Transaction> saved = new ArrayList<>(transactions.size());
+        for (int from = 0; from < transactions.size(); from += size) {
+            List<Transaction> chunk = transactions.subList(from, Math.min(from + size, transactions.size()));
+            saved.addAll(transactionRepository.saveAll(chunk));
+            // Send each chunk as JDBC batches instead of holding every insert until commit
+            transactionRepository.flush();
+        }
+        return saved;
+    }
+}
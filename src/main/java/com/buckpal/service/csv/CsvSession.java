@@ -0,0 +1,52 @@
+package com.buckpal.service.csv;
+
+import com.buckpal.dto.csv.CsvColumnMappingRequest;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * State kept between the steps of the CSV import wizard.
+ */
+public class CsvSession {
+    private String sessionId;
+    private String originalFilename;
+    private List<String> headers;
+    private EncodedCsvRows rows;
+    private CsvColumnMappingRequest mapping;
+    private Instant createdAt = Instant.now();
+    private Instant lastAccessedAt = createdAt;
+
+    public String getSessionId() { return sessionId; }
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+
+    public String getOriginalFilename() { return originalFilename; }
+    public void setOriginalFilename(String originalFilename) { this.originalFilename = originalFilename; }
+
+    public List<String> getHeaders() { return headers; }
+    public void setHeaders(List<String> headers) { this.headers = headers; }
+
+    public EncodedCsvRows getRows() { return rows; }
+    public void setRows(EncodedCsvRows rows) { this.rows = rows; }
+
+    public List<List<String>> getAllRows() {
+        return rows != null ? rows.asList() : List.of();
+    }
+
+    public int getRowCount() {
+        return rows != null ? rows.size() : 0;
+    }
+
+    public CsvColumnMappingRequest getMapping() { return mapping; }
+    public void setMapping(CsvColumnMappingRequest mapping) { this.mapping = mapping; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getLastAccessedAt() { return lastAccessedAt; }
+    public void setLastAccessedAt(Instant lastAccessedAt) { this.lastAccessedAt = lastAccessedAt; }
+
+    public long byteSize() {
+        return rows != null ? rows.byteSize() : 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.buckpal.service.csv;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the CSV session store tidy off the request path: writes back access times, then drops
+ * expired sessions.
+ */
+@Component
+@Lazy(false) // must be created eagerly for the scheduled run to be registered
+public class CsvSessionCleanupJob {
+
+    private final CsvSessionStore csvSessionStore;
+
+    @Autowired
+    public CsvSessionCleanupJob(CsvSessionStore csvSessionStore) {
+        this.csvSessionStore = csvSessionStore;
+    }
+
+    @Scheduled(fixedDelayString = "${app.csv-import.session.cleanup-interval-ms:60000}")
+    public void cleanUp() {
+        csvSessionStore.flushAccessTimes();
+        csvSessionStore.evictExpired();
+    }
+}
@@ -0,0 +1,45 @@
+package com.buckpal.service.csv;
+
+import com.buckpal.dto.csv.CsvColumnMappingRequest;
+
+import java.util.Optional;
+
+/**
+ * Storage for CSV import wizard sessions between upload, preview and finalize.
+ *
+ * Calls on the request path only touch the session they are given; expiry and the write-back of
+ * access times are left to {@link CsvSessionCleanupJob}.
+ */
+public interface CsvSessionStore {
+
+    /**
+     * Stores a new session, rows included.
+     */
+    void save(CsvSession session);
+
+    /**
+     * Returns the session if it exists and has not expired, recording the access.
+     */
+    Optional<CsvSession> find(String sessionId);
+
+    /**
+     * Records the column mapping of a stored session without writing its rows again; nothing is
+     * written when the mapping is unchanged.
+     */
+    void updateMapping(CsvSession session, CsvColumnMappingRequest mapping);
+
+    void remove(String sessionId);
+
+    /**
+     * Drops sessions idle for longer than the configured TTL.
+     *
+     * @return the number of sessions removed
+     */
+    int evictExpired();
+
+    /**
+     * Writes the accesses recorded by {@link #find} to shared storage, for stores that have one.
+     */
+    default void flushAccessTimes() {
+    }
+}
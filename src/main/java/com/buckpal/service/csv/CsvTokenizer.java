@@ -0,0 +1,294 @@
+package com.buckpal.service.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Single-pass CSV tokenizer shared by the import paths.
+ *
+ * Reads the input char by char through its own buffer and unescapes each record into one reusable
+ * char array with start/end offsets per field: no regex, no intermediate line or array per record.
+ * Quoted fields may contain the separator, doubled quotes and line breaks. Whitespace around a
+ * field is trimmed, whitespace inside quotes is kept, and blank lines are skipped.
+ *
+ * Field views returned by {@link #field(int)} are only valid until the next call to
+ * {@link #nextRecord()}; use {@link #fieldString(int)} to keep a value.
+ */
+public final class CsvTokenizer {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int NO_PUSHBACK = -2;
+    private static final char[] CANDIDATE_SEPARATORS = {';', ',', '\t'};
+
+    private final Reader reader;
+    private final char separator;
+    private final char[] input;
+    private int inputPosition;
+    private int inputLimit;
+    private int pushback = NO_PUSHBACK;
+
+    private char[] record = new char[256];
+    private int recordLength;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+
+    private long lineNumber;
+    private long recordLineNumber;
+
+    private final List<String> currentRecord = new AbstractList<>() {
+        @Override
+        public String get(int index) {
+            return fieldString(index);
+        }
+
+        @Override
+        public int size() {
+            return fieldCount;
+        }
+    };
+
+    public CsvTokenizer(Reader reader, char separator) {
+        this(reader, separator, 1, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param firstLineNumber physical line number of the first char of {@code reader}, used by
+     *                        {@link #getRecordLineNumber()} when a header was consumed beforehand
+     */
+    public CsvTokenizer(Reader reader, char separator, long firstLineNumber) {
+        this(reader, separator, firstLineNumber, DEFAULT_BUFFER_SIZE);
+    }
+
+    private CsvTokenizer(Reader reader, char separator, long firstLineNumber, int bufferSize) {
+        this.reader = reader;
+        this.separator = separator;
+        this.input = new char[bufferSize];
+        this.lineNumber = firstLineNumber;
+    }
+
+    /**
+     * Splits a single line; convenience for headers and callers that already hold a line.
+     */
+    public static List<String> parseLine(String line, char separator) {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(line), separator, 1, Math.max(16, line.length()));
+        try {
+            if (!tokenizer.readRecord()) {
+                return new ArrayList<>(List.of(""));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tokenizer.fields();
+    }
+
+    /**
+     * Most frequent of ';', ',' and tab outside quotes; ties favour that order, default ','.
+     */
+    public static char detectSeparator(CharSequence line) {
+        int[] counts = new int[CANDIDATE_SEPARATORS.length];
+        boolean inQuotes = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                inQuotes = !inQuotes;
+            } else if (!inQuotes) {
+                for (int s = 0; s < CANDIDATE_SEPARATORS.length; s++) {
+                    if (c == CANDIDATE_SEPARATORS[s]) {
+                        counts[s]++;
+                    }
+                }
+            }
+        }
+
+        int best = -1;
+        for (int s = 0; s < counts.length; s++) {
+            if (counts[s] > 0 && (best < 0 || counts[s] > counts[best])) {
+                best = s;
+            }
+        }
+        return best >= 0 ? CANDIDATE_SEPARATORS[best] : ',';
+    }
+
+    /**
+     * Advances to the next non-blank record.
+     *
+     * @return false at end of input
+     */
+    public boolean nextRecord() throws IOException {
+        while (readRecord()) {
+            if (fieldCount > 1 || fieldEnds[0] > fieldStarts[0]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public char getSeparator() {
+        return separator;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * View over the field's chars, without copying.
+     */
+    public CharSequence field(int index) {
+        checkIndex(index);
+        return CharBuffer.wrap(record, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    public String fieldString(int index) {
+        checkIndex(index);
+        return new String(record, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    public boolean isFieldEmpty(int index) {
+        checkIndex(index);
+        return fieldEnds[index] == fieldStarts[index];
+    }
+
+    /**
+     * Copies the current record's fields.
+     */
+    public List<String> fields() {
+        List<String> fields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            fields.add(fieldString(i));
+        }
+        return fields;
+    }
+
+    /**
+     * Live view of the current record: fields are materialized on access and the view follows the
+     * tokenizer, so copy it with {@link #fields()} to keep it past {@link #nextRecord()}.
+     */
+    public List<String> currentRecord() {
+        return currentRecord;
+    }
+
+    /**
+     * Physical line on which the current record starts (records may span lines).
+     */
+    public long getRecordLineNumber() {
+        return recordLineNumber;
+    }
+
+    private boolean readRecord() throws IOException {
+        int c = read();
+        if (c < 0) {
+            return false;
+        }
+
+        recordLength = 0;
+        fieldCount = 0;
+        recordLineNumber = lineNumber;
+
+        int fieldStart = 0;
+        int protectedEnd = 0; // chars before this offset came from quotes and are never trimmed
+        boolean atFieldStart = true;
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    break; // unterminated quote: keep what was read
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next != '"') {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                }
+                if (c == '\n') {
+                    lineNumber++;
+                }
+                append((char) c);
+                protectedEnd = recordLength;
+            } else if (c < 0 || c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        pushback = next;
+                    }
+                }
+                if (c >= 0) {
+                    lineNumber++;
+                }
+                break;
+            } else if (c == separator) {
+                endField(fieldStart, protectedEnd);
+                fieldStart = recordLength;
+                protectedEnd = recordLength;
+                atFieldStart = true;
+            } else if (atFieldStart && c == '"') {
+                quoted = true;
+                atFieldStart = false;
+            } else if (atFieldStart && (c == ' ' || c == '\t')) {
+                // leading whitespace
+            } else {
+                append((char) c);
+                atFieldStart = false;
+            }
+            c = read();
+        }
+
+        endField(fieldStart, protectedEnd);
+        return true;
+    }
+
+    private void endField(int start, int protectedEnd) {
+        int end = recordLength;
+        while (end > Math.max(start, protectedEnd) && Character.isWhitespace(record[end - 1])) {
+            end--;
+        }
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, recordLength * 2);
+        }
+        record[recordLength++] = c;
+    }
+
+    private int read() throws IOException {
+        if (pushback != NO_PUSHBACK) {
+            int c = pushback;
+            pushback = NO_PUSHBACK;
+            return c;
+        }
+        if (inputPosition == inputLimit) {
+            int read = reader.read(input, 0, input.length);
+            if (read <= 0) {
+                return -1;
+            }
+            inputPosition = 0;
+            inputLimit = read;
+        }
+        return input[inputPosition++];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+        }
+    }
+}
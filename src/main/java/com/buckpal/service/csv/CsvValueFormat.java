@@ -0,0 +1,303 @@
+package com.buckpal.service.csv;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Date and amount formats of one CSV file, detected once from a sample of its values.
+ *
+ * Date patterns are ranked by how many sampled values they accept (ties follow the declaration
+ * order of {@link DatePattern}, French day-first before US month-first), so an ambiguous value
+ * such as 02/03/2024 is read the way the rest of the file is written. The decimal separator is the
+ * one the sample votes for; when the sample is inconclusive it is inferred per value. A value that
+ * plainly uses the other separator (12.5 in a file written 12,50) is rejected rather than misread.
+ *
+ * Parsing is a single scan per value with no regex and no exception: unparseable values return
+ * {@code null}.
+ */
+public final class CsvValueFormat {
+
+    public static final int DEFAULT_SAMPLE_SIZE = 200;
+
+    private static final char AUTO = 0;
+    private static final CsvValueFormat LENIENT = new CsvValueFormat(DatePattern.values(), AUTO);
+
+    private final DatePattern[] datePatterns;
+    private final char decimalSeparator;
+
+    private CsvValueFormat(DatePattern[] datePatterns, char decimalSeparator) {
+        this.datePatterns = datePatterns;
+        this.decimalSeparator = decimalSeparator;
+    }
+
+    /**
+     * Format for isolated values (manual corrections, single cells): every pattern in default order,
+     * decimal separator inferred per value.
+     */
+    public static CsvValueFormat lenient() {
+        return LENIENT;
+    }
+
+    public static CsvValueFormat detect(Iterable<? extends CharSequence> dateSamples,
+                                        Iterable<? extends CharSequence> amountSamples) {
+        DatePattern[] patterns = DatePattern.values();
+        int[] accepted = new int[patterns.length];
+        for (CharSequence sample : dateSamples) {
+            if (sample == null) {
+                continue;
+            }
+            for (DatePattern pattern : patterns) {
+                if (pattern.parse(sample) != null) {
+                    accepted[pattern.ordinal()]++;
+                }
+            }
+        }
+        DatePattern[] ranked = patterns.clone();
+        Arrays.sort(ranked, Comparator.comparingInt((DatePattern p) -> -accepted[p.ordinal()])
+            .thenComparingInt(Enum::ordinal));
+
+        int commaVotes = 0;
+        int dotVotes = 0;
+        for (CharSequence sample : amountSamples) {
+            if (sample == null) {
+                continue;
+            }
+            char vote = decimalSeparatorOf(sample, false);
+            if (vote == ',') {
+                commaVotes++;
+            } else if (vote == '.') {
+                dotVotes++;
+            }
+        }
+        char decimal = commaVotes > dotVotes ? ',' : dotVotes > commaVotes ? '.' : AUTO;
+
+        return new CsvValueFormat(ranked, decimal);
+    }
+
+    public LocalDate parseDate(CharSequence value) {
+        if (value == null) {
+            return null;
+        }
+        CharSequence text = trim(value);
+        if (text.length() == 0) {
+            return null;
+        }
+        for (DatePattern pattern : datePatterns) {
+            LocalDate date = pattern.parse(text);
+            if (date != null) {
+                return date;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses amounts such as {@code -1 234,56 €}, {@code $1,234.56}, {@code (45.67)} or {@code 12.50-}.
+     * Returns {@code null} for values that {@link #contradictsDecimalSeparator contradict} the file's separator.
+     */
+    public BigDecimal parseAmount(CharSequence value) {
+        if (value == null || contradictsDecimalSeparator(value)) {
+            return null;
+        }
+        char decimal = decimalSeparator != AUTO ? decimalSeparator : decimalSeparatorOf(value, true);
+
+        char[] digits = new char[value.length() + 1];
+        int length = 0;
+        boolean negative = false;
+        boolean hasDigit = false;
+        boolean hasDecimal = false;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits[length++] = c;
+                hasDigit = true;
+            } else if (c == decimal) {
+                if (hasDecimal) {
+                    return null;
+                }
+                digits[length++] = '.';
+                hasDecimal = true;
+            } else if (c == '-' || c == '(' || c == ')') {
+                negative = true;
+            } else if (!isIgnoredInAmount(c)) {
+                return null;
+            }
+        }
+        if (!hasDigit) {
+            return null;
+        }
+
+        BigDecimal amount = new BigDecimal(digits, 0, length);
+        return negative ? amount.negate() : amount;
+    }
+
+    /**
+     * True when the value's own decimal separator differs from the one detected for the file, e.g.
+     * {@code 12.5} when the file writes {@code 12,50}. Three-digit groups such as {@code 1.234} do not
+     * show a decimal separator and never contradict it.
+     */
+    public boolean contradictsDecimalSeparator(CharSequence value) {
+        if (value == null || decimalSeparator == AUTO) {
+            return false;
+        }
+        char own = decimalSeparatorOf(value, false);
+        return own != AUTO && own != decimalSeparator;
+    }
+
+    public DatePattern getPrimaryDatePattern() {
+        return datePatterns[0];
+    }
+
+    @Override
+    public String toString() {
+        return "dates " + datePatterns[0] + ", decimal "
+            + (decimalSeparator == AUTO ? "auto" : "'" + decimalSeparator + "'");
+    }
+
+    /**
+     * The last ',' or '.' is the decimal separator when 1 or 2 digits follow it. Three digits are
+     * ambiguous (1,234 or 1,234 thousandths) and only resolved as grouping when {@code resolveGrouping}.
+     */
+    private static char decimalSeparatorOf(CharSequence value, boolean resolveGrouping) {
+        int last = -1;
+        for (int i = value.length() - 1; i >= 0; i--) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '.') {
+                last = i;
+                break;
+            }
+        }
+        if (last < 0) {
+            return AUTO;
+        }
+
+        int fractionDigits = 0;
+        int i = last + 1;
+        while (i < value.length() && Character.isDigit(value.charAt(i))) {
+            fractionDigits++;
+            i++;
+        }
+        for (; i < value.length(); i++) {
+            if (Character.isDigit(value.charAt(i))) {
+                return AUTO;
+            }
+        }
+
+        char separator = value.charAt(last);
+        char other = separator == ',' ? '.' : ',';
+        if (fractionDigits >= 1 && fractionDigits <= 2) {
+            return separator;
+        }
+        if (fractionDigits == 3 && hasCharBefore(value, other, last)) {
+            return separator; // 1.234,567 or 1,234.567
+        }
+        if (resolveGrouping && fractionDigits == 3) {
+            return other;
+        }
+        return AUTO;
+    }
+
+    private static boolean hasCharBefore(CharSequence value, char c, int end) {
+        for (int i = 0; i < end; i++) {
+            if (value.charAt(i) == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isIgnoredInAmount(char c) {
+        switch (c) {
+            case ',': case '.': case '+': case '\'':
+            case ' ': case '\t': case '\u00A0': case '\u202F':
+            case '$': case '€': case '£': case '¥':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static CharSequence trim(CharSequence value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        return start == 0 && end == value.length() ? value : value.subSequence(start, end);
+    }
+
+    /**
+     * Numeric date layouts; day and month accept one or two digits, the year four.
+     */
+    public enum DatePattern {
+        ISO('-', 'Y', 'M', 'D'),
+        DAY_MONTH_YEAR_SLASH('/', 'D', 'M', 'Y'),
+        MONTH_DAY_YEAR_SLASH('/', 'M', 'D', 'Y'),
+        DAY_MONTH_YEAR_DASH('-', 'D', 'M', 'Y'),
+        MONTH_DAY_YEAR_DASH('-', 'M', 'D', 'Y'),
+        DAY_MONTH_YEAR_DOT('.', 'D', 'M', 'Y'),
+        YEAR_MONTH_DAY_SLASH('/', 'Y', 'M', 'D');
+
+        private final char separator;
+        private final char[] order;
+
+        DatePattern(char separator, char... order) {
+            this.separator = separator;
+            this.order = order;
+        }
+
+        LocalDate parse(CharSequence text) {
+            int year = -1;
+            int month = -1;
+            int day = -1;
+            int position = 0;
+
+            for (int part = 0; part < 3; part++) {
+                if (part > 0) {
+                    if (position >= text.length() || text.charAt(position) != separator) {
+                        return null;
+                    }
+                    position++;
+                }
+                int start = position;
+                int number = 0;
+                while (position < text.length() && position - start < 4) {
+                    char c = text.charAt(position);
+                    if (c < '0' || c > '9') {
+                        break;
+                    }
+                    number = number * 10 + (c - '0');
+                    position++;
+                }
+                int digits = position - start;
+                switch (order[part]) {
+                    case 'Y':
+                        if (digits != 4) return null;
+                        year = number;
+                        break;
+                    case 'M':
+                        if (digits < 1 || digits > 2) return null;
+                        month = number;
+                        break;
+                    default:
+                        if (digits < 1 || digits > 2) return null;
+                        day = number;
+                }
+            }
+
+            if (position != text.length() || month < 1 || month > 12 || day < 1) {
+                return null;
+            }
+            int monthLength = month == 2 ? (Year.isLeap(year) ? 29 : 28)
+                : (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+            return day <= monthLength ? LocalDate.of(year, month, day) : null;
+        }
+    }
+}
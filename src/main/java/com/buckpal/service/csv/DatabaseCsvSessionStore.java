@@ -0,0 +1,137 @@
+package com.buckpal.service.csv;
+
+import com.buckpal.dto.csv.CsvColumnMappingRequest;
+import com.buckpal.entity.CsvImportSession;
+import com.buckpal.repository.CsvImportSessionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session store shared by all nodes through the csv_import_sessions table, so any instance behind
+ * the load balancer can serve the next wizard step. Rows are persisted in the compact
+ * {@link EncodedCsvRows} format and written once, at upload; later steps only update the mapping.
+ *
+ * Reads do not write: accesses are collected per node and pushed to expires_at by
+ * {@link #flushAccessTimes()}, which runs well within the TTL.
+ */
+public class DatabaseCsvSessionStore implements CsvSessionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseCsvSessionStore.class);
+
+    private final CsvImportSessionRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Map<String, Instant> pendingAccesses = new ConcurrentHashMap<>();
+
+    public DatabaseCsvSessionStore(CsvImportSessionRepository repository, ObjectMapper objectMapper, Duration ttl) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public void save(CsvSession session) {
+        Instant now = Instant.now();
+        CsvImportSession entity = new CsvImportSession();
+        entity.setSessionId(session.getSessionId());
+        entity.setOriginalFilename(session.getOriginalFilename());
+        entity.setHeadersJson(toJson(session.getHeaders()));
+        entity.setMappingJson(session.getMapping() != null ? toJson(session.getMapping()) : null);
+        entity.setRowCount(session.getRowCount());
+        entity.setRowData(session.getRows() != null ? session.getRows().toByteArray() : new byte[0]);
+        entity.setCreatedAt(session.getCreatedAt());
+        entity.setExpiresAt(now.plus(ttl));
+        repository.save(entity);
+        session.setLastAccessedAt(now);
+    }
+
+    @Override
+    public Optional<CsvSession> find(String sessionId) {
+        Instant now = Instant.now();
+        Optional<CsvImportSession> found = repository.findById(sessionId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+
+        CsvImportSession entity = found.get();
+        Instant lastAccess = pendingAccesses.get(sessionId);
+        boolean accessedRecently = lastAccess != null && lastAccess.plus(ttl).isAfter(now);
+        if (entity.getExpiresAt().isBefore(now) && !accessedRecently) {
+            pendingAccesses.remove(sessionId);
+            repository.deleteById(sessionId);
+            return Optional.empty();
+        }
+        pendingAccesses.put(sessionId, now);
+
+        CsvSession session = new CsvSession();
+        session.setSessionId(entity.getSessionId());
+        session.setOriginalFilename(entity.getOriginalFilename());
+        session.setHeaders(fromJson(entity.getHeadersJson(), new TypeReference<List<String>>() {}));
+        if (entity.getMappingJson() != null) {
+            session.setMapping(fromJson(entity.getMappingJson(), new TypeReference<CsvColumnMappingRequest>() {}));
+        }
+        session.setRows(EncodedCsvRows.decode(entity.getRowData()));
+        session.setCreatedAt(entity.getCreatedAt());
+        session.setLastAccessedAt(now);
+        return Optional.of(session);
+    }
+
+    @Override
+    public void updateMapping(CsvSession session, CsvColumnMappingRequest mapping) {
+        session.setMapping(mapping);
+        repository.updateMapping(session.getSessionId(), toJson(mapping));
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        pendingAccesses.remove(sessionId);
+        if (repository.existsById(sessionId)) {
+            repository.deleteById(sessionId);
+        }
+    }
+
+    @Override
+    public int evictExpired() {
+        int evicted = repository.deleteExpired(Instant.now());
+        if (evicted > 0) {
+            logger.info("Evicted {} expired CSV import sessions", evicted);
+        }
+        return evicted;
+    }
+
+    @Override
+    public void flushAccessTimes() {
+        for (Map.Entry<String, Instant> access : pendingAccesses.entrySet()) {
+            // Keep accesses recorded while flushing for the next run
+            if (pendingAccesses.remove(access.getKey(), access.getValue())) {
+                repository.touch(access.getKey(), access.getValue().plus(ttl));
+            }
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize CSV session", e);
+        }
+    }
+
+    private <T> T fromJson(String json, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read CSV session", e);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.buckpal.service.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, compact encoding of parsed CSV rows.
+ *
+ * Each row is stored as a varint field count followed by (varint length, UTF-8 bytes) per field,
+ * all in one buffer, with an int offset per row. The buffer is either on the heap or a read-only
+ * memory-mapped temp file once the rows have been spilled.
+ */
+public final class EncodedCsvRows {
+
+    private final ByteBuffer data;
+    private final int[] rowOffsets;
+    private final Path spillFile;
+
+    private EncodedCsvRows(ByteBuffer data, int[] rowOffsets, Path spillFile) {
+        this.data = data;
+        this.rowOffsets = rowOffsets;
+        this.spillFile = spillFile;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Rebuilds rows from bytes produced by {@link #toByteArray()}.
+     */
+    public static EncodedCsvRows decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int[] offsets = new int[16];
+        int count = 0;
+        int position = 0;
+        while (position < bytes.length) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = position;
+            int[] cursor = {position};
+            int fieldCount = readVarint(buffer, cursor);
+            for (int f = 0; f < fieldCount; f++) {
+                int length = readVarint(buffer, cursor);
+                cursor[0] += length;
+            }
+            position = cursor[0];
+        }
+        return new EncodedCsvRows(buffer, Arrays.copyOf(offsets, count), null);
+    }
+
+    public int size() {
+        return rowOffsets.length;
+    }
+
+    public List<String> getRow(int index) {
+        int[] cursor = {rowOffsets[index]};
+        int fieldCount = readVarint(data, cursor);
+        List<String> row = new ArrayList<>(fieldCount);
+        for (int f = 0; f < fieldCount; f++) {
+            int length = readVarint(data, cursor);
+            byte[] field = new byte[length];
+            data.get(cursor[0], field);
+            cursor[0] += length;
+            row.add(new String(field, StandardCharsets.UTF_8));
+        }
+        return row;
+    }
+
+    /**
+     * Read-only list view that decodes rows on access.
+     */
+    public List<List<String>> asList() {
+        return new AbstractList<>() {
+            @Override
+            public List<String> get(int index) {
+                return getRow(index);
+            }
+
+            @Override
+            public int size() {
+                return rowOffsets.length;
+            }
+        };
+    }
+
+    /**
+     * Approximate memory footprint: encoded bytes plus the offset table.
+     */
+    public long byteSize() {
+        return (long) data.capacity() + (long) rowOffsets.length * Integer.BYTES;
+    }
+
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[data.capacity()];
+        data.get(0, bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes the rows to a temp file in {@code directory} and returns a copy backed by a
+     * read-only memory mapping of that file. Call {@link #release()} on the copy when done.
+     */
+    public EncodedCsvRows spillTo(Path directory) throws IOException {
+        if (isSpilled()) {
+            return this;
+        }
+        Files.createDirectories(directory);
+        Path file = Files.createTempFile(directory, "csv-session-", ".rows");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer source = data.duplicate();
+            source.clear();
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, data.capacity());
+            return new EncodedCsvRows(mapped, rowOffsets, file);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes the spill file, if any. The mapping itself is released when it is garbage collected.
+     */
+    public void release() {
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                spillFile.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    private static int readVarint(ByteBuffer buffer, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buffer.get(cursor[0]++);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    public static final class Builder {
+        private byte[] buffer = new byte[4096];
+        private int length;
+        private int[] offsets = new int[64];
+        private int count;
+
+        private Builder() {}
+
+        public Builder add(List<String> row) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = length;
+            writeVarint(row.size());
+            for (String field : row) {
+                byte[] bytes = (field != null ? field : "").getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes.length);
+                ensureCapacity(bytes.length);
+                System.arraycopy(bytes, 0, buffer, length, bytes.length);
+                length += bytes.length;
+            }
+            return this;
+        }
+
+        /**
+         * Appends the rows of another builder, e.g. one filled by a parallel parsing segment.
+         */
+        public Builder addAll(Builder other) {
+            if (count + other.count > offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(offsets.length * 2, count + other.count));
+            }
+            for (int i = 0; i < other.count; i++) {
+                offsets[count++] = length + other.offsets[i];
+            }
+            ensureCapacity(other.length);
+            System.arraycopy(other.buffer, 0, buffer, length, other.length);
+            length += other.length;
+            return this;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public EncodedCsvRows build() {
+            return new EncodedCsvRows(ByteBuffer.wrap(Arrays.copyOf(buffer, length)),
+                    Arrays.copyOf(offsets, count), null);
+        }
+
+        private void writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+    }
+}
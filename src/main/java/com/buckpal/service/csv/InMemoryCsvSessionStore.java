@@ -0,0 +1,205 @@
+package com.buckpal.service.csv;
+
+import com.buckpal.dto.csv.CsvColumnMappingRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Single-node session store with a TTL, a heap byte budget and a disk byte budget.
+ *
+ * Sessions are kept in access order; when the heap budget is exceeded the least recently used
+ * sessions are evicted. Sessions larger than the spill threshold are moved to memory-mapped temp
+ * files so they do not sit on the heap; they count against the disk budget instead, and the least
+ * recently used spilled sessions are evicted (their files deleted) when it is exceeded.
+ */
+public class InMemoryCsvSessionStore implements CsvSessionStore {
+
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(30);
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    public static final long DEFAULT_SPILL_THRESHOLD_BYTES = 1024L * 1024;
+    public static final long DEFAULT_MAX_SPILL_BYTES = 1024L * 1024 * 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryCsvSessionStore.class);
+
+    private final Duration ttl;
+    private final long maxBytes;
+    private final long spillThresholdBytes;
+    private final long maxSpillBytes;
+    private final Path spillDirectory;
+
+    private final LinkedHashMap<String, CsvSession> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> heapBytes = new HashMap<>();
+    private final Map<String, Long> spillBytes = new HashMap<>();
+    private long totalBytes;
+    private long totalSpillBytes;
+
+    public InMemoryCsvSessionStore() {
+        this(DEFAULT_TTL, DEFAULT_MAX_BYTES, DEFAULT_SPILL_THRESHOLD_BYTES,
+                Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    public InMemoryCsvSessionStore(Duration ttl, long maxBytes, long spillThresholdBytes, Path spillDirectory) {
+        this(ttl, maxBytes, spillThresholdBytes, DEFAULT_MAX_SPILL_BYTES, spillDirectory);
+    }
+
+    public InMemoryCsvSessionStore(Duration ttl, long maxBytes, long spillThresholdBytes, long maxSpillBytes,
+                                   Path spillDirectory) {
+        this.ttl = ttl;
+        this.maxBytes = maxBytes;
+        this.spillThresholdBytes = spillThresholdBytes;
+        this.maxSpillBytes = maxSpillBytes;
+        this.spillDirectory = spillDirectory;
+    }
+
+    @Override
+    public synchronized void save(CsvSession session) {
+        CsvSession previous = sessions.remove(session.getSessionId());
+        if (previous != null) {
+            forget(session.getSessionId());
+            if (previous.getRows() != session.getRows()) {
+                release(previous);
+            }
+        }
+
+        spillIfLarge(session);
+        session.setLastAccessedAt(Instant.now());
+        sessions.put(session.getSessionId(), session);
+        // Spilled rows live in the page cache, not on the heap, but take room on the spill volume
+        boolean spilled = session.getRows() != null && session.getRows().isSpilled();
+        long bytes = session.byteSize();
+        heapBytes.put(session.getSessionId(), spilled ? 0 : bytes);
+        spillBytes.put(session.getSessionId(), spilled ? bytes : 0);
+        totalBytes += spilled ? 0 : bytes;
+        totalSpillBytes += spilled ? bytes : 0;
+
+        enforceBudget(session.getSessionId());
+    }
+
+    @Override
+    public synchronized Optional<CsvSession> find(String sessionId) {
+        CsvSession session = sessions.get(sessionId);
+        if (session == null) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        if (session.getLastAccessedAt().isBefore(now.minus(ttl))) {
+            remove(sessionId);
+            return Optional.empty();
+        }
+        session.setLastAccessedAt(now);
+        return Optional.of(session);
+    }
+
+    @Override
+    public synchronized void updateMapping(CsvSession session, CsvColumnMappingRequest mapping) {
+        // Stored sessions are the instances handed out by find: nothing to write back
+        session.setMapping(mapping);
+        CsvSession stored = sessions.get(session.getSessionId());
+        if (stored != null) {
+            stored.setMapping(mapping);
+        }
+    }
+
+    @Override
+    public synchronized void remove(String sessionId) {
+        CsvSession session = sessions.remove(sessionId);
+        if (session != null) {
+            forget(sessionId);
+            release(session);
+        }
+    }
+
+    @Override
+    public synchronized int evictExpired() {
+        Instant cutoff = Instant.now().minus(ttl);
+        int evicted = 0;
+        Iterator<Map.Entry<String, CsvSession>> it = sessions.entrySet().iterator();
+        while (it.hasNext()) {
+            CsvSession session = it.next().getValue();
+            if (session.getLastAccessedAt().isBefore(cutoff)) {
+                it.remove();
+                forget(session.getSessionId());
+                release(session);
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            logger.info("Evicted {} expired CSV import sessions", evicted);
+        }
+        return evicted;
+    }
+
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized long getTotalSpillBytes() {
+        return totalSpillBytes;
+    }
+
+    private void spillIfLarge(CsvSession session) {
+        EncodedCsvRows rows = session.getRows();
+        if (rows == null || rows.isSpilled() || rows.byteSize() < spillThresholdBytes) {
+            return;
+        }
+        try {
+            session.setRows(rows.spillTo(spillDirectory));
+        } catch (IOException e) {
+            logger.warn("Could not spill CSV session {} to disk, keeping it on heap: {}",
+                    session.getSessionId(), e.getMessage());
+        }
+    }
+
+    private void enforceBudget(String keepSessionId) {
+        Iterator<Map.Entry<String, CsvSession>> it = sessions.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, CsvSession> eldest = it.next();
+            if (eldest.getKey().equals(keepSessionId)) {
+                continue;
+            }
+            it.remove();
+            forget(eldest.getKey());
+            release(eldest.getValue());
+            logger.info("Evicted CSV import session {} to stay within {} bytes", eldest.getKey(), maxBytes);
+        }
+
+        it = sessions.entrySet().iterator();
+        while (totalSpillBytes > maxSpillBytes && it.hasNext()) {
+            Map.Entry<String, CsvSession> eldest = it.next();
+            if (eldest.getKey().equals(keepSessionId) || spillBytes.get(eldest.getKey()) == 0) {
+                continue;
+            }
+            it.remove();
+            forget(eldest.getKey());
+            release(eldest.getValue());
+            logger.info("Evicted spilled CSV import session {} to stay within {} bytes on disk",
+                    eldest.getKey(), maxSpillBytes);
+        }
+    }
+
+    private void forget(String sessionId) {
+        totalBytes -= heapBytes.remove(sessionId);
+        totalSpillBytes -= spillBytes.remove(sessionId);
+    }
+
+    private void release(CsvSession session) {
+        if (session.getRows() != null) {
+            session.getRows().release();
+        }
+    }
+}
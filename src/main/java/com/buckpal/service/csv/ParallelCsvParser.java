@@ -0,0 +1,242 @@
+package com.buckpal.service.csv;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Parses a large CSV file on several cores.
+ *
+ * The file is memory-mapped and cut into segments that end on a record boundary: a line feed
+ * outside quotes, found from the quote parity at each cut (quote counts per chunk are computed in
+ * parallel, then prefix-summed). Segments are decoded and tokenized on a bounded fork-join pool and
+ * concatenated in file order, so row indexes match a sequential parse.
+ *
+ * Cutting on bytes requires an ASCII-compatible charset (see {@link #supports(Charset)}). A file
+ * with an odd number of quotes is not well formed, so its boundaries cannot be trusted: it is parsed
+ * as a single segment.
+ */
+@Component
+public class ParallelCsvParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelCsvParser.class);
+
+    private static final int SEGMENTS_PER_THREAD = 4;
+    private static final int DEFAULT_MIN_SEGMENT_BYTES = 1024 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int minSegmentBytes;
+
+    @Autowired
+    public ParallelCsvParser(@Value("${app.csv-import.parallel-parse.parallelism:0}") int parallelism) {
+        this(parallelism, DEFAULT_MIN_SEGMENT_BYTES);
+    }
+
+    public ParallelCsvParser() {
+        this(0);
+    }
+
+    ParallelCsvParser(int parallelism, int minSegmentBytes) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.minSegmentBytes = Math.max(1, minSegmentBytes);
+    }
+
+    /**
+     * Byte-level cuts are only safe when '"', '\n' and '\r' never occur inside a multi-byte character.
+     */
+    public static boolean supports(Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset) || charset.newEncoder().maxBytesPerChar() == 1.0f;
+    }
+
+    /**
+     * Parses {@code file}: the first record is the header, the separator is detected from it.
+     */
+    public ParsedCsv parse(Path file, Charset charset, int previewRows) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("CSV file too large to map: " + size + " bytes");
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int length = (int) size;
+
+            int headerEnd = findRecordEnd(data, 0, length, false);
+            String headerLine = charset.decode(data.slice(0, headerEnd)).toString();
+            char separator = CsvTokenizer.detectSeparator(headerLine);
+            List<String> headers = headerEnd > 0 ? CsvTokenizer.parseLine(headerLine, separator) : new ArrayList<>();
+
+            int[] bounds = segmentBounds(data, headerEnd, length);
+            List<Segment> segments = invokeAll(bounds.length - 1,
+                index -> parseSegment(data, bounds[index], bounds[index + 1], charset, separator, previewRows));
+
+            EncodedCsvRows.Builder rows = EncodedCsvRows.builder();
+            List<List<String>> preview = new ArrayList<>();
+            for (Segment segment : segments) {
+                rows.addAll(segment.rows);
+                for (List<String> row : segment.preview) {
+                    if (preview.size() < previewRows) {
+                        preview.add(row);
+                    }
+                }
+            }
+
+            logger.debug("Parsed {} bytes in {} segments: {} rows", size, segments.size(), rows.size());
+            return new ParsedCsv(headers, rows, preview);
+        }
+    }
+
+    /**
+     * Segment start offsets followed by the end offset; consecutive offsets may be equal.
+     */
+    private int[] segmentBounds(ByteBuffer data, int start, int end) {
+        int chunkCount = (int) Math.max(1, Math.min((long) pool.getParallelism() * SEGMENTS_PER_THREAD,
+            (end - start) / minSegmentBytes));
+        int[] chunkStarts = new int[chunkCount + 1];
+        for (int i = 0; i <= chunkCount; i++) {
+            chunkStarts[i] = start + (int) ((long) (end - start) * i / chunkCount);
+        }
+
+        List<Integer> quoteCounts = invokeAll(chunkCount, index -> countQuotes(data, chunkStarts[index], chunkStarts[index + 1]));
+        long totalQuotes = 0;
+        boolean[] inQuotesAtStart = new boolean[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            inQuotesAtStart[i] = (totalQuotes & 1) == 1;
+            totalQuotes += quoteCounts.get(i);
+        }
+        if ((totalQuotes & 1) == 1) {
+            logger.warn("Unbalanced quotes in CSV file, parsing it as a single segment");
+            return new int[]{start, end};
+        }
+
+        int[] bounds = new int[chunkCount + 1];
+        bounds[0] = start;
+        bounds[chunkCount] = end;
+        for (int i = 1; i < chunkCount; i++) {
+            int boundary = findRecordEnd(data, chunkStarts[i], end, inQuotesAtStart[i]);
+            bounds[i] = Math.max(boundary, bounds[i - 1]);
+        }
+        return bounds;
+    }
+
+    /**
+     * Offset just after the first line feed outside quotes at or after {@code from}, or {@code end}.
+     */
+    private static int findRecordEnd(ByteBuffer data, int from, int end, boolean inQuotes) {
+        for (int i = from; i < end; i++) {
+            byte b = data.get(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes) {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    private static int countQuotes(ByteBuffer data, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (data.get(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Segment parseSegment(ByteBuffer data, int from, int to, Charset charset, char separator,
+                                        int previewRows) {
+        CharBuffer chars = charset.decode(data.slice(from, to - from));
+        CsvTokenizer tokenizer = new CsvTokenizer(
+            new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()), separator);
+
+        EncodedCsvRows.Builder rows = EncodedCsvRows.builder();
+        List<List<String>> preview = new ArrayList<>();
+        try {
+            while (tokenizer.nextRecord()) {
+                if (preview.size() < previewRows) {
+                    List<String> row = tokenizer.fields();
+                    preview.add(row);
+                    rows.add(row);
+                } else {
+                    rows.add(tokenizer.currentRecord());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Segment(rows, preview);
+    }
+
+    private <T> List<T> invokeAll(int count, IntFunction<T> task) {
+        List<Callable<T>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            tasks.add(() -> task.apply(index));
+        }
+
+        List<T> results = new ArrayList<>(count);
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("CSV parsing interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("CSV parsing failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return results;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public static final class ParsedCsv {
+        private final List<String> headers;
+        private final EncodedCsvRows.Builder rows;
+        private final List<List<String>> preview;
+
+        public ParsedCsv(List<String> headers, EncodedCsvRows.Builder rows, List<List<String>> preview) {
+            this.headers = headers;
+            this.rows = rows;
+            this.preview = preview;
+        }
+
+        public List<String> getHeaders() { return headers; }
+        public EncodedCsvRows.Builder getRows() { return rows; }
+        public List<List<String>> getPreview() { return preview; }
+    }
+
+    private static final class Segment {
+        final EncodedCsvRows.Builder rows;
+        final List<List<String>> preview;
+
+        Segment(EncodedCsvRows.Builder rows, List<List<String>> preview) {
+            this.rows = rows;
+            this.preview = preview;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.buckpal.service.csv;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the first records of a tokenizer ahead so the file's formats can be detected from them,
+ * then replays them before streaming the rest.
+ */
+public final class SampledCsvRecords {
+
+    private final CsvTokenizer tokenizer;
+    private final List<List<String>> sample = new ArrayList<>();
+    private final List<Long> sampleLineNumbers = new ArrayList<>();
+    private int replayed;
+    private List<String> current;
+    private long currentLineNumber;
+
+    public SampledCsvRecords(CsvTokenizer tokenizer, int sampleSize) throws IOException {
+        this.tokenizer = tokenizer;
+        while (sample.size() < sampleSize && tokenizer.nextRecord()) {
+            sample.add(tokenizer.fields());
+            sampleLineNumbers.add(tokenizer.getRecordLineNumber());
+        }
+    }
+
+    public List<List<String>> getSample() {
+        return Collections.unmodifiableList(sample);
+    }
+
+    public char getSeparator() {
+        return tokenizer.getSeparator();
+    }
+
+    public boolean next() throws IOException {
+        if (replayed < sample.size()) {
+            current = sample.get(replayed);
+            currentLineNumber = sampleLineNumbers.get(replayed);
+            replayed++;
+            return true;
+        }
+        if (tokenizer.nextRecord()) {
+            current = tokenizer.currentRecord();
+            currentLineNumber = tokenizer.getRecordLineNumber();
+            return true;
+        }
+        current = null;
+        return false;
+    }
+
+    /**
+     * Current record; sampled records are copies, later ones a live view valid until {@link #next()}.
+     */
+    public List<String> current() {
+        return current;
+    }
+
+    public long currentLineNumber() {
+        return currentLineNumber;
+    }
+}
@@ -0,0 +1,77 @@
+package com.buckpal.service.csv;
+
+import com.buckpal.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Hash index of (date, signed amount, normalized description) fingerprints used to flag duplicate
+ * CSV rows, both against transactions already stored for the account and against earlier rows of
+ * the same file.
+ */
+public class TransactionFingerprintIndex {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Map<String, Long> existingTransactions = new HashMap<>();
+    private final Map<String, Integer> fileRows = new HashMap<>();
+
+    /**
+     * @param existingRows rows of (id, transactionDate, amount, transactionType, description), as
+     *                     returned by TransactionRepository.findFingerprintsByAccountIdAndDateRange
+     */
+    public static TransactionFingerprintIndex fromExistingTransactions(List<Object[]> existingRows) {
+        TransactionFingerprintIndex index = new TransactionFingerprintIndex();
+        for (Object[] row : existingRows) {
+            Long id = (Long) row[0];
+            LocalDate date = (LocalDate) row[1];
+            BigDecimal amount = (BigDecimal) row[2];
+            Transaction.TransactionType type = (Transaction.TransactionType) row[3];
+            String description = (String) row[4];
+            if (date == null || amount == null) {
+                continue;
+            }
+            // Stored amounts are absolute; the sign comes from the transaction type
+            BigDecimal signed = type == Transaction.TransactionType.EXPENSE ? amount.abs().negate() : amount.abs();
+            index.existingTransactions.putIfAbsent(fingerprint(date, signed, description), id);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the id of a stored transaction with the same fingerprint, or null.
+     */
+    public Long findExisting(LocalDate date, BigDecimal signedAmount, String description) {
+        return existingTransactions.get(fingerprint(date, signedAmount, description));
+    }
+
+    /**
+     * Records a row of the file being imported.
+     *
+     * @return the row index of an earlier row with the same fingerprint, or null if this is the first
+     */
+    public Integer registerFileRow(LocalDate date, BigDecimal signedAmount, String description, int rowIndex) {
+        return fileRows.putIfAbsent(fingerprint(date, signedAmount, description), rowIndex);
+    }
+
+    public int existingCount() {
+        return existingTransactions.size();
+    }
+
+    static String fingerprint(LocalDate date, BigDecimal signedAmount, String description) {
+        return date + "|" + signedAmount.stripTrailingZeros().toPlainString() + "|" + normalizeDescription(description);
+    }
+
+    static String normalizeDescription(String description) {
+        if (description == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(description.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
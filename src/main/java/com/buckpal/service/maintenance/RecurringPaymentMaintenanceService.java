@@ -0,0 +1,107 @@
+package com.buckpal.service.maintenance;
+
+import com.buckpal.entity.RecurringPayment;
+import com.buckpal.repository.RecurringPaymentRepository;
+import com.buckpal.repository.UserRepository;
+import com.buckpal.service.RecurringPaymentService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Tâches planifiées des paiements récurrents, exécutées par une seule instance à la fois
+ * (voir {@link SchedulerLeaseService}).
+ *
+ * Le passage en retard est une seule requête UPDATE ; la génération des échéances parcourt les
+ * utilisateurs par lots, chaque lot dans sa propre transaction (une requête de paiements, une
+ * requête d'échéances existantes, une insertion par lots).
+ */
+@Service
+@Lazy(false) // must be created eagerly for the scheduled runs to be registered
+public class RecurringPaymentMaintenanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecurringPaymentMaintenanceService.class);
+
+    static final String OVERDUE_SWEEP_JOB = "recurring-payments.overdue-sweep";
+    static final String HISTORY_GENERATION_JOB = "recurring-payments.history-generation";
+
+    private final RecurringPaymentService recurringPaymentService;
+    private final RecurringPaymentRepository recurringPaymentRepository;
+    private final UserRepository userRepository;
+    private final SchedulerLeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int monthsAhead;
+    private final Duration lockAtMost;
+    private final Duration lockAtLeast;
+
+    @Autowired
+    public RecurringPaymentMaintenanceService(RecurringPaymentService recurringPaymentService,
+                                              RecurringPaymentRepository recurringPaymentRepository,
+                                              UserRepository userRepository,
+                                              SchedulerLeaseService leaseService,
+                                              PlatformTransactionManager transactionManager,
+                                              @Value("${app.recurring-payments.history-generation.chunk-size:100}") int chunkSize,
+                                              @Value("${app.recurring-payments.history-generation.months-ahead:2}") int monthsAhead,
+                                              @Value("${app.scheduler.lease.lock-at-most:PT30M}") Duration lockAtMost,
+                                              @Value("${app.scheduler.lease.lock-at-least:PT1M}") Duration lockAtLeast) {
+        this.recurringPaymentService = recurringPaymentService;
+        this.recurringPaymentRepository = recurringPaymentRepository;
+        this.userRepository = userRepository;
+        this.leaseService = leaseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.lockAtMost = lockAtMost;
+        this.lockAtLeast = lockAtLeast;
+    }
+
+    @Scheduled(cron = "${app.recurring-payments.overdue-sweep.cron:0 5 0 * * *}")
+    public void scheduledOverdueSweep() {
+        leaseService.runExclusively(OVERDUE_SWEEP_JOB, lockAtMost, lockAtLeast,
+            () -> recurringPaymentService.updateOverduePayments(LocalDate.now()));
+    }
+
+    @Scheduled(cron = "${app.recurring-payments.history-generation.cron:0 20 0 * * *}")
+    public void scheduledHistoryGeneration() {
+        leaseService.runExclusively(HISTORY_GENERATION_JOB, lockAtMost, lockAtLeast,
+            () -> generatePaymentHistory(LocalDate.now()));
+    }
+
+    /**
+     * Crée les échéances manquantes de tous les paiements actifs entre {@code today} et
+     * {@code today + monthsAhead} mois.
+     *
+     * @return nombre d'échéances créées
+     */
+    public long generatePaymentHistory(LocalDate today) {
+        long start = System.currentTimeMillis();
+        LocalDate until = today.plusMonths(monthsAhead);
+        List<Long> userIds = userRepository.findAllIds();
+
+        long created = 0;
+        for (int from = 0; from < userIds.size(); from += chunkSize) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + chunkSize, userIds.size()));
+            Integer chunkCreated = transactionTemplate.execute(status -> {
+                List<RecurringPayment> payments =
+                    recurringPaymentRepository.findActivePaymentsForUsersInPeriod(chunk, today, until);
+                return recurringPaymentService.generatePaymentHistory(payments, today, until);
+            });
+            created += chunkCreated != null ? chunkCreated : 0;
+        }
+
+        logger.info("Generated {} payment history entries for {} users in {} ms",
+            created, userIds.size(), System.currentTimeMillis() - start);
+        return created;
+    }
+}
@@ -0,0 +1,138 @@
+package com.buckpal.service.maintenance;
+
+import com.buckpal.repository.SchedulerLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Exécution exclusive des tâches planifiées entre plusieurs instances, par bail en base
+ * (table scheduler_leases).
+ *
+ * Une instance prend le bail d'une tâche s'il est expiré, le garde au plus {@code lockAtMost}
+ * (une instance arrêtée en cours de route ne bloque pas la tâche plus longtemps), et le rend à la
+ * fin en le conservant au moins {@code lockAtLeast} après son début, pour que les instances dont
+ * l'horloge est légèrement en retard ne relancent pas la même exécution.
+ *
+ * Les échéances sont des instants UTC, comparés tels quels : des instances configurées dans des
+ * fuseaux horaires différents voient expirer le bail au même moment.
+ *
+ * Métriques : {@code buckpal.scheduler.job.duration{job,outcome=success|failure}},
+ * {@code buckpal.scheduler.job.rows{job}} (lignes traitées) et
+ * {@code buckpal.scheduler.job.skipped{job}} (bail détenu ailleurs).
+ */
+@Service
+public class SchedulerLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLeaseService.class);
+
+    private final SchedulerLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final String owner;
+
+    @Autowired
+    public SchedulerLeaseService(SchedulerLeaseRepository leaseRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this(leaseRepository, transactionManager, meterRegistry, Clock.systemUTC(), defaultOwner());
+    }
+
+    SchedulerLeaseService(SchedulerLeaseRepository leaseRepository, PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry, Clock clock, String owner) {
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.owner = owner;
+    }
+
+    /**
+     * Lance {@code task} si le bail de {@code job} est libre.
+     *
+     * @param task renvoie le nombre de lignes traitées
+     * @return ce nombre, ou -1 si une autre instance détient le bail
+     */
+    public long runExclusively(String job, Duration lockAtMost, Duration lockAtLeast, LongSupplier task) {
+        Instant lockedAt = clock.instant();
+        if (!tryAcquire(job, lockedAt, lockedAt.plus(lockAtMost))) {
+            logger.debug("Skipping {}: lease held by another instance", job);
+            Counter.builder("buckpal.scheduler.job.skipped").tag("job", job).register(meterRegistry).increment();
+            return -1;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            long rows = task.getAsLong();
+            Counter.builder("buckpal.scheduler.job.rows").tag("job", job).register(meterRegistry).increment(rows);
+            outcome = "success";
+            return rows;
+        } finally {
+            sample.stop(Timer.builder("buckpal.scheduler.job.duration").tag("job", job).tag("outcome", outcome)
+                .register(meterRegistry));
+            release(job, lockedAt.plus(lockAtLeast));
+        }
+    }
+
+    boolean tryAcquire(String job, Instant now, Instant leaseUntil) {
+        Integer taken = transactionTemplate.execute(status -> leaseRepository.takeOver(job, owner, now, leaseUntil));
+        if (taken != null && taken > 0) {
+            return true;
+        }
+        // Held by another instance: the row exists, inserting it would only fail and log an error
+        if (leaseRepository.existsById(job)) {
+            return false;
+        }
+        try {
+            // First run of this job anywhere
+            transactionTemplate.execute(status -> leaseRepository.insert(job, owner, now, leaseUntil));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Another instance inserted it first
+            return false;
+        }
+    }
+
+    private void release(String job, Instant keepUntil) {
+        Instant now = clock.instant();
+        Instant leaseUntil = keepUntil.isAfter(now) ? keepUntil : now;
+        try {
+            transactionTemplate.execute(status -> leaseRepository.release(job, owner, leaseUntil));
+        } catch (RuntimeException e) {
+            // The lease expires on its own after lockAtMost
+            logger.warn("Could not release lease of {}: {}", job, e.getMessage());
+        }
+    }
+
+    String getOwner() {
+        return owner;
+    }
+
+    private static String defaultOwner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + ":" + ProcessHandle.current().pid() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
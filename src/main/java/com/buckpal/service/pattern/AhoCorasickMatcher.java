@@ -0,0 +1,164 @@
+package com.buckpal.service.pattern;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Immutable Aho-Corasick automaton: finds every item whose keyword occurs in a text in a single
+ * pass over the text, whatever the number of keywords. Matching is case-insensitive.
+ */
+public final class AhoCorasickMatcher<T> {
+
+    private final char[][] edgeChars;   // per node, sorted transition characters
+    private final int[][] edgeTargets;  // per node, target node of each transition
+    private final int[] failure;
+    private final int[][] outputs;      // per node, indexes into items (including suffix matches)
+    private final List<T> items;
+
+    private AhoCorasickMatcher(char[][] edgeChars, int[][] edgeTargets, int[] failure, int[][] outputs, List<T> items) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.failure = failure;
+        this.outputs = outputs;
+        this.items = items;
+    }
+
+    public static <T> AhoCorasickMatcher<T> build(Collection<T> items, Function<T, String> keyword) {
+        List<T> indexed = new ArrayList<>(items.size());
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> terminal = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        terminal.add(new ArrayList<>());
+
+        for (T item : items) {
+            String word = keyword.apply(item);
+            if (word == null || word.isEmpty()) {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < word.length(); i++) {
+                char c = Character.toUpperCase(word.charAt(i));
+                Integer next = trie.get(node).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    terminal.add(new ArrayList<>());
+                    trie.get(node).put(c, next);
+                }
+                node = next;
+            }
+            terminal.get(node).add(indexed.size());
+            indexed.add(item);
+        }
+
+        int size = trie.size();
+        char[][] edgeChars = new char[size][];
+        int[][] edgeTargets = new int[size][];
+        for (int n = 0; n < size; n++) {
+            TreeMap<Character, Integer> edges = trie.get(n);
+            edgeChars[n] = new char[edges.size()];
+            edgeTargets[n] = new int[edges.size()];
+            int e = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[n][e] = edge.getKey();
+                edgeTargets[n][e] = edge.getValue();
+                e++;
+            }
+        }
+
+        // Breadth-first construction of failure links; outputs inherit those of their failure node
+        int[] failure = new int[size];
+        int[][] outputs = new int[size][];
+        outputs[0] = toArray(terminal.get(0));
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) {
+            failure[target] = 0;
+            outputs[target] = toArray(terminal.get(target));
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int e = 0; e < edgeChars[node].length; e++) {
+                char c = edgeChars[node][e];
+                int child = edgeTargets[node][e];
+                int fallback = failure[node];
+                int next;
+                while ((next = step(edgeChars, edgeTargets, fallback, c)) < 0 && fallback != 0) {
+                    fallback = failure[fallback];
+                }
+                failure[child] = next >= 0 && next != child ? next : 0;
+                outputs[child] = concat(toArray(terminal.get(child)), outputs[failure[child]]);
+                queue.add(child);
+            }
+        }
+
+        return new AhoCorasickMatcher<>(edgeChars, edgeTargets, failure, outputs, Collections.unmodifiableList(indexed));
+    }
+
+    /**
+     * Returns the distinct items whose keyword occurs in {@code text}, in insertion order.
+     */
+    public List<T> findAll(String text) {
+        if (text == null || items.isEmpty()) {
+            return List.of();
+        }
+        boolean[] matched = null;
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toUpperCase(text.charAt(i));
+            int next;
+            while ((next = step(edgeChars, edgeTargets, node, c)) < 0 && node != 0) {
+                node = failure[node];
+            }
+            node = Math.max(next, 0);
+            if (outputs[node].length > 0) {
+                if (matched == null) {
+                    matched = new boolean[items.size()];
+                }
+                for (int index : outputs[node]) {
+                    matched[index] = true;
+                }
+            }
+        }
+        if (matched == null) {
+            return List.of();
+        }
+        List<T> result = new ArrayList<>();
+        for (int i = 0; i < matched.length; i++) {
+            if (matched[i]) {
+                result.add(items.get(i));
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    private static int step(char[][] edgeChars, int[][] edgeTargets, int node, char c) {
+        int index = Arrays.binarySearch(edgeChars[node], c);
+        return index >= 0 ? edgeTargets[node][index] : -1;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        if (second.length == 0) {
+            return first;
+        }
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+package com.buckpal.service.pattern;
+
+import com.buckpal.entity.Category;
+import com.buckpal.service.SmartTransactionAssignmentService.SmartAssignmentResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Per-user caches used by category assignment: resolved merchant texts and categories by name.
+ *
+ * Resolved results are tied to the pattern snapshot they were computed from, so any change to the
+ * user's or the global patterns drops them. Category changes must be reported through
+ * {@link #invalidateAll()} (or {@link #invalidateUser(Long)} for user-level changes).
+ */
+@Component
+public class AssignmentCache {
+
+    private static final Long NO_USER = 0L;
+
+    private final UserScopedCache<String, SmartAssignmentResult> resolvedPatterns;
+    private final UserScopedCache<String, Category> categoriesByName;
+
+    @Autowired
+    public AssignmentCache(MeterRegistry meterRegistry,
+                           @Value("${app.intelligent-assignment.cache.max-users:1000}") int maxUsers,
+                           @Value("${app.intelligent-assignment.cache.max-entries-per-user:2000}") int maxEntriesPerUser) {
+        this.resolvedPatterns = new UserScopedCache<>("assignment.resolvedPatterns", maxUsers, maxEntriesPerUser, meterRegistry);
+        this.categoriesByName = new UserScopedCache<>("assignment.categories", maxUsers, maxEntriesPerUser, meterRegistry);
+    }
+
+    public AssignmentCache() {
+        this(new SimpleMeterRegistry(), 1000, 2000);
+    }
+
+    public SmartAssignmentResult getResolvedPattern(Long userId, MerchantPatternIndex.Snapshot snapshot, String merchantText,
+                                                    Function<String, SmartAssignmentResult> resolver) {
+        return resolvedPatterns.get(userKey(userId), snapshot, merchantText, resolver);
+    }
+
+    /**
+     * Category by name; only found categories are cached, so a category created later is picked up.
+     */
+    public Optional<Category> getCategoryByName(Long userId, String name, Function<String, Optional<Category>> loader) {
+        return Optional.ofNullable(categoriesByName.get(userKey(userId), null, name, key -> loader.apply(key).orElse(null)));
+    }
+
+    public void putCategory(Long userId, Category category) {
+        categoriesByName.put(userKey(userId), null, category.getName(), category);
+    }
+
+    public void invalidateUser(Long userId) {
+        resolvedPatterns.invalidateUser(userKey(userId));
+        categoriesByName.invalidateUser(userKey(userId));
+    }
+
+    public void invalidateAll() {
+        resolvedPatterns.invalidateAll();
+        categoriesByName.invalidateAll();
+    }
+
+    private static Long userKey(Long userId) {
+        return userId != null ? userId : NO_USER;
+    }
+}
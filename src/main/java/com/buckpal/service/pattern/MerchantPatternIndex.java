@@ -0,0 +1,435 @@
+package com.buckpal.service.pattern;
+
+import com.buckpal.entity.Category;
+import com.buckpal.entity.MerchantPattern;
+import com.buckpal.entity.User;
+import com.buckpal.entity.UserMerchantPattern;
+import com.buckpal.repository.CategoryRepository;
+import com.buckpal.repository.MerchantPatternRepository;
+import com.buckpal.repository.UserMerchantPatternRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory index of merchant patterns, replacing the {@code LIKE '%pattern%'} scans.
+ *
+ * Global patterns and each user's personal patterns are compiled into separate Aho-Corasick
+ * automata, with the category name resolved up front. A partition is loaded from the database the
+ * first time it is needed; afterwards writes update it in place (only the affected partition is
+ * recompiled, from memory), so lookups do not hit the database.
+ *
+ * Writes are applied once their transaction commits, so a rollback leaves the index untouched.
+ * Other nodes do not see them directly: a partition older than the refresh interval compares its
+ * version (pattern count and latest creation / update times) with the database on next use and is
+ * reloaded if they differ.
+ */
+@Service
+public class MerchantPatternIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MerchantPatternIndex.class);
+
+    // confidence DESC, usage DESC, last used DESC (ordering of the former LIKE query)
+    private static final Comparator<PatternEntry> PERSONAL_ORDER = Comparator
+        .comparing((PatternEntry e) -> e.confidenceScore).reversed()
+        .thenComparing(Comparator.comparingInt((PatternEntry e) -> e.usageCount).reversed())
+        .thenComparing(e -> e.lastUsedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    // Highest confidence first, then highest specificity
+    private static final Comparator<PatternEntry> GLOBAL_ORDER = Comparator
+        .comparing((PatternEntry e) -> e.confidenceScore)
+        .thenComparingInt(e -> e.specificityScore)
+        .reversed();
+
+    private final MerchantPatternRepository globalPatternRepository;
+    private final UserMerchantPatternRepository userPatternRepository;
+    private final CategoryRepository categoryRepository;
+
+    private volatile PatternSet globalPatterns;
+    private final Map<Long, PatternSet> userPatterns = new ConcurrentHashMap<>();
+
+    @Value("${app.intelligent-assignment.pattern-index.refresh-interval:PT30S}")
+    private Duration refreshInterval = Duration.ofSeconds(30);
+
+    @Autowired
+    public MerchantPatternIndex(MerchantPatternRepository globalPatternRepository,
+                                UserMerchantPatternRepository userPatternRepository,
+                                CategoryRepository categoryRepository) {
+        this.globalPatternRepository = globalPatternRepository;
+        this.userPatternRepository = userPatternRepository;
+        this.categoryRepository = categoryRepository;
+    }
+
+    /**
+     * Personal patterns of the user contained in the merchant text, best first.
+     */
+    public List<PatternEntry> findPersonalMatches(User user, String merchantText) {
+        return personalMatches(personalPatterns(user), merchantText);
+    }
+
+    /**
+     * Global patterns contained in the merchant text with at least the given confidence, best first.
+     */
+    public List<PatternEntry> findGlobalMatches(String merchantText, BigDecimal minConfidence) {
+        return globalMatches(globalPatterns(), merchantText, minConfidence);
+    }
+    
+    /**
+     * Consistent view of the user's and the global patterns, unaffected by later writes. Safe to
+     * share between threads, e.g. to resolve many transactions in parallel.
+     */
+    public Snapshot snapshot(User user) {
+        return new Snapshot(personalPatterns(user), globalPatterns());
+    }
+
+    public void upsertUserPattern(UserMerchantPattern pattern) {
+        Long userId = pattern.getUser().getId();
+        PatternEntry entry = PatternEntry.of(pattern, resolveCategoryName(pattern.getCategoryId(), null));
+        afterCommit(() -> userPatterns.computeIfPresent(userId, (id, current) -> current.with(entry)));
+    }
+
+    /**
+     * Records new usage figures of a personal pattern. While its text and category are those
+     * indexed, only the entry's scores are replaced and the compiled automaton is kept.
+     */
+    public void updateUserPatternUsage(UserMerchantPattern pattern) {
+        Long userId = pattern.getUser().getId();
+        PatternSet current = userPatterns.get(userId);
+        PatternEntry indexed = current != null ? current.entries.get(pattern.getId()) : null;
+        if (indexed == null || !indexed.pattern.equals(pattern.getPattern())
+                || !Objects.equals(indexed.categoryId, pattern.getCategoryId())) {
+            upsertUserPattern(pattern);
+            return;
+        }
+        PatternEntry entry = indexed.withUsage(pattern);
+        afterCommit(() -> userPatterns.computeIfPresent(userId, (id, patterns) -> patterns.withScores(entry)));
+    }
+
+    public void removeUserPattern(UserMerchantPattern pattern) {
+        Long userId = pattern.getUser().getId();
+        Long patternId = pattern.getId();
+        afterCommit(() -> userPatterns.computeIfPresent(userId, (id, current) -> current.without(patternId)));
+    }
+
+    public void upsertGlobalPattern(MerchantPattern pattern) {
+        PatternEntry entry = PatternEntry.of(pattern, resolveCategoryName(pattern.getCategoryId(), pattern.getCategoryName()));
+        afterCommit(() -> {
+            synchronized (this) {
+                if (globalPatterns != null) {
+                    globalPatterns = globalPatterns.with(entry);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops the global automaton after bulk changes; it is reloaded on next use.
+     */
+    public void invalidateGlobalPatterns() {
+        // Now, and again once committed in case a lookup reloaded the partition in between
+        Runnable invalidate = () -> {
+            synchronized (this) {
+                globalPatterns = null;
+            }
+        };
+        invalidate.run();
+        afterCommit(invalidate);
+    }
+
+    public void invalidateUserPatterns(Long userId) {
+        userPatterns.remove(userId);
+        afterCommit(() -> userPatterns.remove(userId));
+    }
+    
+    /**
+     * Drops every partition, e.g. after categories were renamed or deleted.
+     */
+    public void invalidateAll() {
+        Runnable invalidate = () -> {
+            synchronized (this) {
+                globalPatterns = null;
+                userPatterns.clear();
+            }
+        };
+        invalidate.run();
+        afterCommit(invalidate);
+    }
+
+    /**
+     * Runs the change once the current transaction commits, or right away outside of a transaction
+     */
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private static List<PatternEntry> personalMatches(PatternSet patterns, String merchantText) {
+        List<PatternEntry> matches = patterns.findAll(merchantText);
+        matches.sort(PERSONAL_ORDER);
+        return matches;
+    }
+    
+    private static List<PatternEntry> globalMatches(PatternSet patterns, String merchantText, BigDecimal minConfidence) {
+        List<PatternEntry> matches = patterns.findAll(merchantText);
+        matches.removeIf(e -> e.confidenceScore.compareTo(minConfidence) < 0);
+        matches.sort(GLOBAL_ORDER);
+        return matches;
+    }
+    
+    private PatternSet globalPatterns() {
+        PatternSet current = globalPatterns;
+        if (current != null && !isStale(current, globalPatternRepository::findPatternVersion)) {
+            return current;
+        }
+        synchronized (this) {
+            if (globalPatterns == current) {
+                List<Object> version = version(globalPatternRepository.findPatternVersion());
+                List<MerchantPattern> patterns = globalPatternRepository.findAll();
+                Map<Long, String> namesById = categoryNamesById(patterns.stream()
+                    .map(MerchantPattern::getCategoryId).toList());
+                Map<String, String> namesByName = new HashMap<>();
+                Map<Long, PatternEntry> entries = new LinkedHashMap<>();
+                for (MerchantPattern pattern : patterns) {
+                    String categoryName = pattern.getCategoryId() != null
+                        ? namesById.get(pattern.getCategoryId())
+                        : namesByName.computeIfAbsent(pattern.getCategoryName(), name -> resolveCategoryName(null, name));
+                    entries.put(pattern.getId(), PatternEntry.of(pattern, categoryName));
+                }
+                globalPatterns = new PatternSet(entries, version);
+                logger.info("Compiled {} global merchant patterns", entries.size());
+            }
+            return globalPatterns;
+        }
+    }
+
+    private PatternSet personalPatterns(User user) {
+        PatternSet current = userPatterns.get(user.getId());
+        if (current != null && isStale(current, () -> userPatternRepository.findPatternVersion(user))) {
+            userPatterns.remove(user.getId(), current);
+        }
+        return userPatterns.computeIfAbsent(user.getId(), id -> {
+            List<Object> version = version(userPatternRepository.findPatternVersion(user));
+            List<UserMerchantPattern> patterns = userPatternRepository.findByUserOrderByUsageCountDescLastUsedAtDesc(user);
+            Map<Long, String> namesById = categoryNamesById(patterns.stream()
+                .map(UserMerchantPattern::getCategoryId).toList());
+            Map<Long, PatternEntry> entries = new LinkedHashMap<>();
+            for (UserMerchantPattern pattern : patterns) {
+                entries.put(pattern.getId(), PatternEntry.of(pattern, namesById.get(pattern.getCategoryId())));
+            }
+            return new PatternSet(entries, version);
+        });
+    }
+
+    /**
+     * Compares the partition with the database at most once per refresh interval. Local writes
+     * also change the stored version, so the first check after a write reloads the partition.
+     */
+    private boolean isStale(PatternSet patterns, Supplier<List<Object[]>> versionQuery) {
+        long now = System.nanoTime();
+        if (now - patterns.checkedAt < refreshInterval.toNanos()) {
+            return false;
+        }
+        if (version(versionQuery.get()).equals(patterns.version)) {
+            patterns.checkedAt = now;
+            return false;
+        }
+        return true;
+    }
+
+    private static List<Object> version(List<Object[]> rows) {
+        return rows.isEmpty() ? List.of() : Arrays.asList(rows.get(0));
+    }
+
+    private Map<Long, String> categoryNamesById(List<Long> categoryIds) {
+        Set<Long> ids = new HashSet<>(categoryIds);
+        ids.remove(null);
+        Map<Long, String> names = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Category category : categoryRepository.findAllById(ids)) {
+                names.put(category.getId(), category.getName());
+            }
+        }
+        return names;
+    }
+
+    private String resolveCategoryName(Long categoryId, String categoryName) {
+        try {
+            Optional<Category> category = Optional.empty();
+            if (categoryId != null) {
+                category = categoryRepository.findById(categoryId);
+            } else if (categoryName != null) {
+                category = categoryRepository.findByName(categoryName);
+            }
+            return category.map(Category::getName).orElse(null);
+        } catch (RuntimeException e) {
+            logger.warn("Could not resolve category {} / {}: {}", categoryId, categoryName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Immutable set of patterns and the automaton compiled from it.
+     */
+    private static final class PatternSet {
+        final Map<Long, PatternEntry> entries;
+        final AhoCorasickMatcher<PatternEntry> matcher;
+        final List<Object> version; // Database version the partition was loaded at
+        volatile long checkedAt = System.nanoTime();
+
+        PatternSet(Map<Long, PatternEntry> entries, List<Object> version) {
+            this(entries, AhoCorasickMatcher.build(entries.values(), e -> e.pattern), version);
+        }
+
+        private PatternSet(Map<Long, PatternEntry> entries, AhoCorasickMatcher<PatternEntry> matcher,
+                           List<Object> version) {
+            this.entries = entries;
+            this.matcher = matcher;
+            this.version = version;
+        }
+
+        /**
+         * Matches of the automaton, with the current scores of each entry
+         */
+        List<PatternEntry> findAll(String merchantText) {
+            // Copied: the matcher returns an immutable list when nothing matches, and callers sort the result
+            List<PatternEntry> matches = new ArrayList<>(matcher.findAll(merchantText));
+            matches.replaceAll(match -> entries.getOrDefault(match.id, match));
+            return matches;
+        }
+
+        PatternSet with(PatternEntry entry) {
+            Map<Long, PatternEntry> copy = new LinkedHashMap<>(entries);
+            copy.put(entry.id, entry);
+            return new PatternSet(copy, version);
+        }
+
+        /**
+         * Same patterns with new scores for one entry: the automaton is shared, unless the entry's
+         * text changed since it was read.
+         */
+        PatternSet withScores(PatternEntry entry) {
+            PatternEntry indexed = entries.get(entry.id);
+            if (indexed == null || !indexed.pattern.equals(entry.pattern)) {
+                return with(entry);
+            }
+            Map<Long, PatternEntry> copy = new LinkedHashMap<>(entries);
+            copy.put(entry.id, entry);
+            return new PatternSet(copy, matcher, version);
+        }
+
+        PatternSet without(Long id) {
+            if (!entries.containsKey(id)) {
+                return this;
+            }
+            Map<Long, PatternEntry> copy = new LinkedHashMap<>(entries);
+            copy.remove(id);
+            return new PatternSet(copy, version);
+        }
+    }
+
+    public static final class Snapshot {
+        private final PatternSet personal;
+        private final PatternSet global;
+        
+        private Snapshot(PatternSet personal, PatternSet global) {
+            this.personal = personal;
+            this.global = global;
+        }
+        
+        public List<PatternEntry> findPersonalMatches(String merchantText) {
+            return personalMatches(personal, merchantText);
+        }
+        
+        public List<PatternEntry> findGlobalMatches(String merchantText, BigDecimal minConfidence) {
+            return globalMatches(global, merchantText, minConfidence);
+        }
+        
+        // Two snapshots are equal when built from the same compiled pattern sets
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Snapshot)) return false;
+            Snapshot that = (Snapshot) o;
+            return personal == that.personal && global == that.global;
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(personal) + System.identityHashCode(global);
+        }
+    }
+    
+    /**
+     * Detached copy of a global or personal pattern. {@code categoryName} is null when the
+     * pattern's category no longer exists.
+     */
+    public static final class PatternEntry {
+        public final Long id;
+        public final String pattern;
+        public final Long categoryId;
+        public final String categoryName;
+        public final BigDecimal confidenceScore;
+        public final int specificityScore;
+        public final int usageCount;
+        public final LocalDateTime lastUsedAt;
+
+        private PatternEntry(Long id, String pattern, Long categoryId, String categoryName, BigDecimal confidenceScore,
+                             int specificityScore, int usageCount, LocalDateTime lastUsedAt) {
+            this.id = id;
+            this.pattern = pattern;
+            this.categoryId = categoryId;
+            this.categoryName = categoryName;
+            this.confidenceScore = confidenceScore != null ? confidenceScore : BigDecimal.ZERO;
+            this.specificityScore = specificityScore;
+            this.usageCount = usageCount;
+            this.lastUsedAt = lastUsedAt;
+        }
+
+        PatternEntry withUsage(UserMerchantPattern pattern) {
+            return new PatternEntry(id, this.pattern, categoryId, categoryName, pattern.getConfidenceScore(),
+                specificityScore, pattern.getUsageCount() != null ? pattern.getUsageCount() : 0,
+                pattern.getLastUsedAt());
+        }
+
+        static PatternEntry of(MerchantPattern pattern, String categoryName) {
+            return new PatternEntry(pattern.getId(), pattern.getPattern(), pattern.getCategoryId(), categoryName,
+                pattern.getConfidenceScore(), pattern.getSpecificityScore() != null ? pattern.getSpecificityScore() : 0,
+                0, null);
+        }
+
+        static PatternEntry of(UserMerchantPattern pattern, String categoryName) {
+            return new PatternEntry(pattern.getId(), pattern.getPattern(), pattern.getCategoryId(), categoryName,
+                pattern.getConfidenceScore(), 0,
+                pattern.getUsageCount() != null ? pattern.getUsageCount() : 0, pattern.getLastUsedAt());
+        }
+    }
+}
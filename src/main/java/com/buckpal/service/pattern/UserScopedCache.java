@@ -0,0 +1,119 @@
+package com.buckpal.service.pattern;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * LRU cache partitioned by user: at most {@code maxUsers} partitions of at most
+ * {@code maxEntriesPerUser} entries each. A partition can be tied to a scope object (e.g. the
+ * pattern snapshot it was computed from) and is dropped when a lookup presents another scope.
+ *
+ * Meters: {@code buckpal.cache.gets{cache,result=hit|miss}}, {@code buckpal.cache.evictions{cache}}
+ * and {@code buckpal.cache.size{cache}}.
+ */
+class UserScopedCache<K, V> {
+
+    private final int maxEntriesPerUser;
+    private final Map<Long, Partition<K, V>> partitions;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private long size;
+
+    UserScopedCache(String name, int maxUsers, int maxEntriesPerUser, MeterRegistry meterRegistry) {
+        this.maxEntriesPerUser = Math.max(1, maxEntriesPerUser);
+        int userLimit = Math.max(1, maxUsers);
+        this.partitions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Partition<K, V>> eldest) {
+                if (size() > userLimit) {
+                    evicted(eldest.getValue().entries.size());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = Counter.builder("buckpal.cache.gets").tag("cache", name).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("buckpal.cache.gets").tag("cache", name).tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("buckpal.cache.evictions").tag("cache", name).register(meterRegistry);
+        Gauge.builder("buckpal.cache.size", this, UserScopedCache::size).tag("cache", name).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached value, or computes it outside the lock. Null values are not cached.
+     */
+    V get(Long userId, Object scope, K key, Function<K, V> loader) {
+        synchronized (this) {
+            Partition<K, V> partition = partitions.get(userId);
+            if (partition != null && Objects.equals(partition.scope, scope)) {
+                V value = partition.entries.get(key);
+                if (value != null) {
+                    hits.increment();
+                    return value;
+                }
+            }
+        }
+
+        misses.increment();
+        V value = loader.apply(key);
+        if (value != null) {
+            put(userId, scope, key, value);
+        }
+        return value;
+    }
+
+    synchronized void put(Long userId, Object scope, K key, V value) {
+        Partition<K, V> partition = partitions.get(userId);
+        if (partition == null || !Objects.equals(partition.scope, scope)) {
+            if (partition != null) {
+                size -= partition.entries.size();
+            }
+            partition = new Partition<>(scope);
+            partitions.put(userId, partition);
+        }
+        if (partition.entries.put(key, value) == null) {
+            size++;
+        }
+        if (partition.entries.size() > maxEntriesPerUser) {
+            K eldest = partition.entries.keySet().iterator().next();
+            partition.entries.remove(eldest);
+            evicted(1);
+        }
+    }
+
+    synchronized void invalidateUser(Long userId) {
+        Partition<K, V> removed = partitions.remove(userId);
+        if (removed != null) {
+            size -= removed.entries.size();
+        }
+    }
+
+    synchronized void invalidateAll() {
+        partitions.clear();
+        size = 0;
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    private void evicted(int count) {
+        size -= count;
+        evictions.increment(count);
+    }
+
+    private static final class Partition<K, V> {
+        final Object scope;
+        final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        Partition(Object scope) {
+            this.scope = scope;
+        }
+    }
+}
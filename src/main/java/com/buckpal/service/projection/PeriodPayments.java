@@ -0,0 +1,131 @@
+package com.buckpal.service.projection;
+
+import com.buckpal.entity.RecurringPayment;
+import com.buckpal.entity.RecurringPayment.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Active recurring payments of a period, grouped by {@link PaymentType}, with their occurrence
+ * dates and amounts in that period.
+ *
+ * Occurrences are computed once when the instance is built, so callers can read income and
+ * outgoing payments separately without querying or walking the schedules again. Payments without
+ * any occurrence in the period are left out.
+ */
+public final class PeriodPayments {
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final Map<PaymentType, List<Occurrences>> byType;
+
+    private PeriodPayments(LocalDate startDate, LocalDate endDate, Map<PaymentType, List<Occurrences>> byType) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.byType = byType;
+    }
+
+    public static PeriodPayments of(List<RecurringPayment> payments, LocalDate startDate, LocalDate endDate) {
+        Map<PaymentType, List<Occurrences>> byType = new EnumMap<>(PaymentType.class);
+        for (PaymentType type : PaymentType.values()) {
+            byType.put(type, new ArrayList<>());
+        }
+        for (RecurringPayment payment : payments) {
+            List<LocalDate> dates = payment.getPaymentDatesInPeriod(startDate, endDate);
+            if (dates.isEmpty()) {
+                continue;
+            }
+            List<BigDecimal> amounts = new ArrayList<>(dates.size());
+            BigDecimal total = BigDecimal.ZERO;
+            for (LocalDate date : dates) {
+                BigDecimal amount = payment.getAmountForDate(date);
+                amounts.add(amount);
+                total = total.add(amount);
+            }
+            byType.get(payment.getPaymentType()).add(new Occurrences(payment,
+                Collections.unmodifiableList(dates), Collections.unmodifiableList(amounts), total));
+        }
+        byType.replaceAll((type, occurrences) -> Collections.unmodifiableList(occurrences));
+        return new PeriodPayments(startDate, endDate, byType);
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public List<Occurrences> get(PaymentType type) {
+        return byType.get(type);
+    }
+
+    public List<Occurrences> getIncome() {
+        return get(PaymentType.INCOME);
+    }
+
+    /**
+     * Expenses, credits and subscriptions.
+     */
+    public List<Occurrences> getOutgoing() {
+        List<Occurrences> outgoing = new ArrayList<>();
+        byType.forEach((type, occurrences) -> {
+            if (type != PaymentType.INCOME) {
+                outgoing.addAll(occurrences);
+            }
+        });
+        return outgoing;
+    }
+
+    public List<Occurrences> getAll() {
+        List<Occurrences> all = new ArrayList<>();
+        byType.values().forEach(all::addAll);
+        return all;
+    }
+
+    public BigDecimal getTotal(PaymentType type) {
+        return get(type).stream().map(Occurrences::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * One payment's occurrences in the period.
+     */
+    public static final class Occurrences {
+
+        private final RecurringPayment payment;
+        private final List<LocalDate> dates;
+        private final List<BigDecimal> amounts;
+        private final BigDecimal total;
+
+        private Occurrences(RecurringPayment payment, List<LocalDate> dates, List<BigDecimal> amounts,
+                            BigDecimal total) {
+            this.payment = payment;
+            this.dates = dates;
+            this.amounts = amounts;
+            this.total = total;
+        }
+
+        public RecurringPayment getPayment() {
+            return payment;
+        }
+
+        public List<LocalDate> getDates() {
+            return dates;
+        }
+
+        public List<BigDecimal> getAmounts() {
+            return amounts;
+        }
+
+        public BigDecimal getTotal() {
+            return total;
+        }
+    }
+}
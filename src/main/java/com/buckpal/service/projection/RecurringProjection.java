@@ -0,0 +1,145 @@
+package com.buckpal.service.projection;
+
+import com.buckpal.entity.RecurringPayment;
+import com.buckpal.entity.RecurringPayment.PaymentType;
+import com.buckpal.util.RecurrenceSchedule;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Month by payment type projection of recurring payments, up to {@link #MAX_MONTHS} months.
+ *
+ * Computed in one pass over each payment's occurrences in the horizon: amounts are converted to
+ * cents once per payment and escalation year, then accumulated in {@code long} arrays (month x type,
+ * and month per payment). {@link BigDecimal}s are only created by the accessors, at the API boundary.
+ */
+public final class RecurringProjection {
+
+    public static final int MAX_MONTHS = 30 * 12;
+
+    private static final PaymentType[] TYPES = PaymentType.values();
+
+    private final YearMonth firstMonth;
+    private final int months;
+    private final List<RecurringPayment> payments;
+    private final long[] centsByMonthAndType;
+    private final long[][] centsByPaymentAndMonth;
+    private final int[][] occurrencesByPaymentAndMonth;
+
+    private RecurringProjection(YearMonth firstMonth, int months, List<RecurringPayment> payments) {
+        this.firstMonth = firstMonth;
+        this.months = months;
+        this.payments = payments;
+        this.centsByMonthAndType = new long[months * TYPES.length];
+        this.centsByPaymentAndMonth = new long[payments.size()][months];
+        this.occurrencesByPaymentAndMonth = new int[payments.size()][months];
+    }
+
+    /**
+     * @param months clamped to 1..{@link #MAX_MONTHS}
+     */
+    public static RecurringProjection compute(List<RecurringPayment> payments, YearMonth firstMonth, int months) {
+        RecurringProjection projection = new RecurringProjection(firstMonth,
+            Math.max(1, Math.min(months, MAX_MONTHS)), payments);
+        for (int p = 0; p < payments.size(); p++) {
+            projection.accumulate(p);
+        }
+        return projection;
+    }
+
+    private void accumulate(int p) {
+        RecurringPayment payment = payments.get(p);
+        if (!Boolean.TRUE.equals(payment.getIsActive())) {
+            return;
+        }
+
+        RecurrenceSchedule schedule = payment.getSchedule();
+        int type = payment.getPaymentType().ordinal();
+        long base = monthNumber(firstMonth.getYear(), firstMonth.getMonthValue());
+        long[] paymentCents = centsByPaymentAndMonth[p];
+        int[] paymentOccurrences = occurrencesByPaymentAndMonth[p];
+
+        LocalDate nextAnniversary = null;
+        long cents = 0;
+        Iterator<LocalDate> dates = schedule.between(firstMonth.atDay(1), lastMonth().atEndOfMonth()).iterator();
+        while (dates.hasNext()) {
+            LocalDate date = dates.next();
+            if (nextAnniversary == null || !date.isBefore(nextAnniversary)) {
+                int year = schedule.yearOf(date);
+                nextAnniversary = schedule.anniversary(year + 1);
+                cents = toCents(schedule.amountForYear(year));
+            }
+            int month = (int) (monthNumber(date.getYear(), date.getMonthValue()) - base);
+            paymentCents[month] += cents;
+            paymentOccurrences[month]++;
+            centsByMonthAndType[month * TYPES.length + type] += cents;
+        }
+    }
+
+    public YearMonth getFirstMonth() {
+        return firstMonth;
+    }
+
+    public YearMonth getMonth(int month) {
+        return firstMonth.plusMonths(month);
+    }
+
+    public int getMonths() {
+        return months;
+    }
+
+    public List<RecurringPayment> getPayments() {
+        return payments;
+    }
+
+    public long getCents(int month, PaymentType type) {
+        return centsByMonthAndType[month * TYPES.length + type.ordinal()];
+    }
+
+    public long getIncomeCents(int month) {
+        return getCents(month, PaymentType.INCOME);
+    }
+
+    /**
+     * Expenses, credits and subscriptions.
+     */
+    public long getOutgoingCents(int month) {
+        long total = 0;
+        int offset = month * TYPES.length;
+        for (int type = 0; type < TYPES.length; type++) {
+            if (TYPES[type] != PaymentType.INCOME) {
+                total += centsByMonthAndType[offset + type];
+            }
+        }
+        return total;
+    }
+
+    public long getPaymentCents(int paymentIndex, int month) {
+        return centsByPaymentAndMonth[paymentIndex][month];
+    }
+
+    public int getOccurrences(int paymentIndex, int month) {
+        return occurrencesByPaymentAndMonth[paymentIndex][month];
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private YearMonth lastMonth() {
+        return firstMonth.plusMonths(months - 1L);
+    }
+
+    private static long monthNumber(int year, int month) {
+        return year * 12L + month - 1;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
@@ -0,0 +1,244 @@
+package com.buckpal.service.rollup;
+
+import com.buckpal.entity.DataMigrationMarker;
+import com.buckpal.repository.AccountRepository;
+import com.buckpal.repository.DailyAccountTotalRepository;
+import com.buckpal.repository.DataMigrationMarkerRepository;
+import com.buckpal.repository.TransactionRepository;
+import com.buckpal.service.maintenance.SchedulerLeaseService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Vérification et reconstruction de daily_account_totals à partir des transactions.
+ *
+ * Par lot de comptes, les totaux attendus (GROUP BY sur transactions) sont comparés aux lignes du
+ * cumul. Les comptes en écart sont reconstruits en remplaçant leurs lignes (suppression puis
+ * insertion dans la même transaction), jamais en ajoutant la différence : relancer la correction,
+ * ou la lancer deux fois en même temps, donne le même résultat.
+ *
+ * Les comptes du lot sont verrouillés (SELECT ... FOR UPDATE) avant la lecture : deux
+ * reconstructions concurrentes passent l'une après l'autre, de même qu'une reconstruction et toute
+ * écriture de transaction, quel que soit son chemin, puisque {@link TransactionRollupListener}
+ * verrouille les mêmes comptes avant d'écrire son delta. La vérification planifiée et le remplissage initial
+ * tournent en plus sous un bail {@link SchedulerLeaseService}, sur une seule instance à la fois.
+ */
+@Service
+@Lazy(false) // must be created eagerly for the scheduled run to be registered
+public class DailyAccountTotalsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyAccountTotalsService.class);
+
+    static final String BACKFILL_MARKER = "daily_account_totals";
+    static final int BACKFILL_VERSION = 1;
+    static final String CONSISTENCY_CHECK_JOB = "calendar-rollup.consistency-check";
+    static final String BACKFILL_JOB = "calendar-rollup.backfill";
+
+    private final DailyAccountTotalRepository dailyAccountTotalRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final DataMigrationMarkerRepository markerRepository;
+    private final TransactionRollupListener rollupListener;
+    private final SchedulerLeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Duration lockAtMost;
+    private final Duration lockAtLeast;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public DailyAccountTotalsService(DailyAccountTotalRepository dailyAccountTotalRepository,
+                                     TransactionRepository transactionRepository,
+                                     AccountRepository accountRepository,
+                                     DataMigrationMarkerRepository markerRepository,
+                                     TransactionRollupListener rollupListener,
+                                     SchedulerLeaseService leaseService,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.calendar-rollup.chunk-size:200}") int chunkSize,
+                                     @Value("${app.scheduler.lease.lock-at-most:PT30M}") Duration lockAtMost,
+                                     @Value("${app.scheduler.lease.lock-at-least:PT1M}") Duration lockAtLeast) {
+        this.dailyAccountTotalRepository = dailyAccountTotalRepository;
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.markerRepository = markerRepository;
+        this.rollupListener = rollupListener;
+        this.leaseService = leaseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.lockAtMost = lockAtMost;
+        this.lockAtLeast = lockAtLeast;
+    }
+
+    @Scheduled(cron = "${app.calendar-rollup.consistency-check.cron:0 45 3 * * *}")
+    public void scheduledConsistencyCheck() {
+        leaseService.runExclusively(CONSISTENCY_CHECK_JOB, lockAtMost, lockAtLeast, () -> {
+            ConsistencyReport report = checkAll(true);
+            if (report.getDaysWithDrift() > 0 || report.getOrphanAccounts() > 0) {
+                logger.warn("Daily totals consistency check: {}", report);
+            } else {
+                logger.info("Daily totals consistency check: {}", report);
+            }
+            return report.getDaysCorrected();
+        });
+    }
+
+    /**
+     * Remplit le cumul une seule fois pour les données antérieures à son introduction.
+     *
+     * Lors d'une mise à jour progressive, seule l'instance qui détient le bail le remplit ; les
+     * autres passent leur tour et trouvent le marqueur au démarrage suivant.
+     */
+    public void ensureBackfilled() {
+        if (isBackfilled()) {
+            return;
+        }
+        // Released as soon as the marker is written: later nodes only need to read it
+        long corrected = leaseService.runExclusively(BACKFILL_JOB, lockAtMost, Duration.ZERO, () -> {
+            if (isBackfilled()) {
+                return 0;
+            }
+            ConsistencyReport report = checkAll(true);
+            markerRepository.save(new DataMigrationMarker(BACKFILL_MARKER, BACKFILL_VERSION));
+            logger.info("Daily totals backfill: {}", report);
+            return report.getDaysCorrected();
+        });
+        if (corrected < 0) {
+            logger.info("Daily totals backfill is running on another instance");
+        }
+    }
+
+    private boolean isBackfilled() {
+        return markerRepository.findById(BACKFILL_MARKER).map(m -> m.getVersion() >= BACKFILL_VERSION).orElse(false);
+    }
+
+    /**
+     * Compare le cumul de tous les comptes aux transactions ; corrige les écarts si {@code fix}.
+     */
+    public ConsistencyReport checkAll(boolean fix) {
+        long start = System.currentTimeMillis();
+        ConsistencyReport report = check(accountRepository.findAllIds(), fix);
+
+        List<Long> orphans = dailyAccountTotalRepository.findOrphanAccountIds();
+        report.orphanAccounts = orphans.size();
+        if (fix && !orphans.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> orphans.forEach(dailyAccountTotalRepository::deleteByAccountId));
+        }
+
+        report.durationMs = System.currentTimeMillis() - start;
+        return report;
+    }
+
+    /**
+     * Reconstruit le cumul des comptes donnés.
+     */
+    public ConsistencyReport rebuild(Collection<Long> accountIds) {
+        long start = System.currentTimeMillis();
+        ConsistencyReport report = check(new ArrayList<>(accountIds), true);
+        report.durationMs = System.currentTimeMillis() - start;
+        return report;
+    }
+
+    private ConsistencyReport check(List<Long> accountIds, boolean fix) {
+        ConsistencyReport report = new ConsistencyReport();
+        for (int from = 0; from < accountIds.size(); from += chunkSize) {
+            List<Long> chunk = accountIds.subList(from, Math.min(from + chunkSize, accountIds.size()));
+            report.merge(transactionTemplate.execute(status -> checkChunk(chunk, fix)));
+        }
+        return report;
+    }
+
+    private ConsistencyReport checkChunk(List<Long> accountIds, boolean fix) {
+        // Pending changes of the surrounding transaction would otherwise be counted twice
+        rollupListener.applyPending(entityManager);
+
+        ConsistencyReport report = new ConsistencyReport();
+        report.accountsChecked = accountIds.size();
+        if (fix) {
+            accountRepository.lockByIds(accountIds);
+        }
+
+        List<Object[]> expectedRows = transactionRepository.calculateDailyTotalsByAccountIds(accountIds);
+        DailyTotalsDelta correction = new DailyTotalsDelta();
+        for (Object[] row : expectedRows) {
+            correction.add((Long) row[0], (LocalDate) row[1], amount(row[2]), amount(row[3]), amount(row[4]),
+                ((Number) row[5]).longValue());
+        }
+        for (Object[] row : dailyAccountTotalRepository.findTotalsByAccountIds(accountIds)) {
+            correction.add((Long) row[0], (LocalDate) row[1], amount(row[2]).negate(), amount(row[3]).negate(),
+                amount(row[4]).negate(), -((Number) row[5]).longValue());
+        }
+
+        report.daysWithDrift = correction.size();
+        if (fix && !correction.isEmpty()) {
+            // Replace the rows of the drifting accounts with the expected totals
+            Set<Long> drifting = correction.getAccountIds();
+            DailyTotalsDelta replacement = new DailyTotalsDelta();
+            for (Object[] row : expectedRows) {
+                if (drifting.contains((Long) row[0])) {
+                    replacement.add((Long) row[0], (LocalDate) row[1], amount(row[2]), amount(row[3]),
+                        amount(row[4]), ((Number) row[5]).longValue());
+                }
+            }
+            dailyAccountTotalRepository.deleteByAccountIds(drifting);
+            entityManager.unwrap(Session.class).doWork(replacement::applyTo);
+            report.daysCorrected = report.daysWithDrift;
+        }
+        return report;
+    }
+
+    private static BigDecimal amount(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    /**
+     * Résultat d'une vérification du cumul journalier
+     */
+    public static class ConsistencyReport {
+        private int accountsChecked;
+        private int daysWithDrift;
+        private int daysCorrected;
+        private int orphanAccounts;
+        private long durationMs;
+
+        private void merge(ConsistencyReport other) {
+            accountsChecked += other.accountsChecked;
+            daysWithDrift += other.daysWithDrift;
+            daysCorrected += other.daysCorrected;
+        }
+
+        public int getAccountsChecked() { return accountsChecked; }
+        public int getDaysWithDrift() { return daysWithDrift; }
+        public int getDaysCorrected() { return daysCorrected; }
+        public int getOrphanAccounts() { return orphanAccounts; }
+        public long getDurationMs() { return durationMs; }
+
+        @Override
+        public String toString() {
+            return String.format("%d comptes vérifiés, %d jours en écart, %d corrigés, %d comptes supprimés encore cumulés, %d ms",
+                accountsChecked, daysWithDrift, daysCorrected, orphanAccounts, durationMs);
+        }
+    }
+}
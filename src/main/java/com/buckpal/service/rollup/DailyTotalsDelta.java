@@ -0,0 +1,166 @@
+package com.buckpal.service.rollup;
+
+import com.buckpal.entity.DailyAccountTotal.Key;
+import com.buckpal.entity.Transaction.TransactionType;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pending changes to daily_account_totals, netted per (account, day) and written in one pass.
+ *
+ * Rows are written in (account, day) order so that concurrent writers lock them in the same
+ * order. PostgreSQL gets an additive upsert; other databases (H2 in tests) update then insert.
+ */
+public final class DailyTotalsDelta {
+
+    private static final String UPSERT_POSTGRESQL = """
+        INSERT INTO daily_account_totals
+            (account_id, transaction_date, total_income, total_expense, net_amount, transaction_count)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON CONFLICT (account_id, transaction_date) DO UPDATE SET
+            total_income = daily_account_totals.total_income + EXCLUDED.total_income,
+            total_expense = daily_account_totals.total_expense + EXCLUDED.total_expense,
+            net_amount = daily_account_totals.net_amount + EXCLUDED.net_amount,
+            transaction_count = daily_account_totals.transaction_count + EXCLUDED.transaction_count
+        """;
+    private static final String UPDATE = """
+        UPDATE daily_account_totals
+        SET total_income = total_income + ?, total_expense = total_expense + ?,
+            net_amount = net_amount + ?, transaction_count = transaction_count + ?
+        WHERE account_id = ? AND transaction_date = ?
+        """;
+    private static final String INSERT = """
+        INSERT INTO daily_account_totals
+            (account_id, transaction_date, total_income, total_expense, net_amount, transaction_count)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::getAccountId)
+        .thenComparing(Key::getTransactionDate);
+
+    private final Map<Key, Totals> totals = new HashMap<>();
+
+    /**
+     * Adds ({@code sign} = 1) or removes ({@code sign} = -1) one transaction, with the same rules
+     * as the calendar query: income and expense by type, expenses counted by absolute value.
+     */
+    public void addTransaction(Long accountId, LocalDate date, TransactionType type, BigDecimal amount, int sign) {
+        if (accountId == null || date == null) {
+            return;
+        }
+        BigDecimal value = amount != null ? amount : BigDecimal.ZERO;
+        BigDecimal income = type == TransactionType.INCOME ? value : BigDecimal.ZERO;
+        BigDecimal expense = type == TransactionType.EXPENSE ? value.abs() : BigDecimal.ZERO;
+        BigDecimal net = income.subtract(expense);
+        if (sign < 0) {
+            add(accountId, date, income.negate(), expense.negate(), net.negate(), -1);
+        } else {
+            add(accountId, date, income, expense, net, 1);
+        }
+    }
+
+    public void add(Long accountId, LocalDate date, BigDecimal income, BigDecimal expense, BigDecimal net, long count) {
+        Totals entry = totals.computeIfAbsent(new Key(accountId, date), key -> new Totals());
+        entry.income = entry.income.add(income);
+        entry.expense = entry.expense.add(expense);
+        entry.net = entry.net.add(net);
+        entry.count += count;
+    }
+
+    public boolean isEmpty() {
+        return totals.values().stream().allMatch(Totals::isZero);
+    }
+
+    /**
+     * Number of (account, day) rows with a non-zero change.
+     */
+    public int size() {
+        return (int) totals.values().stream().filter(entry -> !entry.isZero()).count();
+    }
+
+    /**
+     * Accounts with at least one non-zero change.
+     */
+    public Set<Long> getAccountIds() {
+        Set<Long> accountIds = new HashSet<>();
+        totals.forEach((key, entry) -> {
+            if (!entry.isZero()) {
+                accountIds.add(key.getAccountId());
+            }
+        });
+        return accountIds;
+    }
+
+    public void applyTo(Connection connection) throws SQLException {
+        List<Key> keys = new ArrayList<>();
+        totals.forEach((key, entry) -> {
+            if (!entry.isZero()) {
+                keys.add(key);
+            }
+        });
+        if (keys.isEmpty()) {
+            return;
+        }
+        keys.sort(KEY_ORDER);
+
+        if ("PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+            try (PreparedStatement upsert = connection.prepareStatement(UPSERT_POSTGRESQL)) {
+                for (Key key : keys) {
+                    bindInsert(upsert, key, totals.get(key));
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+            }
+            return;
+        }
+
+        try (PreparedStatement update = connection.prepareStatement(UPDATE);
+             PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (Key key : keys) {
+                Totals entry = totals.get(key);
+                update.setBigDecimal(1, entry.income);
+                update.setBigDecimal(2, entry.expense);
+                update.setBigDecimal(3, entry.net);
+                update.setLong(4, entry.count);
+                update.setLong(5, key.getAccountId());
+                update.setDate(6, Date.valueOf(key.getTransactionDate()));
+                if (update.executeUpdate() == 0) {
+                    bindInsert(insert, key, entry);
+                    insert.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private static void bindInsert(PreparedStatement statement, Key key, Totals entry) throws SQLException {
+        statement.setLong(1, key.getAccountId());
+        statement.setDate(2, Date.valueOf(key.getTransactionDate()));
+        statement.setBigDecimal(3, entry.income);
+        statement.setBigDecimal(4, entry.expense);
+        statement.setBigDecimal(5, entry.net);
+        statement.setLong(6, entry.count);
+    }
+
+    private static final class Totals {
+        BigDecimal income = BigDecimal.ZERO;
+        BigDecimal expense = BigDecimal.ZERO;
+        BigDecimal net = BigDecimal.ZERO;
+        long count;
+
+        boolean isZero() {
+            return count == 0 && income.signum() == 0 && expense.signum() == 0 && net.signum() == 0;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.buckpal.service.rollup;
+
+import com.buckpal.entity.BudgetCategoryKey;
+import com.buckpal.entity.DataMigrationMarker;
+import com.buckpal.repository.AccountRepository;
+import com.buckpal.repository.DataMigrationMarkerRepository;
+import com.buckpal.repository.MonthlyCategorySpendRepository;
+import com.buckpal.repository.TransactionRepository;
+import com.buckpal.repository.UserRepository;
+import com.buckpal.service.maintenance.SchedulerLeaseService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lecture, vérification et reconstruction de monthly_category_spend.
+ *
+ * Les dépenses d'un budget sont lues dans ce cumul ; le recalcul complet à partir des transactions
+ * n'est plus qu'un outil de réparation (vérification nocturne, changement de correspondance d'une
+ * catégorie, suppression d'un budget, demande explicite).
+ *
+ * Une réparation remplace les lignes des utilisateurs en écart (suppression puis insertion dans la
+ * même transaction) au lieu d'y ajouter la différence, après avoir verrouillé leurs comptes
+ * (SELECT ... FOR UPDATE) : deux reconstructions du même utilisateur passent l'une après l'autre
+ * et aboutissent au même résultat. {@link TransactionRollupListener} verrouille les comptes touchés
+ * avant d'écrire son delta, si bien qu'une écriture de transaction (import CSV, synchronisation
+ * Plaid, changement de catégorie...) ne peut pas s'intercaler entre la lecture et le remplacement. La vérification planifiée et le remplissage initial tournent
+ * sous un bail {@link SchedulerLeaseService}, sur une seule instance à la fois.
+ */
+@Service
+@Lazy(false) // must be created eagerly for the scheduled run to be registered
+public class MonthlyCategorySpendService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonthlyCategorySpendService.class);
+
+    static final String BACKFILL_MARKER = "monthly_category_spend";
+    static final int BACKFILL_VERSION = 1;
+    static final String CONSISTENCY_CHECK_JOB = "budget-rollup.consistency-check";
+    static final String BACKFILL_JOB = "budget-rollup.backfill";
+
+    private final MonthlyCategorySpendRepository monthlyCategorySpendRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
+    private final DataMigrationMarkerRepository markerRepository;
+    private final TransactionRollupListener rollupListener;
+    private final SchedulerLeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Duration lockAtMost;
+    private final Duration lockAtLeast;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public MonthlyCategorySpendService(MonthlyCategorySpendRepository monthlyCategorySpendRepository,
+                                       TransactionRepository transactionRepository,
+                                       UserRepository userRepository,
+                                       AccountRepository accountRepository,
+                                       DataMigrationMarkerRepository markerRepository,
+                                       TransactionRollupListener rollupListener,
+                                       SchedulerLeaseService leaseService,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.budget-rollup.chunk-size:100}") int chunkSize,
+                                       @Value("${app.scheduler.lease.lock-at-most:PT30M}") Duration lockAtMost,
+                                       @Value("${app.scheduler.lease.lock-at-least:PT1M}") Duration lockAtLeast) {
+        this.monthlyCategorySpendRepository = monthlyCategorySpendRepository;
+        this.transactionRepository = transactionRepository;
+        this.userRepository = userRepository;
+        this.accountRepository = accountRepository;
+        this.markerRepository = markerRepository;
+        this.rollupListener = rollupListener;
+        this.leaseService = leaseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.lockAtMost = lockAtMost;
+        this.lockAtLeast = lockAtLeast;
+    }
+
+    /**
+     * Dépenses du mois par clé de catégorie budgétaire, y compris les écritures non encore validées
+     * de la transaction en cours.
+     */
+    public Map<BudgetCategoryKey, BigDecimal> getSpentAmounts(Long userId, YearMonth month) {
+        return transactionTemplate.execute(status -> {
+            rollupListener.applyPending(entityManager);
+            Map<BudgetCategoryKey, BigDecimal> spent = new EnumMap<>(BudgetCategoryKey.class);
+            for (Object[] row : monthlyCategorySpendRepository.findSpentAmountsByUserAndMonth(
+                    userId, month.getYear(), month.getMonthValue())) {
+                spent.put((BudgetCategoryKey) row[0], amount(row[1]));
+            }
+            return spent;
+        });
+    }
+
+    @Scheduled(cron = "${app.budget-rollup.consistency-check.cron:0 50 3 * * *}")
+    public void scheduledConsistencyCheck() {
+        leaseService.runExclusively(CONSISTENCY_CHECK_JOB, lockAtMost, lockAtLeast, () -> {
+            ConsistencyReport report = checkAll(true);
+            if (report.getRowsWithDrift() > 0 || report.getOrphanUsers() > 0) {
+                logger.warn("Monthly category spend consistency check: {}", report);
+            } else {
+                logger.info("Monthly category spend consistency check: {}", report);
+            }
+            return report.getRowsCorrected();
+        });
+    }
+
+    /**
+     * Remplit le cumul une seule fois pour les données antérieures à son introduction, sur
+     * l'instance qui détient le bail.
+     */
+    public void ensureBackfilled() {
+        if (isBackfilled()) {
+            return;
+        }
+        // Released as soon as the marker is written: later nodes only need to read it
+        long corrected = leaseService.runExclusively(BACKFILL_JOB, lockAtMost, Duration.ZERO, () -> {
+            if (isBackfilled()) {
+                return 0;
+            }
+            ConsistencyReport report = checkAll(true);
+            markerRepository.save(new DataMigrationMarker(BACKFILL_MARKER, BACKFILL_VERSION));
+            logger.info("Monthly category spend backfill: {}", report);
+            return report.getRowsCorrected();
+        });
+        if (corrected < 0) {
+            logger.info("Monthly category spend backfill is running on another instance");
+        }
+    }
+
+    private boolean isBackfilled() {
+        return markerRepository.findById(BACKFILL_MARKER).map(m -> m.getVersion() >= BACKFILL_VERSION).orElse(false);
+    }
+
+    /**
+     * Compare le cumul de tous les utilisateurs aux transactions ; corrige les écarts si {@code fix}.
+     */
+    public ConsistencyReport checkAll(boolean fix) {
+        long start = System.currentTimeMillis();
+        ConsistencyReport report = check(userRepository.findAllIds(), fix);
+
+        List<Long> orphans = monthlyCategorySpendRepository.findOrphanUserIds();
+        report.orphanUsers = orphans.size();
+        if (fix && !orphans.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> orphans.forEach(monthlyCategorySpendRepository::deleteByUserId));
+        }
+
+        report.durationMs = System.currentTimeMillis() - start;
+        return report;
+    }
+
+    /**
+     * Reconstruit le cumul des utilisateurs donnés.
+     */
+    public ConsistencyReport rebuild(Collection<Long> userIds) {
+        long start = System.currentTimeMillis();
+        ConsistencyReport report = check(new ArrayList<>(userIds), true);
+        report.durationMs = System.currentTimeMillis() - start;
+        return report;
+    }
+
+    /**
+     * Reconstruit le cumul des utilisateurs ayant des transactions dans des catégories dont la clé
+     * budgétaire vient de changer.
+     */
+    public ConsistencyReport rebuildForCategories(Collection<Long> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return new ConsistencyReport();
+        }
+        List<Long> userIds = transactionTemplate.execute(status -> {
+            entityManager.flush();
+            return transactionRepository.findUserIdsByCategoryIds(categoryIds);
+        });
+        return rebuild(userIds);
+    }
+
+    private ConsistencyReport check(List<Long> userIds, boolean fix) {
+        ConsistencyReport report = new ConsistencyReport();
+        for (int from = 0; from < userIds.size(); from += chunkSize) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + chunkSize, userIds.size()));
+            report.merge(transactionTemplate.execute(status -> checkChunk(chunk, fix)));
+        }
+        return report;
+    }
+
+    private ConsistencyReport checkChunk(List<Long> userIds, boolean fix) {
+        // Pending changes of the surrounding transaction would otherwise be counted twice
+        rollupListener.applyPending(entityManager);
+
+        ConsistencyReport report = new ConsistencyReport();
+        report.usersChecked = userIds.size();
+        if (fix) {
+            // A user without accounts has no transactions: replacing their rows only deletes
+            accountRepository.lockByUserIds(userIds);
+        }
+
+        List<Object[]> expectedRows = transactionRepository.calculateMonthlySpendByUserIds(userIds);
+        MonthlySpendDelta correction = new MonthlySpendDelta();
+        for (Object[] row : expectedRows) {
+            correction.add((Long) row[0], ((Number) row[1]).intValue(), ((Number) row[2]).intValue(),
+                (BudgetCategoryKey) row[3], amount(row[4]), ((Number) row[5]).longValue());
+        }
+        for (Object[] row : monthlyCategorySpendRepository.findSpendByUserIds(userIds)) {
+            correction.add((Long) row[0], (Integer) row[1], (Integer) row[2], (BudgetCategoryKey) row[3],
+                amount(row[4]).negate(), -((Number) row[5]).longValue());
+        }
+
+        report.rowsWithDrift = correction.size();
+        if (fix && !correction.isEmpty()) {
+            // Replace the rows of the drifting users with the expected spend
+            Set<Long> drifting = correction.getUserIds();
+            MonthlySpendDelta replacement = new MonthlySpendDelta();
+            for (Object[] row : expectedRows) {
+                if (drifting.contains((Long) row[0])) {
+                    replacement.add((Long) row[0], ((Number) row[1]).intValue(), ((Number) row[2]).intValue(),
+                        (BudgetCategoryKey) row[3], amount(row[4]), ((Number) row[5]).longValue());
+                }
+            }
+            monthlyCategorySpendRepository.deleteByUserIds(drifting);
+            entityManager.unwrap(Session.class).doWork(replacement::applyTo);
+            report.rowsCorrected = report.rowsWithDrift;
+        }
+        return report;
+    }
+
+    private static BigDecimal amount(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    /**
+     * Résultat d'une vérification du cumul mensuel des dépenses
+     */
+    public static class ConsistencyReport {
+        private int usersChecked;
+        private int rowsWithDrift;
+        private int rowsCorrected;
+        private int orphanUsers;
+        private long durationMs;
+
+        private void merge(ConsistencyReport other) {
+            usersChecked += other.usersChecked;
+            rowsWithDrift += other.rowsWithDrift;
+            rowsCorrected += other.rowsCorrected;
+        }
+
+        public int getUsersChecked() { return usersChecked; }
+        public int getRowsWithDrift() { return rowsWithDrift; }
+        public int getRowsCorrected() { return rowsCorrected; }
+        public int getOrphanUsers() { return orphanUsers; }
+        public long getDurationMs() { return durationMs; }
+
+        @Override
+        public String toString() {
+            return String.format("%d utilisateurs vérifiés, %d mois-catégories en écart, %d corrigés, %d utilisateurs supprimés encore cumulés, %d ms",
+                usersChecked, rowsWithDrift, rowsCorrected, orphanUsers, durationMs);
+        }
+    }
+}
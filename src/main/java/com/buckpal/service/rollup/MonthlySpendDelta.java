@@ -0,0 +1,153 @@
+package com.buckpal.service.rollup;
+
+import com.buckpal.entity.BudgetCategoryKey;
+import com.buckpal.entity.MonthlyCategorySpend.Key;
+import com.buckpal.entity.Transaction.TransactionType;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pending changes to monthly_category_spend, netted per (user, month, budget category key) and
+ * written in one pass, in key order, like {@link DailyTotalsDelta}.
+ */
+public final class MonthlySpendDelta {
+
+    private static final String UPSERT_POSTGRESQL = """
+        INSERT INTO monthly_category_spend
+            (user_id, budget_year, budget_month, budget_category_key, spent_amount, transaction_count)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON CONFLICT (user_id, budget_year, budget_month, budget_category_key) DO UPDATE SET
+            spent_amount = monthly_category_spend.spent_amount + EXCLUDED.spent_amount,
+            transaction_count = monthly_category_spend.transaction_count + EXCLUDED.transaction_count
+        """;
+    private static final String UPDATE = """
+        UPDATE monthly_category_spend
+        SET spent_amount = spent_amount + ?, transaction_count = transaction_count + ?
+        WHERE user_id = ? AND budget_year = ? AND budget_month = ? AND budget_category_key = ?
+        """;
+    private static final String INSERT = """
+        INSERT INTO monthly_category_spend
+            (user_id, budget_year, budget_month, budget_category_key, spent_amount, transaction_count)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::getUserId)
+        .thenComparing(Key::getBudgetYear)
+        .thenComparing(Key::getBudgetMonth)
+        .thenComparing(key -> key.getBudgetCategoryKey().name());
+
+    private final Map<Key, Spend> spend = new HashMap<>();
+
+    /**
+     * Adds ({@code sign} = 1) or removes ({@code sign} = -1) one transaction, with the same rules
+     * as the budget query: expenses only, by absolute value, when the category maps to a budget key.
+     */
+    public void addTransaction(Long userId, LocalDate date, TransactionType type, BudgetCategoryKey categoryKey,
+                               BigDecimal amount, int sign) {
+        if (userId == null || date == null || categoryKey == null || type != TransactionType.EXPENSE) {
+            return;
+        }
+        BigDecimal value = amount != null ? amount.abs() : BigDecimal.ZERO;
+        add(userId, date.getYear(), date.getMonthValue(), categoryKey, sign < 0 ? value.negate() : value, sign < 0 ? -1 : 1);
+    }
+
+    public void add(Long userId, int year, int month, BudgetCategoryKey categoryKey, BigDecimal amount, long count) {
+        Spend entry = spend.computeIfAbsent(new Key(userId, year, month, categoryKey), key -> new Spend());
+        entry.amount = entry.amount.add(amount);
+        entry.count += count;
+    }
+
+    public boolean isEmpty() {
+        return spend.values().stream().allMatch(Spend::isZero);
+    }
+
+    /**
+     * Number of (user, month, key) rows with a non-zero change.
+     */
+    public int size() {
+        return (int) spend.values().stream().filter(entry -> !entry.isZero()).count();
+    }
+
+    /**
+     * Users with at least one non-zero change.
+     */
+    public Set<Long> getUserIds() {
+        Set<Long> userIds = new HashSet<>();
+        spend.forEach((key, entry) -> {
+            if (!entry.isZero()) {
+                userIds.add(key.getUserId());
+            }
+        });
+        return userIds;
+    }
+
+    public void applyTo(Connection connection) throws SQLException {
+        List<Key> keys = new ArrayList<>();
+        spend.forEach((key, entry) -> {
+            if (!entry.isZero()) {
+                keys.add(key);
+            }
+        });
+        if (keys.isEmpty()) {
+            return;
+        }
+        keys.sort(KEY_ORDER);
+
+        if ("PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+            try (PreparedStatement upsert = connection.prepareStatement(UPSERT_POSTGRESQL)) {
+                for (Key key : keys) {
+                    bindInsert(upsert, key, spend.get(key));
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+            }
+            return;
+        }
+
+        try (PreparedStatement update = connection.prepareStatement(UPDATE);
+             PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (Key key : keys) {
+                Spend entry = spend.get(key);
+                update.setBigDecimal(1, entry.amount);
+                update.setLong(2, entry.count);
+                update.setLong(3, key.getUserId());
+                update.setInt(4, key.getBudgetYear());
+                update.setInt(5, key.getBudgetMonth());
+                update.setString(6, key.getBudgetCategoryKey().name());
+                if (update.executeUpdate() == 0) {
+                    bindInsert(insert, key, entry);
+                    insert.executeUpdate();
+                }
+            }
+        }
+    }
+
+    private static void bindInsert(PreparedStatement statement, Key key, Spend entry) throws SQLException {
+        statement.setLong(1, key.getUserId());
+        statement.setInt(2, key.getBudgetYear());
+        statement.setInt(3, key.getBudgetMonth());
+        statement.setString(4, key.getBudgetCategoryKey().name());
+        statement.setBigDecimal(5, entry.amount);
+        statement.setLong(6, entry.count);
+    }
+
+    private static final class Spend {
+        BigDecimal amount = BigDecimal.ZERO;
+        long count;
+
+        boolean isZero() {
+            return count == 0 && amount.signum() == 0;
+        }
+    }
+}
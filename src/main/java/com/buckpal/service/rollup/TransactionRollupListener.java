@@ -0,0 +1,236 @@
+package com.buckpal.service.rollup;
+
+import com.buckpal.entity.Account;
+import com.buckpal.entity.BudgetCategoryKey;
+import com.buckpal.entity.Category;
+import com.buckpal.entity.Transaction;
+import com.buckpal.entity.Transaction.TransactionType;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the transaction rollups (daily_account_totals, monthly_category_spend) in step with every
+ * transaction write, whatever the path (services, CSV imports, Plaid sync): inserts, updates and
+ * deletes of Transaction are netted per session and written just before the database transaction
+ * commits, after the final flush. A rollback discards them together with the writes they describe.
+ *
+ * Before writing, the affected accounts are locked in id order (SELECT ... FOR UPDATE), the lock
+ * the rebuilds of {@link DailyAccountTotalsService} and {@link MonthlyCategorySpendService} take:
+ * a rebuild that read the transactions before this commit cannot replace the rows under it.
+ *
+ * Bulk JPQL updates bypass these events; none of them touches amount, date, type or account, and
+ * the one that clears categories (budget deletion) rebuilds the monthly spend of its user.
+ */
+@Component
+@Lazy(false) // must be registered before the first write
+public class TransactionRollupListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionRollupListener.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Map<EventSource, PendingRollups> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TransactionRollupListener(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * Flushes the current session and writes its pending changes now, so that rollups read later in
+     * the same transaction include them.
+     */
+    public void applyPending(EntityManager entityManager) {
+        if (!entityManager.isJoinedToTransaction()) {
+            return;
+        }
+        entityManager.flush();
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        PendingRollups rollups = pending.remove(session);
+        if (rollups != null && !rollups.isEmpty()) {
+            session.doWork(rollups::applyTo);
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Transaction transaction) {
+            rollupsFor(event.getSession()).addTransaction(transaction.getAccount(), transaction.getTransactionDate(),
+                transaction.getTransactionType(), transaction.getCategory(), transaction.getAmount(), 1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Transaction transaction)) {
+            return;
+        }
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            // Detached update without a loaded state: left to the consistency checks
+            logger.warn("No previous state for transaction {}, rollups not adjusted", event.getId());
+            return;
+        }
+        String[] properties = event.getPersister().getPropertyNames();
+        Account oldAccount = (Account) oldState[indexOf(properties, "account")];
+        LocalDate oldDate = (LocalDate) oldState[indexOf(properties, "transactionDate")];
+        TransactionType oldType = (TransactionType) oldState[indexOf(properties, "transactionType")];
+        BigDecimal oldAmount = (BigDecimal) oldState[indexOf(properties, "amount")];
+        Category oldCategory = (Category) oldState[indexOf(properties, "category")];
+
+        if (Objects.equals(accountId(oldAccount), accountId(transaction.getAccount()))
+                && Objects.equals(oldDate, transaction.getTransactionDate())
+                && oldType == transaction.getTransactionType()
+                && compare(oldAmount, transaction.getAmount()) == 0
+                && categoryKey(oldCategory) == categoryKey(transaction.getCategory())) {
+            return;
+        }
+        PendingRollups rollups = rollupsFor(event.getSession());
+        rollups.addTransaction(oldAccount, oldDate, oldType, oldCategory, oldAmount, -1);
+        rollups.addTransaction(transaction.getAccount(), transaction.getTransactionDate(),
+            transaction.getTransactionType(), transaction.getCategory(), transaction.getAmount(), 1);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Transaction transaction) {
+            rollupsFor(event.getSession()).addTransaction(transaction.getAccount(), transaction.getTransactionDate(),
+                transaction.getTransactionType(), transaction.getCategory(), transaction.getAmount(), -1);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private PendingRollups rollupsFor(EventSource session) {
+        return pending.computeIfAbsent(session, key -> {
+            key.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completingSession -> {
+                PendingRollups rollups = pending.remove(key);
+                if (rollups != null && !rollups.isEmpty()) {
+                    completingSession.doWork(rollups::applyTo);
+                }
+            });
+            key.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completedSession) ->
+                pending.remove(key));
+            return new PendingRollups();
+        });
+    }
+
+    private static Long accountId(Account account) {
+        return account != null ? account.getId() : null;
+    }
+
+    private static BudgetCategoryKey categoryKey(Category category) {
+        return category != null ? category.getBudgetCategoryKey() : null;
+    }
+
+    private static int compare(BigDecimal a, BigDecimal b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : 1;
+        }
+        return a.compareTo(b);
+    }
+
+    private static int indexOf(String[] properties, String name) {
+        int index = Arrays.asList(properties).indexOf(name);
+        if (index < 0) {
+            throw new RuntimeException("Transaction has no property " + name);
+        }
+        return index;
+    }
+
+    private static final class PendingRollups {
+        final DailyTotalsDelta daily = new DailyTotalsDelta();
+        final MonthlySpendDelta monthly = new MonthlySpendDelta();
+        final Map<Long, Long> userIdByAccountId = new HashMap<>();
+        final Set<Long> accountIds = new TreeSet<>();
+
+        void addTransaction(Account account, LocalDate date, TransactionType type, Category category,
+                            BigDecimal amount, int sign) {
+            Long accountId = accountId(account);
+            if (accountId != null) {
+                accountIds.add(accountId);
+            }
+            daily.addTransaction(accountId, date, type, amount, sign);
+            BudgetCategoryKey key = categoryKey(category);
+            if (type == TransactionType.EXPENSE && key != null && accountId != null) {
+                Long userId = userIdByAccountId.computeIfAbsent(accountId,
+                    id -> account.getUser() != null ? account.getUser().getId() : null);
+                monthly.addTransaction(userId, date, type, key, amount, sign);
+            }
+        }
+
+        boolean isEmpty() {
+            return daily.isEmpty() && monthly.isEmpty();
+        }
+
+        void applyTo(Connection connection) throws SQLException {
+            lockAccounts(connection);
+            daily.applyTo(connection);
+            monthly.applyTo(connection);
+        }
+
+        private void lockAccounts(Connection connection) throws SQLException {
+            if (accountIds.isEmpty()) {
+                return;
+            }
+            String placeholders = String.join(", ", Collections.nCopies(accountIds.size(), "?"));
+            try (PreparedStatement lock = connection.prepareStatement(
+                    "SELECT id FROM accounts WHERE id IN (" + placeholders + ") ORDER BY id FOR UPDATE")) {
+                int index = 1;
+                for (Long accountId : accountIds) {
+                    lock.setLong(index++, accountId);
+                }
+                try (ResultSet ignored = lock.executeQuery()) {
+                    // The rows stay locked until the transaction completes
+                }
+            }
+        }
+    }
+}
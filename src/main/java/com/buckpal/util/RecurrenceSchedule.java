@@ -0,0 +1,198 @@
+package com.buckpal.util;
+
+import com.buckpal.entity.RecurringPayment.PaymentFrequency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Occurrences of a recurring payment, computed in closed form.
+ *
+ * Occurrence k is {@code start + k * period}, always computed from the start date: a payment
+ * started on January 31st falls on February 29th then March 31st, not March 29th. The first
+ * occurrence in a window is found by arithmetic on the month (or day) count instead of walking
+ * from the start, so a query costs the same whatever the age of the payment.
+ *
+ * Escalated amounts use a table of yearly factors (1 + rate)^n built once, and are rounded to the
+ * scale of the base amount.
+ */
+public final class RecurrenceSchedule {
+
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    private final LocalDate start;
+    private final PaymentFrequency frequency;
+    private final LocalDate end;
+    private final BigDecimal amount;
+    private final BigDecimal escalationFactor;
+    private BigDecimal[] escalationFactors = new BigDecimal[0];
+
+    /**
+     * @param end            last day on which an occurrence may fall, or null
+     * @param escalationRate yearly increase in percent; null or not positive means none
+     */
+    public RecurrenceSchedule(LocalDate start, PaymentFrequency frequency, LocalDate end,
+                              BigDecimal amount, BigDecimal escalationRate) {
+        this.start = start;
+        this.frequency = frequency;
+        this.end = end;
+        this.amount = amount;
+        this.escalationFactor = escalationRate != null && escalationRate.signum() > 0
+            ? BigDecimal.ONE.add(escalationRate.divide(HUNDRED, MathContext.DECIMAL64))
+            : null;
+    }
+
+    /**
+     * Date of occurrence {@code index} (0 is the start date), ignoring the end date.
+     */
+    public LocalDate occurrence(long index) {
+        return frequency.isWeekly()
+            ? start.plusWeeks(index)
+            : start.plusMonths(index * frequency.getMonthsInterval());
+    }
+
+    /**
+     * Index of the first occurrence on or after {@code date}.
+     */
+    public long firstIndexOnOrAfter(LocalDate date) {
+        if (!date.isAfter(start)) {
+            return 0;
+        }
+        if (frequency.isWeekly()) {
+            return Math.floorDiv(ChronoUnit.DAYS.between(start, date) + 6, 7);
+        }
+        long months = (date.getYear() * 12L + date.getMonthValue()) - (start.getYear() * 12L + start.getMonthValue());
+        long index = Math.floorDiv(months, frequency.getMonthsInterval());
+        // occurrence(index) is in date's month or before it: at most one step forward
+        return occurrence(index).isBefore(date) ? index + 1 : index;
+    }
+
+    /**
+     * Number of occurrences between the two dates (inclusive) and not after the end date.
+     */
+    public long countBetween(LocalDate from, LocalDate to) {
+        LocalDate last = lastDay(to);
+        if (last.isBefore(from) || last.isBefore(start)) {
+            return 0;
+        }
+        return Math.max(0, firstIndexOnOrAfter(last.plusDays(1)) - firstIndexOnOrAfter(from));
+    }
+
+    /**
+     * Occurrences between the two dates (inclusive) and not after the end date, generated lazily.
+     */
+    public Stream<LocalDate> between(LocalDate from, LocalDate to) {
+        LocalDate last = lastDay(to);
+        long first = firstIndexOnOrAfter(from);
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<LocalDate>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL) {
+            private long index = first;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super LocalDate> action) {
+                LocalDate date = occurrence(index);
+                if (date.isAfter(last)) {
+                    return false;
+                }
+                index++;
+                action.accept(date);
+                return true;
+            }
+        }, false);
+    }
+
+    public List<LocalDate> listBetween(LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>((int) Math.min(countBetween(from, to), 1024));
+        between(from, to).forEach(dates::add);
+        return dates;
+    }
+
+    /**
+     * Amount due on {@code date}, escalated once per full year since the start.
+     */
+    public BigDecimal amountAt(LocalDate date) {
+        if (escalationFactor == null) {
+            return amount;
+        }
+        return amountForYear(yearOf(date));
+    }
+
+    /**
+     * Sum of the amounts due between the two dates (inclusive), over at most {@code maxOccurrences}
+     * occurrences. Computed per escalation year: count times that year's amount.
+     */
+    public BigDecimal totalBetween(LocalDate from, LocalDate to, long maxOccurrences) {
+        if (escalationFactor == null) {
+            return amount.multiply(BigDecimal.valueOf(Math.min(countBetween(from, to), maxOccurrences)));
+        }
+
+        LocalDate last = lastDay(to);
+        LocalDate cursor = from.isAfter(start) ? from : start;
+        BigDecimal total = BigDecimal.ZERO;
+        long remaining = maxOccurrences;
+        while (remaining > 0 && !cursor.isAfter(last)) {
+            int year = yearOf(cursor);
+            LocalDate nextYear = anniversary(year + 1);
+            LocalDate segmentEnd = nextYear.minusDays(1).isBefore(last) ? nextYear.minusDays(1) : last;
+            long count = Math.min(countBetween(cursor, segmentEnd), remaining);
+            total = total.add(amountForYear(year).multiply(BigDecimal.valueOf(count)));
+            remaining -= count;
+            cursor = nextYear;
+        }
+        return total;
+    }
+
+    /**
+     * Full years elapsed since the start on {@code date}, 0 before the start.
+     */
+    public int yearOf(LocalDate date) {
+        return date.isAfter(start) ? start.until(date).getYears() : 0;
+    }
+
+    /**
+     * Amount due during the {@code year}-th year since the start.
+     */
+    public BigDecimal amountForYear(int year) {
+        if (escalationFactor == null || year <= 0) {
+            return amount;
+        }
+        return amount.multiply(escalationFactor(year)).setScale(Math.max(amount.scale(), 0), RoundingMode.HALF_UP);
+    }
+
+    private BigDecimal escalationFactor(int year) {
+        if (year >= escalationFactors.length) {
+            int previousLength = escalationFactors.length;
+            escalationFactors = Arrays.copyOf(escalationFactors, Math.max(year + 1, previousLength * 2));
+            for (int y = previousLength; y < escalationFactors.length; y++) {
+                escalationFactors[y] = y == 0
+                    ? BigDecimal.ONE
+                    : escalationFactors[y - 1].multiply(escalationFactor, MathContext.DECIMAL64);
+            }
+        }
+        return escalationFactors[year];
+    }
+
+    /**
+     * First day of the {@code year}-th year since the start, as counted by {@link java.time.Period}
+     * (a February 29th start reaches its first year on March 1st).
+     */
+    public LocalDate anniversary(int year) {
+        LocalDate date = start.plusYears(year);
+        return date.getDayOfMonth() == start.getDayOfMonth() ? date : date.plusDays(1);
+    }
+
+    private LocalDate lastDay(LocalDate to) {
+        return end != null && end.isBefore(to) ? end : to;
+    }
+}
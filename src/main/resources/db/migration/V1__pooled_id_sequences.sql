@@ -0,0 +1,25 @@
+-- Switch high-volume tables from IDENTITY to pooled sequences (allocationSize = 50).
+--
+-- IDENTITY ids disable Hibernate JDBC insert batching; the entities now draw ids from
+-- the sequences below. Each sequence is positioned after the current MAX(id) so that
+-- new ids never collide with existing rows. The existing identity defaults are left
+-- in place (columns are GENERATED BY DEFAULT, so explicit ids are accepted).
+--
+-- Idempotent: safe to re-run, including after Hibernate has already created the
+-- sequences through ddl-auto (they are re-positioned and their increment fixed).
+
+CREATE SEQUENCE IF NOT EXISTS transactions_seq INCREMENT BY 50;
+ALTER SEQUENCE transactions_seq INCREMENT BY 50;
+SELECT setval('transactions_seq', (SELECT COALESCE(MAX(id), 0) FROM transactions) + 50, false);
+
+CREATE SEQUENCE IF NOT EXISTS recurring_payment_history_seq INCREMENT BY 50;
+ALTER SEQUENCE recurring_payment_history_seq INCREMENT BY 50;
+SELECT setval('recurring_payment_history_seq', (SELECT COALESCE(MAX(id), 0) FROM recurring_payment_history) + 50, false);
+
+CREATE SEQUENCE IF NOT EXISTS user_merchant_patterns_seq INCREMENT BY 50;
+ALTER SEQUENCE user_merchant_patterns_seq INCREMENT BY 50;
+SELECT setval('user_merchant_patterns_seq', (SELECT COALESCE(MAX(id), 0) FROM user_merchant_patterns) + 50, false);
+
+CREATE SEQUENCE IF NOT EXISTS user_assignment_feedback_seq INCREMENT BY 50;
+ALTER SEQUENCE user_assignment_feedback_seq INCREMENT BY 50;
+SELECT setval('user_assignment_feedback_seq', (SELECT COALESCE(MAX(id), 0) FROM user_assignment_feedback) + 50, false);
@@ -0,0 +1,28 @@
+-- Indexes behind GET /api/transactions/search.
+--
+-- Text search is lower(column) LIKE '%text%' on description and merchant_name: only
+-- trigram GIN indexes can serve an infix LIKE, so pg_trgm is required. The B-tree
+-- indexes are also declared on the Transaction entity (ddl-auto creates them); they
+-- are repeated here for databases managed without ddl-auto.
+--
+-- Idempotent: safe to re-run.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_transactions_description_trgm
+    ON transactions USING gin (lower(description) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_transactions_merchant_name_trgm
+    ON transactions USING gin (lower(merchant_name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_account_date_id
+    ON transactions (account_id, transaction_date, id);
+CREATE INDEX IF NOT EXISTS idx_transactions_account_amount
+    ON transactions (account_id, amount);
+CREATE INDEX IF NOT EXISTS idx_transactions_account_type_date
+    ON transactions (account_id, transaction_type, transaction_date);
+CREATE INDEX IF NOT EXISTS idx_transactions_account_status_date
+    ON transactions (account_id, assignment_status, transaction_date);
+CREATE INDEX IF NOT EXISTS idx_transactions_category_date
+    ON transactions (category_id, transaction_date);
+
+ANALYZE transactions;
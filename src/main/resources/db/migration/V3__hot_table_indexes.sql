@@ -0,0 +1,47 @@
+-- Designed index set for the hot tables, matching the repository queries.
+--
+-- transactions: every list/report query is scoped to the user's accounts, so account_id
+-- leads; category and income-category reports lead with the category. (account_id,
+-- transaction_date, id) and the search indexes come from V2.
+-- merchant_patterns: lookups by (pattern, category) and the category-id backfill.
+-- user_merchant_patterns: per-user lookups by category (ordered by confidence) and by
+-- recency; (user_id, pattern, category_id) is already covered by its unique constraint.
+-- recurring_payment_history: per-payment schedule, overdue/upcoming scans by status and
+-- due date, and lookups by linked transaction.
+-- budgets: per-user ranges ordered by year and month.
+--
+-- The same indexes are declared on the entities; SchemaMigrationService refuses to start
+-- when one of them is missing. Idempotent: safe to re-run.
+
+CREATE INDEX IF NOT EXISTS idx_transactions_income_category_date
+    ON transactions (income_category_id, transaction_date);
+CREATE INDEX IF NOT EXISTS idx_transactions_account_detailed_category
+    ON transactions (account_id, detailed_category_id, id);
+CREATE INDEX IF NOT EXISTS idx_transactions_account_needs_review
+    ON transactions (account_id, needs_review);
+
+CREATE INDEX IF NOT EXISTS idx_merchant_patterns_pattern_category
+    ON merchant_patterns (pattern, category_id);
+CREATE INDEX IF NOT EXISTS idx_merchant_patterns_category_id
+    ON merchant_patterns (category_id);
+
+CREATE INDEX IF NOT EXISTS idx_user_merchant_patterns_user_category
+    ON user_merchant_patterns (user_id, category_id, confidence_score);
+CREATE INDEX IF NOT EXISTS idx_user_merchant_patterns_user_last_used
+    ON user_merchant_patterns (user_id, last_used_at);
+
+CREATE INDEX IF NOT EXISTS idx_recurring_payment_history_payment_due
+    ON recurring_payment_history (recurring_payment_id, due_date);
+CREATE INDEX IF NOT EXISTS idx_recurring_payment_history_status_due
+    ON recurring_payment_history (status, due_date);
+CREATE INDEX IF NOT EXISTS idx_recurring_payment_history_transaction
+    ON recurring_payment_history (transaction_id);
+
+CREATE INDEX IF NOT EXISTS idx_budgets_user_year_month
+    ON budgets (user_id, budget_year, budget_month);
+
+ANALYZE transactions;
+ANALYZE merchant_patterns;
+ANALYZE user_merchant_patterns;
+ANALYZE recurring_payment_history;
+ANALYZE budgets;
@@ -5,6 +5,7 @@ import com.buckpal.entity.Account;
 import com.buckpal.entity.Transaction;
 import com.buckpal.entity.User;
 import com.buckpal.repository.AccountRepository;
+import com.buckpal.repository.DailyAccountTotalRepository;
 import com.buckpal.repository.TransactionRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,6 +38,9 @@ class TransactionControllerCalendarTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private DailyAccountTotalRepository dailyAccountTotalRepository;
+
     @Mock
     private Authentication authentication;
 
@@ -89,8 +93,8 @@ class TransactionControllerCalendarTest {
 
         when(authentication.getPrincipal()).thenReturn(testUser);
         when(accountRepository.findByUser(testUser)).thenReturn(userAccounts);
-        when(transactionRepository.findCalendarDataRawByAccountsAndDateRange(
-            eq(userAccounts), 
+        when(dailyAccountTotalRepository.findCalendarTotalsByAccountsAndDateRange(
+            eq(List.of(1L)), 
             eq(startDate), 
             eq(endDate)
         )).thenReturn(expectedCalendarData);
@@ -116,8 +120,8 @@ class TransactionControllerCalendarTest {
                 .andExpect(jsonPath("$[1].transactionCount").value(2));
 
         verify(accountRepository).findByUser(testUser);
-        verify(transactionRepository).findCalendarDataRawByAccountsAndDateRange(
-            eq(userAccounts), eq(startDate), eq(endDate)
+        verify(dailyAccountTotalRepository).findCalendarTotalsByAccountsAndDateRange(
+            eq(List.of(1L)), eq(startDate), eq(endDate)
         );
     }
 
@@ -146,8 +150,8 @@ class TransactionControllerCalendarTest {
 
         when(authentication.getPrincipal()).thenReturn(testUser);
         when(accountRepository.findByUser(testUser)).thenReturn(userAccounts);
-        when(transactionRepository.findCalendarDataRawByAccountsAndDateRange(
-            eq(userAccounts), 
+        when(dailyAccountTotalRepository.findCalendarTotalsByAccountsAndDateRange(
+            eq(List.of(1L)), 
             eq(startDate), 
             eq(endDate)
         )).thenReturn(emptyCalendarData);
@@ -1,10 +1,13 @@
 package com.buckpal.controller;
 
+import com.buckpal.dto.TransactionCursor;
 import com.buckpal.dto.TransactionDto;
+import com.buckpal.dto.csv.CsvImportResult;
 import com.buckpal.entity.Account;
 import com.buckpal.entity.Category;
 import com.buckpal.entity.Transaction;
 import com.buckpal.entity.User;
+import com.buckpal.exception.BusinessException;
 import com.buckpal.repository.AccountRepository;
 import com.buckpal.repository.TransactionRepository;
 import com.buckpal.service.CategoryService;
@@ -36,6 +39,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -158,6 +163,86 @@ class TransactionControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /api/transactions?after=")
+    class GetTransactionsAfterCursor {
+        
+        @Test
+        @DisplayName("Should fetch one extra row and return a cursor on the last returned row")
+        void shouldReturnNextCursorWhenMoreRowsExist() throws Exception {
+            // Given
+            List<Account> userAccounts = List.of(testAccount);
+            Transaction newest = transaction(3L, LocalDate.of(2024, 3, 2));
+            Transaction middle = transaction(2L, LocalDate.of(2024, 3, 1));
+            Transaction oldest = transaction(1L, LocalDate.of(2024, 3, 1));
+            
+            when(authentication.getPrincipal()).thenReturn(testUser);
+            when(accountRepository.findByUser(testUser)).thenReturn(userAccounts);
+            when(transactionRepository.findByAccountsOrderByTransactionDateDescIdDesc(userAccounts, PageRequest.of(0, 3)))
+                .thenReturn(List.of(newest, middle, oldest));
+            
+            // When & Then
+            String expectedCursor = new TransactionCursor(LocalDate.of(2024, 3, 1), 2L).encode();
+            mockMvc.perform(get("/api/transactions")
+                    .principal(authentication)
+                    .param("after", "")
+                    .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(2))
+                    .andExpect(jsonPath("$.content[1].id").value(2))
+                    .andExpect(jsonPath("$.nextCursor").value(expectedCursor))
+                    .andExpect(jsonPath("$.hasNext").value(true));
+            
+            verify(transactionRepository, never()).findByAccountsOrderByTransactionDateDesc(any(), any());
+        }
+        
+        @Test
+        @DisplayName("Should seek past the cursor and return no cursor on the last page")
+        void shouldSeekPastCursor() throws Exception {
+            // Given
+            List<Account> userAccounts = List.of(testAccount);
+            String cursor = new TransactionCursor(LocalDate.of(2024, 3, 1), 2L).encode();
+            
+            when(authentication.getPrincipal()).thenReturn(testUser);
+            when(accountRepository.findByUser(testUser)).thenReturn(userAccounts);
+            when(transactionRepository.findByAccountsAfterCursor(
+                    userAccounts, LocalDate.of(2024, 3, 1), 2L, PageRequest.of(0, 21)))
+                .thenReturn(List.of(transaction(1L, LocalDate.of(2024, 3, 1))));
+            
+            // When & Then
+            mockMvc.perform(get("/api/transactions")
+                    .principal(authentication)
+                    .param("after", cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].id").value(1))
+                    .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                    .andExpect(jsonPath("$.hasNext").value(false));
+        }
+        
+        @Test
+        @DisplayName("Should decode both the opaque and the plain date,id cursor")
+        void shouldDecodeCursorForms() {
+            TransactionCursor cursor = new TransactionCursor(LocalDate.of(2024, 3, 1), 42L);
+            
+            assertThat(TransactionCursor.decode(cursor.encode()).getTransactionDate()).isEqualTo(LocalDate.of(2024, 3, 1));
+            assertThat(TransactionCursor.decode(cursor.encode()).getId()).isEqualTo(42L);
+            assertThat(TransactionCursor.decode("2024-03-01,42").getId()).isEqualTo(42L);
+            assertThatThrownBy(() -> TransactionCursor.decode("not-a-cursor"))
+                .isInstanceOf(BusinessException.class);
+        }
+        
+        private Transaction transaction(Long id, LocalDate date) {
+            Transaction transaction = new Transaction();
+            transaction.setId(id);
+            transaction.setAmount(new BigDecimal("10.00"));
+            transaction.setDescription("Transaction " + id);
+            transaction.setTransactionDate(date);
+            transaction.setTransactionType(Transaction.TransactionType.EXPENSE);
+            transaction.setAccount(testAccount);
+            return transaction;
+        }
+    }
+
     @Nested
     @DisplayName("GET /api/transactions/account/{accountId}")
     class GetTransactionsByAccount {
@@ -259,25 +344,26 @@ class TransactionControllerTest {
                 "date,amount,description\n2024-01-01,100.00,Test".getBytes()
             );
             
-            List<Transaction> importedTransactions = List.of(testTransaction);
+            CsvImportResult importResult = new CsvImportResult();
+            importResult.setTotalProcessed(1);
+            importResult.setSuccessfulImports(1);
+            importResult.setRowsPerSecond(250.0);
             
             when(authentication.getPrincipal()).thenReturn(testUser);
             when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
-            when(csvImportService.importTransactionsFromCsv(any(MultipartFile.class), eq(1L)))
-                .thenReturn(importedTransactions);
-            when(categoryService.categorizeTransaction(any(Transaction.class))).thenReturn(testCategory);
-            when(transactionService.createTransaction(any(Transaction.class))).thenReturn(testTransaction);
+            when(csvImportService.importTransactionsStreaming(any(MultipartFile.class), eq(1L)))
+                .thenReturn(importResult);
             
             // When & Then
             mockMvc.perform(multipart("/api/transactions/import-csv/1")
                     .file(csvFile)
                     .principal(authentication))
                     .andExpect(status().isOk())
-                    .andExpect(content().string("Imported 1 transactions"));
+                    .andExpect(jsonPath("$.successfulImports").value(1))
+                    .andExpect(jsonPath("$.rowsPerSecond").value(250.0));
             
-            verify(csvImportService).importTransactionsFromCsv(any(MultipartFile.class), eq(1L));
-            verify(categoryService).categorizeTransaction(any(Transaction.class));
-            verify(transactionService).createTransaction(any(Transaction.class));
+            verify(csvImportService).importTransactionsStreaming(any(MultipartFile.class), eq(1L));
+            verify(transactionService, never()).createTransaction(any(Transaction.class));
         }
         
         @Test
@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 class RecurringPaymentTest {
@@ -90,6 +91,71 @@ class RecurringPaymentTest {
         assertEquals(new BigDecimal("1200.00"), totalRemaining);
     }
 
+    @Test
+    void testMonthEndStartIsClampedFromTheStartDate() {
+        recurringPayment.setStartDate(LocalDate.of(2024, 1, 31));
+        
+        List<LocalDate> paymentDates = recurringPayment.getPaymentDatesInPeriod(
+            LocalDate.of(2024, 1, 1), LocalDate.of(2024, 4, 30));
+        
+        assertEquals(List.of(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 29),
+            LocalDate.of(2024, 3, 31), LocalDate.of(2024, 4, 30)), paymentDates);
+        assertEquals(LocalDate.of(2024, 3, 31), recurringPayment.getNextPaymentDate(LocalDate.of(2024, 2, 29)));
+    }
+
+    @Test
+    void testWindowFarFromStartMatchesStepByStepSchedule() {
+        LocalDate start = LocalDate.of(1990, 5, 17);
+        LocalDate windowStart = LocalDate.of(2030, 2, 1);
+        LocalDate windowEnd = LocalDate.of(2030, 7, 31);
+        recurringPayment.setStartDate(start);
+        
+        for (RecurringPayment.PaymentFrequency frequency : RecurringPayment.PaymentFrequency.values()) {
+            recurringPayment.setFrequency(frequency);
+            
+            List<LocalDate> expected = new ArrayList<>();
+            for (int k = 0; ; k++) {
+                LocalDate date = frequency.isWeekly()
+                    ? start.plusWeeks(k) : start.plusMonths((long) k * frequency.getMonthsInterval());
+                if (date.isAfter(windowEnd)) break;
+                if (!date.isBefore(windowStart)) expected.add(date);
+            }
+            
+            assertEquals(expected, recurringPayment.getPaymentDatesInPeriod(windowStart, windowEnd), frequency.name());
+        }
+    }
+
+    @Test
+    void testEndDateAndRemainingPaymentsBoundTheSchedule() {
+        recurringPayment.setStartDate(LocalDate.of(2024, 1, 10));
+        recurringPayment.setFrequency(RecurringPayment.PaymentFrequency.WEEKLY);
+        recurringPayment.setEndDate(LocalDate.of(2024, 3, 1));
+        
+        assertEquals(8, recurringPayment.getTotalRemainingPayments(LocalDate.of(2024, 1, 1)));
+        assertEquals(new BigDecimal("800.00"), recurringPayment.getTotalRemainingAmount(LocalDate.of(2024, 1, 1)));
+        assertNull(recurringPayment.getNextPaymentDate(LocalDate.of(2024, 2, 28)));
+        
+        recurringPayment.setRemainingPayments(3);
+        assertEquals(new BigDecimal("300.00"), recurringPayment.getTotalRemainingAmount(LocalDate.of(2024, 1, 1)));
+    }
+
+    @Test
+    void testTotalRemainingAmountAppliesEscalationPerYear() {
+        recurringPayment.setStartDate(LocalDate.of(2023, 7, 1));
+        recurringPayment.setEndDate(LocalDate.of(2025, 6, 30));
+        recurringPayment.setEscalationRate(new BigDecimal("10"));
+        
+        BigDecimal expected = BigDecimal.ZERO;
+        for (LocalDate date : recurringPayment.getPaymentDatesInPeriod(LocalDate.of(2024, 1, 1), LocalDate.of(2025, 6, 30))) {
+            expected = expected.add(recurringPayment.getAmountForDate(date));
+        }
+        
+        // 6 payments of 100.00, then 12 of 110.00
+        assertEquals(new BigDecimal("1920.00"), expected);
+        assertEquals(expected, recurringPayment.getTotalRemainingAmount(LocalDate.of(2024, 1, 1)));
+        assertEquals(new BigDecimal("110.00"), recurringPayment.getAmountForDate(LocalDate.of(2025, 6, 30)));
+    }
+
     @Test
     void testPaymentTypeProperties() {
         RecurringPayment.PaymentType income = RecurringPayment.PaymentType.INCOME;
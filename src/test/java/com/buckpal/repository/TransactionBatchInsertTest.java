@@ -0,0 +1,135 @@
+package com.buckpal.repository;
+
+import com.buckpal.entity.Account;
+import com.buckpal.entity.Transaction;
+import com.buckpal.entity.User;
+import com.buckpal.service.PlaidService;
+import com.plaid.client.model.TransactionsGetRequest;
+import com.plaid.client.model.TransactionsGetResponse;
+import com.plaid.client.request.PlaidApi;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that transaction ingestion (CSV chunks and Plaid syncs) is written as JDBC batches
+ * now that Transaction ids come from a pooled sequence instead of IDENTITY. The Plaid case runs
+ * the real sync path against a stubbed Plaid API.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.jdbc.batch_size=20",
+    "spring.jpa.properties.hibernate.order_inserts=true",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(PlaidService.class)
+@ActiveProfiles("test")
+@DisplayName("Transaction batch insert benchmark")
+class TransactionBatchInsertTest {
+
+    private static final int ROWS = 500;
+    private static final String PLAID_ACCOUNT_ID = "plaid-checking";
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlaidService plaidService;
+
+    private Account account;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User("Batch", "User", "batch@example.com", "hashedpassword");
+        entityManager.persist(user);
+
+        account = new Account("Checking", Account.AccountType.CHECKING, user);
+        account.setPlaidAccountId(PLAID_ACCOUNT_ID);
+        entityManager.persistAndFlush(account);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("CSV chunk inserts are batched")
+    void csvChunkInsertsAreBatched() {
+        List<Transaction> chunk = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Transaction transaction = new Transaction(new BigDecimal("12.50"), "CSV row " + i,
+                LocalDate.of(2024, 1, 1).plusDays(i % 365), Transaction.TransactionType.EXPENSE, account);
+            chunk.add(transaction);
+        }
+
+        transactionRepository.saveAll(chunk);
+        entityManager.flush();
+
+        assertBatched();
+    }
+
+    @Test
+    @DisplayName("Plaid sync inserts are batched")
+    void plaidSyncInsertsAreBatched() throws IOException {
+        // Given
+        TransactionsGetResponse response = new TransactionsGetResponse();
+        for (int i = 0; i < ROWS; i++) {
+            response.addTransactionsItem(new com.plaid.client.model.Transaction()
+                .transactionId("plaid-" + i)
+                .accountId(PLAID_ACCOUNT_ID)
+                .amount(42.0)
+                .name("Plaid row " + i)
+                .date(LocalDate.of(2024, 1, 1).plusDays(i % 365))
+                .pending(false));
+        }
+        @SuppressWarnings("unchecked")
+        Call<TransactionsGetResponse> call = mock(Call.class);
+        when(call.execute()).thenReturn(Response.success(response));
+        PlaidApi plaidApi = mock(PlaidApi.class);
+        when(plaidApi.transactionsGet(any(TransactionsGetRequest.class))).thenReturn(call);
+        ReflectionTestUtils.setField(plaidService, "plaidApi", plaidApi);
+
+        // When
+        List<Transaction> synced = plaidService.syncTransactions("access-token",
+            LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31));
+        entityManager.flush();
+
+        // Then
+        assertThat(synced).hasSize(ROWS);
+        assertBatched();
+    }
+
+    private void assertBatched() {
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+        // IDENTITY would need one INSERT per row; batch_size=20 plus allocationSize=50
+        // gives ~25 insert batches and ~10 sequence calls
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(ROWS / 5);
+    }
+}
@@ -0,0 +1,277 @@
+package com.buckpal.repository;
+
+import com.buckpal.dto.TransactionSearchCriteria;
+import com.buckpal.entity.Account;
+import com.buckpal.entity.Category;
+import com.buckpal.entity.Transaction.AssignmentStatus;
+import com.buckpal.entity.User;
+import com.buckpal.service.TransactionSearchService;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Query planner check for the transaction search, against a real PostgreSQL.
+ *
+ * Builds a scratch schema with a user owning 200k transactions (plus noise from other users),
+ * applies V2__transaction_search_indexes.sql, runs each search shape through
+ * {@link TransactionSearchService} and EXPLAINs the SQL Hibernate generated for it, captured by a
+ * statement inspector (criteria values are inlined, so the statement can be explained as is). Fails
+ * if a plan scans transactions sequentially or exceeds the latency budget. Runs only when
+ * BUCKPAL_PG_TEST_URL points to a disposable database, e.g. jdbc:postgresql://localhost:5432/buckpal_test
+ * (credentials from BUCKPAL_PG_TEST_USER/PASSWORD).
+ */
+@EnabledIfEnvironmentVariable(named = "BUCKPAL_PG_TEST_URL", matches = ".+")
+@DataJpaTest(properties = {
+    "spring.datasource.url=${BUCKPAL_PG_TEST_URL}",
+    "spring.datasource.username=${BUCKPAL_PG_TEST_USER:buckpal}",
+    "spring.datasource.password=${BUCKPAL_PG_TEST_PASSWORD:buckpal}",
+    "spring.datasource.driver-class-name=org.postgresql.Driver",
+    "spring.datasource.hikari.connection-init-sql=CREATE SCHEMA IF NOT EXISTS "
+        + TransactionSearchQueryPlanTest.SCHEMA + "; SET search_path TO " + TransactionSearchQueryPlanTest.SCHEMA + ", public",
+    "spring.jpa.hibernate.ddl-auto=create",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+    "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TransactionSearchService.class, TransactionSearchQueryPlanTest.SqlCaptureConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Transaction search query plans (PostgreSQL)")
+class TransactionSearchQueryPlanTest {
+
+    static final String SCHEMA = "search_plan_test";
+    private static final long BUDGET_MS = 50;
+
+    @TestConfiguration
+    static class SqlCaptureConfiguration {
+        @Bean
+        CapturingStatementInspector capturingStatementInspector() {
+            return new CapturingStatementInspector();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspectorCustomizer(CapturingStatementInspector inspector) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+
+    /**
+     * Records every SQL statement Hibernate prepares.
+     */
+    static class CapturingStatementInspector implements StatementInspector {
+        private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        void clear() {
+            statements.clear();
+        }
+
+        List<String> statements() {
+            return new ArrayList<>(statements);
+        }
+    }
+
+    @Autowired
+    private TransactionSearchService searchService;
+
+    @Autowired
+    private CapturingStatementInspector inspector;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+    private User user;
+    private List<Long> userAccountIds;
+    private Long searchedCategoryId;
+
+    @BeforeAll
+    void createData() throws SQLException {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        List<Long> otherAccountIds = new ArrayList<>();
+        List<Long> categoryIds = new ArrayList<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            user = userRepository.save(new User("Search", "User", "search-plan@example.com", "hashedpassword"));
+            User other = userRepository.save(new User("Other", "User", "search-plan-other@example.com", "hashedpassword"));
+            userAccountIds = List.of(
+                accountRepository.save(new Account("Checking", Account.AccountType.CHECKING, user)).getId(),
+                accountRepository.save(new Account("Savings", Account.AccountType.SAVINGS, user)).getId());
+            for (int i = 0; i < 38; i++) {
+                otherAccountIds.add(accountRepository.save(new Account("Other " + i, Account.AccountType.CHECKING, other)).getId());
+            }
+            for (int i = 0; i < 300; i++) {
+                categoryIds.add(categoryRepository.save(new Category("Category " + i, null)).getId());
+            }
+        });
+        searchedCategoryId = categoryIds.get(42);
+
+        // The searched user's 2 accounts hold 200k rows, the 38 others 10k each
+        jdbcTemplate.execute("""
+            INSERT INTO transactions (id, account_id, category_id, amount, description, merchant_name,
+                                      transaction_date, transaction_type, assignment_status, is_pending,
+                                      needs_review, created_at)
+            SELECT g,
+                   CASE WHEN g <= 200000 THEN (%s)[1 + g %% 2] ELSE (%s)[1 + g %% 38] END,
+                   CASE WHEN g %% 10 = 0 THEN NULL ELSE (%s)[1 + g %% 300] END,
+                   round((g %% 100000) / 100.0, 2),
+                   'CARTE ' || md5(g::text) || CASE WHEN g %% 5000 = 0 THEN ' PHARMACIE' ELSE '' END,
+                   CASE WHEN g %% 3 = 0 THEN NULL ELSE 'MERCHANT ' || (g %% 20000) END,
+                   DATE '2010-01-01' + (g %% 5000),
+                   CASE WHEN g %% 20 = 0 THEN 'INCOME' ELSE 'EXPENSE' END,
+                   CASE WHEN g %% 50 = 0 THEN 'NEEDS_REVIEW' ELSE 'AUTO_ASSIGNED' END,
+                   false, false, now()
+            FROM generate_series(1, 580000) g""".formatted(
+                array(userAccountIds), array(otherAccountIds), array(categoryIds)));
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V2__transaction_search_indexes.sql"));
+        }
+    }
+
+    @AfterAll
+    void dropData() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+    }
+
+    Stream<Arguments> searches() {
+        return Stream.of(
+            search("text", criteria -> criteria.setQuery("pharmacie")),
+            search("amount range", criteria -> {
+                criteria.setMinAmount(new BigDecimal("999.00"));
+                criteria.setMaxAmount(new BigDecimal("999.99"));
+            }),
+            search("date range", criteria -> {
+                criteria.setStartDate(LocalDate.of(2023, 6, 1));
+                criteria.setEndDate(LocalDate.of(2023, 6, 30));
+            }),
+            search("category since", criteria -> {
+                criteria.setCategoryId(searchedCategoryId);
+                criteria.setStartDate(LocalDate.of(2023, 1, 1));
+            }),
+            search("needs review since", criteria -> {
+                criteria.setAssignmentStatus(AssignmentStatus.NEEDS_REVIEW);
+                criteria.setStartDate(LocalDate.of(2023, 1, 1));
+            }),
+            search("default page", criteria -> {}),
+            search("default page of one account", criteria -> criteria.setAccountId(userAccountIds.get(0))));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("searches")
+    @DisplayName("Searches built by TransactionSpecifications use an index")
+    void searchUsesIndex(String name, Consumer<TransactionSearchCriteria> filters) {
+        TransactionSearchCriteria criteria = new TransactionSearchCriteria();
+        filters.accept(criteria);
+
+        inspector.clear();
+        searchService.search(user, criteria);
+
+        assertIndexed(bindRemainingParameters(pageQuery(), criteria));
+    }
+
+    private Arguments search(String name, Consumer<TransactionSearchCriteria> filters) {
+        return Arguments.of(name, filters);
+    }
+
+    /**
+     * The row query of the page (the count query, when issued, has no ORDER BY).
+     */
+    private String pageQuery() {
+        return inspector.statements().stream()
+            .filter(sql -> sql.startsWith("select") && sql.contains(" from transactions ") && sql.contains(" order by "))
+            .findFirst()
+            .orElseGet(() -> fail("No search query captured in " + inspector.statements()));
+    }
+
+    /**
+     * Criteria values are inlined; what is left are the page size and, unless inlined too, the account ids.
+     */
+    private String bindRemainingParameters(String sql, TransactionSearchCriteria criteria) {
+        List<Long> accountIds = criteria.getAccountId() != null ? List.of(criteria.getAccountId()) : userAccountIds;
+        List<Object> values = new ArrayList<>();
+        long parameters = sql.chars().filter(c -> c == '?').count();
+        if (parameters == accountIds.size() + 1) {
+            values.addAll(accountIds);
+        } else if (parameters != 1) {
+            fail("Unexpected parameters in " + sql);
+        }
+        values.add(criteria.getSize());
+
+        StringBuilder bound = new StringBuilder();
+        int next = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                bound.append(values.get(next++));
+            } else {
+                bound.append(c);
+            }
+        }
+        return bound.toString();
+    }
+
+    private void assertIndexed(String sql) {
+        String plan = jdbcTemplate.queryForList("EXPLAIN (ANALYZE, FORMAT TEXT) " + sql, String.class).stream()
+            .collect(Collectors.joining("\n"));
+
+        assertThat(plan).as("plan of %s", sql).doesNotContain("Seq Scan on transactions");
+        double executionMs = Double.parseDouble(plan.replaceAll("(?s).*Execution Time: ([0-9.]+) ms.*", "$1"));
+        assertThat(executionMs).as("execution time of %s", sql).isLessThan(BUDGET_MS);
+    }
+
+    private static String array(List<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(",", "ARRAY[", "]::bigint[]"));
+    }
+}
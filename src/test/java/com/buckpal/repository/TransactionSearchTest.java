@@ -0,0 +1,151 @@
+package com.buckpal.repository;
+
+import com.buckpal.dto.TransactionSearchCriteria;
+import com.buckpal.entity.Account;
+import com.buckpal.entity.Category;
+import com.buckpal.entity.Transaction;
+import com.buckpal.entity.Transaction.AssignmentStatus;
+import com.buckpal.entity.Transaction.TransactionType;
+import com.buckpal.entity.User;
+import com.buckpal.exception.BusinessException;
+import com.buckpal.service.TransactionSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import(TransactionSearchService.class)
+@ActiveProfiles("test")
+@DisplayName("Transaction search")
+class TransactionSearchTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+
+    private User user;
+    private Account checking;
+    private Account savings;
+    private Category groceries;
+
+    @BeforeEach
+    void setUp() {
+        user = entityManager.persist(new User("Search", "User", "search@example.com", "hashedpassword"));
+        checking = entityManager.persist(new Account("Checking", Account.AccountType.CHECKING, user));
+        savings = entityManager.persist(new Account("Savings", Account.AccountType.SAVINGS, user));
+        groceries = entityManager.persist(new Category("Groceries", "Food shopping"));
+
+        User other = entityManager.persist(new User("Other", "User", "other@example.com", "hashedpassword"));
+        Account otherAccount = entityManager.persist(new Account("Other", Account.AccountType.CHECKING, other));
+
+        persist(checking, "CARTE CARREFOUR MARKET", "Carrefour", "54.20", LocalDate.of(2024, 3, 2), groceries);
+        persist(checking, "PRLV EDF 100%_FIXE", null, "80.00", LocalDate.of(2024, 3, 5), null);
+        persist(checking, "VIR SALAIRE", "Employer", "2500.00", LocalDate.of(2024, 2, 28), null)
+            .setTransactionType(TransactionType.INCOME);
+        persist(savings, "INTERETS", null, "12.00", LocalDate.of(2024, 1, 1), null)
+            .setAssignmentStatus(AssignmentStatus.MANUALLY_ASSIGNED);
+        persist(otherAccount, "CARTE CARREFOUR CITY", "Carrefour", "9.99", LocalDate.of(2024, 3, 3), groceries);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Text matches description or merchant, case-insensitively, only in the user's accounts")
+    void textSearchIsScopedToUser() {
+        TransactionSearchCriteria criteria = new TransactionSearchCriteria();
+        criteria.setQuery("carrefour");
+
+        Page<Transaction> result = transactionSearchService.search(user, criteria);
+
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent().get(0).getDescription()).isEqualTo("CARTE CARREFOUR MARKET");
+        assertThat(result.getContent().get(0).getCategory().getName()).isEqualTo("Groceries");
+    }
+
+    @Test
+    @DisplayName("LIKE wildcards in the search text are matched literally")
+    void likeWildcardsAreEscaped() {
+        TransactionSearchCriteria criteria = new TransactionSearchCriteria();
+        criteria.setQuery("100%_");
+
+        assertThat(transactionSearchService.search(user, criteria).getContent())
+            .extracting(Transaction::getDescription)
+            .containsExactly("PRLV EDF 100%_FIXE");
+
+        criteria.setQuery("_");
+        assertThat(transactionSearchService.search(user, criteria).getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Filters combine and results follow the requested sort")
+    void filtersCombineAndSort() {
+        TransactionSearchCriteria criteria = new TransactionSearchCriteria();
+        criteria.setAccountId(checking.getId());
+        criteria.setType(TransactionType.EXPENSE);
+        criteria.setMinAmount(new BigDecimal("50"));
+        criteria.setStartDate(LocalDate.of(2024, 3, 1));
+        criteria.setSort("amount");
+        criteria.setDirection("asc");
+
+        assertThat(transactionSearchService.search(user, criteria).getContent())
+            .extracting(Transaction::getDescription)
+            .containsExactly("CARTE CARREFOUR MARKET", "PRLV EDF 100%_FIXE");
+
+        TransactionSearchCriteria byStatus = new TransactionSearchCriteria();
+        byStatus.setAssignmentStatus(AssignmentStatus.MANUALLY_ASSIGNED);
+        assertThat(transactionSearchService.search(user, byStatus).getContent())
+            .extracting(Transaction::getDescription)
+            .containsExactly("INTERETS");
+
+        TransactionSearchCriteria byCategory = new TransactionSearchCriteria();
+        byCategory.setCategoryId(groceries.getId());
+        byCategory.setSort("category");
+        assertThat(transactionSearchService.search(user, byCategory).getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Default sort is newest first")
+    void defaultSortIsNewestFirst() {
+        assertThat(transactionSearchService.search(user, new TransactionSearchCriteria()).getContent())
+            .extracting(Transaction::getTransactionDate)
+            .containsExactly(LocalDate.of(2024, 3, 5), LocalDate.of(2024, 3, 2),
+                LocalDate.of(2024, 2, 28), LocalDate.of(2024, 1, 1));
+    }
+
+    @Test
+    @DisplayName("Unknown sort keys and foreign accounts are rejected")
+    void invalidRequestsAreRejected() {
+        TransactionSearchCriteria badSort = new TransactionSearchCriteria();
+        badSort.setSort("password");
+        assertThatThrownBy(() -> transactionSearchService.search(user, badSort))
+            .isInstanceOf(BusinessException.class);
+
+        TransactionSearchCriteria foreignAccount = new TransactionSearchCriteria();
+        foreignAccount.setAccountId(-1L);
+        assertThatThrownBy(() -> transactionSearchService.search(user, foreignAccount))
+            .hasMessage("Access denied");
+    }
+
+    private Transaction persist(Account account, String description, String merchant, String amount,
+                                LocalDate date, Category category) {
+        Transaction transaction = new Transaction(new BigDecimal(amount), description, date,
+            TransactionType.EXPENSE, account);
+        transaction.setMerchantName(merchant);
+        transaction.setCategory(category);
+        return entityManager.persist(transaction);
+    }
+}
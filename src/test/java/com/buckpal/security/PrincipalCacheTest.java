@@ -0,0 +1,142 @@
+package com.buckpal.security;
+
+import com.buckpal.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Principal cache")
+class PrincipalCacheTest {
+
+    private static final Date ISSUED_AT = new Date(1_700_000_000_000L);
+
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private PrincipalCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        cache = new PrincipalCache(meterRegistry, 2, Duration.ofMinutes(5), clock);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Repeated requests with the same token load the user once and report the hit ratio")
+    void sameTokenHitsTheCache() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(cache.get("john@example.com", ISSUED_AT, this::load).getUsername()).isEqualTo("john@example.com");
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("buckpal.cache.gets").tag("result", "hit").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("buckpal.cache.hit.ratio").gauge().value()).isEqualTo(0.75);
+    }
+
+    @Test
+    @DisplayName("Entries expire after the TTL and a new token is a new entry")
+    void ttlAndIssueTimeKeyTheEntries() {
+        cache.get("john@example.com", ISSUED_AT, this::load);
+        cache.get("john@example.com", new Date(ISSUED_AT.getTime() + 1000), this::load);
+        assertThat(loads.get()).isEqualTo(2);
+
+        clock.advance(Duration.ofMinutes(5));
+        cache.get("john@example.com", ISSUED_AT, this::load);
+
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("A load overtaken by an invalidation of its subject is returned but not cached")
+    void loadRacingInvalidationIsNotCached() {
+        UserDetails stale = cache.get("john@example.com", ISSUED_AT, subject -> {
+            // The password changes and the subject is invalidated while the user is being loaded
+            cache.invalidate(subject);
+            return load(subject);
+        });
+
+        assertThat(stale.getUsername()).isEqualTo("john@example.com");
+        assertThat(cache.size()).isZero();
+        cache.get("john@example.com", ISSUED_AT, this::load);
+        cache.get("john@example.com", ISSUED_AT, this::load);
+        assertThat(loads.get()).isEqualTo(2);
+
+        cache.get("jane@example.com", ISSUED_AT, subject -> {
+            cache.invalidateAll();
+            return load(subject);
+        });
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Invalidation drops every token of the subject; size stays bounded")
+    void invalidationAndBounds() {
+        cache.get("john@example.com", ISSUED_AT, this::load);
+        cache.get("john@example.com", new Date(ISSUED_AT.getTime() + 1000), this::load);
+        cache.get("jane@example.com", ISSUED_AT, this::load);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(meterRegistry.get("buckpal.cache.evictions").counter().count()).isEqualTo(1);
+
+        cache.invalidate("john@example.com");
+        assertThat(cache.size()).isEqualTo(1);
+        cache.get("jane@example.com", ISSUED_AT, this::load);
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Unknown users are not cached")
+    void loaderFailuresAreNotCached() {
+        assertThatThrownBy(() -> cache.get("ghost@example.com", ISSUED_AT, subject -> {
+            throw new UsernameNotFoundException("User Not Found with email: " + subject);
+        })).isInstanceOf(UsernameNotFoundException.class);
+
+        assertThat(cache.size()).isZero();
+    }
+
+    private UserDetails load(String email) {
+        loads.incrementAndGet();
+        User user = new User("John", "Doe", email, "encodedPassword");
+        user.setId((long) loads.get());
+        return user;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.buckpal.security;
+
+import com.buckpal.entity.User;
+import com.buckpal.security.RateLimiter.Decision;
+import com.buckpal.security.RateLimiter.EndpointClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Rate limiter")
+class RateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        rateLimiter = new RateLimiter(meterRegistry,
+            Map.of(EndpointClass.STANDARD, 60, EndpointClass.EXPENSIVE, 3, EndpointClass.AUTH, 10),
+            3, Duration.ofMinutes(10), clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("A bucket admits one minute of requests at once, then refills at the configured rate")
+    void burstThenRefill() {
+        for (int i = 2; i >= 0; i--) {
+            Decision decision = rateLimiter.tryAcquire("user:1", EndpointClass.EXPENSIVE);
+            assertThat(decision.isAdmitted()).isTrue();
+            assertThat(decision.getRemaining()).isEqualTo(i);
+        }
+
+        Decision rejected = rateLimiter.tryAcquire("user:1", EndpointClass.EXPENSIVE);
+        assertThat(rejected.isAdmitted()).isFalse();
+        assertThat(rejected.getRetryAfterSeconds()).isEqualTo(20);
+
+        // Other clients and endpoint classes have their own buckets
+        assertThat(rateLimiter.tryAcquire("user:2", EndpointClass.EXPENSIVE).isAdmitted()).isTrue();
+        assertThat(rateLimiter.tryAcquire("user:1", EndpointClass.STANDARD).isAdmitted()).isTrue();
+
+        clock.advance(Duration.ofSeconds(20));
+        assertThat(rateLimiter.tryAcquire("user:1", EndpointClass.EXPENSIVE).isAdmitted()).isTrue();
+        assertThat(rateLimiter.tryAcquire("user:1", EndpointClass.EXPENSIVE).isAdmitted()).isFalse();
+
+        assertThat(meterRegistry.get("buckpal.ratelimit.requests")
+            .tag("endpoint_class", "expensive").tag("result", "admitted").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("buckpal.ratelimit.requests")
+            .tag("endpoint_class", "expensive").tag("result", "rejected").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Concurrent callers never get more tokens than the bucket holds")
+    void concurrentAcquireIsExact() throws Exception {
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Void>> tasks = Collections.nCopies(8, () -> {
+                for (int i = 0; i < 50; i++) {
+                    if (rateLimiter.tryAcquire("user:1", EndpointClass.STANDARD).isAdmitted()) {
+                        admitted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(admitted.get()).isEqualTo(60);
+    }
+
+    @Test
+    @DisplayName("Idle buckets are evicted and new clients evict the stalest bucket when the map is full")
+    void mapIsBounded() {
+        rateLimiter.tryAcquire("ip:10.0.0.1", EndpointClass.EXPENSIVE);
+        clock.advance(Duration.ofSeconds(1));
+        rateLimiter.tryAcquire("ip:10.0.0.2", EndpointClass.EXPENSIVE);
+        clock.advance(Duration.ofSeconds(1));
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("ip:10.0.0.3", EndpointClass.EXPENSIVE);
+        }
+        assertThat(rateLimiter.bucketCount()).isEqualTo(3);
+
+        // Full map: newcomers get their own bucket, in place of the ones closest to full
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(rateLimiter.tryAcquire("ip:10.0.0.4", EndpointClass.EXPENSIVE).isAdmitted()).isTrue();
+        assertThat(rateLimiter.tryAcquire("ip:10.0.0.5", EndpointClass.EXPENSIVE).isAdmitted()).isTrue();
+        assertThat(rateLimiter.bucketCount()).isEqualTo(3);
+        assertThat(meterRegistry.get("buckpal.ratelimit.evictions").counter().count()).isEqualTo(2);
+
+        // The exhausted client kept its bucket
+        assertThat(rateLimiter.tryAcquire("ip:10.0.0.3", EndpointClass.EXPENSIVE).isAdmitted()).isFalse();
+
+        clock.advance(Duration.ofMinutes(11));
+        assertThat(rateLimiter.tryAcquire("ip:10.0.0.8", EndpointClass.EXPENSIVE).isAdmitted()).isTrue();
+        assertThat(rateLimiter.bucketCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("buckpal.ratelimit.evictions").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("The filter limits per user, classifies expensive POSTs and answers 429 with Retry-After")
+    void filterRejectsWithRetryAfter() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "rateLimiter", rateLimiter);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+
+        User user = new User();
+        user.setId(42L);
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(user, null, List.of()));
+
+        MockHttpServletResponse response = null;
+        for (int i = 0; i < 4; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/intelligent-assignment/bulk-assign");
+            assertThat(filter.classify(request)).isEqualTo(EndpointClass.EXPENSIVE);
+            response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+        }
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("20");
+        assertThat(response.getHeader("X-RateLimit-Remaining")).isEqualTo("0");
+        assertThat(rateLimiter.tryAcquire("user:42", EndpointClass.EXPENSIVE).isAdmitted()).isFalse();
+        assertThat(filter.classify(new MockHttpServletRequest("GET", "/api/intelligent-assignment/bulk-assign")))
+            .isEqualTo(EndpointClass.STANDARD);
+        assertThat(filter.classify(new MockHttpServletRequest("POST", "/api/csv-import/validate")))
+            .isEqualTo(EndpointClass.EXPENSIVE);
+        assertThat(filter.classify(new MockHttpServletRequest("POST", "/api/accounts/7/recalculate-balance")))
+            .isEqualTo(EndpointClass.EXPENSIVE);
+        assertThat(filter.classify(new MockHttpServletRequest("POST", "/api/auth/login")))
+            .isEqualTo(EndpointClass.AUTH);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
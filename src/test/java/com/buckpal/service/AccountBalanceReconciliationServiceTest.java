@@ -0,0 +1,98 @@
+package com.buckpal.service;
+
+import com.buckpal.repository.AccountRepository;
+import com.buckpal.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Account balance reconciliation")
+class AccountBalanceReconciliationServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AccountBalanceReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        reconciliationService = new AccountBalanceReconciliationService(
+            accountRepository, transactionRepository, transactionManager, 2, 2);
+
+        // Accounts 1..5 at version 7; 2, 4 and 5 have drifted
+        when(accountRepository.findAllIds()).thenReturn(List.of(1L, 2L, 3L, 4L, 5L));
+        when(accountRepository.findBalanceStates(anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Object id : (Collection<?>) invocation.getArgument(0)) {
+                Long accountId = (Long) id;
+                BigDecimal stored = accountId == 2L ? new BigDecimal("90.00")
+                    : accountId == 4L ? new BigDecimal("-15.00") : new BigDecimal("100.00");
+                rows.add(new Object[] { accountId, stored, 7L });
+            }
+            return rows;
+        });
+        // Account 5 has no transactions left, so its sum is absent from the result
+        when(transactionRepository.calculateBalancesByAccountIds(anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Object id : (Collection<?>) invocation.getArgument(0)) {
+                if (!id.equals(5L)) {
+                    rows.add(new Object[] { id, id.equals(4L) ? new BigDecimal("-20.00") : new BigDecimal("100.00") });
+                }
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    @DisplayName("Drifted balances are reported and corrected with a versioned update, chunk by chunk")
+    void reportsAndCorrectsDrift() {
+        when(accountRepository.replaceBalance(eq(2L), eq(new BigDecimal("100.00")), eq(7L))).thenReturn(1);
+        when(accountRepository.replaceBalance(eq(4L), eq(new BigDecimal("-20.00")), eq(7L))).thenReturn(0);
+        when(accountRepository.replaceBalance(eq(5L), eq(BigDecimal.ZERO), eq(7L))).thenReturn(1);
+
+        AccountBalanceReconciliationService.ReconciliationReport report = reconciliationService.reconcileAll(true);
+
+        assertThat(report.getAccountsChecked()).isEqualTo(5);
+        assertThat(report.getAccountsWithDrift()).isEqualTo(3);
+        assertThat(report.getAccountsCorrected()).isEqualTo(2);
+        assertThat(report.getConcurrentlyModified()).isEqualTo(1);
+        assertThat(report.getTotalAbsoluteDrift()).isEqualByComparingTo("115.00");
+        assertThat(report.getDrifts()).extracting(AccountBalanceReconciliationService.AccountDrift::getAccountId)
+            .containsExactlyInAnyOrder(2L, 4L, 5L);
+    }
+
+    @Test
+    @DisplayName("A dry run only reports drift")
+    void dryRunDoesNotWrite() {
+        AccountBalanceReconciliationService.ReconciliationReport report = reconciliationService.reconcileAll(false);
+
+        assertThat(report.getAccountsWithDrift()).isEqualTo(3);
+        assertThat(report.getAccountsCorrected()).isZero();
+        verify(accountRepository, never()).replaceBalance(anyLong(), any(), anyLong());
+    }
+}
@@ -0,0 +1,181 @@
+package com.buckpal.service;
+
+import com.buckpal.entity.BulkAssignmentJob;
+import com.buckpal.entity.BulkAssignmentJob.JobStatus;
+import com.buckpal.entity.Category;
+import com.buckpal.entity.MerchantPattern;
+import com.buckpal.entity.User;
+import com.buckpal.entity.UserMerchantPattern;
+import com.buckpal.repository.BulkAssignmentJobRepository;
+import com.buckpal.repository.CategoryRepository;
+import com.buckpal.repository.MerchantPatternRepository;
+import com.buckpal.repository.TransactionRepository;
+import com.buckpal.repository.UserMerchantPatternRepository;
+import com.buckpal.service.pattern.AssignmentCache;
+import com.buckpal.service.pattern.MerchantPatternIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Bulk assignment engine")
+class BulkAssignmentServiceTest {
+
+    private static final int ROWS = 2_500;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private MerchantPatternRepository merchantPatternRepository;
+
+    @Mock
+    private UserMerchantPatternRepository userPatternRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private IntelligentAssignmentMigrationService migrationService;
+
+    @Mock
+    private BulkAssignmentJobRepository jobRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BulkAssignmentService bulkAssignmentService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("Jane", "Doe", "jane@example.com", "password");
+        user.setId(1L);
+
+        MerchantPatternIndex patternIndex = new MerchantPatternIndex(merchantPatternRepository, userPatternRepository, categoryRepository);
+        HybridPatternResolver resolver = new HybridPatternResolver(userPatternRepository, patternIndex, new AssignmentCache());
+        bulkAssignmentService = new BulkAssignmentService(transactionRepository, resolver, patternIndex,
+            migrationService, jobRepository, new ObjectMapper(), transactionManager, 1_000);
+    }
+
+    @Test
+    @DisplayName("Unassigned transactions are read in keyset pages and written with grouped updates")
+    void assignsInPagesWithGroupedUpdates() {
+        UserMerchantPattern personal = new UserMerchantPattern(user, "NETFLIX", 21L, UserMerchantPattern.PatternSource.LEARNED);
+        personal.setId(5L);
+        personal.setConfidenceScore(new BigDecimal("0.95"));
+        MerchantPattern global = new MerchantPattern("CARREFOUR", 10L, 5);
+        global.setId(1L);
+        global.setConfidenceScore(new BigDecimal("0.60"));
+
+        when(userPatternRepository.findByUserOrderByUsageCountDescLastUsedAtDesc(user)).thenReturn(List.of(personal));
+        when(merchantPatternRepository.findAll()).thenReturn(List.of(global));
+        when(categoryRepository.findAllById(any())).thenAnswer(invocation -> List.of(
+            category(10L, "categories.groceries"), category(21L, "categories.entertainment")));
+        when(transactionRepository.countByUserAndDetailedCategoryIdIsNull(user)).thenReturn((long) ROWS);
+        when(transactionRepository.findUnassignedMerchantTextAfter(eq(user), anyLong(), any(Pageable.class)))
+            .thenAnswer(invocation -> page(invocation.getArgument(1), invocation.getArgument(2)));
+        when(transactionRepository.assignDetailedCategory(anyCollection(), eq(21L), any()))
+            .thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+        when(transactionRepository.assignDetailedCategoryForReview(anyCollection(), eq(10L), any()))
+            .thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+
+        BulkAssignmentJob job = new BulkAssignmentJob("job", user.getId());
+        bulkAssignmentService.run(job, user);
+
+        Map<String, Object> status = bulkAssignmentService.describe(job);
+        assertThat(status.get("status")).isEqualTo("COMPLETED");
+        assertThat(status.get("processed")).isEqualTo(ROWS);
+        assertThat(status.get("assigned")).isEqualTo(834);
+        assertThat(status.get("needsReview")).isEqualTo(833);
+        assertThat(status.get("unassigned")).isEqualTo(833);
+        assertThat(status.get("progress")).isEqualTo(1.0);
+        assertThat(status.get("strategyBreakdown")).isEqualTo(Map.of(
+            "PERSONAL_PATTERN", 834, "GLOBAL_PATTERN", 833, "NO_PATTERN_MATCH", 833));
+
+        verify(transactionRepository, times(4)).findUnassignedMerchantTextAfter(eq(user), anyLong(), any(Pageable.class));
+        verify(transactionRepository, times(3)).assignDetailedCategory(anyCollection(), eq(21L), any());
+        verify(transactionRepository, times(3)).assignDetailedCategoryForReview(anyCollection(), eq(10L), any());
+        verify(transactionRepository, never()).save(any());
+        verify(migrationService).ensurePatternsMigrated();
+        // Progress is persisted once counted, with each page, and at the end
+        verify(jobRepository, times(5)).save(job);
+    }
+
+    @Test
+    @DisplayName("Job status is read back from the database, so any node can report it")
+    void statusIsReadFromTheDatabase() {
+        BulkAssignmentJob persisted = new BulkAssignmentJob("job", user.getId());
+        persisted.setTotalTransactions(2_000);
+        persisted.setProcessed(1_000);
+        persisted.setAssigned(600);
+        persisted.setNeedsReview(100);
+        persisted.setStrategyCountsJson("{\"PERSONAL_PATTERN\":600,\"GLOBAL_PATTERN\":100,\"NO_PATTERN_MATCH\":300}");
+        when(jobRepository.findByJobIdAndUserId("job", user.getId())).thenReturn(Optional.of(persisted));
+
+        Map<String, Object> status = bulkAssignmentService.findJob("job", user)
+            .map(bulkAssignmentService::describe)
+            .orElseThrow();
+
+        assertThat(status.get("status")).isEqualTo("RUNNING");
+        assertThat(status.get("progress")).isEqualTo(0.5);
+        assertThat(status.get("unassigned")).isEqualTo(300);
+        assertThat(status.get("strategyBreakdown")).isEqualTo(Map.of(
+            "PERSONAL_PATTERN", 600, "GLOBAL_PATTERN", 100, "NO_PATTERN_MATCH", 300));
+    }
+
+    @Test
+    @DisplayName("A running job of the user is returned instead of starting another, once abandoned ones are failed")
+    void runningJobIsReused() {
+        BulkAssignmentJob running = new BulkAssignmentJob("running", user.getId());
+        when(jobRepository.findByUserIdAndStatus(user.getId(), JobStatus.RUNNING)).thenReturn(List.of(running));
+
+        assertThat(bulkAssignmentService.startJob(user)).isSameAs(running);
+
+        verify(jobRepository).failAbandoned(eq(JobStatus.RUNNING), eq(JobStatus.FAILED), any(), any(), any());
+        verify(jobRepository, never()).save(any());
+    }
+
+    private List<Object[]> page(Long afterId, Pageable pageable) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = afterId + 1; id <= ROWS && rows.size() < pageable.getPageSize(); id++) {
+            String description = switch ((int) ((id - 1) % 3)) {
+                case 0 -> "Prlv NETFLIX.COM";
+                case 1 -> "CB CARREFOUR CITY 12/03";
+                default -> "Virement loyer";
+            };
+            rows.add(new Object[] { id, null, description });
+        }
+        return rows;
+    }
+
+    private Category category(Long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+}
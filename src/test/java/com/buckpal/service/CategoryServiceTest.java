@@ -6,11 +6,13 @@ import com.buckpal.entity.Transaction;
 import com.buckpal.entity.Transaction.TransactionType;
 import com.buckpal.entity.User;
 import com.buckpal.repository.CategoryRepository;
+import com.buckpal.service.pattern.AssignmentCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -31,6 +33,9 @@ class CategoryServiceTest {
     @Mock
     private CategoryInitializationService categoryInitializationService;
     
+    @Spy
+    private AssignmentCache assignmentCache = new AssignmentCache();
+    
     @InjectMocks
     private CategoryService categoryService;
     
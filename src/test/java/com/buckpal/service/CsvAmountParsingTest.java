@@ -2,9 +2,13 @@ package com.buckpal.service;
 
 import com.buckpal.dto.csv.CsvColumnMappingRequest;
 import com.buckpal.dto.csv.CsvUploadResponse;
+import com.buckpal.service.csv.CsvSessionStore;
+import com.buckpal.service.csv.InMemoryCsvSessionStore;
+import com.buckpal.service.csv.ParallelCsvParser;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
@@ -19,6 +23,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 @ExtendWith(MockitoExtension.class) 
 class CsvAmountParsingTest {
     
+    @Spy
+    private CsvSessionStore csvSessionStore = new InMemoryCsvSessionStore();
+    
+    @Spy
+    private ParallelCsvParser parallelCsvParser = new ParallelCsvParser();
+    
     @InjectMocks
     private CsvImportWizardService csvImportWizardService;
     
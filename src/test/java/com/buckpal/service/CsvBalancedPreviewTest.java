@@ -9,11 +9,15 @@ import com.buckpal.repository.AccountRepository;
 import com.buckpal.repository.CategoryRepository;
 import com.buckpal.repository.CsvMappingTemplateRepository;
 import com.buckpal.repository.TransactionRepository;
+import com.buckpal.service.csv.CsvSessionStore;
+import com.buckpal.service.csv.InMemoryCsvSessionStore;
+import com.buckpal.service.csv.ParallelCsvParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
@@ -38,6 +42,12 @@ class CsvBalancedPreviewTest {
     @Mock
     private CsvMappingTemplateRepository csvMappingTemplateRepository;
     
+    @Spy
+    private CsvSessionStore csvSessionStore = new InMemoryCsvSessionStore();
+    
+    @Spy
+    private ParallelCsvParser parallelCsvParser = new ParallelCsvParser();
+    
     @InjectMocks
     private CsvImportWizardService csvImportWizardService;
     
@@ -7,22 +7,32 @@ import com.buckpal.repository.AccountRepository;
 import com.buckpal.repository.CategoryRepository;
 import com.buckpal.repository.CsvMappingTemplateRepository;
 import com.buckpal.repository.TransactionRepository;
+import com.buckpal.service.csv.CsvImportBatchWriter;
+import com.buckpal.service.csv.CsvSessionStore;
+import com.buckpal.service.csv.InMemoryCsvSessionStore;
+import com.buckpal.service.csv.ParallelCsvParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +50,21 @@ class CsvImportAllTransactionsTest {
     @Mock
     private CsvMappingTemplateRepository csvMappingTemplateRepository;
     
+    @Mock
+    private CsvImportBatchWriter csvImportBatchWriter;
+    
+    @Mock
+    private TransactionService transactionService;
+    
+    @Mock
+    private BudgetService budgetService;
+    
+    @Spy
+    private CsvSessionStore csvSessionStore = new InMemoryCsvSessionStore();
+    
+    @Spy
+    private ParallelCsvParser parallelCsvParser = new ParallelCsvParser();
+    
     @InjectMocks
     private CsvImportWizardService csvImportWizardService;
     
@@ -70,11 +95,7 @@ class CsvImportAllTransactionsTest {
             "04/08/2025;Expense 4;Merchant 4;REF006;Details;Type;Cat;SubCat;15,25;;04/08/2025;04/08/2025;0\n";
         
         when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
-        when(transactionRepository.save(any())).thenAnswer(invocation -> {
-            com.buckpal.entity.Transaction t = invocation.getArgument(0);
-            t.setId(System.currentTimeMillis()); // Set a fake ID
-            return t;
-        });
+        mockBatchWriter();
         
         MockMultipartFile file = new MockMultipartFile(
             "file", "test.csv", "text/csv", csvContent.getBytes());
@@ -118,6 +139,13 @@ class CsvImportAllTransactionsTest {
         assertThat(importResult.getSuccessfulImports()).isEqualTo(6);
         assertThat(importResult.getFailedImports()).isEqualTo(0);
         assertThat(importResult.getSkippedRows()).isEqualTo(0);
+        
+        // Written in one batch call, derived data refreshed once, timings reported per phase
+        verify(csvImportBatchWriter, times(1)).saveInChunks(anyList(), anyInt());
+        verify(transactionService, times(1)).recalculateAccountBalance(testAccount);
+        verify(budgetService, times(1)).recalculateBudgetsForMonths(any(), any());
+        assertThat(importResult.getPhaseTimingsMs())
+            .containsOnlyKeys("validation", "duplicateDetection", "write", "recalculation");
     }
     
     @Test
@@ -133,11 +161,7 @@ class CsvImportAllTransactionsTest {
             "04/08/2025;Expense 4;Merchant 4;REF006;Details;Type;Cat;SubCat;15,25;;04/08/2025;04/08/2025;0\n";
         
         when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
-        when(transactionRepository.save(any())).thenAnswer(invocation -> {
-            com.buckpal.entity.Transaction t = invocation.getArgument(0);
-            t.setId(System.currentTimeMillis()); // Set a fake ID
-            return t;
-        });
+        mockBatchWriter();
         
         MockMultipartFile file = new MockMultipartFile(
             "file", "test.csv", "text/csv", csvContent.getBytes());
@@ -186,11 +210,7 @@ class CsvImportAllTransactionsTest {
             "07/08/2025;Income 1;Company 1;REF003;Details;Type;Cat;SubCat;;1000,00;07/08/2025;07/08/2025;0\n";
         
         when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
-        when(transactionRepository.save(any())).thenAnswer(invocation -> {
-            com.buckpal.entity.Transaction t = invocation.getArgument(0);
-            t.setId(System.currentTimeMillis()); // Set a fake ID
-            return t;
-        });
+        mockBatchWriter();
         
         MockMultipartFile file = new MockMultipartFile(
             "file", "test.csv", "text/csv", csvContent.getBytes());
@@ -226,4 +246,58 @@ class CsvImportAllTransactionsTest {
         assertThat(importResult.getSuccessfulImports()).isEqualTo(2); // 3 total - 1 rejected = 2 imported
         assertThat(importResult.getSkippedRows()).isEqualTo(1); // 1 rejected
     }
-}
\ No newline at end of file
+    
+    @Test
+    void shouldImportDuplicatesWithinTheFileWithWarnings_UnlessRejected() throws IOException {
+        // Given - row 3 repeats row 2 (two identical card payments the same day), row 5 repeats row 4
+        String csvContent = 
+            "Date de comptabilisation;Libelle simplifie;Libelle operation;Reference;Informations complementaires;Type operation;Categorie;Sous categorie;Debit;Credit;Date operation;Date de valeur;Pointage operation\n" +
+            "09/08/2025;Cafe;Merchant 1;REF001;Details;Type;Cat;SubCat;3,50;;09/08/2025;09/08/2025;0\n" +
+            "09/08/2025;Cafe;Merchant 1;REF002;Details;Type;Cat;SubCat;3,50;;09/08/2025;09/08/2025;0\n" +
+            "08/08/2025;Loyer;Agence;REF003;Details;Type;Cat;SubCat;900,00;;08/08/2025;08/08/2025;0\n" +
+            "08/08/2025;Loyer;Agence;REF004;Details;Type;Cat;SubCat;900,00;;08/08/2025;08/08/2025;0\n";
+        
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        mockBatchWriter();
+        
+        MockMultipartFile file = new MockMultipartFile(
+            "file", "test.csv", "text/csv", csvContent.getBytes());
+        
+        CsvUploadResponse uploadResponse = csvImportWizardService.uploadCsv(file);
+        
+        CsvColumnMappingRequest mappingRequest = new CsvColumnMappingRequest();
+        mappingRequest.setSessionId(uploadResponse.getSessionId());
+        mappingRequest.setAccountId(testAccount.getId());
+        mappingRequest.setDateColumnIndex(0);
+        mappingRequest.setDescriptionColumnIndex(1);
+        mappingRequest.setDebitColumnIndex(8);
+        mappingRequest.setCreditColumnIndex(9);
+        
+        CsvPreviewResponse previewResponse = csvImportWizardService.processMappingAndPreview(mappingRequest);
+        
+        // When - the user keeps the second coffee and rejects the repeated rent
+        CsvValidationRequest validationRequest = new CsvValidationRequest();
+        validationRequest.setSessionId(uploadResponse.getSessionId());
+        validationRequest.setApprovedRows(new ArrayList<>());
+        validationRequest.setRejectedRows(Collections.singletonList(5));
+        
+        CsvImportResult importResult = csvImportWizardService.finalizeImport(validationRequest);
+        
+        // Then - flagged in the preview, imported unless rejected, and reported as a warning
+        assertThat(previewResponse.getDuplicateCount()).isEqualTo(2);
+        assertThat(importResult.getSuccessfulImports()).isEqualTo(3);
+        assertThat(importResult.getSkippedRows()).isEqualTo(1);
+        assertThat(importResult.getDuplicateRows()).isEqualTo(1);
+        assertThat(importResult.getErrors()).isEmpty();
+        assertThat(importResult.getWarnings()).containsExactly("Ligne 3: doublon possible de la ligne 2, importée");
+    }
+    
+    private void mockBatchWriter() {
+        AtomicLong ids = new AtomicLong();
+        when(csvImportBatchWriter.saveInChunks(anyList(), anyInt())).thenAnswer(invocation -> {
+            List<com.buckpal.entity.Transaction> transactions = invocation.getArgument(0);
+            transactions.forEach(t -> t.setId(ids.incrementAndGet())); // Set a fake ID
+            return transactions;
+        });
+    }
+}
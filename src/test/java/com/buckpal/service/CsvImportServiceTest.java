@@ -1,28 +1,37 @@
 package com.buckpal.service;
 
+import com.buckpal.dto.csv.CsvImportResult;
 import com.buckpal.entity.Account;
+import com.buckpal.entity.Category;
 import com.buckpal.entity.Transaction;
 import com.buckpal.entity.Transaction.TransactionType;
 import com.buckpal.entity.User;
 import com.buckpal.repository.AccountRepository;
+import com.buckpal.repository.BudgetRepository;
 import com.buckpal.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
@@ -35,6 +44,21 @@ class CsvImportServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
     
+    @Mock
+    private BudgetRepository budgetRepository;
+    
+    @Mock
+    private CategoryService categoryService;
+    
+    @Mock
+    private TransactionService transactionService;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    @Mock
+    private EntityManager entityManager;
+    
     @InjectMocks
     private CsvImportService csvImportService;
     
@@ -113,7 +137,8 @@ class CsvImportServiceTest {
         
         List<Transaction> result = csvImportService.importTransactionsFromCsv(file, 1L);
         
-        assertThat(result).hasSize(2);
+        // Unparseable dates reject the row instead of silently falling back to today
+        assertThat(result).hasSize(1);
         
         Transaction validTransaction = result.stream()
             .filter(t -> "Valid Transaction".equals(t.getDescription()))
@@ -145,6 +170,56 @@ class CsvImportServiceTest {
         assertThat(result.get(1).getTransactionDate()).isEqualTo(LocalDate.of(2023, 2, 12)); // 12/02/2023 now parsed as dd/MM/yyyy (12 Feb)
     }
     
+    @Test
+    void shouldDetectDateAndAmountFormatsOncePerFile() throws IOException {
+        // 03/25/2024 only fits month-first, so the ambiguous 04/02/2024 is read as April 2nd;
+        // the amounts vote for a decimal comma, so 1.234,50 is one thousand two hundred
+        String usDatesFrenchAmounts = "Date;Description;Amount;Merchant\n" +
+                                      "03/25/2024;Rent;-1.234,50;Landlord\n" +
+                                      "04/02/2024;Groceries;-45,20;Market\n" +
+                                      "04/03/2024;Refund;12,00;Store\n";
+        
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        MockMultipartFile file = new MockMultipartFile(
+            "file", "transactions.csv", "text/csv", usDatesFrenchAmounts.getBytes());
+        
+        List<Transaction> result = csvImportService.importTransactionsFromCsv(file, 1L);
+        
+        assertThat(result).hasSize(3);
+        assertThat(result.get(0).getTransactionDate()).isEqualTo(LocalDate.of(2024, 3, 25));
+        assertThat(result.get(0).getAmount()).isEqualTo(new BigDecimal("1234.50"));
+        assertThat(result.get(0).getTransactionType()).isEqualTo(TransactionType.EXPENSE);
+        assertThat(result.get(1).getTransactionDate()).isEqualTo(LocalDate.of(2024, 4, 2));
+        assertThat(result.get(1).getAmount()).isEqualTo(new BigDecimal("45.20"));
+        assertThat(result.get(2).getAmount()).isEqualTo(new BigDecimal("12.00"));
+        assertThat(result.get(2).getTransactionType()).isEqualTo(TransactionType.INCOME);
+    }
+    
+    @Test
+    void shouldRejectAmountsWithTheOtherDecimalSeparator() throws IOException {
+        // The file writes a decimal comma: 12.5 must not be read as 125
+        String mixedFormats = "Date;Description;Amount;Merchant\n" +
+                              "2024-03-01;Groceries;-45,20;Market\n" +
+                              "2024-03-02;Coffee;-12.5;Cafe\n" +
+                              "2024-03-03;Refund;12,00;Store\n" +
+                              "2024-03-04;Rent;-1.234,50;Landlord\n";
+        
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(budgetRepository.findByUserAndBudgetMonthAndBudgetYear(any(User.class), anyInt(), anyInt()))
+            .thenReturn(Optional.empty());
+        
+        MockMultipartFile file = new MockMultipartFile(
+            "file", "transactions.csv", "text/csv", mixedFormats.getBytes());
+        
+        CsvImportResult result = csvImportService.importTransactionsStreaming(file, 1L);
+        
+        assertThat(result.getSuccessfulImports()).isEqualTo(3);
+        assertThat(result.getFailedImports()).isEqualTo(1);
+        assertThat(result.getErrors()).containsExactly("Line 3: unable to parse row");
+    }
+    
     @Test
     void shouldGenerateCsvTemplate() {
         String template = csvImportService.generateCsvTemplate();
@@ -172,4 +247,96 @@ class CsvImportServiceTest {
         assertThat(result.get(0).getAmount()).isEqualTo(new BigDecimal("50.00"));
         assertThat(result.get(1).getAmount()).isEqualTo(new BigDecimal("25.50"));
     }
-}
\ No newline at end of file
+    
+    @Test
+    void shouldStreamImportInChunksAndRefreshBalanceOnce() throws IOException {
+        ReflectionTestUtils.setField(csvImportService, "importChunkSize", 2);
+        
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(transactionRepository.saveAll(anyList())).thenAnswer(assigningIds(new AtomicLong()));
+        when(budgetRepository.findByUserAndBudgetMonthAndBudgetYear(any(User.class), anyInt(), anyInt()))
+            .thenReturn(Optional.empty());
+        
+        MockMultipartFile file = new MockMultipartFile(
+            "file", "transactions.csv", "text/csv", csvContent.getBytes());
+        
+        CsvImportResult result = csvImportService.importTransactionsStreaming(file, 1L);
+        
+        assertThat(result.getTotalProcessed()).isEqualTo(3);
+        assertThat(result.getSuccessfulImports()).isEqualTo(3);
+        assertThat(result.getFailedImports()).isZero();
+        assertThat(result.isPartial()).isFalse();
+        assertThat(result.getImportedTransactionIds()).containsExactly(1L, 2L, 3L);
+        assertThat(result.getRowsPerSecond()).isPositive();
+        
+        // 3 rows with a chunk size of 2 -> two batched writes, each categorized at once and committed on its own
+        verify(transactionRepository, times(2)).saveAll(anyList());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(categoryService, times(2)).categorizeTransactions(anyList());
+        verify(categoryService, never()).categorizeTransaction(any(Transaction.class));
+        verify(transactionManager, times(2)).commit(any());
+        verify(entityManager, times(3)).detach(any(Transaction.class));
+        verify(entityManager, never()).clear();
+        verify(transactionService, times(1)).recalculateAccountBalance(testAccount);
+        // Dec 2023 and Mar 2023 (12/03/2023 parsed as dd/MM/yyyy)
+        verify(budgetRepository, times(2)).findByUserAndBudgetMonthAndBudgetYear(any(User.class), anyInt(), anyInt());
+    }
+    
+    @Test
+    void shouldReportUnparseableRowsInStreamingImport() throws IOException {
+        String invalidCsvContent = "Date,Description,Amount,Merchant\n" +
+                                  "2023-12-01,Valid Transaction,-25.00,Valid Merchant\n" +
+                                  "incomplete-line\n";
+        
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(budgetRepository.findByUserAndBudgetMonthAndBudgetYear(any(User.class), anyInt(), anyInt()))
+            .thenReturn(Optional.empty());
+        
+        MockMultipartFile file = new MockMultipartFile(
+            "file", "transactions.csv", "text/csv", invalidCsvContent.getBytes());
+        
+        CsvImportResult result = csvImportService.importTransactionsStreaming(file, 1L);
+        
+        assertThat(result.getSuccessfulImports()).isEqualTo(1);
+        assertThat(result.getFailedImports()).isEqualTo(1);
+        assertThat(result.isPartial()).isFalse();
+        assertThat(result.getErrors()).containsExactly("Line 3: unable to parse row");
+    }
+    
+    @Test
+    void shouldKeepCommittedChunksAndFlagPartialStreamingImport() throws IOException {
+        ReflectionTestUtils.setField(csvImportService, "importChunkSize", 2);
+        
+        AtomicLong ids = new AtomicLong();
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        when(transactionRepository.saveAll(anyList()))
+            .thenAnswer(assigningIds(ids))
+            .thenThrow(new IllegalStateException("connection lost"));
+        when(budgetRepository.findByUserAndBudgetMonthAndBudgetYear(any(User.class), anyInt(), anyInt()))
+            .thenReturn(Optional.empty());
+        
+        MockMultipartFile file = new MockMultipartFile(
+            "file", "transactions.csv", "text/csv", csvContent.getBytes());
+        
+        CsvImportResult result = csvImportService.importTransactionsStreaming(file, 1L);
+        
+        // The first chunk is committed and kept, the second one is rolled back
+        assertThat(result.isPartial()).isTrue();
+        assertThat(result.getSuccessfulImports()).isEqualTo(2);
+        assertThat(result.getFailedImports()).isEqualTo(1);
+        assertThat(result.getImportedTransactionIds()).containsExactly(1L, 2L);
+        assertThat(result.getErrors()).singleElement().asString()
+            .contains("import stopped (connection lost)", "2 rows imported before this point were kept");
+        verify(transactionManager, times(1)).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionService, times(1)).recalculateAccountBalance(testAccount);
+    }
+    
+    private static Answer<List<Transaction>> assigningIds(AtomicLong ids) {
+        return invocation -> {
+            List<Transaction> transactions = invocation.getArgument(0);
+            transactions.forEach(transaction -> transaction.setId(ids.incrementAndGet()));
+            return transactions;
+        };
+    }
+}
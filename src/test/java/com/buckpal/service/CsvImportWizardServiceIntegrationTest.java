@@ -3,10 +3,13 @@ package com.buckpal.service;
 import com.buckpal.dto.csv.*;
 import com.buckpal.entity.*;
 import com.buckpal.repository.*;
+import com.buckpal.service.csv.ParallelCsvParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
@@ -14,12 +17,18 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -41,6 +50,12 @@ class CsvImportWizardServiceIntegrationTest {
     @Autowired
     private CategoryRepository categoryRepository;
     
+    @Autowired
+    private MultipartProperties multipartProperties;
+    
+    @SpyBean
+    private ParallelCsvParser parallelCsvParser;
+    
     private User testUser;
     private Account testAccount;
     private Category testCategory;
@@ -193,6 +208,47 @@ class CsvImportWizardServiceIntegrationTest {
         assertThat(savedTransaction.getDescription()).isNotBlank();
     }
     
+    @Test
+    void finalizeImport_ShouldKeepRowValues_WhenCorrectionOnlySetsDescription() throws IOException {
+        // Given
+        ClassPathResource resource = new ClassPathResource("09082025_659915.csv");
+        MockMultipartFile file = new MockMultipartFile("file", "transactions.csv", "text/csv",
+                Files.readAllBytes(resource.getFile().toPath()));
+        CsvUploadResponse uploadResponse = csvImportWizardService.uploadCsv(file);
+
+        CsvColumnMappingRequest mappingRequest = new CsvColumnMappingRequest();
+        mappingRequest.setSessionId(uploadResponse.getSessionId());
+        mappingRequest.setAccountId(testAccount.getId());
+        mappingRequest.setDateColumnIndex(0);
+        mappingRequest.setDescriptionColumnIndex(1);
+        mappingRequest.setDebitColumnIndex(8);
+        mappingRequest.setCreditColumnIndex(9);
+        mappingRequest.setSaveMapping(false);
+        CsvPreviewResponse previewResponse = csvImportWizardService.processMappingAndPreview(mappingRequest);
+        CsvPreviewResponse.TransactionPreview corrected = previewResponse.getValidTransactions().get(0);
+
+        CsvValidationRequest.ManualCorrection correction = new CsvValidationRequest.ManualCorrection();
+        correction.setCorrectedDescription("Courses corrigées");
+        CsvValidationRequest validationRequest = new CsvValidationRequest();
+        validationRequest.setSessionId(uploadResponse.getSessionId());
+        validationRequest.setApprovedRows(previewResponse.getValidTransactions().stream()
+                .map(CsvPreviewResponse.TransactionPreview::getRowIndex)
+                .toList());
+        validationRequest.setManualCorrections(Map.of(corrected.getRowIndex(), correction));
+
+        // When
+        CsvImportResult importResult = csvImportWizardService.finalizeImport(validationRequest);
+
+        // Then - la date et le montant de la ligne sont conservés, seule la description change
+        assertThat(importResult.getFailedImports()).isZero();
+        assertThat(importResult.getSuccessfulImports()).isEqualTo(previewResponse.getValidTransactions().size());
+        Transaction savedTransaction = transactionRepository.findAll().stream()
+                .filter(transaction -> "Courses corrigées".equals(transaction.getDescription()))
+                .findFirst().orElseThrow();
+        assertThat(savedTransaction.getTransactionDate()).isEqualTo(corrected.getTransactionDate());
+        assertThat(savedTransaction.getAmount()).isEqualByComparingTo(corrected.getAmount().abs());
+    }
+
     @Test
     void duplicateDetection_ShouldFindExistingTransactions() throws IOException {
         // Given - Créer une transaction existante
@@ -279,4 +335,31 @@ class CsvImportWizardServiceIntegrationTest {
         assertThat(reusedMapping.getDebitColumnIndex()).isEqualTo(2);
         assertThat(reusedMapping.getCreditColumnIndex()).isEqualTo(3);
     }
-}
\ No newline at end of file
+    
+    @Test
+    void uploadCsv_ShouldParseLargeUploadsInParallel_WithinTheMultipartLimit() throws IOException {
+        // Given - Un export d'environ 3 Mo, au-dessus du seuil de parsing parallèle
+        StringBuilder csv = new StringBuilder("Date;Libellé;Montant\n");
+        int rowCount = 0;
+        while (csv.length() < 3 * 1024 * 1024) {
+            rowCount++;
+            csv.append(String.format("%02d/03/2024;Achat carte n°%d été;-%d,50\n", 1 + rowCount % 28, rowCount, rowCount % 500));
+        }
+        byte[] csvContent = csv.toString().getBytes(StandardCharsets.UTF_8);
+        
+        MockMultipartFile file = new MockMultipartFile("file", "export.csv", "text/csv", csvContent);
+        
+        // The upload must be accepted by the multipart limit bound from spring.servlet.multipart
+        assertThat(multipartProperties.getMaxFileSize().toBytes()).isGreaterThan(csvContent.length);
+        assertThat(multipartProperties.getMaxRequestSize().toBytes()).isGreaterThan(csvContent.length);
+        
+        // When
+        CsvUploadResponse response = csvImportWizardService.uploadCsv(file);
+        
+        // Then
+        verify(parallelCsvParser).parse(any(), eq(StandardCharsets.UTF_8), anyInt());
+        assertThat(response.getHeaders()).containsExactly("Date", "Libellé", "Montant");
+        assertThat(response.getTotalRows()).isEqualTo(rowCount);
+        assertThat(response.getPreviewData().get(0)).containsExactly("02/03/2024", "Achat carte n°1 été", "-1,50");
+    }
+}
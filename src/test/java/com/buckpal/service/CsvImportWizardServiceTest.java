@@ -1,6 +1,7 @@
 package com.buckpal.service;
 
 import com.buckpal.dto.csv.CsvColumnMappingRequest;
+import com.buckpal.dto.csv.CsvPreviewResponse;
 import com.buckpal.dto.csv.CsvUploadResponse;
 import com.buckpal.entity.Account;
 import com.buckpal.entity.Transaction;
@@ -9,23 +10,32 @@ import com.buckpal.repository.AccountRepository;
 import com.buckpal.repository.CategoryRepository;
 import com.buckpal.repository.CsvMappingTemplateRepository;
 import com.buckpal.repository.TransactionRepository;
+import com.buckpal.service.csv.CsvSessionStore;
+import com.buckpal.service.csv.InMemoryCsvSessionStore;
+import com.buckpal.service.csv.ParallelCsvParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +53,12 @@ class CsvImportWizardServiceTest {
     @Mock
     private CsvMappingTemplateRepository csvMappingTemplateRepository;
     
+    @Spy
+    private CsvSessionStore csvSessionStore = new InMemoryCsvSessionStore();
+    
+    @Spy
+    private ParallelCsvParser parallelCsvParser = new ParallelCsvParser();
+    
     @InjectMocks
     private CsvImportWizardService csvImportWizardService;
     
@@ -143,22 +159,43 @@ class CsvImportWizardServiceTest {
     }
     
     @Test
-    void findDuplicateTransaction_ShouldDetectDuplicates_WhenSameTransactionExists() {
+    void processMappingAndPreview_ShouldDetectDuplicates_WithSingleFingerprintQuery() throws IOException {
         // Given
-        LocalDate date = LocalDate.of(2023, 12, 1);
-        BigDecimal amount = new BigDecimal("-45.67");
-        String description = "Achat supermarché";
+        String csvContent = "Date,Description,Amount\n" +
+                           "01/12/2023,Achat supermarché,-45.67\n" +
+                           "02/12/2023,Salaire,2500.00\n" +
+                           "02/12/2023,  SALAIRE ,2500";
+        MockMultipartFile file = new MockMultipartFile("file", "test.csv", "text/csv", csvContent.getBytes());
+        CsvUploadResponse uploadResponse = csvImportWizardService.uploadCsv(file);
         
-        Transaction existingTransaction = new Transaction(amount, description, date, 
-                Transaction.TransactionType.EXPENSE, testAccount);
-        existingTransaction.setId(1L);
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(testAccount));
+        List<Object[]> existing = new ArrayList<>();
+        existing.add(new Object[]{7L, LocalDate.of(2023, 12, 1), new BigDecimal("45.67"),
+                Transaction.TransactionType.EXPENSE, "Achat supermarché"});
+        when(transactionRepository.findFingerprintsByAccountIdAndDateRange(
+                1L, LocalDate.of(2023, 12, 1), LocalDate.of(2023, 12, 2)))
+                .thenReturn(existing);
         
-        when(transactionRepository.findByAccountIdAndTransactionDateAndAmountAndDescription(
-                1L, date, amount, description))
-                .thenReturn(Optional.of(existingTransaction));
+        CsvColumnMappingRequest request = new CsvColumnMappingRequest();
+        request.setSessionId(uploadResponse.getSessionId());
+        request.setAccountId(1L);
+        request.setDateColumnIndex(0);
+        request.setDescriptionColumnIndex(1);
+        request.setAmountColumnIndex(2);
+        
+        // When
+        CsvPreviewResponse preview = csvImportWizardService.processMappingAndPreview(request);
         
-        // When testing duplicate detection through the service
-        // Then verify duplicate is detected
+        // Then - one duplicate of a stored transaction, one duplicate within the file
+        assertThat(preview.getDuplicateCount()).isEqualTo(2);
+        assertThat(preview.getDuplicateWarnings().get(0).getRowIndex()).isEqualTo(2);
+        assertThat(preview.getDuplicateWarnings().get(0).getExistingTransactionId()).isEqualTo(7L);
+        assertThat(preview.getDuplicateWarnings().get(1).getRowIndex()).isEqualTo(4);
+        assertThat(preview.getDuplicateWarnings().get(1).getExistingTransactionId()).isNull();
+        assertThat(preview.getDuplicateWarnings().get(1).getDuplicateOfRow()).isEqualTo(3);
+        verify(transactionRepository, times(1)).findFingerprintsByAccountIdAndDateRange(any(), any(), any());
+        verify(transactionRepository, never()).findByAccountIdAndTransactionDateAndAmountAndDescription(
+                any(), any(), any(), any());
     }
     
     @Test
@@ -0,0 +1,143 @@
+package com.buckpal.service;
+
+import com.buckpal.entity.Account;
+import com.buckpal.entity.Category;
+import com.buckpal.entity.IncomeCategory;
+import com.buckpal.entity.Transaction;
+import com.buckpal.entity.User;
+import com.buckpal.service.HistoricalIncomeService.IncomeComparison;
+import com.buckpal.service.HistoricalIncomeService.IncomePattern;
+import com.buckpal.service.HistoricalIncomeService.MonthlyIncomeData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(HistoricalIncomeService.class)
+@ActiveProfiles("test")
+@DisplayName("Historical income analytics")
+class HistoricalIncomeServiceTest {
+
+    @Autowired
+    private HistoricalIncomeService historicalIncomeService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private Account account;
+    private Transaction reviewedDividend;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("Income", "User", "income@example.com", "hashedpassword");
+        entityManager.persist(user);
+        account = new Account("Checking", Account.AccountType.CHECKING, user);
+        entityManager.persist(account);
+
+        for (YearMonth month = YearMonth.of(2022, 1); !month.isAfter(YearMonth.of(2024, 6)); month = month.plusMonths(1)) {
+            income("VIREMENT SALAIRE ACME", "2500.00", month.atDay(28));
+        }
+        income("Dividende XYZ", "120.00", LocalDate.of(2022, 3, 10));
+        reviewedDividend = income("Dividende XYZ", "120.00", LocalDate.of(2023, 3, 10));
+        income("Dividende XYZ", "120.00", LocalDate.of(2024, 3, 10));
+        income("Dividende XYZ", "80.00", LocalDate.of(2023, 4, 10));
+        entityManager.persist(new Transaction(new BigDecimal("900.00"), "Loyer", LocalDate.of(2023, 3, 5),
+            Transaction.TransactionType.EXPENSE, account));
+        entityManager.flush();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Income comparison sums every month of the window from one query, whatever monthsBack is")
+    void incomeComparisonUsesOneQuery() {
+        // When
+        IncomeComparison comparison = historicalIncomeService.getIncomeComparison(user, 6, 2024, 3);
+        long statementsForThreeMonths = statistics.getPrepareStatementCount();
+        statistics.clear();
+        IncomeComparison longComparison = historicalIncomeService.getIncomeComparison(user, 6, 2024, 36);
+        long statementsForThreeYears = statistics.getPrepareStatementCount();
+
+        // Then
+        assertThat(statementsForThreeMonths).isEqualTo(1);
+        assertThat(statementsForThreeYears).isEqualTo(1);
+
+        assertThat(comparison.getMonthlyData())
+            .extracting(MonthlyIncomeData::getMonth, MonthlyIncomeData::getYear)
+            .containsExactly(tuple(6, 2024), tuple(5, 2024), tuple(4, 2024), tuple(3, 2024));
+        assertThat(comparison.getMonthlyData().get(3).getTotalIncome()).isEqualByComparingTo("2620.00");
+        assertThat(comparison.getAverageIncome()).isEqualByComparingTo("2540.00");
+        assertThat(comparison.getVariance()).isEqualByComparingTo("-40.00");
+        assertThat(comparison.getVariancePercentage()).isEqualByComparingTo("-1.57");
+
+        assertThat(longComparison.getMonthlyData()).hasSize(37);
+        // June 2021 is before the first salary
+        assertThat(longComparison.getMonthlyData().get(36).getTotalIncome()).isEqualByComparingTo("0");
+        assertThat(longComparison.getMonthlyData().get(14).getTotalIncome()).isEqualByComparingTo("2580.00");
+    }
+
+    @Test
+    @DisplayName("Recurring patterns group the same month of the previous years by source from one query")
+    void recurringPatternsUseOneQuery() {
+        // Given
+        Category investments = entityManager.persist(new Category("Investissements", null));
+        reviewedDividend.setCategory(investments);
+        reviewedDividend.setAssignmentStatus(Transaction.AssignmentStatus.MANUALLY_ASSIGNED);
+        reviewedDividend.setNeedsReview(true);
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        // When
+        List<IncomePattern> patterns = historicalIncomeService.findRecurringIncomePatterns(user, 3, 2024);
+
+        // Then
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(patterns)
+            .extracting(IncomePattern::getPatternName, IncomePattern::getFrequency, IncomePattern::getSuggestedType)
+            .containsExactly(
+                tuple("Salaire", 2, IncomeCategory.IncomeType.SALARY),
+                tuple("Investissement", 2, IncomeCategory.IncomeType.INVESTMENT));
+        assertThat(patterns.get(0).getTotalAmount()).isEqualByComparingTo("5000.00");
+        assertThat(patterns.get(1).getAverageAmount()).isEqualByComparingTo("120.00");
+        assertThat(patterns.get(1).getTransactions())
+            .extracting(Transaction::getTransactionDate)
+            .containsExactly(LocalDate.of(2023, 3, 10), LocalDate.of(2022, 3, 10));
+        // The transactions are returned as stored, with their category already loaded
+        Transaction dividend = patterns.get(1).getTransactions().get(0);
+        assertThat(dividend.getAssignmentStatus()).isEqualTo(Transaction.AssignmentStatus.MANUALLY_ASSIGNED);
+        assertThat(dividend.getNeedsReview()).isTrue();
+        assertThat(dividend.getCreatedAt()).isNotNull();
+        assertThat(Hibernate.isInitialized(dividend.getCategory())).isTrue();
+        assertThat(dividend.getCategory().getName()).isEqualTo("Investissements");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private Transaction income(String description, String amount, LocalDate date) {
+        return entityManager.persist(new Transaction(new BigDecimal(amount), description, date,
+            Transaction.TransactionType.INCOME, account));
+    }
+}
@@ -0,0 +1,133 @@
+package com.buckpal.service;
+
+import com.buckpal.entity.DataMigrationMarker;
+import com.buckpal.entity.MerchantPattern;
+import com.buckpal.repository.CategoryRepository;
+import com.buckpal.repository.DataMigrationMarkerRepository;
+import com.buckpal.repository.MerchantPatternRepository;
+import com.buckpal.service.pattern.MerchantPatternIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Intelligent assignment pattern migration")
+class IntelligentAssignmentMigrationServiceTest {
+
+    @Mock
+    private MerchantPatternRepository merchantPatternRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private MerchantPatternIndex patternIndex;
+
+    @Mock
+    private DataMigrationMarkerRepository markerRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IntelligentAssignmentMigrationService migrationService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        migrationService = new IntelligentAssignmentMigrationService(
+            merchantPatternRepository, categoryRepository, patternIndex, markerRepository, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Migration runs once and records its version, later calls only read the cached flag")
+    void migrationRunsOnceThenIsCached() {
+        when(markerRepository.findById(IntelligentAssignmentMigrationService.PATTERN_MIGRATION)).thenReturn(Optional.empty());
+        when(merchantPatternRepository.count()).thenReturn(12L);
+        when(merchantPatternRepository.findByCategoryIdIsNull()).thenReturn(List.<MerchantPattern>of());
+
+        for (int i = 0; i < 5_000; i++) {
+            migrationService.ensurePatternsMigrated();
+        }
+
+        verify(merchantPatternRepository, times(1)).findByCategoryIdIsNull();
+        verify(markerRepository, times(1)).findById(any());
+        verify(markerRepository).save(any(DataMigrationMarker.class));
+        assertThat(counter("executed")).isEqualTo(1);
+        assertThat(counter("cached")).isEqualTo(4_999);
+    }
+
+    @Test
+    @DisplayName("An up-to-date persisted marker skips the migration entirely")
+    void persistedMarkerSkipsMigration() {
+        when(markerRepository.findById(IntelligentAssignmentMigrationService.PATTERN_MIGRATION)).thenReturn(Optional.of(
+            new DataMigrationMarker(IntelligentAssignmentMigrationService.PATTERN_MIGRATION,
+                IntelligentAssignmentMigrationService.PATTERN_MIGRATION_VERSION)));
+
+        migrationService.ensurePatternsMigrated();
+        migrationService.ensurePatternsMigrated();
+
+        verify(merchantPatternRepository, never()).count();
+        verify(merchantPatternRepository, never()).findByCategoryIdIsNull();
+        verify(markerRepository, never()).save(any());
+        assertThat(counter("executed")).isZero();
+    }
+
+    @Test
+    @DisplayName("On a fresh database without categories no marker is written and the next call retries")
+    void freshDatabaseWithoutCategoriesIsRetried() {
+        when(markerRepository.findById(IntelligentAssignmentMigrationService.PATTERN_MIGRATION)).thenReturn(Optional.empty());
+        when(categoryRepository.findByName(any())).thenReturn(Optional.empty());
+        when(merchantPatternRepository.count()).thenReturn(0L);
+        when(merchantPatternRepository.findByCategoryIdIsNull()).thenReturn(List.<MerchantPattern>of());
+
+        migrationService.ensurePatternsMigrated();
+        migrationService.ensurePatternsMigrated();
+
+        verify(merchantPatternRepository, never()).save(any());
+        verify(markerRepository, never()).save(any());
+        verify(markerRepository, times(2)).findById(any());
+        assertThat(counter("executed")).isEqualTo(2);
+        assertThat(counter("cached")).isZero();
+    }
+
+    @Test
+    @DisplayName("Patterns that could not be migrated leave the marker unwritten until they succeed")
+    void failedPatternsAreRetried() {
+        MerchantPattern legacy = new MerchantPattern();
+        legacy.setPattern("BOULANGERIE");
+        legacy.setCategoryName("Boulangerie");
+        when(markerRepository.findById(IntelligentAssignmentMigrationService.PATTERN_MIGRATION)).thenReturn(Optional.empty());
+        when(merchantPatternRepository.count()).thenReturn(12L);
+        when(merchantPatternRepository.findByCategoryIdIsNull())
+            .thenReturn(List.of(legacy))
+            .thenReturn(List.<MerchantPattern>of());
+        when(categoryRepository.findByName("Boulangerie")).thenReturn(Optional.empty());
+
+        migrationService.ensurePatternsMigrated();
+        verify(markerRepository, never()).save(any());
+
+        migrationService.ensurePatternsMigrated();
+        migrationService.ensurePatternsMigrated();
+
+        verify(markerRepository).save(any(DataMigrationMarker.class));
+        verify(merchantPatternRepository, times(2)).findByCategoryIdIsNull();
+        assertThat(counter("executed")).isEqualTo(2);
+        assertThat(counter("cached")).isEqualTo(1);
+    }
+
+    private double counter(String outcome) {
+        return meterRegistry.get("buckpal.patterns.migration").tag("outcome", outcome).counter().count();
+    }
+}
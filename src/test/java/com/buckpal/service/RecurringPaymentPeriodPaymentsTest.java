@@ -0,0 +1,113 @@
+package com.buckpal.service;
+
+import com.buckpal.entity.RecurringPayment;
+import com.buckpal.entity.RecurringPayment.PaymentFrequency;
+import com.buckpal.entity.RecurringPayment.PaymentType;
+import com.buckpal.entity.User;
+import com.buckpal.repository.RecurringPaymentRepository;
+import com.buckpal.repository.UserRepository;
+import com.buckpal.service.projection.PeriodPayments;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(RecurringPaymentService.class)
+@ActiveProfiles("test")
+@DisplayName("Recurring payments of a period")
+class RecurringPaymentPeriodPaymentsTest {
+
+    private static final LocalDate MARCH_START = LocalDate.of(2024, 3, 1);
+    private static final LocalDate MARCH_END = LocalDate.of(2024, 3, 31);
+
+    @Autowired
+    private RecurringPaymentService recurringPaymentService;
+
+    @Autowired
+    private RecurringPaymentRepository recurringPaymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private RecurringPayment groceries;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Period", "User", "period@example.com", "hashedpassword"));
+        payment("Salary", "2500.00", PaymentType.INCOME, PaymentFrequency.MONTHLY, LocalDate.of(2023, 1, 28));
+        payment("Rent", "900.00", PaymentType.EXPENSE, PaymentFrequency.MONTHLY, LocalDate.of(2023, 9, 5));
+        groceries = payment("Groceries", "80.00", PaymentType.EXPENSE, PaymentFrequency.WEEKLY, LocalDate.of(2024, 2, 26));
+        payment("Car loan", "310.45", PaymentType.CREDIT, PaymentFrequency.MONTHLY, LocalDate.of(2022, 3, 15));
+        payment("Insurance", "600.00", PaymentType.SUBSCRIPTION, PaymentFrequency.ANNUAL, LocalDate.of(2023, 6, 1));
+        recurringPaymentRepository.flush();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Payments are grouped by type with their dates and amounts, from one memoized query")
+    void paymentsAreGroupedFromOneQuery() {
+        // When
+        PeriodPayments first = recurringPaymentService.getPaymentsForPeriod(user, MARCH_START, MARCH_END);
+        PeriodPayments second = recurringPaymentService.getPaymentsForPeriod(user, MARCH_START, MARCH_END);
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        assertThat(first.getTotal(PaymentType.INCOME)).isEqualByComparingTo("2500.00");
+        assertThat(first.getTotal(PaymentType.EXPENSE)).isEqualByComparingTo("1220.00");
+        assertThat(first.getTotal(PaymentType.CREDIT)).isEqualByComparingTo("310.45");
+        // The annual insurance has no occurrence in March
+        assertThat(first.get(PaymentType.SUBSCRIPTION)).isEmpty();
+        assertThat(first.getOutgoing()).hasSize(3);
+
+        PeriodPayments.Occurrences weekly = first.get(PaymentType.EXPENSE).stream()
+            .filter(occurrences -> occurrences.getPayment().getName().equals("Groceries"))
+            .findFirst().orElseThrow();
+        assertThat(weekly.getDates()).containsExactly(LocalDate.of(2024, 3, 4), LocalDate.of(2024, 3, 11),
+            LocalDate.of(2024, 3, 18), LocalDate.of(2024, 3, 25));
+        assertThat(weekly.getAmounts()).hasSize(4).allSatisfy(amount -> assertThat(amount).isEqualByComparingTo("80.00"));
+    }
+
+    @Test
+    @DisplayName("Changing a payment forgets the memoized period")
+    void memoIsForgottenOnChange() {
+        // Given
+        recurringPaymentService.getPaymentsForPeriod(user, MARCH_START, MARCH_END);
+
+        // When
+        recurringPaymentService.deactivateRecurringPayment(groceries.getId(), user);
+        PeriodPayments afterChange = recurringPaymentService.getPaymentsForPeriod(user, MARCH_START, MARCH_END);
+
+        // Then
+        assertThat(afterChange.get(PaymentType.EXPENSE))
+            .extracting(occurrences -> occurrences.getPayment().getName())
+            .containsExactly("Rent");
+        assertThat(afterChange.getTotal(PaymentType.EXPENSE)).isEqualByComparingTo("900.00");
+    }
+
+    private RecurringPayment payment(String name, String amount, PaymentType type, PaymentFrequency frequency,
+                                     LocalDate startDate) {
+        return recurringPaymentRepository.save(
+            new RecurringPayment(name, new BigDecimal(amount), type, frequency, startDate, user));
+    }
+}
@@ -0,0 +1,59 @@
+package com.buckpal.service;
+
+import com.buckpal.service.SchemaMigrationService.MigrationScript;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import(SchemaMigrationService.class)
+@ActiveProfiles("test")
+@DisplayName("Schema migrations")
+class SchemaMigrationServiceTest {
+
+    @Autowired
+    private SchemaMigrationService schemaMigrationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Scripts are found and ordered by version")
+    void scriptsAreOrderedByVersion() {
+        assertThat(schemaMigrationService.findScripts())
+            .extracting(MigrationScript::getName)
+            .startsWith("V1__pooled_id_sequences", "V2__transaction_search_indexes", "V3__hot_table_indexes");
+    }
+
+    @Test
+    @DisplayName("PostgreSQL scripts are skipped on other databases")
+    void scriptsAreSkippedOnH2() {
+        assertThat(schemaMigrationService.migrate()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Every required index is declared on the entities")
+    void entityIndexesCoverRequiredSet() {
+        assertThat(schemaMigrationService.findMissingIndexes()).isEmpty();
+        schemaMigrationService.verifyRequiredIndexes();
+    }
+
+    @Test
+    @DisplayName("Startup check fails when a required index is missing")
+    void missingIndexIsReported() {
+        jdbcTemplate.execute("DROP INDEX idx_budgets_user_year_month");
+        try {
+            assertThatThrownBy(() -> schemaMigrationService.verifyRequiredIndexes())
+                .hasMessageContaining("budgets.idx_budgets_user_year_month");
+        } finally {
+            jdbcTemplate.execute("CREATE INDEX idx_budgets_user_year_month ON budgets (user_id, budget_year, budget_month)");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.buckpal.service;
+
+import com.buckpal.entity.Account;
+import com.buckpal.entity.Transaction;
+import com.buckpal.entity.Transaction.TransactionType;
+import com.buckpal.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({TransactionService.class, AccountBalanceReconciliationService.class})
+@ActiveProfiles("test")
+@DisplayName("Transaction service balance updates and the persistence context")
+class TransactionServiceBalanceRefreshTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        User user = entityManager.persist(new User("Balance", "User", "balance@example.com", "hashedpassword"));
+        account = entityManager.persist(new Account("Checking", Account.AccountType.CHECKING, user));
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("A loaded account sees the balance written by the bulk UPDATE and cannot flush a stale one")
+    void loadedAccountIsRefreshed() {
+        // When
+        Transaction expense = transactionService.createTransaction(new Transaction(new BigDecimal("25.00"), "Groceries",
+            LocalDate.of(2024, 3, 1), TransactionType.EXPENSE, account));
+        transactionService.createTransaction(new Transaction(new BigDecimal("100.00"), "Salary",
+            LocalDate.of(2024, 3, 2), TransactionType.INCOME, account));
+
+        // Then
+        assertThat(account.getBalance()).isEqualByComparingTo("75.00");
+        assertThat(expense.getId()).isNotNull();
+
+        // An unrelated change of the loaded account keeps the balance
+        account.setName("Main checking");
+        entityManager.flush();
+        entityManager.clear();
+        Account reloaded = entityManager.find(Account.class, account.getId());
+        assertThat(reloaded.getName()).isEqualTo("Main checking");
+        assertThat(reloaded.getBalance()).isEqualByComparingTo("75.00");
+    }
+
+    @Test
+    @DisplayName("Pending changes are flushed before the UPDATE, so deleting a new transaction reverses it")
+    void pendingChangesAreFlushedFirst() {
+        // Given
+        Transaction expense = transactionService.createTransaction(new Transaction(new BigDecimal("40.00"), "Fuel",
+            LocalDate.of(2024, 3, 3), TransactionType.EXPENSE, account));
+
+        // When
+        transactionService.deleteTransaction(expense.getId());
+
+        // Then
+        assertThat(account.getBalance()).isEqualByComparingTo("0.00");
+        entityManager.clear();
+        assertThat(entityManager.find(Account.class, account.getId()).getBalance()).isEqualByComparingTo("0.00");
+        assertThat(entityManager.find(Transaction.class, expense.getId())).isNull();
+    }
+}
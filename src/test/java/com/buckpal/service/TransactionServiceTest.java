@@ -0,0 +1,123 @@
+package com.buckpal.service;
+
+import com.buckpal.entity.Account;
+import com.buckpal.entity.Transaction;
+import com.buckpal.entity.Transaction.TransactionType;
+import com.buckpal.repository.AccountRepository;
+import com.buckpal.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Transaction service balance maintenance")
+class TransactionServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountBalanceReconciliationService balanceReconciliationService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private TransactionService transactionService;
+
+    private Account checking;
+    private Account savings;
+
+    @BeforeEach
+    void setUp() {
+        checking = new Account();
+        checking.setId(1L);
+        savings = new Account();
+        savings.setId(2L);
+        when(entityManager.getReference(eq(Account.class), anyLong()))
+            .thenAnswer(invocation -> invocation.getArgument(1).equals(1L) ? checking : savings);
+    }
+
+    @Test
+    @DisplayName("Creating a transaction applies its signed amount without summing the account")
+    void createAppliesDelta() {
+        Transaction expense = transaction(10L, "25.00", TransactionType.EXPENSE, checking);
+        when(transactionRepository.save(expense)).thenReturn(expense);
+
+        transactionService.createTransaction(expense);
+
+        verify(accountRepository).applyBalanceDelta(eq(1L), argThat(delta -> delta.compareTo(new BigDecimal("-25.00")) == 0));
+        verify(transactionRepository, never()).calculateBalanceByAccount(any());
+        // The account loaded in the persistence context is reloaded after the UPDATE
+        verify(entityManager).refresh(checking);
+    }
+
+    @Test
+    @DisplayName("Updating a transaction applies the difference between the old and new amounts")
+    void updateAppliesDifference() {
+        Transaction existing = transaction(10L, "100.00", TransactionType.INCOME, checking);
+        when(transactionRepository.findById(10L)).thenReturn(Optional.of(existing));
+        when(transactionRepository.save(existing)).thenReturn(existing);
+
+        transactionService.updateTransaction(10L, transaction(null, "40.00", TransactionType.EXPENSE, checking));
+
+        verify(accountRepository).applyBalanceDelta(eq(1L), argThat(delta -> delta.compareTo(new BigDecimal("-140.00")) == 0));
+    }
+
+    @Test
+    @DisplayName("Moving a transaction to another account updates both balances")
+    void moveUpdatesBothAccounts() {
+        Transaction existing = transaction(10L, "30.00", TransactionType.EXPENSE, checking);
+        when(transactionRepository.findById(10L)).thenReturn(Optional.of(existing));
+        when(transactionRepository.save(existing)).thenReturn(existing);
+
+        transactionService.updateTransaction(10L, transaction(null, "30.00", TransactionType.EXPENSE, savings));
+
+        verify(accountRepository).applyBalanceDelta(eq(1L), argThat(delta -> delta.compareTo(new BigDecimal("30.00")) == 0));
+        verify(accountRepository).applyBalanceDelta(eq(2L), argThat(delta -> delta.compareTo(new BigDecimal("-30.00")) == 0));
+    }
+
+    @Test
+    @DisplayName("Deleting transactions reverses their effect on the balance")
+    void deleteReversesDelta() {
+        Transaction expense = transaction(10L, "25.00", TransactionType.EXPENSE, checking);
+        Transaction income = transaction(11L, "200.00", TransactionType.INCOME, checking);
+        when(transactionRepository.findById(10L)).thenReturn(Optional.of(expense));
+        when(transactionRepository.findByAccount(checking)).thenReturn(List.of(income));
+
+        transactionService.deleteTransaction(10L);
+        transactionService.deleteAllTransactionsByAccount(checking);
+
+        verify(accountRepository).applyBalanceDelta(eq(1L), argThat(delta -> delta.compareTo(new BigDecimal("25.00")) == 0));
+        verify(accountRepository).applyBalanceDelta(eq(1L), argThat(delta -> delta.compareTo(new BigDecimal("-200.00")) == 0));
+        verify(accountRepository, never()).save(any());
+        verify(balanceReconciliationService, never()).reconcileAccount(anyLong());
+    }
+
+    private Transaction transaction(Long id, String amount, TransactionType type, Account account) {
+        Transaction transaction = new Transaction(new BigDecimal(amount), "Test", LocalDate.of(2024, 3, 1), type, account);
+        transaction.setId(id);
+        return transaction;
+    }
+}
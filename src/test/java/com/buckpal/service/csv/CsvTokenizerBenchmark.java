@@ -0,0 +1,84 @@
+package com.buckpal.service.csv;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CsvTokenizer} with the former per-line regex split on a generated bank export.
+ *
+ * Not a unit test; run with:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.buckpal.service.csv.CsvTokenizerBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvTokenizerBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    private String csv;
+
+    @Setup
+    public void generate() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            builder.append("2024-03-").append(1 + i % 28)
+                .append(",\"CB CARREFOUR MARKET, PARIS ").append(i).append("\",-")
+                .append(i % 500).append('.').append(i % 100)
+                .append(",Carrefour,\"Note \"\"").append(i).append("\"\"\"\n");
+        }
+        csv = builder.toString();
+    }
+
+    @Benchmark
+    public void regexSplit(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new StringReader(csv))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                boolean semicolons = line.contains(";") && line.contains(",")
+                    && line.split(";").length > line.split(",").length;
+                String[] fields = semicolons ? line.split(";") : line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = fields[i].trim().replaceAll("^\"|\"$", "");
+                }
+                blackhole.consume(fields);
+            }
+        }
+    }
+
+    @Benchmark
+    public void tokenizer(Blackhole blackhole) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv), ',');
+        while (tokenizer.nextRecord()) {
+            for (int i = 0; i < tokenizer.fieldCount(); i++) {
+                blackhole.consume(tokenizer.fieldString(i));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CsvTokenizerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.buckpal.service.csv;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("CSV tokenizer")
+class CsvTokenizerTest {
+
+    @Test
+    @DisplayName("Quoted fields keep separators, doubled quotes and line breaks")
+    void quotedFieldsAreUnescaped() throws IOException {
+        String csv = "01/02/2024;\"CB; CARREFOUR\";\"dit \"\"promo\"\"\";-12,50\n"
+            + "02/02/2024;\"VIREMENT\nLOYER\";;-650,00\n";
+
+        List<List<String>> records = readAll(csv, ';');
+
+        assertThat(records).containsExactly(
+            List.of("01/02/2024", "CB; CARREFOUR", "dit \"promo\"", "-12,50"),
+            List.of("02/02/2024", "VIREMENT\nLOYER", "", "-650,00"));
+    }
+
+    @Test
+    @DisplayName("Fields are trimmed outside quotes only; blank lines are skipped")
+    void whitespaceAndBlankLines() throws IOException {
+        String csv = "  a , \" b \" ,c  \r\n\r\n   \nd,e,\r\n";
+
+        List<List<String>> records = readAll(csv, ',');
+
+        assertThat(records).containsExactly(List.of("a", " b ", "c"), List.of("d", "e", ""));
+    }
+
+    @Test
+    @DisplayName("Record line numbers account for quoted line breaks")
+    void recordLineNumbers() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("x,\"1\n2\"\n\ny,3\n"), ',', 2);
+
+        assertThat(tokenizer.nextRecord()).isTrue();
+        assertThat(tokenizer.getRecordLineNumber()).isEqualTo(2);
+        assertThat(tokenizer.nextRecord()).isTrue();
+        assertThat(tokenizer.getRecordLineNumber()).isEqualTo(5);
+        assertThat(tokenizer.field(0).toString()).isEqualTo("y");
+        assertThat(tokenizer.nextRecord()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Records larger than the read buffer are assembled across refills")
+    void recordsSpanningBufferRefills() throws IOException {
+        String longDescription = "X".repeat(20_000);
+        String csv = "2024-01-01,\"" + longDescription + "\",1.00\n2024-01-02,short,2.00";
+
+        List<List<String>> records = readAll(csv, ',');
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0).get(1)).hasSize(20_000);
+        assertThat(records.get(1)).containsExactly("2024-01-02", "short", "2.00");
+    }
+
+    @Test
+    @DisplayName("Separator detection ignores separators inside quotes")
+    void separatorDetection() {
+        assertThat(CsvTokenizer.detectSeparator("Date;Libelle;Debit;Credit")).isEqualTo(';');
+        assertThat(CsvTokenizer.detectSeparator("Date,\"Libelle; detail; autre\",Amount")).isEqualTo(',');
+        assertThat(CsvTokenizer.detectSeparator("Date\tDescription\tAmount")).isEqualTo('\t');
+        assertThat(CsvTokenizer.detectSeparator("Date")).isEqualTo(',');
+    }
+
+    private List<List<String>> readAll(String csv, char separator) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv), separator);
+        List<List<String>> records = new ArrayList<>();
+        while (tokenizer.nextRecord()) {
+            records.add(tokenizer.fields());
+        }
+        return records;
+    }
+}
@@ -0,0 +1,71 @@
+package com.buckpal.service.csv;
+
+import com.buckpal.service.csv.CsvValueFormat.DatePattern;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("CSV value format detection")
+class CsvValueFormatTest {
+
+    @Test
+    @DisplayName("Ambiguous dates follow the pattern the sample supports best, day-first on ties")
+    void datePatternIsRankedFromTheSample() {
+        CsvValueFormat monthFirst = CsvValueFormat.detect(List.of("12/31/2024", "01/02/2025"), List.of());
+        CsvValueFormat dayFirst = CsvValueFormat.detect(List.of("01/02/2025", "03/04/2025"), List.of());
+
+        assertThat(monthFirst.getPrimaryDatePattern()).isEqualTo(DatePattern.MONTH_DAY_YEAR_SLASH);
+        assertThat(monthFirst.parseDate("01/02/2025")).isEqualTo(LocalDate.of(2025, 1, 2));
+        assertThat(dayFirst.parseDate("01/02/2025")).isEqualTo(LocalDate.of(2025, 2, 1));
+        assertThat(dayFirst.parseDate("2025-02-01")).isEqualTo(LocalDate.of(2025, 2, 1));
+    }
+
+    @Test
+    @DisplayName("Invalid dates are reported as null, never replaced")
+    void invalidDatesReturnNull() {
+        CsvValueFormat format = CsvValueFormat.lenient();
+
+        assertThat(format.parseDate("invalid-date")).isNull();
+        assertThat(format.parseDate("31/02/2024")).isNull();
+        assertThat(format.parseDate("2024-13-01")).isNull();
+        assertThat(format.parseDate(" 29/02/2024 ")).isEqualTo(LocalDate.of(2024, 2, 29));
+    }
+
+    @Test
+    @DisplayName("The decimal separator voted by the sample resolves three-digit groups")
+    void decimalSeparatorIsDetectedPerFile() {
+        CsvValueFormat decimalComma = CsvValueFormat.detect(List.of(), List.of("-12,50", "1 234,56", "0,05"));
+        CsvValueFormat decimalDot = CsvValueFormat.detect(List.of(), List.of("-12.50", "1,234.56"));
+
+        assertThat(decimalComma.parseAmount("1.234")).isEqualTo(new BigDecimal("1234"));
+        assertThat(decimalComma.parseAmount("-1.234,5 €")).isEqualTo(new BigDecimal("-1234.5"));
+        assertThat(decimalDot.parseAmount("1,234")).isEqualTo(new BigDecimal("1234"));
+        assertThat(decimalDot.parseAmount("(45.67)")).isEqualTo(new BigDecimal("-45.67"));
+        assertThat(decimalDot.parseAmount("12.50-")).isEqualTo(new BigDecimal("-12.50"));
+        assertThat(decimalDot.parseAmount("12 EUR")).isNull();
+        assertThat(decimalDot.parseAmount("")).isNull();
+    }
+
+    @Test
+    @DisplayName("Amounts written with the other decimal separator than the file are rejected, not misread")
+    void mixedDecimalSeparatorsAreRejected() {
+        CsvValueFormat decimalComma = CsvValueFormat.detect(List.of(), List.of("-12,50", "1 234,56", "0,05"));
+        CsvValueFormat decimalDot = CsvValueFormat.detect(List.of(), List.of("-12.50", "1,234.56"));
+
+        assertThat(decimalComma.contradictsDecimalSeparator("12.5")).isTrue();
+        assertThat(decimalComma.parseAmount("12.5")).isNull();
+        assertThat(decimalComma.parseAmount("1,234.56")).isNull();
+        assertThat(decimalComma.contradictsDecimalSeparator("1.234")).isFalse();
+        assertThat(decimalComma.parseAmount("12,5")).isEqualTo(new BigDecimal("12.5"));
+        assertThat(decimalDot.parseAmount("-7,99")).isNull();
+        assertThat(decimalDot.parseAmount("-7.99")).isEqualTo(new BigDecimal("-7.99"));
+        // Without a detected separator each value keeps its own
+        assertThat(CsvValueFormat.lenient().contradictsDecimalSeparator("12.5")).isFalse();
+        assertThat(CsvValueFormat.lenient().parseAmount("12.5")).isEqualTo(new BigDecimal("12.5"));
+    }
+}
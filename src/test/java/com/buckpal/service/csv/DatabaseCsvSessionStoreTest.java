@@ -0,0 +1,109 @@
+package com.buckpal.service.csv;
+
+import com.buckpal.dto.csv.CsvColumnMappingRequest;
+import com.buckpal.entity.CsvImportSession;
+import com.buckpal.repository.CsvImportSessionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@DisplayName("Database CSV session store")
+class DatabaseCsvSessionStoreTest {
+
+    @Autowired
+    private CsvImportSessionRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private DatabaseCsvSessionStore store;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        store = new DatabaseCsvSessionStore(repository, new ObjectMapper(), Duration.ofMinutes(30));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Reads do not write; accesses reach expires_at when flushed")
+    void readsDoNotWrite() {
+        // Given
+        store.save(session("read-only"));
+        entityManager.flush();
+        Instant savedExpiry = storedExpiry("read-only");
+        statistics.clear();
+
+        // When
+        store.find("read-only");
+        store.find("read-only");
+        entityManager.flush();
+
+        // Then
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(storedExpiry("read-only")).isEqualTo(savedExpiry);
+
+        store.flushAccessTimes();
+        assertThat(storedExpiry("read-only")).isAfterOrEqualTo(savedExpiry);
+    }
+
+    @Test
+    @DisplayName("The mapping is written on its own and only when it changes")
+    void mappingIsWrittenOnChange() throws Exception {
+        // Given
+        CsvSession session = session("mapped");
+        store.save(session);
+        entityManager.flush();
+        CsvColumnMappingRequest mapping = new CsvColumnMappingRequest();
+        mapping.setAccountId(1L);
+        mapping.setDateColumnIndex(0);
+        mapping.setAmountColumnIndex(2);
+
+        // When
+        store.updateMapping(session, mapping);
+        int rewrites = repository.updateMapping("mapped", new ObjectMapper().writeValueAsString(mapping));
+        entityManager.clear();
+
+        // Then
+        assertThat(rewrites).isZero();
+        CsvSession found = store.find("mapped").orElseThrow();
+        assertThat(found.getMapping().getAmountColumnIndex()).isEqualTo(2);
+        assertThat(found.getAllRows()).hasSize(2);
+    }
+
+    private Instant storedExpiry(String sessionId) {
+        entityManager.clear();
+        return entityManager.find(CsvImportSession.class, sessionId).getExpiresAt();
+    }
+
+    private CsvSession session(String id) {
+        CsvSession session = new CsvSession();
+        session.setSessionId(id);
+        session.setHeaders(Arrays.asList("Date", "Description", "Amount"));
+        session.setRows(EncodedCsvRows.builder()
+                .add(Arrays.asList("2024-01-01", "Coffee", "-3.50"))
+                .add(Arrays.asList("2024-01-02", "Salary", "2500.00"))
+                .build());
+        return session;
+    }
+}
@@ -0,0 +1,143 @@
+package com.buckpal.service.csv;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("In-memory CSV session store")
+class InMemoryCsvSessionStoreTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    @DisplayName("Encoded rows round-trip, including quotes, accents and empty fields")
+    void encodedRowsRoundTrip() {
+        List<String> first = Arrays.asList("01/02/2024", "Café \"Chez Paul\"", "-12,50", "");
+        List<String> second = Arrays.asList("02/02/2024", "Salaire", "2500.00", "Revenus");
+
+        EncodedCsvRows rows = EncodedCsvRows.builder().add(first).add(second).build();
+        EncodedCsvRows decoded = EncodedCsvRows.decode(rows.toByteArray());
+
+        assertThat(rows.asList()).containsExactly(first, second);
+        assertThat(decoded.asList()).containsExactly(first, second);
+    }
+
+    @Test
+    @DisplayName("Sessions idle past the TTL are evicted")
+    void expiredSessionsAreEvicted() {
+        InMemoryCsvSessionStore store = new InMemoryCsvSessionStore(
+                Duration.ofMinutes(30), Long.MAX_VALUE, Long.MAX_VALUE, spillDirectory);
+        CsvSession session = session("expired", 10);
+        store.save(session);
+
+        session.setLastAccessedAt(Instant.now().minus(Duration.ofHours(1)));
+
+        assertThat(store.evictExpired()).isEqualTo(1);
+        assertThat(store.find("expired")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Least recently used sessions are evicted to stay within the byte budget")
+    void byteBudgetEvictsLeastRecentlyUsed() {
+        long sessionBytes = session("probe", 100).byteSize();
+        InMemoryCsvSessionStore store = new InMemoryCsvSessionStore(
+                Duration.ofMinutes(30), sessionBytes * 2, Long.MAX_VALUE, spillDirectory);
+
+        store.save(session("a", 100));
+        store.save(session("b", 100));
+        store.find("a");
+        store.save(session("c", 100));
+
+        assertThat(store.find("b")).isEmpty();
+        assertThat(store.find("a")).isPresent();
+        assertThat(store.find("c")).isPresent();
+        assertThat(store.getTotalBytes()).isLessThanOrEqualTo(sessionBytes * 2);
+    }
+
+    @Test
+    @DisplayName("Large sessions are spilled to a memory-mapped file and cleaned up on removal")
+    void largeSessionsAreSpilledToDisk() throws Exception {
+        InMemoryCsvSessionStore store = new InMemoryCsvSessionStore(
+                Duration.ofMinutes(30), Long.MAX_VALUE, 1024, spillDirectory);
+        CsvSession session = session("large", 500);
+        List<String> row = session.getAllRows().get(499);
+
+        store.save(session);
+
+        CsvSession stored = store.find("large").orElseThrow();
+        assertThat(stored.getRows().isSpilled()).isTrue();
+        assertThat(stored.getRowCount()).isEqualTo(500);
+        assertThat(stored.getAllRows().get(499)).isEqualTo(row);
+        try (var files = Files.list(spillDirectory)) {
+            assertThat(files.count()).isEqualTo(1);
+        }
+
+        store.remove("large");
+
+        try (var files = Files.list(spillDirectory)) {
+            assertThat(files.count()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Spilled sessions count against the disk budget and the oldest are evicted with their files")
+    void spillBudgetEvictsOldestSpilledSessions() throws Exception {
+        long spilledBytes = session("probe", 500).byteSize();
+        InMemoryCsvSessionStore store = new InMemoryCsvSessionStore(
+                Duration.ofMinutes(30), Long.MAX_VALUE, 1024, spilledBytes * 2, spillDirectory);
+
+        store.save(session("first", 500));
+        store.save(session("small", 10));
+        store.save(session("second", 500));
+        store.find("first");
+        store.save(session("third", 500));
+
+        assertThat(store.find("second")).isEmpty();
+        assertThat(store.find("first")).isPresent();
+        assertThat(store.find("third")).isPresent();
+        assertThat(store.find("small")).isPresent();
+        assertThat(store.getTotalSpillBytes()).isEqualTo(spilledBytes * 2);
+        try (var files = Files.list(spillDirectory)) {
+            assertThat(files.count()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Spilled sessions do not count against the heap budget")
+    void spilledSessionsAreNotBudgeted() {
+        long sessionBytes = session("probe", 100).byteSize();
+        InMemoryCsvSessionStore store = new InMemoryCsvSessionStore(
+                Duration.ofMinutes(30), sessionBytes * 2, sessionBytes * 3, spillDirectory);
+
+        store.save(session("spilled", 500));
+        store.save(session("a", 100));
+        store.save(session("b", 100));
+
+        assertThat(store.find("spilled")).isPresent();
+        assertThat(store.find("a")).isPresent();
+        assertThat(store.find("b")).isPresent();
+        assertThat(store.getTotalBytes()).isEqualTo(sessionBytes * 2);
+    }
+
+    private CsvSession session(String id, int rowCount) {
+        EncodedCsvRows.Builder rows = EncodedCsvRows.builder();
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(Arrays.asList("2024-01-" + (i % 28 + 1), "Transaction " + i, String.valueOf(i * 1.5)));
+        }
+        CsvSession session = new CsvSession();
+        session.setSessionId(id);
+        session.setHeaders(Arrays.asList("Date", "Description", "Amount"));
+        session.setRows(rows.build());
+        return session;
+    }
+}
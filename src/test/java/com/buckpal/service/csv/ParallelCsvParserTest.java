@@ -0,0 +1,87 @@
+package com.buckpal.service.csv;
+
+import com.buckpal.service.csv.ParallelCsvParser.ParsedCsv;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Parallel CSV parser")
+class ParallelCsvParserTest {
+
+    // Tiny segments so that a small file is cut in many places
+    private final ParallelCsvParser parser = new ParallelCsvParser(4, 64);
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        parser.shutdown();
+    }
+
+    @Test
+    @DisplayName("Segments end on record boundaries, even inside quoted line breaks, and keep file order")
+    void parallelParseMatchesSequentialParse() throws IOException {
+        StringBuilder csv = new StringBuilder("Date;Libellé;Montant\n");
+        for (int i = 0; i < 2_000; i++) {
+            csv.append(String.format("%02d/01/2024;", 1 + i % 28));
+            if (i % 7 == 0) {
+                csv.append("\"VIREMENT ").append(i).append("\nMOTIF; \"\"loyer\"\"\"");
+            } else {
+                csv.append("Achat été n°").append(i);
+            }
+            csv.append(';').append(-i).append(",50\r\n");
+        }
+
+        ParsedCsv parsed = parser.parse(write(csv.toString()), StandardCharsets.UTF_8, 10);
+
+        assertThat(parsed.getHeaders()).containsExactly("Date", "Libellé", "Montant");
+        List<List<String>> rows = parsed.getRows().build().asList();
+        assertThat(rows).isEqualTo(sequentialRows(csv.toString()));
+        assertThat(rows).hasSize(2_000);
+        assertThat(rows.get(7).get(1)).isEqualTo("VIREMENT 7\nMOTIF; \"loyer\"");
+        assertThat(parsed.getPreview()).isEqualTo(rows.subList(0, 10));
+    }
+
+    @Test
+    @DisplayName("Unbalanced quotes fall back to a single segment")
+    void unbalancedQuotesAreParsedAsOneSegment() throws IOException {
+        StringBuilder csv = new StringBuilder("a,b\n");
+        for (int i = 0; i < 200; i++) {
+            csv.append(i).append(",value ").append(i).append('\n');
+        }
+        csv.append("200,\"never closed\n201,x\n");
+
+        ParsedCsv parsed = parser.parse(write(csv.toString()), StandardCharsets.UTF_8, 10);
+
+        assertThat(parsed.getRows().build().asList()).isEqualTo(sequentialRows(csv.toString()));
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = tempDir.resolve("upload.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private List<List<String>> sequentialRows(String csv) throws IOException {
+        String body = csv.substring(csv.indexOf('\n') + 1);
+        char separator = CsvTokenizer.detectSeparator(csv.substring(0, csv.indexOf('\n')));
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(body), separator);
+        List<List<String>> rows = new ArrayList<>();
+        while (tokenizer.nextRecord()) {
+            rows.add(tokenizer.fields());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,185 @@
+package com.buckpal.service.maintenance;
+
+import com.buckpal.entity.RecurringPayment;
+import com.buckpal.entity.RecurringPaymentHistory;
+import com.buckpal.entity.RecurringPaymentHistory.PaymentStatus;
+import com.buckpal.entity.User;
+import com.buckpal.repository.RecurringPaymentHistoryRepository;
+import com.buckpal.repository.RecurringPaymentRepository;
+import com.buckpal.repository.SchedulerLeaseRepository;
+import com.buckpal.repository.UserRepository;
+import com.buckpal.service.RecurringPaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Leases are taken in their own transactions, so these tests commit for real instead of rolling back.
+ */
+@DataJpaTest
+@Import({RecurringPaymentService.class, SchedulerLeaseService.class, RecurringPaymentMaintenanceService.class,
+    RecurringPaymentMaintenanceTest.MetricsConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ActiveProfiles("test")
+@DisplayName("Recurring payment maintenance")
+class RecurringPaymentMaintenanceTest {
+
+    @TestConfiguration
+    static class MetricsConfiguration {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private RecurringPaymentMaintenanceService maintenanceService;
+
+    @Autowired
+    private SchedulerLeaseService leaseService;
+
+    @Autowired
+    private RecurringPaymentRepository recurringPaymentRepository;
+
+    @Autowired
+    private RecurringPaymentHistoryRepository historyRepository;
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        historyRepository.deleteAll();
+        recurringPaymentRepository.deleteAll();
+        userRepository.deleteAll();
+        leaseRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("The overdue sweep flips only past planned payments, in one statement, and records its rows")
+    void overdueSweepIsSetBased() {
+        LocalDate today = LocalDate.now();
+        RecurringPayment rent = payment(user("sweep@example.com"), "Rent", today.minusMonths(3));
+        RecurringPaymentHistory pastPlanned = history(rent, today.minusDays(1), PaymentStatus.PLANNED);
+        RecurringPaymentHistory pastPaid = history(rent, today.minusDays(30), PaymentStatus.PAID);
+        RecurringPaymentHistory todayPlanned = history(rent, today, PaymentStatus.PLANNED);
+
+        maintenanceService.scheduledOverdueSweep();
+
+        assertThat(historyRepository.findById(pastPlanned.getId()).orElseThrow().getStatus()).isEqualTo(PaymentStatus.OVERDUE);
+        assertThat(historyRepository.findById(pastPlanned.getId()).orElseThrow().getUpdatedAt()).isNotNull();
+        assertThat(historyRepository.findById(pastPaid.getId()).orElseThrow().getStatus()).isEqualTo(PaymentStatus.PAID);
+        assertThat(historyRepository.findById(todayPlanned.getId()).orElseThrow().getStatus()).isEqualTo(PaymentStatus.PLANNED);
+        assertThat(meterRegistry.get("buckpal.scheduler.job.rows")
+            .tag("job", RecurringPaymentMaintenanceService.OVERDUE_SWEEP_JOB).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("buckpal.scheduler.job.duration")
+            .tag("job", RecurringPaymentMaintenanceService.OVERDUE_SWEEP_JOB).tag("outcome", "success")
+            .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("History generation covers every user's active payments and only creates missing due dates")
+    void historyGenerationCreatesMissingDueDates() {
+        LocalDate today = LocalDate.of(2024, 3, 10);
+        RecurringPayment rent = payment(user("first@example.com"), "Rent", LocalDate.of(2024, 1, 15));
+        RecurringPayment gym = payment(user("second@example.com"), "Gym", LocalDate.of(2023, 6, 1));
+        RecurringPayment stopped = payment(user("third@example.com"), "Stopped", LocalDate.of(2023, 6, 1));
+        stopped.setIsActive(false);
+        recurringPaymentRepository.save(stopped);
+        history(rent, LocalDate.of(2024, 3, 15), PaymentStatus.PLANNED);
+
+        // Two months ahead, until May 10th. Rent: Mar 15 exists, Apr 15 is missing; gym: Apr 1 and May 1
+        assertThat(maintenanceService.generatePaymentHistory(today)).isEqualTo(3);
+        assertThat(maintenanceService.generatePaymentHistory(today)).isZero();
+
+        assertThat(historyRepository.findByRecurringPaymentOrderByDueDateDesc(rent))
+            .extracting(RecurringPaymentHistory::getDueDate)
+            .containsExactly(LocalDate.of(2024, 4, 15), LocalDate.of(2024, 3, 15));
+        assertThat(historyRepository.findByRecurringPaymentOrderByDueDateDesc(gym)).hasSize(2);
+        assertThat(historyRepository.findByRecurringPaymentOrderByDueDateDesc(stopped)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A job runs on one instance at a time and its lease is kept for the minimum duration")
+    void leaseIsExclusive() {
+        SchedulerLeaseService otherNode = new SchedulerLeaseService(leaseRepository, transactionManager, meterRegistry,
+            Clock.systemUTC(), "other-node");
+
+        long[] nestedResult = new long[1];
+        long rows = leaseService.runExclusively("test-job", Duration.ofMinutes(30), Duration.ZERO, () -> {
+            nestedResult[0] = otherNode.runExclusively("test-job", Duration.ofMinutes(30), Duration.ZERO, () -> 99);
+            return 7;
+        });
+
+        assertThat(rows).isEqualTo(7);
+        assertThat(nestedResult[0]).isEqualTo(-1);
+        assertThat(meterRegistry.get("buckpal.scheduler.job.skipped").tag("job", "test-job").counter().count())
+            .isEqualTo(1);
+
+        // Released: the other node may run it, and keeps it for at least a minute
+        assertThat(otherNode.runExclusively("test-job", Duration.ofMinutes(30), Duration.ofMinutes(1), () -> 3))
+            .isEqualTo(3);
+        assertThat(leaseService.runExclusively("test-job", Duration.ofMinutes(30), Duration.ZERO, () -> 5))
+            .isEqualTo(-1);
+        assertThat(leaseRepository.findById("test-job").orElseThrow().getOwner()).isEqualTo("other-node");
+    }
+
+    @Test
+    @DisplayName("Nodes in different time zones agree on when a lease expires")
+    void leaseExpiryIgnoresTimeZones() {
+        SchedulerLeaseService tokyoNode = new SchedulerLeaseService(leaseRepository, transactionManager, meterRegistry,
+            Clock.system(ZoneId.of("Asia/Tokyo")), "tokyo-node");
+        SchedulerLeaseService honoluluNode = new SchedulerLeaseService(leaseRepository, transactionManager, meterRegistry,
+            Clock.system(ZoneId.of("Pacific/Honolulu")), "honolulu-node");
+
+        assertThat(honoluluNode.runExclusively("zoned-job", Duration.ofMinutes(30), Duration.ofMinutes(10), () -> 1))
+            .isEqualTo(1);
+
+        // Still held for ten minutes, although Tokyo's wall clock is 19 hours ahead of Honolulu's
+        assertThat(tokyoNode.runExclusively("zoned-job", Duration.ofMinutes(30), Duration.ZERO, () -> 2))
+            .isEqualTo(-1);
+    }
+
+    private User user(String email) {
+        return userRepository.save(new User("Maintenance", "User", email, "hashedpassword"));
+    }
+
+    private RecurringPayment payment(User user, String name, LocalDate startDate) {
+        return recurringPaymentRepository.save(new RecurringPayment(name, new BigDecimal("50.00"),
+            RecurringPayment.PaymentType.EXPENSE, RecurringPayment.PaymentFrequency.MONTHLY, startDate, user));
+    }
+
+    private RecurringPaymentHistory history(RecurringPayment payment, LocalDate dueDate, PaymentStatus status) {
+        RecurringPaymentHistory history = new RecurringPaymentHistory(payment, dueDate, payment.getAmount());
+        history.setStatus(status);
+        return historyRepository.save(history);
+    }
+}
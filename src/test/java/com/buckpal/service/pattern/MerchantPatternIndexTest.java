@@ -0,0 +1,207 @@
+package com.buckpal.service.pattern;
+
+import com.buckpal.entity.Category;
+import com.buckpal.entity.MerchantPattern;
+import com.buckpal.entity.User;
+import com.buckpal.entity.UserMerchantPattern;
+import com.buckpal.repository.CategoryRepository;
+import com.buckpal.repository.MerchantPatternRepository;
+import com.buckpal.repository.UserMerchantPatternRepository;
+import com.buckpal.service.pattern.MerchantPatternIndex.PatternEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Merchant pattern index")
+class MerchantPatternIndexTest {
+
+    @Mock
+    private MerchantPatternRepository globalPatternRepository;
+
+    @Mock
+    private UserMerchantPatternRepository userPatternRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @InjectMocks
+    private MerchantPatternIndex index;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("Jane", "Doe", "jane@example.com", "password");
+        user.setId(1L);
+    }
+
+    @Test
+    @DisplayName("Global matches are filtered by confidence and ordered by confidence then specificity")
+    void globalMatchesAreRankedLikeTheFormerQuery() {
+        when(globalPatternRepository.findAll()).thenReturn(List.of(
+            globalPattern(1L, "CARREFOUR", 10L, 8, "0.80"),
+            globalPattern(2L, "CARREFOUR MARKET", 11L, 12, "0.80"),
+            globalPattern(3L, "MARKET", 12L, 3, "0.40")));
+        when(categoryRepository.findAllById(any())).thenReturn(List.of(
+            category(10L, "categories.groceries"), category(11L, "categories.supermarket"), category(12L, "categories.other")));
+
+        List<PatternEntry> matches = index.findGlobalMatches("cb carrefour market 12/03", new BigDecimal("0.5"));
+
+        assertThat(matches).extracting(e -> e.pattern).containsExactly("CARREFOUR MARKET", "CARREFOUR");
+        assertThat(matches.get(0).categoryName).isEqualTo("categories.supermarket");
+    }
+
+    @Test
+    @DisplayName("Lookups make no database calls once the partitions are loaded")
+    void lookupsAreServedFromMemory() {
+        when(globalPatternRepository.findAll()).thenReturn(List.of(globalPattern(1L, "SNCF", 10L, 4, "0.90")));
+        when(userPatternRepository.findByUserOrderByUsageCountDescLastUsedAtDesc(user)).thenReturn(List.of(
+            personalPattern(5L, "SNCF", 20L, "0.60", 2), personalPattern(6L, "SNCF CONNECT", 21L, "0.95", 1)));
+        when(categoryRepository.findAllById(any())).thenAnswer(invocation -> List.of(
+            category(10L, "categories.transportation"), category(20L, "categories.travel"), category(21L, "categories.holidays")));
+
+        index.findGlobalMatches("SNCF CONNECT PARIS", BigDecimal.ZERO);
+        index.findPersonalMatches(user, "SNCF CONNECT PARIS");
+        clearInvocations(globalPatternRepository, userPatternRepository, categoryRepository);
+
+        for (int i = 0; i < 1_000; i++) {
+            List<PatternEntry> personal = index.findPersonalMatches(user, "SNCF CONNECT PARIS " + i);
+            assertThat(personal).extracting(e -> e.id).containsExactly(6L, 5L);
+            assertThat(index.findGlobalMatches("SNCF CONNECT PARIS " + i, new BigDecimal("0.5"))).hasSize(1);
+        }
+
+        verifyNoMoreInteractions(globalPatternRepository, userPatternRepository, categoryRepository);
+    }
+
+    @Test
+    @DisplayName("Pattern writes update the loaded partition without reloading it")
+    void upsertAndRemoveUpdateTheIndexInPlace() {
+        when(userPatternRepository.findByUserOrderByUsageCountDescLastUsedAtDesc(user)).thenReturn(List.of());
+        assertThat(index.findPersonalMatches(user, "UBER EATS")).isEmpty();
+
+        UserMerchantPattern learned = personalPattern(7L, "UBER EATS", 30L, "0.85", 3);
+        when(categoryRepository.findById(30L)).thenReturn(Optional.of(category(30L, "categories.diningOut")));
+        index.upsertUserPattern(learned);
+
+        assertThat(index.findPersonalMatches(user, "CB UBER EATS 0412"))
+            .extracting(e -> e.categoryName).containsExactly("categories.diningOut");
+
+        index.removeUserPattern(learned);
+
+        assertThat(index.findPersonalMatches(user, "CB UBER EATS 0412")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A usage update changes the entry's scores without resolving its category again")
+    void usageUpdateKeepsTheCompiledPartition() {
+        when(userPatternRepository.findByUserOrderByUsageCountDescLastUsedAtDesc(user)).thenReturn(List.of(
+            personalPattern(7L, "UBER EATS", 30L, "0.50", 3)));
+        when(categoryRepository.findAllById(any())).thenReturn(List.of(category(30L, "categories.diningOut")));
+        assertThat(index.findPersonalMatches(user, "CB UBER EATS")).extracting(e -> e.usageCount).containsExactly(3);
+
+        index.updateUserPatternUsage(personalPattern(7L, "UBER EATS", 30L, "0.82", 4));
+
+        assertThat(index.findPersonalMatches(user, "CB UBER EATS"))
+            .extracting(e -> e.categoryName, e -> e.usageCount, e -> e.confidenceScore)
+            .containsExactly(tuple("categories.diningOut", 4, new BigDecimal("0.82")));
+        verify(categoryRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Writes inside a transaction reach the index only if it commits")
+    void writesAreAppliedAfterCommit() {
+        when(userPatternRepository.findByUserOrderByUsageCountDescLastUsedAtDesc(user)).thenReturn(List.of());
+        when(categoryRepository.findById(30L)).thenReturn(Optional.of(category(30L, "categories.diningOut")));
+        index.findPersonalMatches(user, "UBER EATS");
+
+        // Rolled back: no phantom pattern
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.upsertUserPattern(personalPattern(7L, "UBER EATS", 30L, "0.85", 3));
+            assertThat(index.findPersonalMatches(user, "CB UBER EATS 0412")).isEmpty();
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(index.findPersonalMatches(user, "CB UBER EATS 0412")).isEmpty();
+
+        // Committed
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.upsertUserPattern(personalPattern(7L, "UBER EATS", 30L, "0.85", 3));
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(index.findPersonalMatches(user, "CB UBER EATS 0412")).extracting(e -> e.id).containsExactly(7L);
+    }
+
+    @Test
+    @DisplayName("A partition past the refresh interval is reloaded when another node changed the patterns")
+    void stalePartitionsAreReloaded() {
+        ReflectionTestUtils.setField(index, "refreshInterval", Duration.ZERO);
+        List<Object[]> loadedVersion = List.<Object[]>of(new Object[]{0L, null, null});
+        List<Object[]> writtenElsewhere = List.<Object[]>of(new Object[]{1L, LocalDateTime.of(2024, 3, 1, 12, 0), null});
+        when(userPatternRepository.findPatternVersion(user))
+            .thenReturn(loadedVersion, loadedVersion, writtenElsewhere, writtenElsewhere);
+        when(userPatternRepository.findByUserOrderByUsageCountDescLastUsedAtDesc(user))
+            .thenReturn(List.of(), List.of(personalPattern(8L, "NETFLIX", 40L, "0.90", 1)));
+        when(categoryRepository.findAllById(any())).thenReturn(List.of(category(40L, "categories.entertainment")));
+
+        // Loaded, then confirmed unchanged
+        assertThat(index.findPersonalMatches(user, "NETFLIX.COM")).isEmpty();
+        assertThat(index.findPersonalMatches(user, "NETFLIX.COM")).isEmpty();
+
+        // Another node learned a pattern
+        assertThat(index.findPersonalMatches(user, "NETFLIX.COM"))
+            .extracting(e -> e.categoryName).containsExactly("categories.entertainment");
+    }
+
+    private MerchantPattern globalPattern(Long id, String pattern, Long categoryId, int specificity, String confidence) {
+        MerchantPattern merchantPattern = new MerchantPattern(pattern, categoryId, specificity);
+        merchantPattern.setId(id);
+        merchantPattern.setConfidenceScore(new BigDecimal(confidence));
+        return merchantPattern;
+    }
+
+    private UserMerchantPattern personalPattern(Long id, String pattern, Long categoryId, String confidence, int usage) {
+        UserMerchantPattern userPattern = new UserMerchantPattern(user, pattern, categoryId,
+            UserMerchantPattern.PatternSource.LEARNED);
+        userPattern.setId(id);
+        userPattern.setConfidenceScore(new BigDecimal(confidence));
+        userPattern.setUsageCount(usage);
+        return userPattern;
+    }
+
+    private Category category(Long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+}
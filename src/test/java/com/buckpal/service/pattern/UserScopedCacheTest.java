@@ -0,0 +1,82 @@
+package com.buckpal.service.pattern;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("User scoped cache")
+class UserScopedCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserScopedCache<String, String> cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserScopedCache<>("test", 2, 3, meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Repeated lookups are served from the cache and counted as hits")
+    void repeatedLookupsHitTheCache() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get(1L, null, "carrefour", this::load)).isEqualTo("CARREFOUR");
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(gets("hit")).isEqualTo(9);
+        assertThat(gets("miss")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Entries and users beyond the bounds are evicted least recently used first")
+    void boundsEvictLeastRecentlyUsed() {
+        cache.get(1L, null, "a", this::load);
+        cache.get(1L, null, "b", this::load);
+        cache.get(1L, null, "c", this::load);
+        cache.get(1L, null, "a", this::load);
+        cache.get(1L, null, "d", this::load);
+
+        cache.get(2L, null, "a", this::load);
+        cache.get(3L, null, "a", this::load);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(meterRegistry.get("buckpal.cache.evictions").tag("cache", "test").counter().count()).isEqualTo(4);
+
+        loads.set(0);
+        cache.get(3L, null, "a", this::load);
+        cache.get(1L, null, "a", this::load);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A different scope or an invalidation drops the user's entries")
+    void scopeChangeAndInvalidationDropEntries() {
+        Object firstSnapshot = new Object();
+        cache.get(1L, firstSnapshot, "a", this::load);
+        cache.get(2L, firstSnapshot, "a", this::load);
+
+        cache.get(1L, new Object(), "a", this::load);
+        cache.invalidateUser(2L);
+        cache.get(2L, firstSnapshot, "a", this::load);
+
+        assertThat(loads.get()).isEqualTo(4);
+        assertThat(gets("hit")).isZero();
+    }
+
+    private String load(String key) {
+        loads.incrementAndGet();
+        return key.toUpperCase();
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("buckpal.cache.gets").tag("cache", "test").tag("result", result).counter().count();
+    }
+}
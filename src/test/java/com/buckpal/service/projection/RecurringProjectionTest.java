@@ -0,0 +1,92 @@
+package com.buckpal.service.projection;
+
+import com.buckpal.entity.RecurringPayment;
+import com.buckpal.entity.RecurringPayment.PaymentFrequency;
+import com.buckpal.entity.RecurringPayment.PaymentType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Recurring payment projection")
+class RecurringProjectionTest {
+
+    @Test
+    @DisplayName("Thirty-year matrix matches the per-date amounts of every payment")
+    void matrixMatchesPerDateAmounts() {
+        RecurringPayment salary = payment(1L, PaymentType.INCOME, PaymentFrequency.MONTHLY, "2450.00",
+            LocalDate.of(2019, 1, 31), null, "2.5");
+        RecurringPayment rent = payment(2L, PaymentType.EXPENSE, PaymentFrequency.MONTHLY, "950.00",
+            LocalDate.of(2021, 9, 5), null, "1.8");
+        RecurringPayment loan = payment(3L, PaymentType.CREDIT, PaymentFrequency.MONTHLY, "310.45",
+            LocalDate.of(2022, 3, 15), LocalDate.of(2032, 2, 15), null);
+        RecurringPayment groceries = payment(4L, PaymentType.EXPENSE, PaymentFrequency.WEEKLY, "85.30",
+            LocalDate.of(2024, 2, 29), null, null);
+        RecurringPayment insurance = payment(5L, PaymentType.SUBSCRIPTION, PaymentFrequency.ANNUAL, "640.00",
+            LocalDate.of(2024, 2, 29), null, "3");
+        List<RecurringPayment> payments = List.of(salary, rent, loan, groceries, insurance);
+
+        YearMonth first = YearMonth.of(2025, 1);
+        RecurringProjection projection = RecurringProjection.compute(payments, first, 30 * 12);
+
+        assertThat(projection.getMonths()).isEqualTo(360);
+        for (int month = 0; month < projection.getMonths(); month++) {
+            YearMonth yearMonth = first.plusMonths(month);
+            BigDecimal income = BigDecimal.ZERO;
+            BigDecimal outgoing = BigDecimal.ZERO;
+            for (int p = 0; p < payments.size(); p++) {
+                RecurringPayment payment = payments.get(p);
+                BigDecimal paymentTotal = BigDecimal.ZERO;
+                for (LocalDate date : payment.getPaymentDatesInPeriod(yearMonth.atDay(1), yearMonth.atEndOfMonth())) {
+                    paymentTotal = paymentTotal.add(payment.getAmountForDate(date));
+                }
+                assertThat(RecurringProjection.toAmount(projection.getPaymentCents(p, month)))
+                    .isEqualByComparingTo(paymentTotal);
+                if (payment.getPaymentType() == PaymentType.INCOME) {
+                    income = income.add(paymentTotal);
+                } else {
+                    outgoing = outgoing.add(paymentTotal);
+                }
+            }
+            assertThat(RecurringProjection.toAmount(projection.getIncomeCents(month))).isEqualByComparingTo(income);
+            assertThat(RecurringProjection.toAmount(projection.getOutgoingCents(month))).isEqualByComparingTo(outgoing);
+        }
+
+        // The loan stops after February 2032 and the leap-day insurance falls on February 28th
+        assertThat(projection.getCents(85, PaymentType.CREDIT)).isEqualTo(31045);
+        assertThat(projection.getCents(86, PaymentType.CREDIT)).isZero();
+        assertThat(projection.getOccurrences(4, 1)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Horizons are clamped to 1..360 months and inactive payments are ignored")
+    void horizonIsClampedAndInactivePaymentsSkipped() {
+        RecurringPayment inactive = payment(1L, PaymentType.EXPENSE, PaymentFrequency.MONTHLY, "10.00",
+            LocalDate.of(2024, 1, 1), null, null);
+        inactive.setIsActive(false);
+
+        assertThat(RecurringProjection.compute(List.of(inactive), YearMonth.of(2025, 1), 0).getMonths()).isEqualTo(1);
+        RecurringProjection projection = RecurringProjection.compute(List.of(inactive), YearMonth.of(2025, 1), 1000);
+        assertThat(projection.getMonths()).isEqualTo(RecurringProjection.MAX_MONTHS);
+        assertThat(projection.getOutgoingCents(0)).isZero();
+    }
+
+    private static RecurringPayment payment(Long id, PaymentType type, PaymentFrequency frequency, String amount,
+                                            LocalDate start, LocalDate end, String escalationRate) {
+        RecurringPayment payment = new RecurringPayment();
+        payment.setId(id);
+        payment.setName("Payment " + id);
+        payment.setPaymentType(type);
+        payment.setFrequency(frequency);
+        payment.setAmount(new BigDecimal(amount));
+        payment.setStartDate(start);
+        payment.setEndDate(end);
+        payment.setEscalationRate(escalationRate != null ? new BigDecimal(escalationRate) : BigDecimal.ZERO);
+        return payment;
+    }
+}
@@ -0,0 +1,279 @@
+package com.buckpal.service.rollup;
+
+import com.buckpal.entity.Account;
+import com.buckpal.entity.Transaction;
+import com.buckpal.entity.Transaction.TransactionType;
+import com.buckpal.entity.User;
+import com.buckpal.repository.AccountRepository;
+import com.buckpal.repository.DailyAccountTotalRepository;
+import com.buckpal.repository.DataMigrationMarkerRepository;
+import com.buckpal.repository.SchedulerLeaseRepository;
+import com.buckpal.repository.TransactionRepository;
+import com.buckpal.repository.UserRepository;
+import com.buckpal.service.maintenance.SchedulerLeaseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The rollup is written at commit time, so these tests commit for real instead of rolling back.
+ */
+@DataJpaTest
+@Import({TransactionRollupListener.class, DailyAccountTotalsService.class, SchedulerLeaseService.class,
+    DailyAccountTotalsTest.MetricsConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ActiveProfiles("test")
+@DisplayName("Daily account totals rollup")
+class DailyAccountTotalsTest {
+
+    @TestConfiguration
+    static class MetricsConfiguration {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+
+    @Autowired
+    private TransactionRollupListener listener; // registers the Hibernate listeners
+
+    @Autowired
+    private DailyAccountTotalsService dailyAccountTotalsService;
+
+    @Autowired
+    private DailyAccountTotalRepository dailyAccountTotalRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataMigrationMarkerRepository markerRepository;
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Autowired
+    private SchedulerLeaseService leaseService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        User user = userRepository.save(new User("Rollup", "User", "rollup@example.com", "hashedpassword"));
+        account = accountRepository.save(new Account("Checking", Account.AccountType.CHECKING, user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAll();
+        dailyAccountTotalRepository.deleteAll();
+        accountRepository.deleteAll();
+        userRepository.deleteAll();
+        markerRepository.deleteAll();
+        leaseRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Creates, updates and deletes keep the rollup equal to the GROUP BY over transactions")
+    void rollupFollowsEveryWrite() {
+        List<Transaction> saved = transactionTemplate.execute(status -> transactionRepository.saveAll(List.of(
+            transaction("1000.00", LocalDate.of(2024, 1, 15), TransactionType.INCOME),
+            transaction("-200.00", LocalDate.of(2024, 1, 15), TransactionType.EXPENSE),
+            transaction("50.00", LocalDate.of(2024, 1, 16), TransactionType.EXPENSE),
+            transaction("300.00", LocalDate.of(2024, 1, 16), TransactionType.TRANSFER))));
+        assertRollupMatchesTransactions();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Transaction moved = transactionRepository.findById(saved.get(2).getId()).orElseThrow();
+            moved.setTransactionDate(LocalDate.of(2024, 1, 17));
+            moved.setAmount(new BigDecimal("75.00"));
+        });
+        assertRollupMatchesTransactions();
+
+        transactionTemplate.executeWithoutResult(status -> transactionRepository.deleteById(saved.get(0).getId()));
+        assertRollupMatchesTransactions();
+
+        List<Object[]> days = calendar();
+        assertThat(days).hasSize(3);
+        assertThat((BigDecimal) days.get(0)[3]).isEqualByComparingTo("-200.00");
+        assertThat((Long) days.get(1)[4]).isEqualTo(1L);
+        assertThat((BigDecimal) days.get(2)[2]).isEqualByComparingTo("75.00");
+    }
+
+    @Test
+    @DisplayName("A rolled back write leaves the rollup untouched")
+    void rollbackDiscardsDelta() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            transactionRepository.saveAndFlush(transaction("10.00", LocalDate.of(2024, 2, 1), TransactionType.EXPENSE));
+            throw new RuntimeException("boom");
+        })).hasMessage("boom");
+
+        assertThat(dailyAccountTotalRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("The consistency check detects and repairs drift; the backfill runs once")
+    void consistencyCheckRepairsDrift() {
+        transactionTemplate.execute(status -> transactionRepository.saveAll(List.of(
+            transaction("40.00", LocalDate.of(2024, 3, 1), TransactionType.EXPENSE),
+            transaction("60.00", LocalDate.of(2024, 3, 2), TransactionType.INCOME))));
+        jdbcTemplate.update("UPDATE daily_account_totals SET transaction_count = 7, net_amount = 0");
+        jdbcTemplate.update("INSERT INTO daily_account_totals (account_id, transaction_date, total_income, total_expense, net_amount, "
+            + "transaction_count) VALUES (?, ?, 1, 0, 1, 1)", -42L, LocalDate.of(2024, 3, 3));
+
+        DailyAccountTotalsService.ConsistencyReport dryRun = dailyAccountTotalsService.checkAll(false);
+        assertThat(dryRun.getDaysWithDrift()).isEqualTo(2);
+        assertThat(dryRun.getOrphanAccounts()).isEqualTo(1);
+        assertThat(dryRun.getDaysCorrected()).isZero();
+
+        dailyAccountTotalsService.ensureBackfilled();
+        assertRollupMatchesTransactions();
+        assertThat(dailyAccountTotalRepository.findOrphanAccountIds()).isEmpty();
+
+        jdbcTemplate.update("DELETE FROM daily_account_totals");
+        dailyAccountTotalsService.ensureBackfilled();
+        assertThat(dailyAccountTotalRepository.count()).isZero();
+
+        assertThat(dailyAccountTotalsService.rebuild(List.of(account.getId())).getDaysCorrected()).isEqualTo(2);
+        assertRollupMatchesTransactions();
+    }
+
+    @Test
+    @DisplayName("Concurrent rebuilds replace the rows instead of adding the same correction several times")
+    void concurrentRebuildsDoNotDoubleCount() throws Exception {
+        transactionTemplate.execute(status -> transactionRepository.saveAll(List.of(
+            transaction("40.00", LocalDate.of(2024, 4, 1), TransactionType.EXPENSE),
+            transaction("60.00", LocalDate.of(2024, 4, 2), TransactionType.INCOME))));
+        jdbcTemplate.update("UPDATE daily_account_totals SET transaction_count = transaction_count + 3, net_amount = net_amount - 10");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<DailyAccountTotalsService.ConsistencyReport>> rebuilds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            rebuilds.add(executor.submit(() -> {
+                start.await();
+                return dailyAccountTotalsService.rebuild(List.of(account.getId()));
+            }));
+        }
+        start.countDown();
+        for (Future<DailyAccountTotalsService.ConsistencyReport> rebuild : rebuilds) {
+            rebuild.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertRollupMatchesTransactions();
+    }
+
+    @Test
+    @DisplayName("A chunk of transactions written during a rebuild is neither lost nor counted twice")
+    void chunkWriteRacingRebuild() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                LocalDate day = LocalDate.of(2024, 5, 1).plusDays(round % 10);
+                // Drift on every existing day, so that the rebuild replaces the account's rows
+                jdbcTemplate.update("UPDATE daily_account_totals SET transaction_count = transaction_count + 1");
+
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> write = executor.submit(() -> {
+                    start.await();
+                    return transactionTemplate.execute(status -> transactionRepository.saveAll(List.of(
+                        transaction("12.50", day, TransactionType.EXPENSE),
+                        transaction("80.00", day.plusDays(10), TransactionType.INCOME))));
+                });
+                Future<?> rebuild = executor.submit(() -> {
+                    start.await();
+                    return dailyAccountTotalsService.rebuild(List.of(account.getId()));
+                });
+                start.countDown();
+                write.get(30, TimeUnit.SECONDS);
+                rebuild.get(30, TimeUnit.SECONDS);
+
+                // A stale write would leave drift behind for the next nightly check
+                assertThat(dailyAccountTotalsService.checkAll(false).getDaysWithDrift()).as("round %d", round).isZero();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertRollupMatchesTransactions();
+    }
+
+    @Test
+    @DisplayName("The backfill is skipped while another instance holds its lease")
+    void backfillRunsUnderLease() {
+        leaseService.runExclusively(DailyAccountTotalsService.BACKFILL_JOB, Duration.ofMinutes(5), Duration.ZERO, () -> {
+            dailyAccountTotalsService.ensureBackfilled();
+            return 0;
+        });
+        assertThat(markerRepository.existsById(DailyAccountTotalsService.BACKFILL_MARKER)).isFalse();
+
+        dailyAccountTotalsService.ensureBackfilled();
+        assertThat(markerRepository.existsById(DailyAccountTotalsService.BACKFILL_MARKER)).isTrue();
+    }
+
+    private void assertRollupMatchesTransactions() {
+        List<Object[]> expected = transactionRepository.findCalendarDataRawByAccountsAndDateRange(List.of(account), FROM, TO);
+        List<Object[]> actual = calendar();
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i)[0]).isEqualTo(expected.get(i)[0]);
+            for (int column = 1; column <= 3; column++) {
+                assertThat((BigDecimal) actual.get(i)[column]).isEqualByComparingTo((BigDecimal) expected.get(i)[column]);
+            }
+            assertThat(((Number) actual.get(i)[4]).longValue()).isEqualTo(((Number) expected.get(i)[4]).longValue());
+        }
+    }
+
+    private List<Object[]> calendar() {
+        return dailyAccountTotalRepository.findCalendarTotalsByAccountsAndDateRange(List.of(account.getId()), FROM, TO);
+    }
+
+    private Transaction transaction(String amount, LocalDate date, TransactionType type) {
+        return new Transaction(new BigDecimal(amount), "Rollup " + amount, date, type, account);
+    }
+}
@@ -0,0 +1,292 @@
+package com.buckpal.service.rollup;
+
+import com.buckpal.entity.Account;
+import com.buckpal.entity.BudgetCategoryKey;
+import com.buckpal.entity.Category;
+import com.buckpal.entity.Transaction;
+import com.buckpal.entity.Transaction.TransactionType;
+import com.buckpal.entity.User;
+import com.buckpal.repository.AccountRepository;
+import com.buckpal.repository.CategoryRepository;
+import com.buckpal.repository.DailyAccountTotalRepository;
+import com.buckpal.repository.MonthlyCategorySpendRepository;
+import com.buckpal.repository.SchedulerLeaseRepository;
+import com.buckpal.repository.TransactionRepository;
+import com.buckpal.repository.UserRepository;
+import com.buckpal.service.maintenance.SchedulerLeaseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The rollup is written at commit time, so these tests commit for real instead of rolling back.
+ */
+@DataJpaTest
+@Import({TransactionRollupListener.class, MonthlyCategorySpendService.class, SchedulerLeaseService.class,
+    MonthlyCategorySpendTest.MetricsConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ActiveProfiles("test")
+@DisplayName("Monthly category spend rollup")
+class MonthlyCategorySpendTest {
+
+    @TestConfiguration
+    static class MetricsConfiguration {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+    private static final YearMonth FEBRUARY = YearMonth.of(2024, 2);
+
+    @Autowired
+    private MonthlyCategorySpendService monthlyCategorySpendService;
+
+    @Autowired
+    private MonthlyCategorySpendRepository monthlyCategorySpendRepository;
+
+    @Autowired
+    private DailyAccountTotalRepository dailyAccountTotalRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User user;
+    private Account account;
+    private Category groceries;
+    private Category restaurants;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        user = userRepository.save(new User("Spend", "User", "spend@example.com", "hashedpassword"));
+        account = accountRepository.save(new Account("Checking", Account.AccountType.CHECKING, user));
+        groceries = category("Groceries", BudgetCategoryKey.NEEDS);
+        restaurants = category("Restaurants", BudgetCategoryKey.WANTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.deleteAll();
+        monthlyCategorySpendRepository.deleteAll();
+        dailyAccountTotalRepository.deleteAll();
+        categoryRepository.deleteAll();
+        accountRepository.deleteAll();
+        userRepository.deleteAll();
+        leaseRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Amount, date, type and category changes move spend between months and keys")
+    void rollupFollowsEveryWrite() {
+        List<Transaction> saved = transactionTemplate.execute(status -> transactionRepository.saveAll(List.of(
+            transaction("-40.00", LocalDate.of(2024, 1, 10), TransactionType.EXPENSE, groceries),
+            transaction("-25.50", LocalDate.of(2024, 1, 20), TransactionType.EXPENSE, restaurants),
+            transaction("2000.00", LocalDate.of(2024, 1, 25), TransactionType.INCOME, groceries),
+            transaction("-10.00", LocalDate.of(2024, 1, 26), TransactionType.EXPENSE, null))));
+        assertRollupMatchesTransactions(JANUARY);
+        assertThat(spent(JANUARY)).containsOnlyKeys(BudgetCategoryKey.NEEDS, BudgetCategoryKey.WANTS);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Transaction recategorized = transactionRepository.findById(saved.get(0).getId()).orElseThrow();
+            recategorized.setCategory(restaurants);
+            recategorized.setAmount(new BigDecimal("-45.00"));
+            Transaction moved = transactionRepository.findById(saved.get(1).getId()).orElseThrow();
+            moved.setTransactionDate(LocalDate.of(2024, 2, 1));
+            Transaction categorized = transactionRepository.findById(saved.get(3).getId()).orElseThrow();
+            categorized.setCategory(groceries);
+        });
+        assertRollupMatchesTransactions(JANUARY);
+        assertRollupMatchesTransactions(FEBRUARY);
+        assertThat(spent(JANUARY).get(BudgetCategoryKey.WANTS)).isEqualByComparingTo("45.00");
+        assertThat(spent(FEBRUARY).get(BudgetCategoryKey.WANTS)).isEqualByComparingTo("25.50");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionRepository.findById(saved.get(0).getId()).orElseThrow().setTransactionType(TransactionType.TRANSFER);
+            transactionRepository.deleteById(saved.get(1).getId());
+        });
+        assertRollupMatchesTransactions(JANUARY);
+        assertThat(spent(JANUARY)).containsOnlyKeys(BudgetCategoryKey.NEEDS);
+        assertThat(spent(FEBRUARY)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Reads inside a transaction include its own writes exactly once")
+    void readsIncludeUncommittedWrites() {
+        List<BigDecimal> readsInTransaction = transactionTemplate.execute(status -> {
+            transactionRepository.save(transaction("-12.00", LocalDate.of(2024, 1, 5), TransactionType.EXPENSE, groceries));
+            BigDecimal first = spent(JANUARY).get(BudgetCategoryKey.NEEDS);
+            transactionRepository.save(transaction("-8.00", LocalDate.of(2024, 1, 6), TransactionType.EXPENSE, groceries));
+            return List.of(first, spent(JANUARY).get(BudgetCategoryKey.NEEDS));
+        });
+
+        assertThat(readsInTransaction.get(0)).isEqualByComparingTo("12.00");
+        assertThat(readsInTransaction.get(1)).isEqualByComparingTo("20.00");
+        assertThat(spent(JANUARY).get(BudgetCategoryKey.NEEDS)).isEqualByComparingTo("20.00");
+        assertRollupMatchesTransactions(JANUARY);
+    }
+
+    @Test
+    @DisplayName("Remapping a category is repaired by rebuilding its users")
+    void remappedCategoryIsRebuilt() {
+        transactionTemplate.execute(status -> transactionRepository.saveAll(List.of(
+            transaction("-30.00", LocalDate.of(2024, 1, 3), TransactionType.EXPENSE, groceries),
+            transaction("-20.00", LocalDate.of(2024, 1, 4), TransactionType.EXPENSE, restaurants))));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Category remapped = categoryRepository.findById(groceries.getId()).orElseThrow();
+            remapped.setBudgetCategoryKey(BudgetCategoryKey.WANTS);
+        });
+        assertThat(monthlyCategorySpendService.checkAll(false).getRowsWithDrift()).isEqualTo(2);
+
+        MonthlyCategorySpendService.ConsistencyReport report =
+            monthlyCategorySpendService.rebuildForCategories(List.of(groceries.getId()));
+
+        assertThat(report.getUsersChecked()).isEqualTo(1);
+        assertThat(report.getRowsCorrected()).isEqualTo(2);
+        assertRollupMatchesTransactions(JANUARY);
+        assertThat(spent(JANUARY)).containsOnlyKeys(BudgetCategoryKey.WANTS);
+        assertThat(spent(JANUARY).get(BudgetCategoryKey.WANTS)).isEqualByComparingTo("50.00");
+    }
+
+    @Test
+    @DisplayName("Concurrent rebuilds of a user replace the rows instead of adding the same correction several times")
+    void concurrentRebuildsDoNotDoubleCount() throws Exception {
+        transactionTemplate.execute(status -> transactionRepository.saveAll(List.of(
+            transaction("-30.00", LocalDate.of(2024, 1, 3), TransactionType.EXPENSE, groceries),
+            transaction("-20.00", LocalDate.of(2024, 1, 4), TransactionType.EXPENSE, restaurants))));
+        jdbcTemplate.update("UPDATE monthly_category_spend SET spent_amount = spent_amount + 15, transaction_count = transaction_count + 1");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MonthlyCategorySpendService.ConsistencyReport>> rebuilds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            rebuilds.add(executor.submit(() -> {
+                start.await();
+                return monthlyCategorySpendService.rebuild(List.of(user.getId()));
+            }));
+        }
+        start.countDown();
+        for (Future<MonthlyCategorySpendService.ConsistencyReport> rebuild : rebuilds) {
+            rebuild.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertRollupMatchesTransactions(JANUARY);
+        assertThat(spent(JANUARY).get(BudgetCategoryKey.NEEDS)).isEqualByComparingTo("30.00");
+    }
+
+    @Test
+    @DisplayName("A category reassignment committed during a rebuild is neither lost nor counted twice")
+    void reassignmentRacingRebuild() throws Exception {
+        Transaction moved = transactionTemplate.execute(status -> transactionRepository.saveAll(List.of(
+            transaction("-30.00", LocalDate.of(2024, 1, 3), TransactionType.EXPENSE, groceries),
+            transaction("-20.00", LocalDate.of(2024, 1, 4), TransactionType.EXPENSE, restaurants)))).get(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                Category target = round % 2 == 0 ? restaurants : groceries;
+                // Drift, so that the rebuild replaces the user's rows
+                jdbcTemplate.update("UPDATE monthly_category_spend SET transaction_count = transaction_count + 1");
+
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> write = executor.submit(() -> {
+                    start.await();
+                    transactionTemplate.executeWithoutResult(status ->
+                        transactionRepository.findById(moved.getId()).orElseThrow().setCategory(target));
+                    return null;
+                });
+                Future<?> rebuild = executor.submit(() -> {
+                    start.await();
+                    return monthlyCategorySpendService.rebuild(List.of(user.getId()));
+                });
+                start.countDown();
+                write.get(30, TimeUnit.SECONDS);
+                rebuild.get(30, TimeUnit.SECONDS);
+
+                assertThat(monthlyCategorySpendService.checkAll(false).getRowsWithDrift()).as("round %d", round).isZero();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertRollupMatchesTransactions(JANUARY);
+    }
+
+    private void assertRollupMatchesTransactions(YearMonth month) {
+        Map<BudgetCategoryKey, BigDecimal> expected = new EnumMap<>(BudgetCategoryKey.class);
+        for (Object[] row : transactionRepository.calculateSpentAmountsByBudgetCategory(
+                user, month.atDay(1), month.atEndOfMonth())) {
+            expected.put((BudgetCategoryKey) row[0], (BigDecimal) row[1]);
+        }
+        Map<BudgetCategoryKey, BigDecimal> actual = spent(month);
+        assertThat(actual).containsOnlyKeys(expected.keySet());
+        expected.forEach((key, amount) -> assertThat(actual.get(key)).isEqualByComparingTo(amount));
+    }
+
+    private Map<BudgetCategoryKey, BigDecimal> spent(YearMonth month) {
+        return monthlyCategorySpendService.getSpentAmounts(user.getId(), month);
+    }
+
+    private Category category(String name, BudgetCategoryKey key) {
+        Category category = new Category(name, name);
+        category.setBudgetCategoryKey(key);
+        category.setUser(user);
+        return categoryRepository.save(category);
+    }
+
+    private Transaction transaction(String amount, LocalDate date, TransactionType type, Category category) {
+        Transaction transaction = new Transaction(new BigDecimal(amount), "Spend " + amount, date, type, account);
+        transaction.setCategory(category);
+        return transaction;
+    }
+}